@@ -0,0 +1,121 @@
+package client.nowhere.benchmark;
+
+import client.nowhere.model.CollaborativeTextPhase;
+import client.nowhere.model.GameSession;
+import client.nowhere.model.GameState;
+import client.nowhere.model.OutcomeType;
+import client.nowhere.model.PhaseType;
+import client.nowhere.model.Player;
+import client.nowhere.model.PlayerVote;
+import client.nowhere.model.Story;
+import client.nowhere.model.TextAddition;
+import client.nowhere.model.TextSubmission;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Builds game sessions of a given size for the benchmarks. Generation is seeded so every fork measures the same data.
+ */
+public final class GameFixtures {
+
+    private static final String[] OUTCOME_TYPES = { "success", "neutral", "failure" };
+
+    private GameFixtures() {
+    }
+
+    public static List<Player> players(String gameCode, int players) {
+        return IntStream.range(0, players)
+                .mapToObj(i -> {
+                    Player player = new Player(gameCode, "player" + i);
+                    player.setAuthorId(playerId(i));
+                    return player;
+                })
+                .toList();
+    }
+
+    public static String playerId(int index) {
+        return "player-" + index;
+    }
+
+    /**
+     * A phase whose submissions are spread across the players, each with a chain of additions. Roughly a third of the
+     * additions branch from an earlier submission, the way iterating on someone else's text does.
+     */
+    public static CollaborativeTextPhase phase(GameState gameState, int players, int submissions, int additions, long seed) {
+        Random random = new Random(seed);
+        CollaborativeTextPhase phase = new CollaborativeTextPhase(gameState.name(), "Where are we?", PhaseType.SUBMISSION);
+        for (int i = 0; i < submissions; i++) {
+            TextSubmission submission = new TextSubmission("submission-" + i, playerId(i % players), "Text " + i);
+            String outcomeType = OUTCOME_TYPES[i % OUTCOME_TYPES.length];
+            submission.setOutcomeType(outcomeType);
+            submission.setOutcomeTypeWithLabel(new OutcomeType("story-" + (i % players), outcomeType));
+            for (int a = 0; a < additions; a++) {
+                String parentId = i > 0 && random.nextInt(3) == 0 ? "submission-" + random.nextInt(i) : null;
+                submission.addTextAddition(new TextAddition(
+                        "addition-" + i + "-" + a,
+                        playerId(random.nextInt(players)),
+                        "Addition " + a,
+                        parentId,
+                        submission.getOutcomeTypeWithLabel()
+                ));
+            }
+            phase.addSubmission(submission);
+        }
+
+        for (int i = 0; i < submissions; i++) {
+            String submissionId = "submission-" + random.nextInt(submissions);
+            for (int viewer = 0; viewer < random.nextInt(3); viewer++) {
+                phase.recordSubmissionView(submissionId, playerId(random.nextInt(players)));
+            }
+        }
+        return phase;
+    }
+
+    /**
+     * Gives every player {@code votesPerPlayer} ranked votes over random submissions of the phase.
+     */
+    public static void vote(CollaborativeTextPhase phase, int players, int votesPerPlayer, long seed) {
+        Random random = new Random(seed);
+        int submissions = phase.getSubmissions().size();
+        for (int player = 0; player < players; player++) {
+            for (int rank = 1; rank <= votesPerPlayer; rank++) {
+                String submissionId = phase.getSubmissions().get(random.nextInt(submissions)).getSubmissionId();
+                phase.addPlayerVote(new PlayerVote("vote-" + player + "-" + rank, playerId(player), submissionId, rank));
+            }
+        }
+    }
+
+    public static GameSession gameSession(String gameCode, GameState gameState, int players, int submissions, int additions, long seed) {
+        GameSession gameSession = new GameSession(gameCode);
+        gameSession.setGameState(gameState);
+        gameSession.setPlayers(players(gameCode, players));
+        gameSession.addCollaborativeTextPhase(phase(gameState, players, submissions, additions, seed));
+        return gameSession;
+    }
+
+    /**
+     * Stories spread across the players. Every fourth story is a sequel of an earlier one.
+     */
+    public static List<Story> stories(String gameCode, int players, int stories) {
+        return IntStream.range(0, stories)
+                .mapToObj(i -> {
+                    Story story = new Story();
+                    story.setStoryId(storyId(i));
+                    story.setGameCode(gameCode);
+                    story.setAuthorId(playerId(i % players));
+                    story.setPlayerId(playerId((i + 1) % players));
+                    story.setPrompt("Prompt " + i);
+                    if (i > 0 && i % 4 == 0) {
+                        story.setPrequelStoryId(storyId(i / 2));
+                    }
+                    return story;
+                })
+                .toList();
+    }
+
+    public static String storyId(int index) {
+        return "story-" + index;
+    }
+}
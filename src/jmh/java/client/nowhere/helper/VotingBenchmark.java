@@ -0,0 +1,68 @@
+package client.nowhere.helper;
+
+import client.nowhere.benchmark.GameFixtures;
+import client.nowhere.model.CollaborativeTextPhase;
+import client.nowhere.model.GameSession;
+import client.nowhere.model.GameState;
+import client.nowhere.model.TextSubmission;
+import client.nowhere.model.VoteTally;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vote tallying at the end of a voting phase and the ordering of the ballot each player is shown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VotingBenchmark {
+
+    @Param({ "4", "8", "16" })
+    int players;
+
+    @Param({ "20", "100", "500" })
+    int submissions;
+
+    @Param({ "1", "3", "5" })
+    int votes;
+
+    @Param({ "MAKE_CHOICE_VOTING", "WHAT_WILL_BECOME_OF_US_VOTE_WINNER" })
+    GameState gameState;
+
+    private GameSession gameSession;
+    private CollaborativeTextPhase phase;
+
+    @Setup
+    public void setUp() {
+        gameSession = GameFixtures.gameSession("BENCH1", gameState, players, submissions, 3, 42);
+        phase = gameSession.getCollaborativeTextPhase(gameState.name());
+        GameFixtures.vote(phase, players, votes, 7);
+    }
+
+    @Benchmark
+    public List<TextSubmission> calculateWinnersFromVotes() {
+        return CollaborativeTextHelper.calculateWinnersFromVotes(phase, gameState, gameSession);
+    }
+
+    @Benchmark
+    public VoteTally tallyVotes() {
+        return VoteTally.of(phase.getPlayerVotes());
+    }
+
+    @Benchmark
+    public List<TextSubmission> sortForVoting() {
+        return phase.getSubmissions().stream()
+                .sorted(VotingHelper.VOTING_ORDER)
+                .limit(5)
+                .toList();
+    }
+}
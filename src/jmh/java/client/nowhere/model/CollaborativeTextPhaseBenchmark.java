@@ -0,0 +1,61 @@
+package client.nowhere.model;
+
+import client.nowhere.benchmark.GameFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request submission filtering, run by every player polling for something to add to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollaborativeTextPhaseBenchmark {
+
+    @Param({ "4", "8", "16" })
+    int players;
+
+    @Param({ "20", "100", "500" })
+    int submissions;
+
+    @Param({ "0", "3", "10" })
+    int additions;
+
+    private CollaborativeTextPhase phase;
+    private String playerId;
+    private List<String> excludeOutcomeTypeIds;
+
+    @Setup
+    public void setUp() {
+        phase = GameFixtures.phase(GameState.WHERE_ARE_WE, players, submissions, additions, 42);
+        playerId = GameFixtures.playerId(0);
+        excludeOutcomeTypeIds = List.of("story-0", playerId);
+    }
+
+    @Benchmark
+    public List<TextSubmission> availableSubmissionsForPlayer() {
+        return phase.getAvailableSubmissionsForPlayer(playerId, excludeOutcomeTypeIds);
+    }
+
+    /**
+     * What a poll asks for: the few least viewed submissions, newest first.
+     */
+    @Benchmark
+    public List<TextSubmission> nextSubmissionsForPlayer() {
+        return phase.getAvailableSubmissionsForPlayer(playerId, excludeOutcomeTypeIds, 3);
+    }
+
+    @Benchmark
+    public List<TextSubmission> submissionsWithoutParentSubmissions() {
+        return phase.getSubmissionsWithoutParentSubmissions();
+    }
+}
@@ -0,0 +1,85 @@
+package client.nowhere.model;
+
+import client.nowhere.benchmark.GameFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Story and player lookups a request makes against a loaded session, by linear scan and through the index.
+ * Each invocation looks up every player and {@code lookups} stories, the way a phase transition does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameSessionIndexBenchmark {
+
+    @Param({ "6" })
+    int players;
+
+    @Param({ "50", "200", "800" })
+    int stories;
+
+    @Param({ "10" })
+    int lookups;
+
+    private GameSession gameSession;
+    private List<String> storyIds;
+    private List<String> playerIds;
+
+    @Setup
+    public void setUp() {
+        gameSession = new GameSession("BENCH1");
+        gameSession.setPlayers(GameFixtures.players("BENCH1", players));
+        gameSession.setStories(new ArrayList<>(GameFixtures.stories("BENCH1", players, stories)));
+        storyIds = new ArrayList<>();
+        for (int i = 0; i < lookups; i++) {
+            storyIds.add(GameFixtures.storyId((int) ((long) i * 7919 % stories)));
+        }
+        playerIds = gameSession.getPlayers().stream().map(Player::getAuthorId).toList();
+        gameSession.getIndex();
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        for (String storyId : storyIds) {
+            blackhole.consume(gameSession.getStories().stream()
+                    .filter(story -> story.getStoryId().equals(storyId))
+                    .findFirst().orElse(null));
+        }
+        for (String playerId : playerIds) {
+            blackhole.consume(gameSession.getPlayers().stream()
+                    .filter(player -> player.getAuthorId().equals(playerId))
+                    .findFirst().orElse(null));
+        }
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        GameSessionIndex index = gameSession.getIndex();
+        for (String storyId : storyIds) {
+            blackhole.consume(index.getStory(storyId));
+        }
+        for (String playerId : playerIds) {
+            blackhole.consume(index.getPlayer(playerId));
+        }
+    }
+
+    /**
+     * Cost paid once per loaded or cached session before the indexed lookups are free.
+     */
+    @Benchmark
+    public GameSessionIndex build() {
+        return GameSessionIndex.of(gameSession);
+    }
+}
@@ -0,0 +1,84 @@
+package client.nowhere.model;
+
+import client.nowhere.benchmark.GameFixtures;
+import client.nowhere.config.FirestoreConfig;
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a game session into JSON for a response and back, and of mapping a stored game session document
+ * onto the model. The Firestore read goes through the in-memory stand-in, so it measures the client library's
+ * decoding and class mapping rather than the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameSessionMappingBenchmark {
+
+    @Param({ "4", "8", "16" })
+    int players;
+
+    @Param({ "20", "100", "500" })
+    int submissions;
+
+    private ObjectMapper objectMapper;
+    private GameSession gameSession;
+    private String gameSessionJson;
+    private Firestore db;
+    private DocumentSnapshot snapshot;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new FirestoreConfig().objectMapper();
+        gameSession = GameFixtures.gameSession("BENCH1", GameState.WHERE_ARE_WE, players, submissions, 3, 42);
+        gameSessionJson = objectMapper.writeValueAsString(gameSession);
+
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-bench")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(store, 0))
+                .build()
+                .getService();
+        DocumentReference gameSessionRef = db.collection("gameSessions").document("BENCH1");
+        gameSessionRef.set(gameSession).get();
+        snapshot = gameSessionRef.get().get();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Benchmark
+    public String jacksonWrite() throws Exception {
+        return objectMapper.writeValueAsString(gameSession);
+    }
+
+    @Benchmark
+    public GameSession jacksonRead() throws Exception {
+        return objectMapper.readValue(gameSessionJson, GameSession.class);
+    }
+
+    @Benchmark
+    public GameSession firestoreToObject() {
+        return snapshot.toObject(GameSession.class);
+    }
+}
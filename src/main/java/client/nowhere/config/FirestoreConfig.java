@@ -1,14 +1,16 @@
 package client.nowhere.config;
 
+import client.nowhere.metrics.MeteredFirestoreRpc;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.Firestore;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.FirebaseOptions;
-import com.google.firebase.cloud.FirestoreClient;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.FirestoreRpcFactory;
+import com.google.cloud.firestore.spi.v1.FirestoreRpc;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -20,16 +22,16 @@ import java.io.IOException;
 public class FirestoreConfig {
 
     @Bean
-    public Firestore firestore() throws IOException {
+    @Profile("!inmemory")
+    public Firestore firestore(MeterRegistry meterRegistry) throws IOException {
         GoogleCredentials credentials = GoogleCredentials.getApplicationDefault();
-        FirebaseOptions options = new FirebaseOptions.Builder()
+        FirestoreRpcFactory grpc = new FirestoreOptions.DefaultFirestoreRpcFactory();
+        return FirestoreOptions.newBuilder()
                 .setCredentials(credentials)
                 .setProjectId("nowhere-af065")
-                .build();
-        if (FirebaseApp.getApps().isEmpty()) {
-            FirebaseApp.initializeApp(options);
-        }
-        return FirestoreClient.getFirestore();
+                .setServiceRpcFactory(options -> MeteredFirestoreRpc.wrap((FirestoreRpc) grpc.create(options), meterRegistry))
+                .build()
+                .getService();
     }
 
     @Bean
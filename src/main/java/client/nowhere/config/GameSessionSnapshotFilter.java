@@ -0,0 +1,58 @@
+package client.nowhere.config;
+
+import client.nowhere.dao.GameSessionSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Gives every request its own {@link GameSessionSnapshot}, so it reads each game at most once. The snapshot names
+ * the endpoint that handled the request to the Firestore metrics of the calls made while serving it, and the loads
+ * it answered without reading are published as {@code nowhere.game-session.reused-loads}.
+ */
+@Component
+public class GameSessionSnapshotFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public GameSessionSnapshotFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        GameSessionSnapshot snapshot = GameSessionSnapshot.open(() -> endpoint(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            snapshot.close();
+            // Requests that never reached a controller, e.g. ones forwarded to another instance, read nothing here
+            String endpoint = endpoint(request);
+            if (endpoint != null && snapshot.getReusedLoads() > 0) {
+                Counter.builder("nowhere.game-session.reused-loads")
+                        .description("Session and field loads answered from documents the request had already read")
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry)
+                        .increment(snapshot.getReusedLoads());
+            }
+        }
+    }
+
+    /**
+     * @return The method and route pattern of the request, or null until a controller has been matched to it
+     */
+    private static String endpoint(HttpServletRequest request) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return route == null ? null : request.getMethod() + " " + route;
+    }
+}
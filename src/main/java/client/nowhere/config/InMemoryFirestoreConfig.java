@@ -0,0 +1,46 @@
+package client.nowhere.config;
+
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import client.nowhere.metrics.MeteredFirestoreRpc;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the service against an in-memory document store instead of Firestore, for local load testing.
+ * Enable with {@code spring.profiles.active=inmemory}; {@code nowhere.inmemory.latency-millis} adds a delay
+ * to every request so timings stay comparable with a real round trip.
+ */
+@Configuration
+@Profile("inmemory")
+public class InMemoryFirestoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryFirestoreConfig.class);
+    @Bean
+    public InMemoryDocumentStore inMemoryDocumentStore() {
+        return new InMemoryDocumentStore();
+    }
+
+    @Bean
+    public Firestore firestore(
+            InMemoryDocumentStore inMemoryDocumentStore,
+            MeterRegistry meterRegistry,
+            @Value("${nowhere.inmemory.latency-millis:0}") long latencyMillis
+    ) {
+        logger.info("Using the in-memory Firestore with {}ms of latency per request", latencyMillis);
+        return FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> MeteredFirestoreRpc.wrap(InMemoryFirestoreRpc.create(inMemoryDocumentStore, latencyMillis), meterRegistry))
+                .build()
+                .getService();
+    }
+}
@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
 import client.nowhere.helper.ActiveSessionHelper;
 import client.nowhere.helper.CollaborativeTextHelper;
 import client.nowhere.model.*;
@@ -15,16 +16,18 @@ import org.springframework.web.bind.annotation.*;
 public class ActiveSessionController {
 
     private final ActiveSessionHelper activeSessionHelper;
+    private final GameMutationExecutor gameMutationExecutor;
 
     @Autowired
-    public ActiveSessionController(ActiveSessionHelper activeSessionHelper) {
+    public ActiveSessionController(ActiveSessionHelper activeSessionHelper, GameMutationExecutor gameMutationExecutor) {
         this.activeSessionHelper = activeSessionHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
     }
 
     @PutMapping("/activePlayerSession")
     @ResponseBody
     public ActivePlayerSession update(@RequestBody ActivePlayerSession activeSession) {
-        return this.activeSessionHelper.update(activeSession);
+        return gameMutationExecutor.execute(activeSession.getGameCode(), () -> this.activeSessionHelper.update(activeSession));
     }
 
     @PutMapping("/activePlayerSession/next")
@@ -33,7 +36,7 @@ public class ActiveSessionController {
             @RequestParam String gameCode,
             @RequestParam String currentTurnPlayerId
     ) {
-        return this.activeSessionHelper.nextPlayerTurn(gameCode, currentTurnPlayerId);
+        return gameMutationExecutor.execute(gameCode, () -> this.activeSessionHelper.nextPlayerTurn(gameCode, currentTurnPlayerId));
     }
 
     @PutMapping("/activeGameStateSession")
@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameSessionCache;
 import client.nowhere.helper.GameSessionHelper;
 import client.nowhere.helper.StoryHelper;
 import client.nowhere.model.GameSession;
@@ -17,11 +18,13 @@ public class AdminController {
 
     private final StoryHelper storyHelper;
     private final GameSessionHelper gameSessionHelper;
+    private final GameSessionCache gameSessionCache;
 
     @Autowired
-    public AdminController(StoryHelper storyHelper, GameSessionHelper gameSessionHelper) {
+    public AdminController(StoryHelper storyHelper, GameSessionHelper gameSessionHelper, GameSessionCache gameSessionCache) {
         this.storyHelper = storyHelper;
         this.gameSessionHelper = gameSessionHelper;
+        this.gameSessionCache = gameSessionCache;
     }
 
     @PostMapping("/story")
@@ -46,4 +49,9 @@ public class AdminController {
     public GameSession createDebugGameSession(@RequestBody GameSession gameSession) {
         return this.gameSessionHelper.createDebugGameSession(gameSession);
     }
+
+    @DeleteMapping("/cache/game-session")
+    public void clearGameSessionCache() {
+        this.gameSessionCache.invalidateAll();
+    }
 }
@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
 import client.nowhere.helper.AdventureMapHelper;
 import client.nowhere.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,10 +13,12 @@ import java.util.List;
 public class AdventureMapController {
 
     private final AdventureMapHelper adventureMapHelper;
+    private final GameMutationExecutor gameMutationExecutor;
 
     @Autowired
-    public AdventureMapController(AdventureMapHelper adventureMapHelper) {
+    public AdventureMapController(AdventureMapHelper adventureMapHelper, GameMutationExecutor gameMutationExecutor) {
         this.adventureMapHelper = adventureMapHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
     }
 
     @GetMapping("/location")
@@ -39,7 +42,7 @@ public class AdventureMapController {
     @PostMapping("/location")
     @ResponseBody
     public List<Location> addLocation(@RequestParam String gameCode, @RequestBody Location location) {
-        return this.adventureMapHelper.addLocation(gameCode, location);
+        return gameMutationExecutor.execute(gameCode, () -> this.adventureMapHelper.addLocation(gameCode, location));
     }
 
     @PutMapping("/location")
@@ -47,7 +50,7 @@ public class AdventureMapController {
             @RequestParam String gameCode,
             @RequestBody Location location
     ) {
-        return this.adventureMapHelper.updateLocation(gameCode, location);
+        return gameMutationExecutor.execute(gameCode, () -> this.adventureMapHelper.updateLocation(gameCode, location));
     }
 
     @GetMapping("/display")
@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
 import client.nowhere.helper.CollaborativeTextHelper;
 import client.nowhere.helper.VotingHelper;
 import client.nowhere.model.*;
@@ -13,17 +14,19 @@ public class CollaborativeTextController {
 
     private final CollaborativeTextHelper collaborativeTextHelper;
     private final VotingHelper votingHelper;
+    private final GameMutationExecutor gameMutationExecutor;
 
     @Autowired
-    public CollaborativeTextController(CollaborativeTextHelper collaborativeTextHelper,  VotingHelper votingHelper) {
+    public CollaborativeTextController(CollaborativeTextHelper collaborativeTextHelper,  VotingHelper votingHelper, GameMutationExecutor gameMutationExecutor) {
         this.collaborativeTextHelper = collaborativeTextHelper;
         this.votingHelper = votingHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
     }
 
     @PostMapping("/collaborativeText")
     @ResponseBody
     public CollaborativeTextPhase submitTextAddition(@RequestBody TextAddition textAddition, @RequestParam String gameCode) {
-        return this.collaborativeTextHelper.submitTextAddition(gameCode, textAddition);
+        return gameMutationExecutor.execute(gameCode, () -> this.collaborativeTextHelper.submitTextAddition(gameCode, textAddition));
     }
 
     @GetMapping("/collaborativeText")
@@ -75,7 +78,7 @@ public class CollaborativeTextController {
     @PostMapping("/collaborativeText/votes")
     @ResponseBody
     public CollaborativeTextPhase submitPlayerVotes(@RequestBody List<PlayerVote> playerVotes, @RequestParam String gameCode) {
-        return this.votingHelper.submitPlayerVotes(gameCode, playerVotes);
+        return gameMutationExecutor.execute(gameCode, () -> this.votingHelper.submitPlayerVotes(gameCode, playerVotes));
     }
 
     @GetMapping("/collaborativeText/repercussionTypes")
@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
 import client.nowhere.helper.EndingHelper;
 import client.nowhere.model.Ending;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,9 +11,13 @@ import org.springframework.web.bind.annotation.*;
 public class EndingController {
 
     private final EndingHelper endingHelper;
+    private final GameMutationExecutor gameMutationExecutor;
 
     @Autowired
-    public EndingController(EndingHelper endingHelper) { this.endingHelper = endingHelper; }
+    public EndingController(EndingHelper endingHelper, GameMutationExecutor gameMutationExecutor) {
+        this.endingHelper = endingHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
+    }
 
     @GetMapping("/ending")
     public Ending getAuthorEnding(
@@ -27,7 +32,7 @@ public class EndingController {
             @RequestParam String gameCode,
             @RequestBody Ending ending
     ) {
-        return endingHelper.updateAuthorEnding(gameCode, ending);
+        return gameMutationExecutor.execute(gameCode, () -> endingHelper.updateAuthorEnding(gameCode, ending));
     }
 
     @GetMapping("/adventure-ending")
@@ -1,27 +1,45 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
+import client.nowhere.helper.GameSessionEventHelper;
 import client.nowhere.helper.GameSessionHelper;
+import client.nowhere.helper.PhaseTransitionPipeline;
 import client.nowhere.model.GameMode;
 import client.nowhere.model.GameSession;
+import client.nowhere.model.PhaseTransitionStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.CompletableFuture;
 
 @CrossOrigin(maxAge = 3600)
 @RestController
 public class GameSessionController {
 
     private final GameSessionHelper gameSessionHelper;
+    private final GameSessionEventHelper gameSessionEventHelper;
+    private final GameMutationExecutor gameMutationExecutor;
+    private final PhaseTransitionPipeline phaseTransitionPipeline;
 
     @Autowired
-    public GameSessionController(GameSessionHelper gameSessionHelper) {
+    public GameSessionController(GameSessionHelper gameSessionHelper, GameSessionEventHelper gameSessionEventHelper, GameMutationExecutor gameMutationExecutor, PhaseTransitionPipeline phaseTransitionPipeline) {
         this.gameSessionHelper = gameSessionHelper;
+        this.gameSessionEventHelper = gameSessionEventHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
+        this.phaseTransitionPipeline = phaseTransitionPipeline;
     }
 
     @GetMapping("/game")
     @ResponseBody
-    public GameSession get(@RequestParam String gameCode) {
-        return this.gameSessionHelper.getGame(gameCode);
+    public CompletableFuture<GameSession> get(@RequestParam String gameCode) {
+        return this.gameSessionHelper.getGameAsync(gameCode);
+    }
+
+    @GetMapping(value = "/game/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam String gameCode) {
+        return this.gameSessionEventHelper.subscribe(gameCode);
     }
 
     @PostMapping(value = "/game", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -41,13 +59,19 @@ public class GameSessionController {
     @ResponseBody
     public GameSession update(@RequestParam(required = false) boolean isTestMode,
                               @RequestBody GameSession gameSession) {
-        return this.gameSessionHelper.updateGameSession(gameSession, isTestMode);
+        return gameMutationExecutor.execute(gameSession.getGameCode(), () -> this.gameSessionHelper.updateGameSession(gameSession, isTestMode));
     }
 
     @PutMapping(value = "/game/next", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
     public GameSession nextGameState(@RequestParam String gameCode) {
-        return this.gameSessionHelper.updateToNextGameState(gameCode);
+        return gameMutationExecutor.execute(gameCode, () -> this.gameSessionHelper.updateToNextGameState(gameCode));
+    }
+
+    @GetMapping("/game/transition")
+    @ResponseBody
+    public PhaseTransitionStatus getTransition(@RequestParam String gameCode) {
+        return this.phaseTransitionPipeline.getStatus(gameCode);
     }
 
 }
@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
 import client.nowhere.helper.GameSessionHelper;
 import client.nowhere.model.Player;
 import client.nowhere.model.PlayerClass;
@@ -16,10 +17,12 @@ import java.util.List;
 public class PlayerController {
 
     private final GameSessionHelper gameSessionHelper;
+    private final GameMutationExecutor gameMutationExecutor;
 
     @Autowired
-    public PlayerController(GameSessionHelper gameSessionHelper) {
+    public PlayerController(GameSessionHelper gameSessionHelper, GameMutationExecutor gameMutationExecutor) {
         this.gameSessionHelper = gameSessionHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
     }
 
     @GetMapping("/player/classes")
@@ -51,7 +54,7 @@ public class PlayerController {
             throw new Exception("Must include user name and game code");
         }
 
-        Player joinedPlayer = this.gameSessionHelper.joinPlayer(player);
+        Player joinedPlayer = gameMutationExecutor.execute(player.getGameCode(), () -> this.gameSessionHelper.joinPlayer(player));
         return joinedPlayer;
     }
 
@@ -62,7 +65,7 @@ public class PlayerController {
             throw new Exception("Must include user name and game code");
         }
 
-        Player updatedPlayer = this.gameSessionHelper.updatePlayer(player);
+        Player updatedPlayer = gameMutationExecutor.execute(player.getGameCode(), () -> this.gameSessionHelper.updatePlayer(player));
         return updatedPlayer;
     }
 }
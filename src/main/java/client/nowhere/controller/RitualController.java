@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
 import client.nowhere.helper.RitualHelper;
 import client.nowhere.model.Option;
 import client.nowhere.model.Story;
@@ -14,10 +15,12 @@ import java.util.List;
 public class RitualController {
 
     private final RitualHelper ritualHelper;
+    private final GameMutationExecutor gameMutationExecutor;
 
     @Autowired
-    public RitualController(RitualHelper ritualHelper) {
+    public RitualController(RitualHelper ritualHelper, GameMutationExecutor gameMutationExecutor) {
         this.ritualHelper = ritualHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
     }
 
     @GetMapping("/ritual")
@@ -35,7 +38,7 @@ public class RitualController {
     @PutMapping("/ritual")
     @ResponseBody
     public Option update(@RequestBody Story ritualStory) {
-        return ritualHelper.update(ritualStory);
+        return gameMutationExecutor.execute(ritualStory.getGameCode(), () -> ritualHelper.update(ritualStory));
     }
 
     @GetMapping("/victory")
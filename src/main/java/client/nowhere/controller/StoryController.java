@@ -1,5 +1,6 @@
 package client.nowhere.controller;
 
+import client.nowhere.dao.GameMutationExecutor;
 import client.nowhere.helper.StoryHelper;
 import client.nowhere.model.RepercussionOutput;
 import client.nowhere.model.ResponseObject;
@@ -14,23 +15,25 @@ import java.util.List;
 public class StoryController {
 
     private final StoryHelper storyHelper;
+    private final GameMutationExecutor gameMutationExecutor;
 
     @Autowired
-    public StoryController(StoryHelper storyHelper) {
+    public StoryController(StoryHelper storyHelper, GameMutationExecutor gameMutationExecutor) {
         this.storyHelper = storyHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
     }
 
     @PostMapping("/story")
     @ResponseBody
     public Story create(@RequestBody Story story) {
-        Story updatedStory = this.storyHelper.createStory(story);
+        Story updatedStory = gameMutationExecutor.execute(story.getGameCode(), () -> this.storyHelper.createStory(story));
         return updatedStory;
     }
 
     @PutMapping("/story")
     @ResponseBody
     public Story update(@RequestBody Story story) {
-        Story updatedStory = this.storyHelper.updateStory(story);
+        Story updatedStory = gameMutationExecutor.execute(story.getGameCode(), () -> this.storyHelper.updateStory(story));
         return updatedStory;
     }
 
@@ -61,14 +64,14 @@ public class StoryController {
         if(gameCode == null || playerId == null) {
             throw new IllegalArgumentException("Either gameCode or playerId must be provided.");
         }
-        return this.storyHelper.storePlayerStory(gameCode, playerId, locationId);
+        return gameMutationExecutor.execute(gameCode, () -> this.storyHelper.storePlayerStory(gameCode, playerId, locationId));
     }
 
     @PutMapping("/adventure/repercussions")
     @ResponseBody
     public RepercussionOutput triggerAdventureRepercussions(
             @RequestBody Story story) {
-        return this.storyHelper.triggerRepercussions(story);
+        return gameMutationExecutor.execute(story.getGameCode(), () -> this.storyHelper.triggerRepercussions(story));
     }
 
     @GetMapping("/adventure/played")
@@ -2,6 +2,7 @@ package client.nowhere.controller;
 
 import client.nowhere.exception.ValidationException;
 import client.nowhere.helper.AdventureMapHelper;
+import client.nowhere.helper.SessionHelper;
 import client.nowhere.helper.UserProfileHelper;
 import client.nowhere.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,16 +15,37 @@ public class UserProfileController {
 
     UserProfileHelper userProfileHelper;
     AdventureMapHelper adventureMapHelper;
+    SessionHelper sessionHelper;
 
     @Autowired
-    public UserProfileController(UserProfileHelper userProfileHelper, AdventureMapHelper adventureMapHelper) {
+    public UserProfileController(UserProfileHelper userProfileHelper, AdventureMapHelper adventureMapHelper, SessionHelper sessionHelper) {
         this.userProfileHelper = userProfileHelper;
         this.adventureMapHelper = adventureMapHelper;
+        this.sessionHelper = sessionHelper;
     }
 
+    @PostMapping(value = "/user-profile/login", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public SessionToken login(@RequestBody UserProfile credentials) {
+        if (credentials.getEmail().isEmpty() || credentials.getPassword().isEmpty()) {
+            throw new ValidationException("Email and password are required");
+        }
+
+        return this.sessionHelper.login(credentials.getEmail(), credentials.getPassword());
+    }
+
+    /**
+     * Reads the profile of a session token's owner, or of an email and password for clients that do not log in yet.
+     */
     @GetMapping("/user-profile")
     @ResponseBody
-    public UserProfile get(@RequestParam String email, @RequestParam String password) {
+    public UserProfile get(@RequestHeader(value = "Authorization", required = false) String authorization,
+                           @RequestParam(required = false) String email,
+                           @RequestParam(required = false) String password) {
+        if (authorization != null) {
+            return this.userProfileHelper.get(this.sessionHelper.authenticate(authorization));
+        }
+        requireCredentials(email, password);
         return this.userProfileHelper.get(email, password);
     }
 
@@ -39,10 +61,15 @@ public class UserProfileController {
 
     @GetMapping("/save-game")
     @ResponseBody
-    public SaveGame get(@RequestParam String email,
-                        @RequestParam String password,
+    public SaveGame get(@RequestHeader(value = "Authorization", required = false) String authorization,
+                        @RequestParam(required = false) String email,
+                        @RequestParam(required = false) String password,
                         @RequestParam String adventureId,
                         @RequestParam String saveGameId) {
+        if (authorization != null) {
+            return this.userProfileHelper.getSaveGame(this.sessionHelper.authenticate(authorization), adventureId, saveGameId);
+        }
+        requireCredentials(email, password);
         return this.userProfileHelper.getSaveGame(email, password, adventureId, saveGameId);
     }
 
@@ -145,4 +172,10 @@ public class UserProfileController {
     ) {
         return this.adventureMapHelper.get(userProfileId, adventureId);
     }
+
+    private static void requireCredentials(String email, String password) {
+        if (email == null || email.isEmpty() || password == null || password.isEmpty()) {
+            throw new ValidationException("A session token, or an email and password, is required");
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package client.nowhere.dao;
 
+import client.nowhere.dao.DoneMarkBatcher.DoneMark;
 import client.nowhere.exception.ResourceException;
 import client.nowhere.model.ActiveGameStateSession;
 import client.nowhere.model.ActivePlayerSession;
@@ -11,24 +12,70 @@ import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.WriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 @Component
 public class ActiveSessionDAO {
 
+    private static final Logger logger = LoggerFactory.getLogger(ActiveSessionDAO.class);
     private final Firestore db;
+    private final GameSessionCache gameSessionCache;
+    private final GameSessionStore gameSessionStore;
+    private final DoneMarkBatcher doneMarkBatcher;
+
+    // The batch sizes' count is the number of batches, their total the number of marks
+    private final DistributionSummary batchSizes;
+    // Attempts above the number of batches are transactions Firestore retried because of contention
+    private final Counter transactionAttempts;
+    private final Counter failedBatches;
 
     @Autowired
-    public ActiveSessionDAO(Firestore db) {
+    public ActiveSessionDAO(
+            Firestore db,
+            GameSessionCache gameSessionCache,
+            GameSessionStore gameSessionStore,
+            MeterRegistry meterRegistry,
+            @Value("${nowhere.active-session.done-mark-window-millis:5}") long doneMarkWindowMillis
+    ) {
         this.db = db;
+        this.gameSessionCache = gameSessionCache;
+        this.gameSessionStore = gameSessionStore;
+        this.doneMarkBatcher = new DoneMarkBatcher(doneMarkWindowMillis, this::writeDoneMarks);
+        this.batchSizes = DistributionSummary.builder("nowhere.done-marks.batch.size")
+                .description("Player done marks written together in one transaction")
+                .register(meterRegistry);
+        this.transactionAttempts = Counter.builder("nowhere.done-marks.transaction.attempts")
+                .description("Transaction attempts writing done-mark batches, retries included")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("nowhere.done-marks.batches.failed")
+                .description("Done-mark batches that could not be written")
+                .register(meterRegistry);
     }
 
     public ActivePlayerSession update(ActivePlayerSession activeSession) {
         DocumentReference gameSessionRef = db.collection("gameSessions").document(activeSession.getGameCode());
 
+        GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.mergeField(gameSessionRef, "activePlayerSession", ActivePlayerSession.class, existingSession -> {
+                existingSession.update(activeSession);
+                return existingSession;
+            });
+            unitOfWork.afterCommit(() -> gameSessionCache.invalidate(activeSession.getGameCode()));
+            return activeSession;
+        }
+
         ActivePlayerSession activeSessionToUpdate = new ActivePlayerSession();
         try {
             DocumentSnapshot gameSession = FirestoreDAOUtil.getGameSession(gameSessionRef);
@@ -38,8 +85,8 @@ public class ActiveSessionDAO {
 
             ApiFuture<WriteResult> result = gameSessionRef.update("activePlayerSession", activeSessionToUpdate);
             WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
-            System.out.println("Object " + result.get().toString());
+            gameSessionCache.invalidate(activeSession.getGameCode());
+            logger.debug("Updated the active player session of game {} at {}", activeSession.getGameCode(), asyncResponse.getUpdateTime());
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
             throw new ResourceException("There was an issue reading the game session", e);
@@ -47,50 +94,93 @@ public class ActiveSessionDAO {
         return activeSessionToUpdate;
     }
 
+    /**
+     * Marks a player as done with the current phase. Marks for the same game that arrive within the
+     * coalescing window are written together in one transaction.
+     * @return true if every player is done once this mark is applied and the game should progress. Marks are
+     * applied in the order they arrived, as if written one by one: the mark that completes the phase gets true, and
+     * so does every mark applied after it, including one from a player who was already done. A mark for a phase
+     * the game has moved on from gets false.
+     */
     public boolean update(String gameCode, GameState gamePhase, String authorId, boolean isDone) {
+        try {
+            return doneMarkBatcher.submit(gameCode, gamePhase, authorId, isDone).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceException("Failed to update game state session", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResourceException resourceException) {
+                throw resourceException;
+            }
+            throw new ResourceException("Failed to update game state session", e.getCause());
+        }
+    }
+
+    private void writeDoneMarks(String gameCode, List<DoneMark> batch) {
         DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
+        batchSizes.record(batch.size());
 
         try {
-            // Use Firestore transaction to ensure atomicity and prevent race conditions
-            return db.runTransaction(transaction -> {
-                DocumentSnapshot gameSession = transaction.get(gameSessionRef).get();
-                GameSession game = FirestoreDAOUtil.mapGameSession(gameSession);
+            gameSessionStore.ensureMigrated(gameCode);
+            // Use Firestore transaction to ensure atomicity; the results are rebuilt on every retry
+            List<Boolean> results = db.runTransaction(transaction -> {
+                transactionAttempts.increment();
+                GameSession game = gameSessionStore.loadWithPlayersInTransaction(gameCode, transaction);
                 ActiveGameStateSession activeSessionToUpdate = game.getActiveGameStateSession();
-                
-                // Early return if player is already done (idempotency check)
-                Boolean currentDoneStatus = activeSessionToUpdate.getIsPlayerDone().get(authorId);
-                if ((currentDoneStatus != null && currentDoneStatus) || !gamePhase.equals(game.getGameState())) {
-                    // Player already done or game phase has changed, return false (no progression needed)
-                    if (currentDoneStatus != null && currentDoneStatus) {
-                        System.out.println("Player " + authorId + " already marked as done, skipping duplicate update");
-                        return game.areAllPlayersDone();
-                    } else {
-                        System.out.println("Player " + authorId + " update skipped - game phase mismatch. Expected: " + gamePhase + ", Current: " + game.getGameState());
+
+                List<Boolean> markResults = new ArrayList<>();
+                boolean changed = false;
+                for (DoneMark mark : batch) {
+                    // Early return if player is already done (idempotency check)
+                    Boolean currentDoneStatus = activeSessionToUpdate.getIsPlayerDone().get(mark.authorId());
+                    if ((currentDoneStatus != null && currentDoneStatus) || !mark.gamePhase().equals(game.getGameState())) {
+                        // Player already done or game phase has changed, return false (no progression needed)
+                        if (currentDoneStatus != null && currentDoneStatus) {
+                            logger.debug("Player {} already marked as done, skipping duplicate update", mark.authorId());
+                            markResults.add(game.areAllPlayersDone());
+                        } else {
+                            logger.debug("Player {} update skipped - game phase mismatch. Expected: {}, Current: {}", mark.authorId(), mark.gamePhase(), game.getGameState());
+                            markResults.add(false);
+                        }
+                        continue;
                     }
-                    return false; // No progression needed
-                }
-                
-                // Process the update only if player is not already done
-                if (isDone) {
-                    activeSessionToUpdate.getIsPlayerDone().put(authorId, true);
-                    System.out.println("Player " + authorId + " marked as done");
-                    
-                    // Check if all players are done - if so, we'll need to progress the game
-                    if (game.areAllPlayersDone()) {
-                        System.out.println("All players are done - game progression needed");
-                        // Don't progress here - just mark that progression is needed
-                        // The helper layer will handle the actual progression
+
+                    // Process the update only if player is not already done
+                    if (mark.isDone()) {
+                        activeSessionToUpdate.getIsPlayerDone().put(mark.authorId(), true);
+                        changed = true;
+                        logger.debug("Player {} marked as done", mark.authorId());
+
+                        // Check if all players are done - if so, we'll need to progress the game
+                        if (game.areAllPlayersDone()) {
+                            logger.debug("All players are done - game progression needed");
+                            // Don't progress here - just mark that progression is needed
+                            // The helper layer will handle the actual progression
+                        }
                     }
+                    markResults.add(game.areAllPlayersDone());
                 }
-                
+
                 // Update only the active game state session
-                transaction.update(gameSessionRef, "activeGameStateSession", activeSessionToUpdate);
-                return game.areAllPlayersDone(); // Return true if progression needed, false otherwise
+                if (changed) {
+                    transaction.update(gameSessionRef, "activeGameStateSession", activeSessionToUpdate);
+                }
+                return markResults;
             }).get();
-            
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            throw new ResourceException("Failed to update game state session", e);
+            logger.error("Failed to mark {} players as done", batch.size(), e);
+            failedBatches.increment();
+            ResourceException failure = new ResourceException("Failed to update game state session", e);
+            batch.forEach(mark -> mark.result().completeExceptionally(failure));
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            throw e;
+        } finally {
+            gameSessionCache.invalidate(gameCode);
         }
     }
 }
@@ -6,6 +6,7 @@ import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.WriteResult;
 import com.google.cloud.storage.Storage;
@@ -27,51 +28,45 @@ public class AdventureMapDAO {
 
     private static final Logger logger = LoggerFactory.getLogger(AdventureMapDAO.class);
     private final Firestore db;
+    private final GameSessionCache gameSessionCache;
+    private final SaveGameStore saveGameStore;
 
     @Autowired
-    public AdventureMapDAO(Firestore db) {
+    public AdventureMapDAO(Firestore db, GameSessionCache gameSessionCache, SaveGameStore saveGameStore) {
         this.db = db;
+        this.gameSessionCache = gameSessionCache;
+        this.saveGameStore = saveGameStore;
     }
 
     public List<Location> getLocations(String gameCode) {
-        DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-        try {
-            GameSession gameSession = FirestoreDAOUtil.mapGameSession(FirestoreDAOUtil.getGameSession(gameSessionRef));
-            return gameSession.getAdventureMap().getLocations();
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            throw new ResourceException("There was an issue reading the game session for locations", e);
-        }
+        return readAdventureMap(gameCode).getLocations();
     }
 
     public GameSessionDisplay getGameSessionDisplay(String gameCode) {
-        DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-        try {
-            GameSession gameSession = FirestoreDAOUtil.mapGameSession(FirestoreDAOUtil.getGameSession(gameSessionRef));
-            return gameSession.getAdventureMap() == null
-                    ? new GameSessionDisplay()
-                    : gameSession.getAdventureMap().getGameSessionDisplay();
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            throw new ResourceException("There was an issue reading the game session for locations", e);
+        AdventureMap adventureMap = readAdventureMap(gameCode);
+        return adventureMap == null
+                ? new GameSessionDisplay()
+                : adventureMap.getGameSessionDisplay();
+    }
+
+    /**
+     * Reads the session's adventure map from the cached session if there is one, otherwise reads only the adventureMap field.
+     */
+    private AdventureMap readAdventureMap(String gameCode) {
+        GameSession cached = gameSessionCache.getIfPresent(gameCode);
+        if (cached != null) {
+            return cached.getAdventureMap();
         }
+        return FirestoreDAOUtil.mapField(db.collection("gameSessions").document(gameCode), "adventureMap", AdventureMap.class);
     }
 
     public void updateGameSessionDisplay(String gameCode, GameSessionDisplay display) {
         DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
         try {
-            // Get the current game session
-            GameSession gameSession = FirestoreDAOUtil.mapGameSession(FirestoreDAOUtil.getGameSession(gameSessionRef));
-            
-            // Update the GameSessionDisplay in the AdventureMap
-            if (gameSession.getAdventureMap() == null) {
-                gameSession.setAdventureMap(new AdventureMap());
-            }
-            gameSession.getAdventureMap().setGameSessionDisplay(display);
-            
-            // Update the game session in Firestore
-            ApiFuture<WriteResult> result = gameSessionRef.set(gameSession);
+            // Update only the GameSessionDisplay in the AdventureMap
+            ApiFuture<WriteResult> result = gameSessionRef.update("adventureMap.gameSessionDisplay", display);
             result.get();
+            gameSessionCache.invalidate(gameCode);
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
             throw new ResourceException("There was an issue updating the game session display", e);
@@ -160,8 +155,7 @@ public class AdventureMapDAO {
 
     public AdventureMap get(String gameCode) {
         DocumentReference gameSessionAdventureMapRef = db.collection("gameSessions").document(gameCode);
-        GameSession gameSession = FirestoreDAOUtil.mapDatabaseObject(gameSessionAdventureMapRef, GameSession.class);
-        AdventureMap adventureMap = gameSession.getAdventureMap();
+        AdventureMap adventureMap = FirestoreDAOUtil.mapField(gameSessionAdventureMapRef, "adventureMap", AdventureMap.class);
         System.out.println("Update time : " + adventureMap.toString());
         return adventureMap;
     }
@@ -174,6 +168,17 @@ public class AdventureMapDAO {
      * @return The updated AdventureMap
      */
     public AdventureMap updateGameSessionAdventureMap(String gameCode, AdventureMap adventureMapUpdates) {
+        GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+        if (unitOfWork != null) {
+            // Merged at commit, so the updates are returned rather than the merged map
+            unitOfWork.mergeField(db.collection("gameSessions").document(gameCode), "adventureMap", AdventureMap.class, existingAdventureMap -> {
+                existingAdventureMap.updateFrom(adventureMapUpdates);
+                return existingAdventureMap;
+            });
+            unitOfWork.afterCommit(() -> gameSessionCache.invalidate(gameCode));
+            return adventureMapUpdates;
+        }
+
         AdventureMap existingAdventureMap = get(gameCode);
         existingAdventureMap.updateFrom(adventureMapUpdates);
         updateSessionAdventureMap(gameCode, existingAdventureMap);
@@ -182,10 +187,10 @@ public class AdventureMapDAO {
 
     public AdventureMap update(String userProfileId, AdventureMap updatedAdventureMap) {
         try {
+            // Only this map's field is written, leaving the profile's other maps and its save games alone
             DocumentReference globalAdventureMapRef = db.collection("userProfiles").document(userProfileId);
-            UserProfile userProfile = FirestoreDAOUtil.mapDatabaseObject(globalAdventureMapRef, UserProfile.class);
-            userProfile.getMaps().get(updatedAdventureMap.getAdventureId()).setAdventureMap(updatedAdventureMap);
-            ApiFuture<WriteResult> result = globalAdventureMapRef.set(userProfile);
+            ApiFuture<WriteResult> result = globalAdventureMapRef.update(
+                    FieldPath.of("maps", updatedAdventureMap.getAdventureId(), "adventureMap"), updatedAdventureMap);
             WriteResult asyncResponse = result.get();
             System.out.println("Update time : " + result.get().toString());
             return updatedAdventureMap;
@@ -198,10 +203,9 @@ public class AdventureMapDAO {
     public AdventureMap updateSessionAdventureMap(String gameCode, AdventureMap updatedAdventureMap) {
         try {
             DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            GameSession gameSession = FirestoreDAOUtil.mapDatabaseObject(gameSessionRef, GameSession.class);
-            gameSession.setAdventureMap(updatedAdventureMap);
-            ApiFuture<WriteResult> result = gameSessionRef.set(gameSession);
+            ApiFuture<WriteResult> result = gameSessionRef.update("adventureMap", updatedAdventureMap);
             WriteResult asyncResponse = result.get();
+            gameSessionCache.invalidate(gameCode);
             System.out.println("Update time : " + result.get().toString());
             return updatedAdventureMap;
         } catch (InterruptedException | ExecutionException e) {
@@ -212,13 +216,7 @@ public class AdventureMapDAO {
 
     public AdventureMap create(String userProfileId, AdventureMap adventureMap) {
         try {
-            DocumentReference globalAdventureMapRef = db.collection("userProfiles").document(userProfileId);
-            UserProfile userProfile = FirestoreDAOUtil.mapDatabaseObject(globalAdventureMapRef, UserProfile.class);
-            ProfileAdventureMap profileAdventureMap = new ProfileAdventureMap(adventureMap);
-            userProfile.getMaps().put(adventureMap.getAdventureId(), profileAdventureMap);
-            ApiFuture<WriteResult> result = globalAdventureMapRef.set(userProfile);
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
+            saveGameStore.addAdventureMap(userProfileId, new ProfileAdventureMap(adventureMap));
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
             throw new ResourceException("There was an issue creating the game session", e);
@@ -246,14 +244,10 @@ public class AdventureMapDAO {
             UserProfile userProfile = FirestoreDAOUtil.mapDatabaseObject(globalAdventureMapRef, UserProfile.class);
 
             if (userProfile.getMaps() != null && userProfile.getMaps().containsKey(adventureId)) {
-                userProfile.getMaps().remove(adventureId);
-
-                ApiFuture<WriteResult> result = globalAdventureMapRef.set(userProfile);
-                WriteResult asyncResponse = result.get();
-                System.out.println("Deleted adventure map with ID: " + adventureId +
-                        ", Update time: " + asyncResponse.getUpdateTime());
+                saveGameStore.deleteAdventureMap(userProfileId, adventureId);
+                logger.info("Deleted adventure map with ID: {}", adventureId);
             } else {
-                System.out.println("No adventure map found with ID: " + adventureId);
+                logger.info("No adventure map found with ID: {}", adventureId);
             }
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
@@ -298,6 +292,7 @@ public class AdventureMapDAO {
             });
             
             result.get();
+            gameSessionCache.invalidate(gameCode);
             System.out.println("Location added successfully");
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
@@ -405,6 +400,7 @@ public class AdventureMapDAO {
             
             ApiFuture<WriteResult> result = gameSessionRef.update(updates);
             WriteResult asyncResponse = result.get();
+            gameSessionCache.invalidate(gameCode);
             System.out.println("Location updated successfully: " + location.getLabel());
             return location;
         } catch (InterruptedException | ExecutionException e) {
@@ -1,8 +1,9 @@
 package client.nowhere.dao;
 
+import client.nowhere.dao.GameSessionDocuments.SubmissionDocument;
+import client.nowhere.dao.GameSessionDocuments.VoteDocument;
 import client.nowhere.exception.ResourceException;
 import client.nowhere.model.CollaborativeTextPhase;
-import client.nowhere.model.GameSession;
 import client.nowhere.model.PlayerVote;
 import client.nowhere.model.TextSubmission;
 import com.google.cloud.firestore.*;
@@ -10,23 +11,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 @Component
 public class CollaborativeTextDAO {
 
     private final Firestore db;
+    private final GameSessionCache gameSessionCache;
+    private final GameSessionStore gameSessionStore;
+    private final SubmissionViewTracker submissionViewTracker;
 
     @Autowired
-    public CollaborativeTextDAO(Firestore db) {
+    public CollaborativeTextDAO(Firestore db, GameSessionCache gameSessionCache, GameSessionStore gameSessionStore, SubmissionViewTracker submissionViewTracker) {
         this.db = db;
+        this.gameSessionCache = gameSessionCache;
+        this.gameSessionStore = gameSessionStore;
+        this.submissionViewTracker = submissionViewTracker;
     }
 
     /**
-     * Retrieves a CollaborativeTextPhase from Firestore within a transaction
+     * Retrieves a CollaborativeTextPhase with its submissions and votes from Firestore within a transaction
      * @param gameCode The game code
      * @param phaseId The phase ID (e.g., "WHERE_ARE_WE")
      * @param txn The Firestore transaction
@@ -34,26 +42,7 @@ public class CollaborativeTextDAO {
      */
     public CollaborativeTextPhase getCollaborativeTextPhaseInTransaction(String gameCode, String phaseId, Transaction txn) {
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSessionSnapshot = txn.get(gameSessionRef).get();
-            
-            if (!gameSessionSnapshot.exists()) {
-                return null;
-            }
-            
-            // Convert to GameSession object using the same pattern as GameSessionDAO
-            GameSession gameSession = gameSessionSnapshot.toObject(GameSession.class);
-            if (gameSession == null) {
-                return null;
-            }
-            
-            // Get the collaborativeTextPhases from the GameSession object
-            Map<String, CollaborativeTextPhase> collaborativeTextPhases = gameSession.getCollaborativeTextPhases();
-            if (collaborativeTextPhases == null || !collaborativeTextPhases.containsKey(phaseId)) {
-                return null;
-            }
-            
-            CollaborativeTextPhase phase = collaborativeTextPhases.get(phaseId);
+            CollaborativeTextPhase phase = gameSessionStore.loadPhaseInTransaction(gameCode, phaseId, txn);
             // Filter out parent submissions so they don't show up regardless of context
             if (phase != null) {
                 phase.getSubmissionsWithoutParentSubmissions();
@@ -67,8 +56,8 @@ public class CollaborativeTextDAO {
     }
 
     /**
-     * Updates a CollaborativeTextPhase in Firestore within a transaction
-     * This method adds new submissions without overwriting existing ones
+     * Updates a CollaborativeTextPhase's metadata in Firestore within a transaction.
+     * Submissions and votes live in sub-collections and are written by the entry methods below.
      * @param gameCode The game code
      * @param phaseId The phase ID
      * @param updatedPhase The updated CollaborativeTextPhase
@@ -107,15 +96,107 @@ public class CollaborativeTextDAO {
         }
     }
 
+    /**
+     * Writes a submission of the phase within a transaction
+     * @param gameCode The game code
+     * @param phaseId The phase ID
+     * @param submission The submission to write
+     * @param txn The Firestore transaction
+     */
+    public void addSubmissionInTransaction(String gameCode, String phaseId, TextSubmission submission, Transaction txn) {
+        DocumentReference submissionRef = gameSessionStore.getSubmissionRef(gameCode, phaseId, GameSessionStore.submissionId(submission));
+        txn.set(submissionRef, new SubmissionDocument(GameSessionStore.nextPosition(), phaseId, submission));
+    }
+
+    /**
+     * Writes a vote of the phase within a transaction
+     * @param gameCode The game code
+     * @param phaseId The phase ID
+     * @param playerVote The vote to write
+     * @param txn The Firestore transaction
+     */
+    public void addVoteInTransaction(String gameCode, String phaseId, PlayerVote playerVote, Transaction txn) {
+        DocumentReference voteRef = gameSessionStore.getVoteRef(gameCode, phaseId, GameSessionStore.voteId(playerVote));
+        txn.set(voteRef, new VoteDocument(GameSessionStore.nextPosition(), phaseId, playerVote));
+    }
+
+    /**
+     * Makes the phase's stored submissions and votes match the given phase within a transaction.
+     * Entries missing from the updated phase are deleted, existing ones keep their position.
+     * @param gameCode The game code
+     * @param phaseId The phase ID
+     * @param existingPhase The phase as read in the transaction, or null if it doesn't exist yet
+     * @param updatedPhase The phase to store
+     * @param txn The Firestore transaction
+     */
+    private void syncPhaseEntriesInTransaction(String gameCode, String phaseId, CollaborativeTextPhase existingPhase,
+                                               CollaborativeTextPhase updatedPhase, Transaction txn) {
+        Set<String> existingSubmissionIds = existingPhase == null ? new HashSet<>() : existingPhase.getSubmissions().stream()
+                .map(TextSubmission::getSubmissionId)
+                .collect(Collectors.toSet());
+        Set<String> updatedSubmissionIds = new HashSet<>();
+        for (TextSubmission submission : updatedPhase.getSubmissions()) {
+            String submissionId = GameSessionStore.submissionId(submission);
+            updatedSubmissionIds.add(submissionId);
+            if (existingSubmissionIds.contains(submissionId)) {
+                txn.update(gameSessionStore.getSubmissionRef(gameCode, phaseId, submissionId), "submission", submission);
+            } else {
+                addSubmissionInTransaction(gameCode, phaseId, submission, txn);
+            }
+        }
+        existingSubmissionIds.stream()
+                .filter(submissionId -> !updatedSubmissionIds.contains(submissionId))
+                .forEach(submissionId -> txn.delete(gameSessionStore.getSubmissionRef(gameCode, phaseId, submissionId)));
+
+        Set<String> existingVoteIds = existingPhase == null ? new HashSet<>() : existingPhase.getPlayerVotes().values().stream()
+                .flatMap(List::stream)
+                .map(PlayerVote::getVoteId)
+                .collect(Collectors.toSet());
+        Set<String> updatedVoteIds = new HashSet<>();
+        for (List<PlayerVote> votes : updatedPhase.getPlayerVotes().values()) {
+            for (PlayerVote vote : votes) {
+                String voteId = GameSessionStore.voteId(vote);
+                updatedVoteIds.add(voteId);
+                if (existingVoteIds.contains(voteId)) {
+                    txn.update(gameSessionStore.getVoteRef(gameCode, phaseId, voteId), "vote", vote);
+                } else {
+                    addVoteInTransaction(gameCode, phaseId, vote, txn);
+                }
+            }
+        }
+        existingVoteIds.stream()
+                .filter(voteId -> !updatedVoteIds.contains(voteId))
+                .forEach(voteId -> txn.delete(gameSessionStore.getVoteRef(gameCode, phaseId, voteId)));
+    }
+
     /**
      * Adds a new TextSubmission to an existing CollaborativeTextPhase atomically
      * This prevents race conditions when multiple players submit simultaneously
      * @param gameCode The game code
      * @param phaseId The phase ID
      * @param newSubmission The new TextSubmission to add
-     * @return The updated CollaborativeTextPhase
+     * @return The updated CollaborativeTextPhase, or null when the submission is staged on the open unit of work
      */
     public CollaborativeTextPhase addSubmissionAtomically(String gameCode, String phaseId, TextSubmission newSubmission) {
+        gameSessionStore.ensureMigrated(gameCode);
+
+        GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.mergeField(gameSessionStore.getGameRef(gameCode), "collaborativeTextPhases." + phaseId, CollaborativeTextPhase.class, existingPhase -> {
+                CollaborativeTextPhase phase = existingPhase;
+                if (phase == null) {
+                    phase = new CollaborativeTextPhase();
+                    phase.setPhaseId(phaseId);
+                }
+                phase.addSubmission(newSubmission);
+                return phase;
+            });
+            unitOfWork.set(gameSessionStore.getSubmissionRef(gameCode, phaseId, GameSessionStore.submissionId(newSubmission)),
+                    new SubmissionDocument(GameSessionStore.nextPosition(), phaseId, newSubmission));
+            unitOfWork.afterCommit(() -> gameSessionCache.invalidate(gameCode));
+            return null;
+        }
+
         try {
             return db.runTransaction(transaction -> {
                 // Get the current phase
@@ -133,12 +214,15 @@ public class CollaborativeTextDAO {
                 
                 // Update the phase in Firestore
                 updateCollaborativeTextPhaseInTransaction(gameCode, phaseId, currentPhase, transaction);
+                addSubmissionInTransaction(gameCode, phaseId, newSubmission, transaction);
                 
                 return currentPhase;
             }).get();
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new ResourceException("Failed to add submission atomically", e);
+        } finally {
+            gameSessionCache.invalidate(gameCode);
         }
     }
 
@@ -152,6 +236,7 @@ public class CollaborativeTextDAO {
     public CollaborativeTextPhase addVoteAtomically(String gameCode, String phaseId, 
                                                   PlayerVote playerVote) {
         try {
+            gameSessionStore.ensureMigrated(gameCode);
             return db.runTransaction(transaction -> {
                 // Get the current phase
                 CollaborativeTextPhase currentPhase = getCollaborativeTextPhaseInTransaction(gameCode, phaseId, transaction);
@@ -165,12 +250,15 @@ public class CollaborativeTextDAO {
                 
                 // Update the phase in Firestore
                 updateCollaborativeTextPhaseInTransaction(gameCode, phaseId, currentPhase, transaction);
+                addVoteInTransaction(gameCode, phaseId, playerVote, transaction);
                 
                 return currentPhase;
             }).get();
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new ResourceException("Failed to add vote atomically", e);
+        } finally {
+            gameSessionCache.invalidate(gameCode);
         }
     }
 
@@ -182,27 +270,7 @@ public class CollaborativeTextDAO {
      */
     public CollaborativeTextPhase getCollaborativeTextPhase(String gameCode, String phaseId) {
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSessionSnapshot = gameSessionRef.get().get();
-            
-            if (!gameSessionSnapshot.exists()) {
-                return null;
-            }
-            
-            // Convert to GameSession object using the same pattern as GameSessionDAO
-            GameSession gameSession = gameSessionSnapshot.toObject(GameSession.class);
-            if (gameSession == null) {
-                return null;
-            }
-            
-            // Get the collaborativeTextPhases from the GameSession object
-            Map<String, CollaborativeTextPhase> collaborativeTextPhases = gameSession.getCollaborativeTextPhases();
-            if (collaborativeTextPhases == null || !collaborativeTextPhases.containsKey(phaseId)) {
-                return null;
-            }
-            
-            return collaborativeTextPhases.get(phaseId);
-            
+            return gameSessionStore.loadPhase(gameCode, phaseId);
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new ResourceException("Failed to retrieve collaborative text phase", e);
@@ -218,19 +286,27 @@ public class CollaborativeTextDAO {
      */
     public CollaborativeTextPhase updateCollaborativeTextPhaseAtomically(String gameCode, String phaseId, CollaborativeTextPhase phase) {
         try {
+            gameSessionStore.ensureMigrated(gameCode);
             return db.runTransaction(transaction -> {
+                CollaborativeTextPhase existingPhase = gameSessionStore.loadPhaseInTransaction(gameCode, phaseId, transaction);
+
                 // Update the phase in Firestore
                 updateCollaborativeTextPhaseInTransaction(gameCode, phaseId, phase, transaction);
+                syncPhaseEntriesInTransaction(gameCode, phaseId, existingPhase, phase, transaction);
                 return phase;
             }).get();
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new ResourceException("Failed to update collaborative text phase atomically", e);
+        } finally {
+            gameSessionCache.invalidate(gameCode);
         }
     }
 
     /**
-     * Gets available submissions for a player and records views atomically
+     * Gets available submissions for a player and records that the player viewed them.
+     * The phase is read without a transaction and the views are recorded by the SubmissionViewTracker,
+     * which writes them back in the background, so browsing does not contend on the game document.
      * @param gameCode The game code
      * @param phaseId The phase ID
      * @param playerId The player requesting submissions
@@ -238,45 +314,29 @@ public class CollaborativeTextDAO {
      * @param excludeOutcomeTypeIds Optional outcome type ID to filter by (for WHAT_WILL_BECOME_OF_US phase)
      * @return List of available submissions
      */
-    public List<TextSubmission> getAvailableSubmissionsForPlayerAtomically(String gameCode, String phaseId, String playerId, int requestedCount, List<String> excludeOutcomeTypeIds, boolean showNewSubmissions) {
-        try {
-            return db.runTransaction((Transaction.Function<List<TextSubmission>>) transaction -> {
-                // Get the current phase
-                CollaborativeTextPhase phase = getCollaborativeTextPhaseInTransaction(gameCode, phaseId, transaction);
-                if (phase == null) {
-                    return new ArrayList<>();
-                }
-                
-                // Clear all existing views for this player before recording new ones
-                if (!showNewSubmissions) {
-                    phase.clearViewsForPlayer(playerId);
-                }
- 
-                // Get available submissions
-                List<TextSubmission> availableSubmissions = phase.getAvailableSubmissionsForPlayer(playerId, excludeOutcomeTypeIds);
-
-                availableSubmissions = availableSubmissions.stream()
-                        .sorted(Comparator
-                                .comparingInt((TextSubmission s) -> 
-                                        phase.getSubmissionViews().getOrDefault(s.getSubmissionId(), new ArrayList<>()).size())
-                                .thenComparing(TextSubmission::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-                        .limit(requestedCount)
-                        .toList();
-                
-                // Record views for each submission returned
-                for (TextSubmission submission : availableSubmissions) {
-                    phase.recordSubmissionView(submission.getSubmissionId(), playerId);
-                }
-                
-                // Update the phase with new view records
-                updateCollaborativeTextPhaseInTransaction(gameCode, phaseId, phase, transaction);
-                
-                return availableSubmissions;
-            }).get();
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new ResourceException("Failed to get available submissions atomically", e);
+    public List<TextSubmission> getAvailableSubmissionsForPlayer(String gameCode, String phaseId, String playerId, int requestedCount, List<String> excludeOutcomeTypeIds, boolean showNewSubmissions) {
+        CollaborativeTextPhase phase = getCollaborativeTextPhase(gameCode, phaseId);
+        if (phase == null) {
+            return new ArrayList<>();
         }
+
+        return submissionViewTracker.browse(gameCode, phaseId, phase.getSubmissionViews(), views -> {
+            phase.setSubmissionViews(views);
+
+            // Clear all existing views for this player before recording new ones
+            if (!showNewSubmissions) {
+                phase.clearViewsForPlayer(playerId);
+            }
+
+            // Get the least viewed available submissions, newest first
+            List<TextSubmission> availableSubmissions = phase.getAvailableSubmissionsForPlayer(playerId, excludeOutcomeTypeIds, requestedCount);
+
+            // Record views for each submission returned
+            for (TextSubmission submission : availableSubmissions) {
+                phase.recordSubmissionView(submission.getSubmissionId(), playerId);
+            }
+            return availableSubmissions;
+        });
     }
 
     /**
@@ -288,12 +348,21 @@ public class CollaborativeTextDAO {
      */
     public void clearPhase(String gameCode, String phaseId, boolean clearSubmissions) {
         try {
+            gameSessionStore.ensureMigrated(gameCode);
             db.runTransaction(transaction -> {
                 CollaborativeTextPhase phase = getCollaborativeTextPhaseInTransaction(gameCode, phaseId, transaction);
                 if (phase == null) {
                     return null;
                 }
-                
+
+                if (clearSubmissions) {
+                    phase.getSubmissions().forEach(submission ->
+                            transaction.delete(gameSessionStore.getSubmissionRef(gameCode, phaseId, submission.getSubmissionId())));
+                }
+                phase.getPlayerVotes().values().stream()
+                        .flatMap(List::stream)
+                        .forEach(vote -> transaction.delete(gameSessionStore.getVoteRef(gameCode, phaseId, vote.getVoteId())));
+
                 if (clearSubmissions) {
                     phase.resetAll();
                 } else {
@@ -305,9 +374,13 @@ public class CollaborativeTextDAO {
                 
                 return null;
             }).get();
+            // Both resets clear the views, which the tracker would otherwise write back
+            submissionViewTracker.clear(gameCode, phaseId);
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new ResourceException("Failed to clear phase", e);
+        } finally {
+            gameSessionCache.invalidate(gameCode);
         }
     }
 }
@@ -0,0 +1,124 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.GameState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects the "player done" marks for a game that arrive within a short window so they can be written
+ * in a single transaction. The first caller of a window becomes the leader: it waits out the window and
+ * flushes everything queued so far, its own mark included. If more marks arrived during the flush, the
+ * leader hands the lead to the oldest of their callers and returns, so no request keeps flushing other
+ * requests' marks. Other callers wait until their mark is written or they are handed the lead.
+ */
+class DoneMarkBatcher {
+
+    private final long windowMillis;
+    private final BiConsumer<String, List<DoneMark>> flush;
+    private final Map<String, GameQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * @param windowMillis How long the leader waits for more marks before flushing
+     * @param flush Writes a batch and completes the result of every mark in it
+     */
+    DoneMarkBatcher(long windowMillis, BiConsumer<String, List<DoneMark>> flush) {
+        this.windowMillis = windowMillis;
+        this.flush = flush;
+    }
+
+    CompletableFuture<Boolean> submit(String gameCode, GameState gamePhase, String authorId, boolean isDone) {
+        DoneMark mark = new DoneMark(gamePhase, authorId, isDone, new CompletableFuture<>(), new CompletableFuture<>());
+        GameQueue queue = queues.computeIfAbsent(gameCode, code -> new GameQueue());
+
+        boolean leader;
+        synchronized (queue) {
+            queue.pending.add(mark);
+            leader = !queue.flushing;
+            queue.flushing = true;
+        }
+
+        if (leader) {
+            boolean interrupted = waitForWindow();
+            lead(gameCode, queue);
+            if (interrupted) {
+                // Restored only now, so the interrupt does not fail the transaction the flush runs
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            CompletableFuture.anyOf(mark.result(), mark.lead()).join();
+            if (!mark.result().isDone()) {
+                // The marks queued while the previous batch was written are flushed right away
+                lead(gameCode, queue);
+            }
+        }
+        return mark.result();
+    }
+
+    /**
+     * Flushes everything queued, then hands the lead to the oldest mark queued since, if any.
+     * The hand-off happens however the flush ends, so an Error escaping it cannot leave the game's later marks
+     * waiting on a leader that is gone.
+     */
+    private void lead(String gameCode, GameQueue queue) {
+        List<DoneMark> batch;
+        synchronized (queue) {
+            batch = queue.pending;
+            queue.pending = new ArrayList<>();
+        }
+
+        Throwable failure = null;
+        try {
+            flush.accept(gameCode, batch);
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            // A flush that ended without completing a mark fails it rather than leaving its caller waiting
+            Throwable cause = failure != null ? failure : new IllegalStateException("The flush did not write the mark");
+            batch.forEach(mark -> mark.result().completeExceptionally(cause));
+
+            synchronized (queue) {
+                if (queue.pending.isEmpty()) {
+                    queue.flushing = false;
+                    queues.remove(gameCode, queue);
+                } else {
+                    queue.pending.getFirst().lead().complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the thread was interrupted while waiting
+     */
+    private boolean waitForWindow() {
+        if (windowMillis <= 0) {
+            return false;
+        }
+        try {
+            Thread.sleep(windowMillis);
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @param result Completed by the flush that writes the mark
+     * @param lead Completed when the mark's caller is handed the lead
+     */
+    record DoneMark(GameState gamePhase, String authorId, boolean isDone, CompletableFuture<Boolean> result,
+                    CompletableFuture<Void> lead) { }
+
+    private static class GameQueue {
+        private List<DoneMark> pending = new ArrayList<>();
+        private boolean flushing;
+    }
+}
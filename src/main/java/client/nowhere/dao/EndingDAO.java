@@ -17,14 +17,16 @@ import java.util.concurrent.ExecutionException;
 public class EndingDAO {
 
     private final Firestore db;
+    private final GameSessionCache gameSessionCache;
 
     @Autowired
     private ObjectMapper objectMapper;
 
     @Autowired
-    public EndingDAO(Firestore db, ObjectMapper objectMapper) {
+    public EndingDAO(Firestore db, ObjectMapper objectMapper, GameSessionCache gameSessionCache) {
         this.db = db;
         this.objectMapper = objectMapper;
+        this.gameSessionCache = gameSessionCache;
     }
 
     public Ending createEnding(String gameCode, Ending ending) {
@@ -32,6 +34,7 @@ public class EndingDAO {
             DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
             ApiFuture<WriteResult> result = gameSessionRef.update("endings", FieldValue.arrayUnion(ending));
             result.get();
+            gameSessionCache.invalidate(gameCode);
             System.out.println("Update time : " + result.get().toString());
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
@@ -112,6 +115,7 @@ public class EndingDAO {
 
             ApiFuture<WriteResult> result = gameSessionRef.update("endings", endings);
             WriteResult asyncResponse = result.get();
+            gameSessionCache.invalidate(gameCode);
             System.out.println("Update time : " + result.get().toString() + " " + asyncResponse.toString());
             return ending;
         } catch (InterruptedException | ExecutionException e) {
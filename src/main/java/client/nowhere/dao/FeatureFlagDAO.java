@@ -2,21 +2,71 @@ package client.nowhere.dao;
 
 import client.nowhere.exception.ResourceException;
 import com.google.cloud.firestore.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serves feature flags from an in-memory copy of the flags document.
+ * The copy is loaded on the first lookup and kept current by a snapshot listener, so a lookup is a map read.
+ * If the listener fails, a periodic refresh re-reads the document and re-registers the listener.
+ * Published as {@code nowhere.feature-flags.*}: the flags held, whether the listener is healthy, its updates and
+ * errors, the full reads, and the staleness, which is zero while listening and otherwise the age of the last read.
+ */
 @Component
 public class FeatureFlagDAO {
 
+    private static final Logger logger = LoggerFactory.getLogger(FeatureFlagDAO.class);
     private final Firestore db;
     private static final String COLLECTION_NAME = "featureFlags";
     private static final String DOCUMENT_ID = "flags";
 
+    private final long refreshMillis;
+    private volatile FlagSnapshot snapshot;
+    private volatile boolean listening;
+    private ListenerRegistration registration;
+    private ScheduledExecutorService refresher;
+
+    private final Counter listenerUpdates;
+    private final Counter listenerErrors;
+    private final Counter refreshes;
+
     @Autowired
-    public FeatureFlagDAO(Firestore db) {
+    public FeatureFlagDAO(Firestore db, MeterRegistry meterRegistry, @Value("${nowhere.feature-flags.refresh-millis:60000}") long refreshMillis) {
         this.db = db;
+        this.refreshMillis = refreshMillis;
+        this.listenerUpdates = Counter.builder("nowhere.feature-flags.listener.updates")
+                .description("Flag documents delivered by the snapshot listener")
+                .register(meterRegistry);
+        this.listenerErrors = Counter.builder("nowhere.feature-flags.listener.errors")
+                .description("Snapshot listener failures, each falling back to periodic reads")
+                .register(meterRegistry);
+        this.refreshes = Counter.builder("nowhere.feature-flags.refreshes")
+                .description("Full reads of the flags document")
+                .register(meterRegistry);
+        Gauge.builder("nowhere.feature-flags.count", this, dao -> dao.snapshot == null ? 0 : dao.snapshot.flags().size())
+                .description("Flags held in memory")
+                .register(meterRegistry);
+        Gauge.builder("nowhere.feature-flags.listening", this, dao -> dao.listening ? 1 : 0)
+                .description("1 while the snapshot listener keeps the flags current")
+                .register(meterRegistry);
+        Gauge.builder("nowhere.feature-flags.staleness", this, FeatureFlagDAO::stalenessMillis)
+                .description("Age of the flags held while the listener is down")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
     }
 
     /**
@@ -25,29 +75,97 @@ public class FeatureFlagDAO {
      * @return The boolean value of the flag, or false if not found
      */
     public Boolean getFlagValue(String flagName) {
+        FlagSnapshot current = snapshot;
+        if (current == null) {
+            current = start();
+        }
+        return current.flags().getOrDefault(flagName, false);
+    }
+
+    private double stalenessMillis() {
+        FlagSnapshot current = snapshot;
+        return current == null || listening ? 0 : System.currentTimeMillis() - current.readAt();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (registration != null) {
+            registration.remove();
+        }
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        listening = false;
+    }
+
+    private synchronized FlagSnapshot start() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        refresh();
+        listen();
+        refresher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("feature-flag-refresh").daemon().factory());
+        refresher.scheduleWithFixedDelay(this::refreshIfNotListening, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        return snapshot;
+    }
+
+    private void refresh() {
         try {
-            DocumentReference flagsRef = db.collection(COLLECTION_NAME).document(DOCUMENT_ID);
-            DocumentSnapshot flagsSnapshot = flagsRef.get().get();
-            
-            if (!flagsSnapshot.exists()) {
-                return false;
+            DocumentSnapshot flagsSnapshot = flagsRef().get().get();
+            snapshot = FlagSnapshot.of(flagsSnapshot);
+            refreshes.increment();
+        } catch (InterruptedException | ExecutionException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceException("Failed to retrieve feature flags", e);
+        }
+    }
+
+    private synchronized void listen() {
+        registration = flagsRef().addSnapshotListener((flagsSnapshot, error) -> {
+            if (error != null) {
+                logger.warn("Feature flag listener failed, falling back to periodic refresh: {}", error.getMessage());
+                listenerErrors.increment();
+                listening = false;
+                return;
             }
-            
-            Object flagValue = flagsSnapshot.get(flagName);
-            if (flagValue == null) {
-                return false;
+            if (flagsSnapshot != null) {
+                snapshot = FlagSnapshot.of(flagsSnapshot);
+                listenerUpdates.increment();
             }
-            
-            // Handle both Boolean and boolean types
-            if (flagValue instanceof Boolean) {
-                return (Boolean) flagValue;
+        });
+        listening = true;
+    }
+
+    private void refreshIfNotListening() {
+        if (listening) {
+            return;
+        }
+        try {
+            refresh();
+            listen();
+        } catch (RuntimeException e) {
+            logger.warn("Feature flag refresh failed, serving flags read at {}: {}", snapshot.readAt(), e.getMessage());
+        }
+    }
+
+    private DocumentReference flagsRef() {
+        return db.collection(COLLECTION_NAME).document(DOCUMENT_ID);
+    }
+
+    private record FlagSnapshot(Map<String, Boolean> flags, long readAt) {
+
+        static FlagSnapshot of(DocumentSnapshot flagsSnapshot) {
+            Map<String, Boolean> flags = new HashMap<>();
+            if (flagsSnapshot.exists() && flagsSnapshot.getData() != null) {
+                // Only boolean values count as set; anything else reads as false
+                flagsSnapshot.getData().forEach((flagName, flagValue) -> {
+                    if (flagValue instanceof Boolean value) {
+                        flags.put(flagName, value);
+                    }
+                });
             }
-            
-            return false;
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new ResourceException("Failed to retrieve feature flag: " + flagName, e);
+            return new FlagSnapshot(Map.copyOf(flags), System.currentTimeMillis());
         }
     }
 }
-
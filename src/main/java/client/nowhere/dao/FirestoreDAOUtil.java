@@ -5,16 +5,29 @@ import client.nowhere.model.GameSession;
 import client.nowhere.model.UserProfile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.Transaction;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class FirestoreDAOUtil {
 
+    // Blocking DAO calls started with supplyAsync park a virtual thread instead of a platform thread
+    private static final ExecutorService BLOCKING_CALLS = Executors.newVirtualThreadPerTaskExecutor();
+
     public static <T> List<?> mapDocument(ObjectMapper objectMapper, DocumentSnapshot document, String documentPath, Class<T> targetType) {
         if(documentPath.equals("")) {
             document.getData();
@@ -84,4 +97,104 @@ public class FirestoreDAOUtil {
         return document;
     }
 
+    /**
+     * Reads only the given field paths of a document. Fields outside the mask are not sent over the wire
+     * and are missing from the snapshot, so mapping it to a class leaves them at their defaults.
+     * @param documentReference The document to read
+     * @param fieldPaths Dot-separated field paths, e.g. "gameBoard.playerCoordinates"
+     * @return The pending projected snapshot
+     */
+    public static ApiFuture<DocumentSnapshot> getFields(DocumentReference documentReference, String... fieldPaths) {
+        return documentReference.get(FieldMask.of(fieldPaths));
+    }
+
+    /**
+     * Same as {@link #getFields(DocumentReference, String...)} but read inside a transaction.
+     */
+    public static ApiFuture<DocumentSnapshot> getFieldsInTransaction(Transaction txn, DocumentReference documentReference, String... fieldPaths) {
+        return ApiFutures.transform(
+                txn.getAll(new DocumentReference[] { documentReference }, FieldMask.of(fieldPaths)),
+                documents -> documents.get(0),
+                MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Maps the given field paths of a document onto the target type, leaving every other property at its default.
+     */
+    public static <T> T mapProjection(DocumentReference documentReference, Class<T> documentObject, String... fieldPaths) {
+        try {
+            DocumentSnapshot document = getFields(documentReference, fieldPaths).get();
+            if (!document.exists()) {
+                throw new ResourceException("Document does not exist");
+            }
+
+            return document.toObject(documentObject);
+        } catch (InterruptedException | ExecutionException exception) {
+            throw new ResourceException("There was an issue retrieving this document", exception);
+        }
+    }
+
+    /**
+     * Reads and maps a single field of a document, from the request's snapshot if it already holds the document.
+     * @return The mapped field, or null if the document has no such field
+     */
+    public static <T> T mapField(DocumentReference documentReference, String fieldPath, Class<T> fieldType) {
+        try {
+            GameSessionSnapshot snapshot = GameSessionSnapshot.current();
+            DocumentSnapshot document = snapshot != null ? snapshot.heldDocument(documentReference) : null;
+            if (document == null) {
+                document = getFields(documentReference, fieldPath).get();
+            }
+            if (!document.exists()) {
+                throw new ResourceException("Document does not exist");
+            }
+
+            return document.get(fieldPath, fieldType);
+        } catch (InterruptedException | ExecutionException exception) {
+            throw new ResourceException("There was an issue retrieving this document", exception);
+        }
+    }
+
+    /**
+     * Adapts a Firestore future without blocking: the returned future completes on the thread that completes the RPC.
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(ApiFuture<T> apiFuture) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Runs a blocking DAO call on its own virtual thread, so independent reads of a request can be in flight together.
+     * The call shares the request's {@link GameSessionSnapshot}.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(GameSessionSnapshot.propagate(call), BLOCKING_CALLS);
+    }
+
+    /**
+     * Waits for a future, rethrowing runtime failures such as ResourceException as they were thrown.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ResourceException("There was an issue completing the request", e.getCause());
+        }
+    }
+
 }
@@ -0,0 +1,433 @@
+package client.nowhere.dao;
+
+import client.nowhere.exception.ResourceException;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out game codes that no other game holds.
+ * Every code in use has a document in the {@code gameCodes} registry, created with a create-if-absent write, so two
+ * instances can never reserve the same code. Each instance keeps a pool of codes it has already reserved and checked
+ * against existing games, refilled in the background, so taking a code is a queue poll rather than a round trip.
+ * A periodic sweep gives back reservations older than {@code reservation-timeout-millis} that never became a game,
+ * such as the pool of an instance that stopped without {@link #close()}. Pooled codes are only handed out within
+ * half that timeout, so the sweep never takes back a code that is about to be used.
+ * When a game finishes its code is released. If {@code recycle-after-millis} is set, the finished game is deleted
+ * that long afterwards and its code goes back into a pool; recycling that stops halfway is picked up again by a later
+ * sweep. Published as {@code nowhere.game-codes.taken} (from the pool or reserved on the spot),
+ * {@code .reservations}, {@code .collisions}, {@code .released}, {@code .recycled}, {@code .reclaimed} and
+ * {@code .pooled}.
+ */
+@Component
+public class GameCodePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameCodePool.class);
+    static final String GAME_CODES = "gameCodes";
+    private static final String CHARS = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
+    private static final int CODE_LENGTH = 6;
+    private static final int MAX_RESERVE_ATTEMPTS = 10;
+    // Reserved for a game that has not been created yet, or is sitting in a pool
+    private static final String RESERVED = "RESERVED";
+    // Held by a game that exists
+    private static final String IN_USE = "IN_USE";
+    // Released by a finished game
+    private static final String FINISHED = "FINISHED";
+    // Claimed by an instance that is deleting the finished game
+    private static final String RECYCLING = "RECYCLING";
+
+    private final Firestore db;
+    private final GameSessionStore gameSessionStore;
+    private final GameSessionCache gameSessionCache;
+    private final int poolSize;
+    private final long recycleAfterMillis;
+    private final long reservationTimeoutMillis;
+    private final long sweepIntervalMillis;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentLinkedQueue<PooledCode> pool = new ConcurrentLinkedQueue<>();
+    // Size of the pool, tracked separately because ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private ScheduledExecutorService refiller;
+
+    private final Counter takenFromPool;
+    private final Counter reservedOnTake;
+    private final Counter reservations;
+    private final Counter collisions;
+    private final Counter released;
+    private final Counter recycled;
+    private final Counter reclaimed;
+
+    @Autowired
+    public GameCodePool(
+            Firestore db,
+            GameSessionStore gameSessionStore,
+            GameSessionCache gameSessionCache,
+            MeterRegistry meterRegistry,
+            @Value("${nowhere.game-codes.pool-size:20}") int poolSize,
+            @Value("${nowhere.game-codes.recycle-after-millis:0}") long recycleAfterMillis,
+            @Value("${nowhere.game-codes.reservation-timeout-millis:86400000}") long reservationTimeoutMillis,
+            @Value("${nowhere.game-codes.sweep-interval-millis:3600000}") long sweepIntervalMillis
+    ) {
+        this.db = db;
+        this.gameSessionStore = gameSessionStore;
+        this.gameSessionCache = gameSessionCache;
+        this.poolSize = poolSize;
+        this.recycleAfterMillis = recycleAfterMillis;
+        this.reservationTimeoutMillis = reservationTimeoutMillis;
+        this.sweepIntervalMillis = sweepIntervalMillis;
+        this.takenFromPool = Counter.builder("nowhere.game-codes.taken")
+                .description("Codes handed out to new games")
+                .tag("source", "pool")
+                .register(meterRegistry);
+        this.reservedOnTake = Counter.builder("nowhere.game-codes.taken")
+                .description("Codes handed out to new games")
+                .tag("source", "reserved")
+                .register(meterRegistry);
+        this.reservations = Counter.builder("nowhere.game-codes.reservations")
+                .description("Codes reserved in the registry")
+                .register(meterRegistry);
+        this.collisions = Counter.builder("nowhere.game-codes.collisions")
+                .description("Random codes drawn again because they were already taken")
+                .register(meterRegistry);
+        this.released = Counter.builder("nowhere.game-codes.released")
+                .description("Codes released by finished games")
+                .register(meterRegistry);
+        this.recycled = Counter.builder("nowhere.game-codes.recycled")
+                .description("Codes of deleted finished games put back into the pool")
+                .register(meterRegistry);
+        this.reclaimed = Counter.builder("nowhere.game-codes.reclaimed")
+                .description("Stale reservations given back to the registry")
+                .register(meterRegistry);
+        Gauge.builder("nowhere.game-codes.pooled", pooled, AtomicInteger::get)
+                .description("Reserved codes waiting in this instance's pool")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a reserved code for a new game. Only reserves one on the spot if the pool has run dry.
+     * @return A code no other game holds
+     */
+    public String take() {
+        start();
+        String gameCode = poll();
+        if (gameCode != null) {
+            takenFromPool.increment();
+        } else {
+            gameCode = reserve().gameCode();
+            reservedOnTake.increment();
+        }
+        refillInBackground();
+        return gameCode;
+    }
+
+    /**
+     * Marks a finished game's code for recycling. Best effort: a code that is never released stays in use.
+     * @param gameCode The code of the game that finished
+     */
+    public void release(String gameCode) {
+        try {
+            codeRef(gameCode).set(Map.of("state", FINISHED, "finishedAt", System.currentTimeMillis())).get();
+            released.increment();
+        } catch (InterruptedException | ExecutionException e) {
+            logger.warn("Could not release game code {}: {}", gameCode, e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if the failure is a create-if-absent write finding its document already there
+     */
+    public static boolean isCodeTaken(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException apiException
+                    && apiException.getStatusCode().getCode() == StatusCode.Code.ALREADY_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives this instance's unused reservations back, so the codes are not held by an instance that is gone.
+     * Reservations too old to hand out are left to the sweep, as another instance may already have taken them back.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (refiller != null) {
+            refiller.shutdownNow();
+        }
+        WriteBatch batch = db.batch();
+        String gameCode;
+        int writes = 0;
+        while (writes < 500 && (gameCode = poll()) != null) {
+            batch.delete(codeRef(gameCode));
+            writes++;
+        }
+        pool.clear();
+        pooled.set(0);
+        if (writes > 0) {
+            try {
+                batch.commit().get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.warn("Could not give back {} reserved game codes: {}", writes, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Refills the pool up to its size. Runs on the refill thread.
+     */
+    void refill() {
+        try {
+            while (pooled.get() < poolSize) {
+                pool.add(reserve());
+                pooled.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Game code refill stopped at {} codes: {}", pooled.get(), e.getMessage());
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    /**
+     * Gives back stale reservations, then recycles finished games. Runs on the refill thread.
+     */
+    void sweep() {
+        reclaimStaleReservations();
+        recycle();
+    }
+
+    /**
+     * Deletes reservations older than the reservation timeout whose game was never created, so the codes can be
+     * drawn again. Reservations whose game does exist are marked in use, so they are not looked at again.
+     */
+    void reclaimStaleReservations() {
+        long cutoff = System.currentTimeMillis() - reservationTimeoutMillis;
+        try {
+            // Only reserved codes have a reservedAt
+            List<QueryDocumentSnapshot> stale = db.collection(GAME_CODES)
+                    .whereLessThan("reservedAt", cutoff)
+                    .limit(poolSize)
+                    .get().get().getDocuments();
+
+            for (QueryDocumentSnapshot code : stale) {
+                if (reclaim(code.getId(), cutoff)) {
+                    reclaimed.increment();
+                }
+            }
+        } catch (InterruptedException | ExecutionException | RuntimeException e) {
+            logger.warn("Reclaiming stale game code reservations failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes games that finished long enough ago and puts their codes back in the pool, and finishes recycling that
+     * was claimed more than the reservation timeout ago but never completed. Runs on the refill thread.
+     */
+    void recycle() {
+        long now = System.currentTimeMillis();
+        long finishedCutoff = recycleAfterMillis > 0 ? now - recycleAfterMillis : Long.MIN_VALUE;
+        long stalledCutoff = now - reservationTimeoutMillis;
+        try {
+            List<QueryDocumentSnapshot> stalled = db.collection(GAME_CODES)
+                    .whereLessThan("recyclingAt", stalledCutoff)
+                    .limit(poolSize)
+                    .get().get().getDocuments();
+            stalled.forEach(code -> recycleCode(code.getId(), finishedCutoff, stalledCutoff));
+
+            if (recycleAfterMillis > 0) {
+                // Codes that are not finished have no finishedAt, so only released codes match
+                List<QueryDocumentSnapshot> finished = db.collection(GAME_CODES)
+                        .whereLessThan("finishedAt", finishedCutoff)
+                        .limit(poolSize)
+                        .get().get().getDocuments();
+                finished.forEach(code -> recycleCode(code.getId(), finishedCutoff, stalledCutoff));
+            }
+        } catch (InterruptedException | ExecutionException | RuntimeException e) {
+            logger.warn("Game code recycling failed: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void start() {
+        if (refiller != null) {
+            return;
+        }
+        refiller = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("game-code-refill").daemon().factory());
+        refiller.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refillInBackground() {
+        if (pooled.get() < poolSize && refilling.compareAndSet(false, true)) {
+            try {
+                refiller.execute(this::refill);
+            } catch (RuntimeException e) {
+                refilling.set(false);
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest pooled code that is still safe to hand out. Older ones are dropped and left to the sweep.
+     */
+    private String poll() {
+        long usableAfter = System.currentTimeMillis() - reservationTimeoutMillis / 2;
+        PooledCode pooledCode;
+        while ((pooledCode = pool.poll()) != null) {
+            pooled.decrementAndGet();
+            if (pooledCode.reservedAt() > usableAfter) {
+                return pooledCode.gameCode();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reserves a random code, drawing again on the rare collision.
+     */
+    private PooledCode reserve() {
+        for (int attempt = 0; attempt < MAX_RESERVE_ATTEMPTS; attempt++) {
+            String gameCode = randomCode();
+            long reservedAt = System.currentTimeMillis();
+            if (tryReserve(gameCode, reservedAt)) {
+                reservations.increment();
+                return new PooledCode(gameCode, reservedAt);
+            }
+            collisions.increment();
+        }
+        throw new ResourceException("Could not reserve a game code after " + MAX_RESERVE_ATTEMPTS + " attempts");
+    }
+
+    private boolean tryReserve(String gameCode, long reservedAt) {
+        try {
+            codeRef(gameCode).create(Map.of("state", RESERVED, "reservedAt", reservedAt)).get();
+            // Games created before the registry hold their codes without a registry document; the reservation now stands for them
+            return !gameSessionStore.getGameRef(gameCode).get().get().exists();
+        } catch (ExecutionException e) {
+            if (isCodeTaken(e)) {
+                return false;
+            }
+            throw new ResourceException("There was an issue reserving a game code", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceException("There was an issue reserving a game code", e);
+        }
+    }
+
+    /**
+     * Deletes a stale reservation, unless it has been renewed or its game exists after all.
+     */
+    private boolean reclaim(String gameCode, long cutoff) throws InterruptedException, ExecutionException {
+        DocumentReference codeRef = codeRef(gameCode);
+        DocumentReference gameRef = gameSessionStore.getGameRef(gameCode);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot code = transaction.get(codeRef).get();
+            Long reservedAt = code.getLong("reservedAt");
+            if (!RESERVED.equals(code.getString("state")) || reservedAt == null || reservedAt >= cutoff) {
+                return false;
+            }
+            if (transaction.get(gameRef).get().exists()) {
+                transaction.set(codeRef, Map.of("state", IN_USE));
+                return false;
+            }
+            transaction.delete(codeRef);
+            return true;
+        }).get();
+    }
+
+    /**
+     * Claims a code for recycling, deletes its game and puts the code in the pool.
+     * A failure leaves the code claimed, so a sweep after the reservation timeout tries again.
+     */
+    private void recycleCode(String gameCode, long finishedCutoff, long stalledCutoff) {
+        long claimedAt = System.currentTimeMillis();
+        try {
+            if (!claimForRecycling(gameCode, finishedCutoff, stalledCutoff, claimedAt)) {
+                return;
+            }
+            gameSessionStore.delete(gameCode);
+            gameSessionCache.invalidate(gameCode);
+            long reservedAt = System.currentTimeMillis();
+            if (!finishRecycling(gameCode, claimedAt, reservedAt)) {
+                return;
+            }
+            pool.add(new PooledCode(gameCode, reservedAt));
+            pooled.incrementAndGet();
+            recycled.increment();
+        } catch (InterruptedException | ExecutionException | RuntimeException e) {
+            logger.warn("Recycling game code {} failed, it will be retried: {}", gameCode, e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a released code, or one whose recycling stalled, to recycling, unless another instance got there first.
+     */
+    private boolean claimForRecycling(String gameCode, long finishedCutoff, long stalledCutoff, long claimedAt)
+            throws InterruptedException, ExecutionException {
+        DocumentReference codeRef = codeRef(gameCode);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot code = transaction.get(codeRef).get();
+            String state = code.getString("state");
+            Long finishedAt = code.getLong("finishedAt");
+            Long recyclingAt = code.getLong("recyclingAt");
+            boolean finished = FINISHED.equals(state) && finishedAt != null && finishedAt < finishedCutoff;
+            boolean stalled = RECYCLING.equals(state) && recyclingAt != null && recyclingAt < stalledCutoff;
+            if (!finished && !stalled) {
+                return false;
+            }
+            transaction.set(codeRef, Map.of("state", RECYCLING, "recyclingAt", claimedAt));
+            return true;
+        }).get();
+    }
+
+    /**
+     * Moves a recycled code to reserved, unless its claim stalled and another instance has taken it over since.
+     */
+    private boolean finishRecycling(String gameCode, long claimedAt, long reservedAt) throws InterruptedException, ExecutionException {
+        DocumentReference codeRef = codeRef(gameCode);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot code = transaction.get(codeRef).get();
+            Long recyclingAt = code.getLong("recyclingAt");
+            if (!RECYCLING.equals(code.getString("state")) || recyclingAt == null || recyclingAt != claimedAt) {
+                return false;
+            }
+            transaction.set(codeRef, Map.of("state", RESERVED, "reservedAt", reservedAt));
+            return true;
+        }).get();
+    }
+
+    private String randomCode() {
+        StringBuilder stringBuilder = new StringBuilder(CODE_LENGTH);
+        while (stringBuilder.length() < CODE_LENGTH) {
+            stringBuilder.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return stringBuilder.toString();
+    }
+
+    private DocumentReference codeRef(String gameCode) {
+        return db.collection(GAME_CODES).document(gameCode);
+    }
+
+    private record PooledCode(String gameCode, long reservedAt) { }
+}
@@ -0,0 +1,210 @@
+package client.nowhere.dao;
+
+import client.nowhere.exception.ResourceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the mutations of each game one at a time, in the order they arrive, so concurrent requests for a game
+ * stop retrying each other's Firestore transactions.
+ * Every game with pending mutations gets a mailbox drained by its own virtual thread, which exits once the mailbox
+ * is empty. A mailbox holds a bounded number of mutations; callers beyond that wait briefly for room and are then
+ * turned away, rather than queueing without limit behind a slow game.
+ * A mutation that starts another mutation of the same game runs it inline instead of queueing behind itself.
+ * Published as {@code nowhere.game-mutations.queued}, the time a mutation waited behind others of its game,
+ * {@code nowhere.game-mutations.runs}, how long it ran, by outcome, the mailbox depth each mutation found, the
+ * callers turned away, and the pending mutations and games with a mailbox.
+ */
+@Component
+public class GameMutationExecutor {
+
+    private static final ThreadLocal<String> CURRENT_GAME = new ThreadLocal<>();
+
+    private final int mailboxCapacity;
+    private final long backpressureMillis;
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService drainers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Timer queued;
+    private final Timer completed;
+    private final Timer failed;
+    private final DistributionSummary queueDepth;
+    private final Counter rejected;
+
+    @Autowired
+    public GameMutationExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${nowhere.game-mutations.mailbox-capacity:64}") int mailboxCapacity,
+            @Value("${nowhere.game-mutations.backpressure-millis:2000}") long backpressureMillis
+    ) {
+        this.mailboxCapacity = mailboxCapacity;
+        this.backpressureMillis = backpressureMillis;
+        this.queued = Timer.builder("nowhere.game-mutations.queued")
+                .description("Time a mutation waited behind the others of its game")
+                .register(meterRegistry);
+        this.completed = Timer.builder("nowhere.game-mutations.runs")
+                .description("Time spent running a mutation")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failed = Timer.builder("nowhere.game-mutations.runs")
+                .description("Time spent running a mutation")
+                .tag("outcome", "error")
+                .register(meterRegistry);
+        this.queueDepth = DistributionSummary.builder("nowhere.game-mutations.queue.depth")
+                .description("Mutations in the game's mailbox once a mutation was added to it")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("nowhere.game-mutations.rejected")
+                .description("Callers turned away because their game's mailbox stayed full")
+                .register(meterRegistry);
+        Gauge.builder("nowhere.game-mutations.pending", pending, AtomicInteger::get)
+                .description("Mutations waiting in a mailbox")
+                .register(meterRegistry);
+        Gauge.builder("nowhere.game-mutations.active-games", mailboxes, Map::size)
+                .description("Games with a mailbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a mutation of the game after the ones already queued for it and waits for its result.
+     * @param gameCode The game being changed; mutations without a game code run right away
+     * @param mutation The change, typically a helper call
+     * @return The mutation's result
+     * @throws ResourceException If the game's mailbox stayed full for the backpressure timeout
+     */
+    public <T> T execute(String gameCode, Supplier<T> mutation) {
+        if (gameCode == null || gameCode.equals(CURRENT_GAME.get())) {
+            return mutation.get();
+        }
+        return FirestoreDAOUtil.join(submit(gameCode, mutation));
+    }
+
+    public void execute(String gameCode, Runnable mutation) {
+        execute(gameCode, () -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Queues a mutation of the game without waiting for it.
+     * @return A future completed with the mutation's result or failure
+     * @throws ResourceException If the game's mailbox stayed full for the backpressure timeout
+     */
+    public <T> CompletableFuture<T> submit(String gameCode, Supplier<T> mutation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Task<T> task = new Task<>(GameSessionSnapshot.propagate(mutation), result, System.nanoTime());
+
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(gameCode, code -> new Mailbox(mailboxCapacity));
+            acquire(gameCode, mailbox);
+
+            boolean startDrainer;
+            synchronized (mailbox) {
+                if (mailbox.closed) {
+                    // The drainer retired this mailbox after we looked it up
+                    mailbox.permits.release();
+                    continue;
+                }
+                mailbox.queue.add(task);
+                queueDepth.record(mailbox.queue.size());
+                startDrainer = !mailbox.draining;
+                mailbox.draining = true;
+            }
+            pending.incrementAndGet();
+
+            if (startDrainer) {
+                drainers.execute(() -> drain(gameCode, mailbox));
+            }
+            return result;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        drainers.shutdown();
+    }
+
+    private void acquire(String gameCode, Mailbox mailbox) {
+        try {
+            if (!mailbox.permits.tryAcquire(backpressureMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new ResourceException("Game " + gameCode + " has too many pending changes, try again shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceException("Interrupted while waiting to change game " + gameCode, e);
+        }
+    }
+
+    private void drain(String gameCode, Mailbox mailbox) {
+        CURRENT_GAME.set(gameCode);
+        try {
+            while (true) {
+                Task<?> task;
+                synchronized (mailbox) {
+                    task = mailbox.queue.poll();
+                    if (task == null) {
+                        mailbox.draining = false;
+                        mailbox.closed = true;
+                        mailboxes.remove(gameCode, mailbox);
+                        return;
+                    }
+                }
+                mailbox.permits.release();
+                pending.decrementAndGet();
+                run(task);
+            }
+        } finally {
+            CURRENT_GAME.remove();
+        }
+    }
+
+    private <T> void run(Task<T> task) {
+        long startedAt = System.nanoTime();
+        queued.record(startedAt - task.queuedAt(), TimeUnit.NANOSECONDS);
+        T value;
+        try {
+            value = task.mutation().get();
+        } catch (RuntimeException | Error e) {
+            // Recorded before completing, so a caller that just got its result sees it in the meters
+            failed.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            task.result().completeExceptionally(e);
+            return;
+        }
+        completed.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        task.result().complete(value);
+    }
+
+    private static class Mailbox {
+        final Queue<Task<?>> queue = new ArrayDeque<>();
+        final Semaphore permits;
+        boolean draining;
+        boolean closed;
+
+        Mailbox(int capacity) {
+            this.permits = new Semaphore(capacity);
+        }
+    }
+
+    private record Task<T>(Supplier<T> mutation, CompletableFuture<T> result, long queuedAt) { }
+}
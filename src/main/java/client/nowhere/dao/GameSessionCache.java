@@ -0,0 +1,176 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.GameSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded, per-game-code cache of mapped GameSession documents.
+ * Entries expire after a short TTL and are dropped by every DAO write path for the game,
+ * so polling clients are served from memory without a Firestore read or a full mapping.
+ * Cached sessions are shared between requests and must be treated as read-only.
+ * Published as {@code nowhere.game-session.cache.gets} (hits and misses), {@code .loads}, {@code .evictions},
+ * {@code .invalidations} and {@code .size}.
+ */
+@Component
+public class GameSessionCache {
+
+    private static final long DEFAULT_TTL_MILLIS = 2000;
+    private static final int DEFAULT_MAX_ENTRIES = 500;
+
+    private final Map<String, CachedGameSession> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+    private final Timer loads;
+
+    /**
+     * A cache with the default TTL and size whose meters are not published.
+     */
+    public GameSessionCache() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public GameSessionCache(
+            @Value("${nowhere.cache.game-session.ttl-millis:2000}") long ttlMillis,
+            @Value("${nowhere.cache.game-session.max-entries:500}") int maxEntries,
+            MeterRegistry meterRegistry
+    ) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("nowhere.game-session.cache.gets")
+                .description("Game session reads answered by the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("nowhere.game-session.cache.gets")
+                .description("Game session reads answered by the cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("nowhere.game-session.cache.evictions")
+                .description("Cached sessions dropped to keep the cache within its size")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("nowhere.game-session.cache.invalidations")
+                .description("Cached sessions dropped because their game was written")
+                .register(meterRegistry);
+        this.loads = Timer.builder("nowhere.game-session.cache.loads")
+                .description("Time spent reading sessions on a miss")
+                .register(meterRegistry);
+        Gauge.builder("nowhere.game-session.cache.size", entries, Map::size)
+                .description("Sessions currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached session for the game, loading it with the given loader on a miss or expiry.
+     * A session without a game code is what a failed read yields, so it is returned but not cached, and the next
+     * request reads the game again.
+     * @param gameCode The game code
+     * @param loader Reads and maps the session from Firestore
+     * @return The cached GameSession, or whatever the loader returned
+     */
+    public GameSession get(String gameCode, Function<String, GameSession> loader) {
+        long now = System.nanoTime();
+        CachedGameSession cached = entries.get(gameCode);
+        if (cached != null && now - cached.loadedAt() < ttlNanos) {
+            hits.increment();
+            return cached.gameSession();
+        }
+
+        misses.increment();
+        GameSession gameSession = loader.apply(gameCode);
+        long loadedAt = System.nanoTime();
+        loads.record(loadedAt - now, TimeUnit.NANOSECONDS);
+
+        // Only publish the result if no write landed for this game while it was loading
+        Long lastInvalidation = invalidatedAt.get(gameCode);
+        if (gameSession != null && gameSession.getGameCode() != null && (lastInvalidation == null || lastInvalidation < now)) {
+            entries.put(gameCode, new CachedGameSession(gameSession, loadedAt));
+            evictIfFull();
+        }
+        return gameSession;
+    }
+
+    /**
+     * Returns the cached session if a fresh one is present, without loading it on a miss.
+     * Lets single-field reads use a cached session when there is one and fall back to a projected read otherwise.
+     * @param gameCode The game code
+     * @return The cached GameSession or null
+     */
+    public GameSession getIfPresent(String gameCode) {
+        CachedGameSession cached = entries.get(gameCode);
+        if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+            hits.increment();
+            return cached.gameSession();
+        }
+        return null;
+    }
+
+    /**
+     * Drops the cached session for a game, and the request's snapshot of it. Called after every write to the game's document.
+     * @param gameCode The game code whose entry should be dropped
+     */
+    public void invalidate(String gameCode) {
+        if (gameCode == null) {
+            return;
+        }
+        GameSessionSnapshot.refresh(gameCode);
+        long now = System.nanoTime();
+        invalidatedAt.put(gameCode, now);
+        if (entries.remove(gameCode) != null) {
+            invalidations.increment();
+        }
+
+        if (invalidatedAt.size() > maxEntries) {
+            invalidatedAt.entrySet().removeIf(entry -> now - entry.getValue() >= ttlNanos);
+        }
+    }
+
+    public void invalidateAll() {
+        entries.keySet().forEach(this::invalidate);
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(entry -> {
+            boolean expired = now - entry.getValue().loadedAt() >= ttlNanos;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+
+        while (entries.size() > maxEntries) {
+            entries.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().loadedAt()))
+                    .ifPresent(oldest -> {
+                        if (entries.remove(oldest.getKey(), oldest.getValue())) {
+                            evictions.increment();
+                        }
+                    });
+        }
+    }
+
+    private record CachedGameSession(GameSession gameSession, long loadedAt) { }
+}
@@ -1,25 +1,36 @@
 package client.nowhere.dao;
 
+import client.nowhere.dao.GameSessionDocuments.PlayerDocument;
+import client.nowhere.dao.GameSessionDocuments.StoryDocument;
 import client.nowhere.exception.ResourceException;
 import client.nowhere.model.*;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 @Component
 public class GameSessionDAO {
 
+    private static final Logger logger = LoggerFactory.getLogger(GameSessionDAO.class);
     private final Firestore db;
+    private final GameSessionCache gameSessionCache;
+    private final GameSessionStore gameSessionStore;
 
     @Autowired
-    public GameSessionDAO(Firestore db) {
+    public GameSessionDAO(Firestore db, GameSessionCache gameSessionCache, GameSessionStore gameSessionStore) {
         this.db = db;
+        this.gameSessionCache = gameSessionCache;
+        this.gameSessionStore = gameSessionStore;
     }
 
     public GameSession createGameSession(
@@ -42,14 +53,16 @@ public class GameSessionDAO {
         gameSession.setStoriesToPlayPerRound(storiesToPlayPerRound);
         gameSession.setAdventureMap(adventureMap);
         gameSession.setGameMode(gameMode);
+        gameSession.setStorageVersion(GameSessionStore.CURRENT_STORAGE_VERSION);
 
         try {
-            ApiFuture<WriteResult> result = docRef.set(gameSession);
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
-            System.out.println("Object " + result.get().toString());
+            // Create rather than set, so a code that is somehow still taken fails instead of overwriting that game
+            WriteResult asyncResponse = docRef.create(gameSession).get();
+            gameSessionStore.markMigrated(sessionCode);
+            gameSessionCache.invalidate(sessionCode);
+            logger.debug("Created game session {} at {}", sessionCode, asyncResponse.getUpdateTime());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue creating the game session", e);
             throw new ResourceException("There was an issue creating the game session", e);
         }
         return gameSession;
@@ -57,18 +70,22 @@ public class GameSessionDAO {
 
     public GameSession createGameSession(GameSession gameSession) {
         DocumentReference docRef = db.collection("gameSessions").document(gameSession.getGameCode());
+        gameSession.setStorageVersion(GameSessionStore.CURRENT_STORAGE_VERSION);
 
         try {
-            ApiFuture<WriteResult> result = docRef.set(gameSession);
-            WriteResult asyncResponse = result.get();
+            WriteBatch batch = db.batch();
+            batch.create(docRef, gameSession);
+            gameSessionStore.writeEntries(gameSession, batch);
+            ApiFuture<List<WriteResult>> result = batch.commit();
+            List<WriteResult> asyncResponse = result.get();
+            gameSessionStore.markMigrated(gameSession.getGameCode());
+            gameSessionCache.invalidate(gameSession.getGameCode());
 
-            DocumentSnapshot gameSessionSnapshot = FirestoreDAOUtil.getDocumentSnapshot(docRef);
-            gameSession = FirestoreDAOUtil.mapGameSession(gameSessionSnapshot);
+            gameSession = gameSessionStore.load(gameSession.getGameCode());
 
-            System.out.println("Update time : " + result.get().toString());
-            System.out.println("Object " + result.get().toString());
+            logger.debug("Created game session {} with {} writes", gameSession.getGameCode(), asyncResponse.size());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue creating the game session", e);
             throw new ResourceException("There was an issue creating the game session", e);
         }
         return gameSession;
@@ -76,12 +93,13 @@ public class GameSessionDAO {
 
     public Player joinGameSession(Player player) {
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(player.getGameCode());
-            ApiFuture<WriteResult> result = gameSessionRef.update("players", FieldValue.arrayUnion(player));
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
+            gameSessionStore.ensureMigrated(player.getGameCode());
+            DocumentReference playerRef = gameSessionStore.getPlayerRef(player.getGameCode(), player.getAuthorId());
+            WriteResult asyncResponse = playerRef.set(new PlayerDocument(GameSessionStore.nextPosition(), player)).get();
+            gameSessionCache.invalidate(player.getGameCode());
+            logger.debug("Player {} joined game {} at {}", player.getAuthorId(), player.getGameCode(), asyncResponse.getUpdateTime());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue creating the game session", e);
             throw new ResourceException("There was an issue creating the game session", e);
         }
         return player;
@@ -101,47 +119,114 @@ public class GameSessionDAO {
         updates.put("totalPointsTowardsVictory", gameSession.getTotalPointsTowardsVictory());
 
         try {
-            ApiFuture<WriteResult> result = gameSessionRef.update(updates);
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
-            System.out.println("Object " + result.get().toString());
+            WriteResult asyncResponse = gameSessionRef.update(updates).get();
+            gameSessionCache.invalidate(gameSession.getGameCode());
+            logger.debug("Updated game session {} at {}", gameSession.getGameCode(), asyncResponse.getUpdateTime());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue creating the game session", e);
             throw new ResourceException("There was an issue creating the game session", e);
         }
         return gameSession;
     }
 
     public List<Player> getPlayers(String gameCode) {
-        GameSession game = getGame(gameCode);
+        GameSession game = getCachedGame(gameCode);
         return game.getPlayers();
     }
 
+    /**
+     * Returns the game session from the in-memory cache, reading it from Firestore only on a miss.
+     * The returned session is shared with other requests, so callers must not modify it.
+     * Use {@link #getGame(String)} when the session is going to be mutated and written back.
+     * @param gameCode The game code
+     * @return The cached GameSession
+     */
+    public GameSession getCachedGame(String gameCode) {
+        return gameSessionCache.get(gameCode, this::getGame);
+    }
+
+    /**
+     * Returns the game board, reading only the gameBoard field when the session is not already cached.
+     * @param gameCode The game code
+     * @return The GameBoard, never null
+     */
+    public GameBoard getGameBoard(String gameCode) {
+        GameSession cached = gameSessionCache.getIfPresent(gameCode);
+        if (cached != null) {
+            return cached.getGameBoard();
+        }
+
+        GameBoard gameBoard = FirestoreDAOUtil.mapField(getGameRef(gameCode), "gameBoard", GameBoard.class);
+        return gameBoard != null ? gameBoard : new GameBoard();
+    }
+
+    /**
+     * Returns the game state, reading only the gameState field when the session is not already cached.
+     * @param gameCode The game code
+     * @return The GameState or null if the session has none
+     */
+    public GameState getGameState(String gameCode) {
+        GameSession cached = gameSessionCache.getIfPresent(gameCode);
+        if (cached != null) {
+            return cached.getGameState();
+        }
+
+        return FirestoreDAOUtil.mapField(getGameRef(gameCode), "gameState", GameState.class);
+    }
+
+    /**
+     * Reads the game session.
+     * @param gameCode The game code
+     * @return The GameSession, or an empty session without a game code if the read failed
+     */
     public GameSession getGame(String gameCode) {
         GameSession gameSession = new GameSession();
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSessionSnapshot = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            gameSession = FirestoreDAOUtil.mapGameSession(gameSessionSnapshot);
+            gameSession = gameSessionStore.load(gameCode);
         } catch (InterruptedException | ExecutionException e) {
-            System.out.println("There was an issue retrieving the game session " + e.getMessage());
+            logger.warn("There was an issue retrieving the game session {}: {}", gameCode, e.getMessage());
         }
         return gameSession;
     }
 
+    /**
+     * Non-blocking variant of {@link #getGame(String)} for callers that can hand the future back to Spring MVC.
+     * Unlike getGame, a failed read completes the future exceptionally instead of yielding an empty session.
+     * @param gameCode The game code
+     * @return The pending GameSession
+     */
+    public CompletableFuture<GameSession> getGameAsync(String gameCode) {
+        return gameSessionStore.loadAsync(gameCode);
+    }
+
     public Player updatePlayer(Player player) {
         try {
-            GameSession gameSession = getGame(player.getGameCode());
-            List<Player> players = gameSession.getPlayers();
-            players.stream()
-                    .filter(existingPlayer -> existingPlayer.getAuthorId().equals(player.getAuthorId()))
-                    .forEach(existingPlayer -> existingPlayer.updatePlayer(player));
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(player.getGameCode());
-            ApiFuture<WriteResult> result = gameSessionRef.update("players", players);
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + asyncResponse.toString());
+            gameSessionStore.ensureMigrated(player.getGameCode());
+            DocumentReference playerRef = gameSessionStore.getPlayerRef(player.getGameCode(), player.getAuthorId());
+
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            if (unitOfWork != null) {
+                unitOfWork.mergeField(playerRef, "player", Player.class, existingPlayer -> {
+                    existingPlayer.updatePlayer(player);
+                    return existingPlayer;
+                });
+                unitOfWork.afterCommit(() -> gameSessionCache.invalidate(player.getGameCode()));
+                return player;
+            }
+
+            db.runTransaction(transaction -> {
+                DocumentSnapshot snapshot = transaction.get(playerRef).get();
+                if (!snapshot.exists()) {
+                    return null;
+                }
+                Player existingPlayer = snapshot.toObject(PlayerDocument.class).getPlayer();
+                existingPlayer.updatePlayer(player);
+                transaction.update(playerRef, "player", existingPlayer);
+                return null;
+            }).get();
+            gameSessionCache.invalidate(player.getGameCode());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the player", e);
             throw new ResourceException("There was an issue updating the player", e);
         }
 
@@ -149,34 +234,35 @@ public class GameSessionDAO {
     }
 
     public Player getPlayer(String gameCode, String authorId) {
-        List<Player> players = this.getPlayers(gameCode);
-        return players.stream().filter(player -> player.getAuthorId().equals(authorId)).findFirst().get();
+        return Optional.ofNullable(getCachedGame(gameCode).getIndex().getPlayer(authorId)).orElseThrow();
     }
 
     public DocumentReference getGameRef(String gameCode) {
         return db.collection("gameSessions").document(gameCode);
     }
 
+    /**
+     * Reads the game session with its players and stories inside a transaction started by {@link #runInTransaction(String, Transaction.Function)}.
+     * Collaborative text phase submissions and votes are not loaded.
+     */
     public GameSession getGameInTransaction(String gameCode, Transaction txn) {
         try {
-            DocumentReference ref = getGameRef(gameCode);
-            DocumentSnapshot snapshot = txn.get(ref).get();
-            if (!snapshot.exists()) {
-                throw new ResourceException("GameSession " + gameCode + " not found");
-            }
-            return snapshot.toObject(GameSession.class);
+            return gameSessionStore.loadInTransaction(gameCode, txn);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get GameSession in transaction", e);
         }
     }
 
-    public void updateStoriesInTransaction(String gameCode, List<Story> stories, Transaction txn) {
-        DocumentReference ref = getGameRef(gameCode);
-        txn.update(ref, "stories", stories);
+    public void createStoryInTransaction(String gameCode, Story story, Transaction txn) {
+        DocumentReference ref = gameSessionStore.getStoryRef(gameCode, GameSessionStore.storyId(story));
+        txn.set(ref, new StoryDocument(GameSessionStore.nextPosition(), story));
+        // Dropped before the commit lands; a read racing the commit is bounded by the cache TTL
+        gameSessionCache.invalidate(gameCode);
     }
 
-    public <T> T runInTransaction(Transaction.Function<T> txnLogic) {
+    public <T> T runInTransaction(String gameCode, Transaction.Function<T> txnLogic) {
         try {
+            gameSessionStore.ensureMigrated(gameCode);
             return db.runTransaction(txnLogic).get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -194,8 +280,9 @@ public class GameSessionDAO {
                 "adventureMap.encounterLabels", encounterLabels
             );
             result.get();
+            gameSessionCache.invalidate(gameCode);
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue initializing the dungeon grid", e);
             throw new ResourceException("There was an issue initializing the dungeon grid", e);
         }
     }
@@ -203,10 +290,19 @@ public class GameSessionDAO {
     public void updateDungeonGrid(String gameCode, GameBoard gameBoard) {
         try {
             DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
+
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            if (unitOfWork != null) {
+                unitOfWork.update(gameSessionRef, Map.of("gameBoard", gameBoard));
+                unitOfWork.afterCommit(() -> gameSessionCache.invalidate(gameCode));
+                return;
+            }
+
             ApiFuture<WriteResult> result = gameSessionRef.update("gameBoard", gameBoard);
             result.get();
+            gameSessionCache.invalidate(gameCode);
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the dungeon grid", e);
             throw new ResourceException("There was an issue updating the dungeon grid", e);
         }
     }
@@ -216,8 +312,9 @@ public class GameSessionDAO {
             DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
             ApiFuture<WriteResult> result = gameSessionRef.update("gameBoard.playerCoordinates", playerCoordinates);
             result.get();
+            gameSessionCache.invalidate(gameCode);
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating player coordinates", e);
             throw new ResourceException("There was an issue updating player coordinates", e);
         }
     }
@@ -0,0 +1,102 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.Player;
+import client.nowhere.model.PlayerVote;
+import client.nowhere.model.Story;
+import client.nowhere.model.TextSubmission;
+
+/**
+ * Document shapes for the gameSessions/{gameCode} sub-collections.
+ * Each entry carries a position so lists read back in the order they were written.
+ */
+public final class GameSessionDocuments {
+
+    private GameSessionDocuments() {
+    }
+
+    public static class StoryDocument {
+        private long position;
+        private Story story;
+
+        public StoryDocument() {
+        }
+
+        public StoryDocument(long position, Story story) {
+            this.position = position;
+            this.story = story;
+        }
+
+        public long getPosition() { return position; }
+        public void setPosition(long position) { this.position = position; }
+
+        public Story getStory() { return story; }
+        public void setStory(Story story) { this.story = story; }
+    }
+
+    public static class PlayerDocument {
+        private long position;
+        private Player player;
+
+        public PlayerDocument() {
+        }
+
+        public PlayerDocument(long position, Player player) {
+            this.position = position;
+            this.player = player;
+        }
+
+        public long getPosition() { return position; }
+        public void setPosition(long position) { this.position = position; }
+
+        public Player getPlayer() { return player; }
+        public void setPlayer(Player player) { this.player = player; }
+    }
+
+    public static class SubmissionDocument {
+        private long position;
+        private String phaseId;
+        private TextSubmission submission;
+
+        public SubmissionDocument() {
+        }
+
+        public SubmissionDocument(long position, String phaseId, TextSubmission submission) {
+            this.position = position;
+            this.phaseId = phaseId;
+            this.submission = submission;
+        }
+
+        public long getPosition() { return position; }
+        public void setPosition(long position) { this.position = position; }
+
+        public String getPhaseId() { return phaseId; }
+        public void setPhaseId(String phaseId) { this.phaseId = phaseId; }
+
+        public TextSubmission getSubmission() { return submission; }
+        public void setSubmission(TextSubmission submission) { this.submission = submission; }
+    }
+
+    public static class VoteDocument {
+        private long position;
+        private String phaseId;
+        private PlayerVote vote;
+
+        public VoteDocument() {
+        }
+
+        public VoteDocument(long position, String phaseId, PlayerVote vote) {
+            this.position = position;
+            this.phaseId = phaseId;
+            this.vote = vote;
+        }
+
+        public long getPosition() { return position; }
+        public void setPosition(long position) { this.position = position; }
+
+        public String getPhaseId() { return phaseId; }
+        public void setPhaseId(String phaseId) { this.phaseId = phaseId; }
+
+        public PlayerVote getVote() { return vote; }
+        public void setVote(PlayerVote vote) { this.vote = vote; }
+    }
+}
@@ -0,0 +1,164 @@
+package client.nowhere.dao;
+
+import client.nowhere.dao.GameSessionDocuments.PlayerDocument;
+import client.nowhere.dao.GameSessionDocuments.StoryDocument;
+import client.nowhere.dao.GameSessionDocuments.SubmissionDocument;
+import client.nowhere.dao.GameSessionDocuments.VoteDocument;
+import client.nowhere.exception.ResourceException;
+import client.nowhere.model.Player;
+import client.nowhere.model.PlayerVote;
+import client.nowhere.model.Story;
+import client.nowhere.model.TextSubmission;
+import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Online migration of game sessions stored in the original single-document layout.
+ * The first time a game is touched its embedded players, stories and phase submissions/votes are copied
+ * into sub-collections and removed from the root document in one transaction, and the root is stamped
+ * with the current storage version. Games known to be migrated are remembered so the check costs nothing afterwards.
+ */
+@Component
+public class GameSessionMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameSessionMigrator.class);
+    private static final String STORAGE_VERSION = "storageVersion";
+
+    private final Firestore db;
+    private final Set<String> migratedGameCodes = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public GameSessionMigrator(Firestore db) {
+        this.db = db;
+    }
+
+    public void ensureMigrated(String gameCode) {
+        if (gameCode == null || migratedGameCodes.contains(gameCode)) {
+            return;
+        }
+
+        try {
+            boolean migrated = db.runTransaction(transaction -> migrate(gameCode, transaction)).get();
+            if (migrated) {
+                markMigrated(gameCode);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new ResourceException("There was an issue migrating game session " + gameCode, e);
+        }
+    }
+
+    public void markMigrated(String gameCode) {
+        migratedGameCodes.add(gameCode);
+    }
+
+    /**
+     * @return true once the game is in the current layout, false if the game does not exist
+     */
+    private boolean migrate(String gameCode, Transaction transaction) throws InterruptedException, ExecutionException {
+        DocumentReference gameSessionRef = db.collection(GameSessionStore.GAME_SESSIONS).document(gameCode);
+        DocumentSnapshot snapshot = transaction.get(gameSessionRef).get();
+        if (!snapshot.exists()) {
+            return false;
+        }
+
+        Long storageVersion = snapshot.getLong(STORAGE_VERSION);
+        if (storageVersion != null && storageVersion >= GameSessionStore.CURRENT_STORAGE_VERSION) {
+            return true;
+        }
+
+        LegacyGameSession legacy = snapshot.toObject(LegacyGameSession.class);
+        Map<String, Object> rootUpdates = new HashMap<>();
+        long position = 0;
+
+        if (legacy.getPlayers() != null) {
+            for (Player player : legacy.getPlayers()) {
+                transaction.set(gameSessionRef.collection(GameSessionStore.PLAYERS).document(player.getAuthorId()),
+                        new PlayerDocument(position++, player));
+            }
+        }
+        rootUpdates.put(GameSessionStore.PLAYERS, FieldValue.delete());
+
+        if (legacy.getStories() != null) {
+            for (Story story : legacy.getStories()) {
+                transaction.set(gameSessionRef.collection(GameSessionStore.STORIES).document(GameSessionStore.storyId(story)),
+                        new StoryDocument(position++, story));
+            }
+        }
+        rootUpdates.put(GameSessionStore.STORIES, FieldValue.delete());
+
+        if (legacy.getCollaborativeTextPhases() != null) {
+            for (Map.Entry<String, LegacyPhase> entry : legacy.getCollaborativeTextPhases().entrySet()) {
+                String phaseId = entry.getKey();
+                LegacyPhase phase = entry.getValue();
+
+                if (phase.getSubmissions() != null) {
+                    for (TextSubmission submission : phase.getSubmissions()) {
+                        String documentId = GameSessionStore.phaseEntryId(phaseId, GameSessionStore.submissionId(submission));
+                        transaction.set(gameSessionRef.collection(GameSessionStore.SUBMISSIONS).document(documentId),
+                                new SubmissionDocument(position++, phaseId, submission));
+                    }
+                }
+
+                if (phase.getPlayerVotes() != null) {
+                    for (List<PlayerVote> votes : phase.getPlayerVotes().values()) {
+                        for (PlayerVote vote : votes) {
+                            String documentId = GameSessionStore.phaseEntryId(phaseId, GameSessionStore.voteId(vote));
+                            transaction.set(gameSessionRef.collection(GameSessionStore.VOTES).document(documentId),
+                                    new VoteDocument(position++, phaseId, vote));
+                        }
+                    }
+                }
+
+                rootUpdates.put("collaborativeTextPhases." + phaseId + ".submissions", FieldValue.delete());
+                rootUpdates.put("collaborativeTextPhases." + phaseId + ".playerVotes", FieldValue.delete());
+            }
+        }
+
+        rootUpdates.put(STORAGE_VERSION, GameSessionStore.CURRENT_STORAGE_VERSION);
+        transaction.update(gameSessionRef, rootUpdates);
+        logger.info("Migrating game session {} to storage version {}", gameCode, GameSessionStore.CURRENT_STORAGE_VERSION);
+        return true;
+    }
+
+    /**
+     * The parts of a legacy root document that move into sub-collections.
+     */
+    @IgnoreExtraProperties
+    public static class LegacyGameSession {
+        private List<Player> players;
+        private List<Story> stories;
+        private Map<String, LegacyPhase> collaborativeTextPhases;
+
+        public List<Player> getPlayers() { return players; }
+        public void setPlayers(List<Player> players) { this.players = players; }
+
+        public List<Story> getStories() { return stories; }
+        public void setStories(List<Story> stories) { this.stories = stories; }
+
+        public Map<String, LegacyPhase> getCollaborativeTextPhases() { return collaborativeTextPhases; }
+        public void setCollaborativeTextPhases(Map<String, LegacyPhase> collaborativeTextPhases) { this.collaborativeTextPhases = collaborativeTextPhases; }
+    }
+
+    @IgnoreExtraProperties
+    public static class LegacyPhase {
+        private List<TextSubmission> submissions;
+        private Map<String, List<PlayerVote>> playerVotes;
+
+        public List<TextSubmission> getSubmissions() { return submissions; }
+        public void setSubmissions(List<TextSubmission> submissions) { this.submissions = submissions; }
+
+        public Map<String, List<PlayerVote>> getPlayerVotes() { return playerVotes; }
+        public void setPlayerVotes(Map<String, List<PlayerVote>> playerVotes) { this.playerVotes = playerVotes; }
+    }
+}
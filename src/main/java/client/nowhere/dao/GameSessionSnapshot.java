@@ -0,0 +1,188 @@
+package client.nowhere.dao;
+
+import client.nowhere.dao.GameSessionStore.SessionReads;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The game documents one request has read, so helpers that each load the session read Firestore once per request.
+ * While a snapshot is open, {@link GameSessionStore} keeps the documents of every full session load and maps them
+ * again for later loads and phase reads of the same game, so each caller still gets its own GameSession to modify.
+ * Any write that drops the game from {@link GameSessionCache} also drops it here, so a request reads its own writes;
+ * {@link #refresh(String)} does the same explicitly, and the snapshot remembers which games were dropped, so work
+ * that failed part way can tell whether it already wrote anything.
+ * The snapshot also counts the loads it answered from documents already read, and names the request's endpoint to
+ * the Firestore metrics, which count the documents actually read.
+ */
+public final class GameSessionSnapshot implements AutoCloseable {
+
+    private static final ThreadLocal<GameSessionSnapshot> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, CompletableFuture<SessionReads>> sessions = new ConcurrentHashMap<>();
+    private final Set<String> refreshedGames = ConcurrentHashMap.newKeySet();
+    private final LongAdder reusedLoads = new LongAdder();
+    private final GameSessionSnapshot outer;
+    private final Supplier<String> endpoint;
+
+    private GameSessionSnapshot(GameSessionSnapshot outer, Supplier<String> endpoint) {
+        this.outer = outer;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return The snapshot open on this thread, or null if reads go straight to Firestore
+     */
+    public static GameSessionSnapshot current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Opens a snapshot on this thread, to be closed by the caller, typically with try-with-resources.
+     */
+    public static GameSessionSnapshot open() {
+        return open(null);
+    }
+
+    /**
+     * Opens a snapshot for a request.
+     * @param endpoint Names the endpoint serving the request once it is known, or returns null until then
+     */
+    public static GameSessionSnapshot open(Supplier<String> endpoint) {
+        GameSessionSnapshot outer = CURRENT.get();
+        if (endpoint == null && outer != null) {
+            endpoint = outer.endpoint;
+        }
+        GameSessionSnapshot snapshot = new GameSessionSnapshot(outer, endpoint);
+        CURRENT.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Runs the work with a snapshot open. Work started inside another snapshot joins it.
+     */
+    public static <T> T run(Supplier<T> work) {
+        if (CURRENT.get() != null) {
+            return work.get();
+        }
+        try (GameSessionSnapshot ignored = open()) {
+            return work.get();
+        }
+    }
+
+    /**
+     * Wraps work handed to another thread so it shares the snapshot open on this one.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        GameSessionSnapshot snapshot = CURRENT.get();
+        if (snapshot == null) {
+            return work;
+        }
+        return () -> {
+            GameSessionSnapshot previous = CURRENT.get();
+            CURRENT.set(snapshot);
+            try {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Drops the game from the open snapshot, so the next load reads it from Firestore again.
+     * The game counts as refreshed in the open snapshot and the ones it is nested in.
+     */
+    public static void refresh(String gameCode) {
+        GameSessionSnapshot snapshot = CURRENT.get();
+        if (snapshot != null && gameCode != null) {
+            snapshot.sessions.remove(gameCode);
+            for (GameSessionSnapshot enclosing = snapshot; enclosing != null; enclosing = enclosing.outer) {
+                enclosing.refreshedGames.add(gameCode);
+            }
+        }
+    }
+
+    /**
+     * @return Whether the game was refreshed since the snapshot was opened, which every write of the game does
+     */
+    public boolean isRefreshed(String gameCode) {
+        return refreshedGames.contains(gameCode);
+    }
+
+    /**
+     * The documents already read for the game, or the ones the loader reads, which are kept for later loads.
+     */
+    CompletableFuture<SessionReads> reads(String gameCode, Supplier<CompletableFuture<SessionReads>> loader) {
+        CompletableFuture<SessionReads> held = held(gameCode);
+        if (held != null) {
+            return held;
+        }
+
+        CompletableFuture<SessionReads> loading = loader.get();
+        sessions.put(gameCode, loading);
+        loading.whenComplete((reads, failure) -> {
+            if (failure != null) {
+                sessions.remove(gameCode, loading);
+            }
+        });
+        return loading;
+    }
+
+    /**
+     * @return The documents already read for the game, or null if it has not been loaded in this snapshot
+     */
+    CompletableFuture<SessionReads> held(String gameCode) {
+        CompletableFuture<SessionReads> held = sessions.get(gameCode);
+        if (held == null || held.isCompletedExceptionally()) {
+            return null;
+        }
+        reusedLoads.increment();
+        return held;
+    }
+
+    /**
+     * @return The held game document for the reference, or null if it is not a game this snapshot has loaded
+     */
+    DocumentSnapshot heldDocument(DocumentReference documentReference) {
+        if (!GameSessionStore.GAME_SESSIONS.equals(documentReference.getParent().getId())) {
+            return null;
+        }
+        CompletableFuture<SessionReads> held = sessions.get(documentReference.getId());
+        if (held == null || !held.isDone() || held.isCompletedExceptionally()) {
+            return null;
+        }
+        reusedLoads.increment();
+        return held.join().root();
+    }
+
+    /**
+     * @return The method and route of the request the snapshot was opened for, e.g. {@code PUT /game}, or null
+     */
+    public String getEndpoint() {
+        return endpoint == null ? null : endpoint.get();
+    }
+
+    public long getReusedLoads() {
+        return reusedLoads.sum();
+    }
+
+    @Override
+    public void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package client.nowhere.dao;
+
+import client.nowhere.dao.GameSessionDocuments.PlayerDocument;
+import client.nowhere.dao.GameSessionDocuments.StoryDocument;
+import client.nowhere.dao.GameSessionDocuments.SubmissionDocument;
+import client.nowhere.dao.GameSessionDocuments.VoteDocument;
+import client.nowhere.exception.ResourceException;
+import client.nowhere.model.*;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Storage layout of a game session.
+ * The gameSessions/{gameCode} document holds the session's scalar state, rituals, endings, the adventure map
+ * and the collaborative text phase metadata. Stories, players and phase submissions/votes live in
+ * sub-collections keyed by id, so writes touch a single entry instead of rewriting a growing array.
+ */
+@Component
+public class GameSessionStore {
+
+    public static final int CURRENT_STORAGE_VERSION = 1;
+
+    static final String GAME_SESSIONS = "gameSessions";
+    static final String STORIES = "stories";
+    static final String PLAYERS = "players";
+    static final String SUBMISSIONS = "submissions";
+    static final String VOTES = "votes";
+    static final String PHASE_ID = "phaseId";
+
+    private static final AtomicLong lastPosition = new AtomicLong();
+
+    private final Firestore db;
+    private final GameSessionMigrator gameSessionMigrator;
+
+    @Autowired
+    public GameSessionStore(Firestore db, GameSessionMigrator gameSessionMigrator) {
+        this.db = db;
+        this.gameSessionMigrator = gameSessionMigrator;
+    }
+
+    public DocumentReference getGameRef(String gameCode) {
+        return db.collection(GAME_SESSIONS).document(gameCode);
+    }
+
+    public CollectionReference getStories(String gameCode) {
+        return getGameRef(gameCode).collection(STORIES);
+    }
+
+    public CollectionReference getPlayers(String gameCode) {
+        return getGameRef(gameCode).collection(PLAYERS);
+    }
+
+    public CollectionReference getSubmissions(String gameCode) {
+        return getGameRef(gameCode).collection(SUBMISSIONS);
+    }
+
+    public CollectionReference getVotes(String gameCode) {
+        return getGameRef(gameCode).collection(VOTES);
+    }
+
+    public DocumentReference getStoryRef(String gameCode, String storyId) {
+        return getStories(gameCode).document(storyId);
+    }
+
+    public DocumentReference getPlayerRef(String gameCode, String authorId) {
+        return getPlayers(gameCode).document(authorId);
+    }
+
+    public DocumentReference getSubmissionRef(String gameCode, String phaseId, String submissionId) {
+        return getSubmissions(gameCode).document(phaseEntryId(phaseId, submissionId));
+    }
+
+    public DocumentReference getVoteRef(String gameCode, String phaseId, String voteId) {
+        return getVotes(gameCode).document(phaseEntryId(phaseId, voteId));
+    }
+
+    /**
+     * Moves a legacy single-document session into the sub-collection layout if that has not happened yet.
+     * Must be called before any transaction that reads or writes the sub-collections.
+     * @param gameCode The game code
+     */
+    public void ensureMigrated(String gameCode) {
+        gameSessionMigrator.ensureMigrated(gameCode);
+    }
+
+    public void markMigrated(String gameCode) {
+        gameSessionMigrator.markMigrated(gameCode);
+    }
+
+    /**
+     * Reads the root document and all of its sub-collections and assembles the full GameSession.
+     * @param gameCode The game code
+     * @return The hydrated GameSession
+     */
+    public GameSession load(String gameCode) throws InterruptedException, ExecutionException {
+        try {
+            return loadAsync(gameCode).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResourceException resourceException) {
+                throw resourceException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Issues the root document and sub-collection reads together and assembles the GameSession once all of them
+     * have completed, without holding a thread while they are in flight.
+     * Only the first load of a legacy session blocks, while it is migrated.
+     * @param gameCode The game code
+     * @return The pending hydrated GameSession
+     */
+    public CompletableFuture<GameSession> loadAsync(String gameCode) {
+        GameSessionSnapshot snapshot = GameSessionSnapshot.current();
+        CompletableFuture<SessionReads> reads = snapshot != null
+                ? snapshot.reads(gameCode, () -> readSession(gameCode))
+                : readSession(gameCode);
+        return reads.thenApply(GameSessionStore::assemble);
+    }
+
+    private CompletableFuture<SessionReads> readSession(String gameCode) {
+        ensureMigrated(gameCode);
+
+        CompletableFuture<DocumentSnapshot> rootFuture = FirestoreDAOUtil.toCompletableFuture(getGameRef(gameCode).get());
+        CompletableFuture<QuerySnapshot> storiesFuture = FirestoreDAOUtil.toCompletableFuture(getStories(gameCode).get());
+        CompletableFuture<QuerySnapshot> playersFuture = FirestoreDAOUtil.toCompletableFuture(getPlayers(gameCode).get());
+        CompletableFuture<QuerySnapshot> submissionsFuture = FirestoreDAOUtil.toCompletableFuture(getSubmissions(gameCode).get());
+        CompletableFuture<QuerySnapshot> votesFuture = FirestoreDAOUtil.toCompletableFuture(getVotes(gameCode).get());
+
+        return CompletableFuture.allOf(rootFuture, storiesFuture, playersFuture, submissionsFuture, votesFuture)
+                .thenApply(ignored -> new SessionReads(
+                        rootFuture.join(), storiesFuture.join(), playersFuture.join(), submissionsFuture.join(), votesFuture.join()));
+    }
+
+    /**
+     * Maps a session's documents into a new GameSession, so sessions assembled from the same reads can be changed independently.
+     */
+    private static GameSession assemble(SessionReads reads) {
+        GameSession gameSession = FirestoreDAOUtil.mapGameSession(reads.root());
+        gameSession.setStories(toStories(reads.stories()));
+        gameSession.setPlayers(toPlayers(reads.players()));
+        attachPhaseEntries(gameSession, reads.submissions(), reads.votes());
+        return gameSession;
+    }
+
+    /**
+     * Reads the session's stories in the order they were written.
+     * @param gameCode The game code
+     * @return The stories, empty if the game has none
+     */
+    public List<Story> loadStories(String gameCode) throws InterruptedException, ExecutionException {
+        ensureMigrated(gameCode);
+        QuerySnapshot stories = getStories(gameCode).get().get();
+        return toStories(stories);
+    }
+
+    /**
+     * Reads a single story of the session.
+     * @param gameCode The game code
+     * @param storyId The story ID
+     * @return The story or null if it does not exist
+     */
+    public Story loadStory(String gameCode, String storyId) throws InterruptedException, ExecutionException {
+        ensureMigrated(gameCode);
+        DocumentSnapshot snapshot = getStoryRef(gameCode, storyId).get().get();
+        if (!snapshot.exists()) {
+            return null;
+        }
+        return snapshot.toObject(StoryDocument.class).getStory();
+    }
+
+    /**
+     * Reads the root document with its players and stories inside a transaction.
+     * Phase submissions and votes are not loaded so that unrelated phase writes don't contend with the transaction.
+     * @param gameCode The game code
+     * @param txn The Firestore transaction
+     * @return The GameSession with players and stories attached
+     */
+    public GameSession loadInTransaction(String gameCode, Transaction txn) throws InterruptedException, ExecutionException {
+        ApiFuture<DocumentSnapshot> rootFuture = txn.get(getGameRef(gameCode));
+        ApiFuture<QuerySnapshot> storiesFuture = txn.get(getStories(gameCode));
+        ApiFuture<QuerySnapshot> playersFuture = txn.get(getPlayers(gameCode));
+
+        DocumentSnapshot root = rootFuture.get();
+        if (!root.exists()) {
+            throw new ResourceException("GameSession " + gameCode + " not found");
+        }
+        GameSession gameSession = root.toObject(GameSession.class);
+        requireMigrated(gameSession);
+        QuerySnapshot stories = storiesFuture.get();
+        QuerySnapshot players = playersFuture.get();
+        gameSession.setStories(toStories(stories));
+        gameSession.setPlayers(toPlayers(players));
+        return gameSession;
+    }
+
+    /**
+     * Reads the root document and the session's players inside a transaction. Stories and phase entries are not loaded.
+     * @param gameCode The game code
+     * @param txn The Firestore transaction
+     * @return The GameSession with players attached
+     */
+    public GameSession loadWithPlayersInTransaction(String gameCode, Transaction txn) throws InterruptedException, ExecutionException {
+        ApiFuture<DocumentSnapshot> rootFuture = txn.get(getGameRef(gameCode));
+        ApiFuture<QuerySnapshot> playersFuture = txn.get(getPlayers(gameCode));
+
+        GameSession gameSession = FirestoreDAOUtil.mapGameSession(rootFuture.get());
+        requireMigrated(gameSession);
+        QuerySnapshot players = playersFuture.get();
+        gameSession.setPlayers(toPlayers(players));
+        return gameSession;
+    }
+
+    /**
+     * Reads a single collaborative text phase with its submissions and votes inside a transaction.
+     * @param gameCode The game code
+     * @param phaseId The phase ID
+     * @param txn The Firestore transaction
+     * @return The CollaborativeTextPhase or null if the game or phase does not exist
+     */
+    public CollaborativeTextPhase loadPhaseInTransaction(String gameCode, String phaseId, Transaction txn) throws InterruptedException, ExecutionException {
+        ApiFuture<DocumentSnapshot> rootFuture = FirestoreDAOUtil.getFieldsInTransaction(txn, getGameRef(gameCode), phaseFields(phaseId));
+        ApiFuture<QuerySnapshot> submissionsFuture = txn.get(getSubmissions(gameCode).whereEqualTo(PHASE_ID, phaseId));
+        ApiFuture<QuerySnapshot> votesFuture = txn.get(getVotes(gameCode).whereEqualTo(PHASE_ID, phaseId));
+
+        DocumentSnapshot root = rootFuture.get();
+        if (!root.exists()) {
+            return null;
+        }
+        GameSession gameSession = root.toObject(GameSession.class);
+        if (gameSession == null || gameSession.getCollaborativeTextPhases() == null) {
+            return null;
+        }
+        requireMigrated(gameSession);
+
+        CollaborativeTextPhase phase = gameSession.getCollaborativeTextPhases().get(phaseId);
+        if (phase == null) {
+            return null;
+        }
+        attachPhaseEntries(gameSession, submissionsFuture.get(), votesFuture.get());
+        return phase;
+    }
+
+    /**
+     * Reads a single collaborative text phase with its submissions and votes.
+     * @param gameCode The game code
+     * @param phaseId The phase ID
+     * @return The CollaborativeTextPhase or null if the game or phase does not exist
+     */
+    public CollaborativeTextPhase loadPhase(String gameCode, String phaseId) throws InterruptedException, ExecutionException {
+        GameSessionSnapshot snapshot = GameSessionSnapshot.current();
+        CompletableFuture<SessionReads> held = snapshot != null ? snapshot.held(gameCode) : null;
+        if (held != null) {
+            SessionReads reads = held.get();
+            if (!reads.root().exists()) {
+                return null;
+            }
+            Map<String, CollaborativeTextPhase> phases = assemble(reads).getCollaborativeTextPhases();
+            return phases != null ? phases.get(phaseId) : null;
+        }
+
+        ensureMigrated(gameCode);
+
+        ApiFuture<DocumentSnapshot> rootFuture = FirestoreDAOUtil.getFields(getGameRef(gameCode), phaseFields(phaseId));
+        ApiFuture<QuerySnapshot> submissionsFuture = getSubmissions(gameCode).whereEqualTo(PHASE_ID, phaseId).get();
+        ApiFuture<QuerySnapshot> votesFuture = getVotes(gameCode).whereEqualTo(PHASE_ID, phaseId).get();
+
+        DocumentSnapshot root = rootFuture.get();
+        if (!root.exists()) {
+            return null;
+        }
+        GameSession gameSession = root.toObject(GameSession.class);
+        if (gameSession == null || gameSession.getCollaborativeTextPhases() == null) {
+            return null;
+        }
+
+        CollaborativeTextPhase phase = gameSession.getCollaborativeTextPhases().get(phaseId);
+        if (phase == null) {
+            return null;
+        }
+        attachPhaseEntries(gameSession, submissionsFuture.get(), votesFuture.get());
+        return phase;
+    }
+
+    /**
+     * Queues the sub-collection documents for every player, story and phase entry held by the session.
+     * Used when a session is created from a full GameSession object.
+     * @param gameSession The session whose entries should be written
+     * @param batch The batch to add the writes to
+     */
+    public void writeEntries(GameSession gameSession, WriteBatch batch) {
+        String gameCode = gameSession.getGameCode();
+        if (gameSession.getPlayers() != null) {
+            for (Player player : gameSession.getPlayers()) {
+                batch.set(getPlayerRef(gameCode, player.getAuthorId()), new PlayerDocument(nextPosition(), player));
+            }
+        }
+        if (gameSession.getStories() != null) {
+            for (Story story : gameSession.getStories()) {
+                batch.set(getStoryRef(gameCode, storyId(story)), new StoryDocument(nextPosition(), story));
+            }
+        }
+        if (gameSession.getCollaborativeTextPhases() != null) {
+            gameSession.getCollaborativeTextPhases().forEach((phaseId, phase) -> {
+                for (TextSubmission submission : phase.getSubmissions()) {
+                    batch.set(getSubmissionRef(gameCode, phaseId, submissionId(submission)),
+                            new SubmissionDocument(nextPosition(), phaseId, submission));
+                }
+                phase.getPlayerVotes().values().forEach(votes -> votes.forEach(vote ->
+                        batch.set(getVoteRef(gameCode, phaseId, voteId(vote)),
+                                new VoteDocument(nextPosition(), phaseId, vote))));
+            });
+        }
+    }
+
+    /**
+     * Deletes a session's root document and every document in its sub-collections.
+     * @param gameCode The game code
+     */
+    public void delete(String gameCode) throws InterruptedException, ExecutionException {
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (CollectionReference collection : List.of(getStories(gameCode), getPlayers(gameCode), getSubmissions(gameCode), getVotes(gameCode))) {
+            // Only the document names are needed to delete them
+            for (QueryDocumentSnapshot document : collection.select(FieldPath.documentId()).get().get()) {
+                batch.delete(document.getReference());
+                if (++writes == 500) {
+                    batch.commit().get();
+                    batch = db.batch();
+                    writes = 0;
+                }
+            }
+        }
+        batch.delete(getGameRef(gameCode));
+        batch.commit().get();
+    }
+
+    static String phaseEntryId(String phaseId, String entryId) {
+        return phaseId + "_" + entryId;
+    }
+
+    /**
+     * Returns the story's id, assigning a new one if the story doesn't have one yet.
+     */
+    static String storyId(Story story) {
+        if (story.getStoryId() == null || story.getStoryId().isBlank()) {
+            story.setStoryId(UUID.randomUUID().toString());
+        }
+        return story.getStoryId();
+    }
+
+    static String submissionId(TextSubmission submission) {
+        if (submission.getSubmissionId() == null || submission.getSubmissionId().isBlank()) {
+            submission.setSubmissionId(UUID.randomUUID().toString());
+        }
+        return submission.getSubmissionId();
+    }
+
+    static String voteId(PlayerVote vote) {
+        if (vote.getVoteId() == null || vote.getVoteId().isBlank()) {
+            vote.setVoteId(UUID.randomUUID().toString());
+        }
+        return vote.getVoteId();
+    }
+
+    /**
+     * Returns an increasing position for a new sub-collection entry, so entries written
+     * in the same millisecond still read back in write order.
+     */
+    static long nextPosition() {
+        long now = System.currentTimeMillis() * 1000;
+        return lastPosition.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+
+    /**
+     * The root document fields a single phase read needs; the rest of the session is left out of the read.
+     */
+    private static String[] phaseFields(String phaseId) {
+        return new String[] { "gameCode", "storageVersion", "collaborativeTextPhases." + phaseId };
+    }
+
+    private static void requireMigrated(GameSession gameSession) {
+        if (gameSession.getStorageVersion() < CURRENT_STORAGE_VERSION) {
+            throw new ResourceException("GameSession " + gameSession.getGameCode() + " has not been migrated to the current storage layout");
+        }
+    }
+
+    private static List<Story> toStories(QuerySnapshot snapshot) {
+        return sorted(snapshot.toObjects(StoryDocument.class), StoryDocument::getPosition).stream()
+                .map(StoryDocument::getStory)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Player> toPlayers(QuerySnapshot snapshot) {
+        return sorted(snapshot.toObjects(PlayerDocument.class), PlayerDocument::getPosition).stream()
+                .map(PlayerDocument::getPlayer)
+                .collect(Collectors.toList());
+    }
+
+    private static void attachPhaseEntries(GameSession gameSession, QuerySnapshot submissions, QuerySnapshot votes) {
+        if (gameSession.getCollaborativeTextPhases() == null) {
+            gameSession.setCollaborativeTextPhases(new HashMap<>());
+        }
+
+        for (SubmissionDocument document : sorted(submissions.toObjects(SubmissionDocument.class), SubmissionDocument::getPosition)) {
+            CollaborativeTextPhase phase = gameSession.getCollaborativeTextPhases().get(document.getPhaseId());
+            if (phase != null) {
+                phase.getSubmissions().add(document.getSubmission());
+            }
+        }
+
+        for (VoteDocument document : sorted(votes.toObjects(VoteDocument.class), VoteDocument::getPosition)) {
+            CollaborativeTextPhase phase = gameSession.getCollaborativeTextPhases().get(document.getPhaseId());
+            if (phase != null) {
+                PlayerVote vote = document.getVote();
+                phase.getPlayerVotes().computeIfAbsent(vote.getPlayerId(), playerId -> new ArrayList<>()).add(vote);
+            }
+        }
+    }
+
+    /**
+     * Every document a full session load reads.
+     */
+    record SessionReads(DocumentSnapshot root, QuerySnapshot stories, QuerySnapshot players, QuerySnapshot submissions, QuerySnapshot votes) { }
+
+    private static <T> List<T> sorted(List<T> documents, ToLongFunction<T> position) {
+        List<T> sortedDocuments = new ArrayList<>(documents);
+        sortedDocuments.sort(Comparator.comparingLong(position));
+        return sortedDocuments;
+    }
+}
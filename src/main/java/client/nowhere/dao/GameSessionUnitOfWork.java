@@ -0,0 +1,193 @@
+package client.nowhere.dao;
+
+import client.nowhere.exception.ResourceException;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collects the writes a phase transition makes so they reach Firestore as one transaction instead of one
+ * read-modify-write round trip each.
+ * While {@link #run(Supplier)} is executing, DAOs that support it stage their writes on {@link #current()} instead of
+ * sending them. At the end every document a staged merge needs is read in one batch, the merges are applied in the
+ * order they were staged, and all writes are committed together.
+ * Reads made inside the unit of work do not see its staged writes, so it should only wrap code that writes
+ * and does not read back what it wrote.
+ */
+public final class GameSessionUnitOfWork {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameSessionUnitOfWork.class);
+    private static final ThreadLocal<GameSessionUnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final List<StagedWrite> writes = new ArrayList<>();
+    private final Map<String, DocumentReference> reads = new LinkedHashMap<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    private GameSessionUnitOfWork() {
+    }
+
+    /**
+     * @return The unit of work running on this thread, or null if writes should be sent right away
+     */
+    public static GameSessionUnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the work with writes staged, then commits them. A unit of work started inside another one joins it.
+     * Nothing is written if the work throws.
+     */
+    public static <T> T run(Supplier<T> work) {
+        if (CURRENT.get() != null) {
+            return work.get();
+        }
+
+        GameSessionUnitOfWork unitOfWork = new GameSessionUnitOfWork();
+        CURRENT.set(unitOfWork);
+        T result;
+        try {
+            result = work.get();
+        } finally {
+            CURRENT.remove();
+        }
+        unitOfWork.commit();
+        return result;
+    }
+
+    public static void run(Runnable work) {
+        run(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Stages a write of the whole document. Later merges of its fields in this unit of work start from this data.
+     */
+    public void set(DocumentReference documentReference, Object data) {
+        writes.add(new StagedWrite(documentReference, (transaction, values) -> {
+            String path = documentReference.getPath();
+            values.keySet().removeIf(key -> key.startsWith(path + "#"));
+            values.put(path, new StagedDocument(path, data));
+            transaction.set(documentReference, data);
+        }));
+    }
+
+    public void update(DocumentReference documentReference, Map<String, Object> fields) {
+        writes.add(new StagedWrite(documentReference, (transaction, values) -> {
+            fields.forEach((field, value) -> values.put(key(documentReference, field), value));
+            transaction.update(documentReference, fields);
+        }));
+    }
+
+    /**
+     * Stages a read-modify-write of one field. The merge gets the field's value as of the commit, including
+     * earlier merges of the same field and the data of an earlier {@link #set} in this unit of work, and returns the
+     * value to write. Nothing is written if the document does not exist or the merge returns null.
+     * The commit fails if the field cannot be read from the data of an earlier set.
+     */
+    public <T> void mergeField(DocumentReference documentReference, String field, Class<T> type, UnaryOperator<T> merge) {
+        reads.putIfAbsent(documentReference.getPath(), documentReference);
+        writes.add(new StagedWrite(documentReference, (transaction, values) -> {
+            String key = key(documentReference, field);
+            Object document = values.get(documentReference.getPath());
+            T current;
+            if (values.containsKey(key)) {
+                current = type.cast(values.get(key));
+            } else if (document instanceof StagedDocument stagedDocument) {
+                current = type.cast(stagedDocument.field(field));
+            } else if (document instanceof DocumentSnapshot snapshot && snapshot.exists()) {
+                current = snapshot.get(field, type);
+            } else {
+                return;
+            }
+
+            T merged = merge.apply(current);
+            if (merged != null) {
+                values.put(key, merged);
+                transaction.update(documentReference, field, merged);
+            }
+        }));
+    }
+
+    /**
+     * Runs after a successful commit, e.g. to drop cached sessions. Not run if the commit fails.
+     */
+    public void afterCommit(Runnable callback) {
+        afterCommit.add(callback);
+    }
+
+    private void commit() {
+        if (writes.isEmpty()) {
+            afterCommit.forEach(Runnable::run);
+            return;
+        }
+
+        Firestore db = writes.getFirst().documentReference().getFirestore();
+        try {
+            db.runTransaction(transaction -> {
+                Map<String, Object> values = new HashMap<>();
+                if (!reads.isEmpty()) {
+                    List<DocumentSnapshot> snapshots = transaction.getAll(reads.values().toArray(new DocumentReference[0])).get();
+                    snapshots.forEach(snapshot -> values.put(snapshot.getReference().getPath(), snapshot));
+                }
+                for (StagedWrite write : writes) {
+                    write.apply().apply(transaction, values);
+                }
+                return null;
+            }).get();
+            logger.debug("Committed {} staged writes reading {} documents", writes.size(), reads.size());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new ResourceException("There was an issue committing the game session changes", e);
+        }
+        afterCommit.forEach(Runnable::run);
+    }
+
+    private static String key(DocumentReference documentReference, String field) {
+        return documentReference.getPath() + "#" + field;
+    }
+
+    private interface Write {
+        void apply(Transaction transaction, Map<String, Object> values);
+    }
+
+    private record StagedWrite(DocumentReference documentReference, Write apply) { }
+
+    /**
+     * The data of a document written with {@link #set} earlier in the commit, which is what later merges start from.
+     */
+    private record StagedDocument(String path, Object data) {
+
+        Object field(String field) {
+            if (data instanceof Map<?, ?> map) {
+                return map.get(field);
+            }
+            try {
+                for (PropertyDescriptor property : Introspector.getBeanInfo(data.getClass()).getPropertyDescriptors()) {
+                    if (property.getName().equals(field) && property.getReadMethod() != null) {
+                        return property.getReadMethod().invoke(data);
+                    }
+                }
+            } catch (IntrospectionException | IllegalAccessException | InvocationTargetException e) {
+                throw new ResourceException("Could not read " + field + " of " + path + " staged in this unit of work", e);
+            }
+            throw new ResourceException("Cannot merge " + field + " into " + path + ": the data staged for it has no such field");
+        }
+    }
+}
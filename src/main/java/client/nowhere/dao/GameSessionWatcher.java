@@ -0,0 +1,173 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.GameSessionEvent;
+import client.nowhere.model.GameState;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Firestore snapshot listeners for a single game.
+ * One listener watches the game session document and one watches the phase submissions,
+ * and every snapshot is reduced to the fields that changed since the previous one.
+ */
+@Component
+public class GameSessionWatcher {
+
+    private final GameSessionStore gameSessionStore;
+    private final GameSessionCache gameSessionCache;
+
+    @Autowired
+    public GameSessionWatcher(GameSessionStore gameSessionStore, GameSessionCache gameSessionCache) {
+        this.gameSessionStore = gameSessionStore;
+        this.gameSessionCache = gameSessionCache;
+    }
+
+    /**
+     * Starts listening to a game. The first event carries the full state, later events only the changes.
+     * @param gameCode The game code
+     * @param onChange Called with every non-empty change, on a Firestore listener thread
+     * @param onError Called once if either listener fails; both listeners are removed by then
+     * @return A registration that removes both listeners
+     */
+    public ListenerRegistration watch(String gameCode, Consumer<GameSessionEvent> onChange, Consumer<Exception> onError) {
+        gameSessionStore.ensureMigrated(gameCode);
+        GameSessionDiff diff = new GameSessionDiff(gameCode);
+        ListenerRegistration[] registrations = new ListenerRegistration[2];
+        ListenerRegistration registration = () -> {
+            for (ListenerRegistration listener : registrations) {
+                if (listener != null) {
+                    listener.remove();
+                }
+            }
+        };
+
+        registrations[0] = gameSessionStore.getGameRef(gameCode).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                registration.remove();
+                onError.accept(error);
+                return;
+            }
+            if (snapshot == null || !snapshot.exists()) {
+                return;
+            }
+            // Writes from other instances don't go through this instance's DAOs, so drop the cached copy here too
+            gameSessionCache.invalidate(gameCode);
+            publish(diff.onGameSession(snapshot), onChange);
+        });
+
+        registrations[1] = gameSessionStore.getSubmissions(gameCode).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                registration.remove();
+                onError.accept(error);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            publish(diff.onSubmissions(snapshot), onChange);
+        });
+
+        return registration;
+    }
+
+    private void publish(GameSessionEvent event, Consumer<GameSessionEvent> onChange) {
+        if (!event.isEmpty()) {
+            onChange.accept(event);
+        }
+    }
+
+    /**
+     * Remembers the last state seen by the listeners of a game.
+     * The two listeners may call in on different threads, so every method is synchronized.
+     */
+    static class GameSessionDiff {
+        private final String gameCode;
+        private GameState gameState;
+        private Integer roundNumber;
+        private final Map<String, Boolean> isPlayerDone = new HashMap<>();
+        private final Map<String, Integer> submissionCounts = new HashMap<>();
+
+        GameSessionDiff(String gameCode) {
+            this.gameCode = gameCode;
+        }
+
+        synchronized GameSessionEvent onGameSession(DocumentSnapshot snapshot) {
+            GameState newGameState = toGameState(snapshot.getString("gameState"));
+            Long newRoundNumber = snapshot.getLong("roundNumber");
+            Object rawPlayerDone = snapshot.get("activeGameStateSession.isPlayerDone");
+
+            Map<String, Boolean> newPlayerDone = new HashMap<>();
+            if (rawPlayerDone instanceof Map<?, ?> playerDoneMap) {
+                playerDoneMap.forEach((authorId, done) ->
+                        newPlayerDone.put(String.valueOf(authorId), Boolean.TRUE.equals(done)));
+            }
+            return onGameSession(newGameState, newRoundNumber != null ? newRoundNumber.intValue() : null, newPlayerDone);
+        }
+
+        synchronized GameSessionEvent onGameSession(GameState newGameState, Integer newRoundNumber, Map<String, Boolean> newPlayerDone) {
+            GameState changedGameState = Objects.equals(gameState, newGameState) ? null : newGameState;
+            Integer changedRoundNumber = Objects.equals(roundNumber, newRoundNumber) ? null : newRoundNumber;
+            gameState = newGameState;
+            roundNumber = newRoundNumber;
+
+            return new GameSessionEvent(gameCode, changedGameState, changedRoundNumber,
+                    applyChanges(isPlayerDone, newPlayerDone, false), null);
+        }
+
+        synchronized GameSessionEvent onSubmissions(QuerySnapshot snapshot) {
+            Map<String, Integer> newCounts = new HashMap<>();
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                String phaseId = document.getString(GameSessionStore.PHASE_ID);
+                if (phaseId != null) {
+                    newCounts.merge(phaseId, 1, Integer::sum);
+                }
+            }
+            return onSubmissionCounts(newCounts);
+        }
+
+        synchronized GameSessionEvent onSubmissionCounts(Map<String, Integer> newCounts) {
+            return new GameSessionEvent(gameCode, null, null, null,
+                    applyChanges(submissionCounts, newCounts, 0));
+        }
+
+        /**
+         * Replaces the known entries with the new ones and returns the entries that changed.
+         * Entries that disappeared are reported with the given default value.
+         */
+        private static <V> Map<String, V> applyChanges(Map<String, V> known, Map<String, V> latest, V removedValue) {
+            Map<String, V> changes = new HashMap<>();
+            latest.forEach((key, value) -> {
+                if (!Objects.equals(known.get(key), value)) {
+                    changes.put(key, value);
+                }
+            });
+            known.keySet().stream()
+                    .filter(key -> !latest.containsKey(key))
+                    .forEach(key -> changes.put(key, removedValue));
+
+            known.clear();
+            known.putAll(latest);
+            return changes;
+        }
+
+        private static GameState toGameState(String gameState) {
+            if (gameState == null) {
+                return null;
+            }
+            try {
+                return GameState.valueOf(gameState);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
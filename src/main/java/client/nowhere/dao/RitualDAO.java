@@ -17,25 +17,37 @@ import java.util.stream.Collectors;
 public class RitualDAO {
 
     private final Firestore db;
+    private final GameSessionCache gameSessionCache;
+    private final GameSessionStore gameSessionStore;
 
     @Autowired
-    public RitualDAO(Firestore db) {
+    public RitualDAO(Firestore db, GameSessionCache gameSessionCache, GameSessionStore gameSessionStore) {
         this.db = db;
+        this.gameSessionCache = gameSessionCache;
+        this.gameSessionStore = gameSessionStore;
     }
 
     public List<Story> getRitualJobs(String gameCode) {
         List<Story> ritualArtifacts = new ArrayList<>();
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSessionSnapshot = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            GameSession gameSession = FirestoreDAOUtil.mapGameSession(gameSessionSnapshot);
-            ritualArtifacts = gameSession.getRituals();
-        } catch (InterruptedException | ExecutionException e) {
+            GameSession gameSession = gameSessionCache.get(gameCode, this::readGameSession);
+            if (gameSession.getRituals() != null) {
+                ritualArtifacts = gameSession.getRituals();
+            }
+        } catch (ResourceException e) {
             System.out.println("There was an issue retrieving the game session " + e.getMessage());
         }
         return ritualArtifacts;
     }
 
+    private GameSession readGameSession(String gameCode) {
+        try {
+            return gameSessionStore.load(gameCode);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new ResourceException("There was an issue retrieving the game session", e);
+        }
+    }
+
     public Option getRitualJob(String gameCode, String playerId) {
         List<Story> rituals = getRitualJobs(gameCode);
         List<Option> ritualOptions = rituals.stream().flatMap(story -> story.getOptions().stream()).collect(Collectors.toList());
@@ -98,7 +110,8 @@ public class RitualDAO {
                 }
             }
 
-            gameSessionRef.update("rituals", game.getRituals());
+            gameSessionRef.update("rituals", game.getRituals()).get();
+            gameSessionCache.invalidate(ritualStory.getGameCode());
 
             return existingOption;
         } catch (InterruptedException | ExecutionException e) {
@@ -123,6 +136,7 @@ public class RitualDAO {
 
             ApiFuture<WriteResult> result = gameSessionRef.update("rituals", ritualStories);
             WriteResult asyncResponse = result.get();
+            gameSessionCache.invalidate(ritualStory.getGameCode());
             System.out.println("Update time: " + asyncResponse);
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
@@ -0,0 +1,128 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.AdventureMap;
+import client.nowhere.model.SaveGame;
+import client.nowhere.model.SequelKey;
+import client.nowhere.model.Story;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Document shapes for save games, stored under userProfiles/{userProfileId}/saveGames and their stories
+ * under .../saveGames/{saveGameId}/stories.
+ * Each archived story carries its prequel key and location id as top-level fields, so sequels and standalone
+ * stories for a location are found by query instead of by reading the save game's whole history.
+ */
+public final class SaveGameDocuments {
+
+    private SaveGameDocuments() {
+    }
+
+    /**
+     * What the profile document keeps of an adventure map once its save games have their own documents.
+     */
+    public static class ProfileAdventureMapDocument {
+        private AdventureMap adventureMap;
+
+        public ProfileAdventureMapDocument() {
+        }
+
+        public ProfileAdventureMapDocument(AdventureMap adventureMap) {
+            this.adventureMap = adventureMap;
+        }
+
+        public AdventureMap getAdventureMap() { return adventureMap; }
+        public void setAdventureMap(AdventureMap adventureMap) { this.adventureMap = adventureMap; }
+    }
+
+    public static class SaveGameDocument {
+        private String id;
+        private String name;
+        private String adventureId;
+        private long storyCount;
+        private List<Story> globalRituals;
+
+        public SaveGameDocument() {
+        }
+
+        public SaveGameDocument(String adventureId, SaveGame saveGame) {
+            this.id = saveGame.getId();
+            this.name = saveGame.getName();
+            this.adventureId = adventureId;
+            this.globalRituals = saveGame.getGlobalRituals();
+        }
+
+        /**
+         * @return The save game without its stories
+         */
+        public SaveGame toSaveGame() {
+            SaveGame saveGame = new SaveGame(name);
+            saveGame.setId(id);
+            saveGame.setGlobalRituals(globalRituals);
+            return saveGame;
+        }
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getAdventureId() { return adventureId; }
+        public void setAdventureId(String adventureId) { this.adventureId = adventureId; }
+
+        public long getStoryCount() { return storyCount; }
+        public void setStoryCount(long storyCount) { this.storyCount = storyCount; }
+
+        public List<Story> getGlobalRituals() { return globalRituals; }
+        public void setGlobalRituals(List<Story> globalRituals) { this.globalRituals = globalRituals; }
+    }
+
+    public static class SaveGameStoryDocument {
+        private long position;
+        private String prequelKey;
+        private String locationId;
+        private boolean standalone;
+        private Story story;
+
+        public SaveGameStoryDocument() {
+        }
+
+        public SaveGameStoryDocument(long position, Story story) {
+            this.position = position;
+            this.prequelKey = prequelKey(story.getPrequelKey());
+            this.locationId = story.getLocation() == null ? "" : story.getLocation().getId();
+            this.standalone = story.getPrequelStoryId() == null || story.getPrequelStoryId().isBlank();
+            this.story = story;
+        }
+
+        public long getPosition() { return position; }
+        public void setPosition(long position) { this.position = position; }
+
+        public String getPrequelKey() { return prequelKey; }
+        public void setPrequelKey(String prequelKey) { this.prequelKey = prequelKey; }
+
+        public String getLocationId() { return locationId; }
+        public void setLocationId(String locationId) { this.locationId = locationId; }
+
+        public boolean isStandalone() { return standalone; }
+        public void setStandalone(boolean standalone) { this.standalone = standalone; }
+
+        public Story getStory() { return story; }
+        public void setStory(Story story) { this.story = story; }
+    }
+
+    /**
+     * @return The indexed form of a sequel key, matching the prequel key of the stories that follow it
+     */
+    public static String prequelKey(SequelKey sequelKey) {
+        return sequelKey.getSelectedOptionId() + ":" + sequelKey.isSucceeded();
+    }
+
+    static List<Story> stories(List<SaveGameStoryDocument> documents) {
+        List<Story> stories = new ArrayList<>(documents.size());
+        documents.forEach(document -> stories.add(document.getStory()));
+        return stories;
+    }
+}
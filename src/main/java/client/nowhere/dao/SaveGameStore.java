@@ -0,0 +1,378 @@
+package client.nowhere.dao;
+
+import client.nowhere.dao.SaveGameDocuments.ProfileAdventureMapDocument;
+import client.nowhere.dao.SaveGameDocuments.SaveGameDocument;
+import client.nowhere.dao.SaveGameDocuments.SaveGameStoryDocument;
+import client.nowhere.exception.ResourceException;
+import client.nowhere.model.ProfileAdventureMap;
+import client.nowhere.model.SaveGame;
+import client.nowhere.model.SequelKey;
+import client.nowhere.model.Story;
+import client.nowhere.model.UserProfile;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import com.google.cloud.firestore.annotation.IgnoreExtraProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Storage layout for the save games of user profiles.
+ * The profile document keeps each adventure map; every save game is its own document under the profile and every
+ * archived story its own document under the save game, so saving a game writes only the new stories and reading a
+ * profile does not read its history.
+ * Profiles still in the original layout, with save games and their stories embedded in {@code maps}, are migrated
+ * the first time they are touched, the same way {@link GameSessionMigrator} migrates games.
+ */
+@Component
+public class SaveGameStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaveGameStore.class);
+    public static final int CURRENT_STORAGE_VERSION = 1;
+
+    static final String USER_PROFILES = "userProfiles";
+    static final String SAVE_GAMES = "saveGames";
+    static final String STORIES = "stories";
+    private static final String MAPS = "maps";
+    private static final String STORAGE_VERSION = "storageVersion";
+    // Firestore's limit on the values of an in filter
+    private static final int MAX_IN_VALUES = 30;
+
+    private final Firestore db;
+    private final Set<String> migratedProfileIds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public SaveGameStore(Firestore db) {
+        this.db = db;
+    }
+
+    public DocumentReference getProfileRef(String userProfileId) {
+        return db.collection(USER_PROFILES).document(userProfileId);
+    }
+
+    public CollectionReference getSaveGames(String userProfileId) {
+        return getProfileRef(userProfileId).collection(SAVE_GAMES);
+    }
+
+    public DocumentReference getSaveGameRef(String userProfileId, String saveGameId) {
+        return getSaveGames(userProfileId).document(saveGameId);
+    }
+
+    public CollectionReference getStories(String userProfileId, String saveGameId) {
+        return getSaveGameRef(userProfileId, saveGameId).collection(STORIES);
+    }
+
+    /**
+     * Writes a new profile: the profile document with its adventure maps, and a document for each of their save games.
+     */
+    public void create(UserProfile userProfile) throws InterruptedException, ExecutionException {
+        WriteBatch batch = db.batch();
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("id", userProfile.getId());
+        profile.put("email", userProfile.getEmail());
+        profile.put("password", userProfile.getPassword());
+        Map<String, ProfileAdventureMapDocument> maps = new HashMap<>();
+        for (Map.Entry<String, ProfileAdventureMap> entry : userProfile.getMaps().entrySet()) {
+            maps.put(entry.getKey(), new ProfileAdventureMapDocument(entry.getValue().getAdventureMap()));
+            writeSaveGames(batch, userProfile.getId(), entry.getKey(), entry.getValue());
+        }
+        profile.put(MAPS, maps);
+        profile.put(STORAGE_VERSION, CURRENT_STORAGE_VERSION);
+        batch.set(getProfileRef(userProfile.getId()), profile);
+        batch.commit().get();
+        markMigrated(userProfile.getId());
+    }
+
+    /**
+     * Adds an adventure map and its save games to a profile, without rewriting the profile's other maps.
+     */
+    public void addAdventureMap(String userProfileId, ProfileAdventureMap profileAdventureMap) throws InterruptedException, ExecutionException {
+        ensureMigrated(userProfileId);
+        String adventureId = profileAdventureMap.getAdventureMap().getAdventureId();
+        WriteBatch batch = db.batch();
+        batch.update(getProfileRef(userProfileId), FieldPath.of(MAPS, adventureId), new ProfileAdventureMapDocument(profileAdventureMap.getAdventureMap()));
+        writeSaveGames(batch, userProfileId, adventureId, profileAdventureMap);
+        batch.commit().get();
+    }
+
+    /**
+     * Removes an adventure map from a profile along with its save games and their stories.
+     */
+    public void deleteAdventureMap(String userProfileId, String adventureId) throws InterruptedException, ExecutionException {
+        ensureMigrated(userProfileId);
+        for (QueryDocumentSnapshot saveGame : getSaveGames(userProfileId).whereEqualTo("adventureId", adventureId).get().get()) {
+            delete(userProfileId, saveGame.getId());
+        }
+        getProfileRef(userProfileId).update(FieldPath.of(MAPS, adventureId), FieldValue.delete()).get();
+    }
+
+    /**
+     * Fills in the save games of every adventure map of a profile read from its document, without their stories.
+     */
+    public void attachSaveGames(UserProfile userProfile) throws InterruptedException, ExecutionException {
+        userProfile.getMaps().values().forEach(profileAdventureMap -> profileAdventureMap.setSaveGames(new HashMap<>()));
+        for (QueryDocumentSnapshot snapshot : getSaveGames(userProfile.getId()).get().get()) {
+            SaveGameDocument document = snapshot.toObject(SaveGameDocument.class);
+            ProfileAdventureMap profileAdventureMap = userProfile.getMaps().get(document.getAdventureId());
+            if (profileAdventureMap != null) {
+                profileAdventureMap.upsertSaveGame(document.toSaveGame());
+            }
+        }
+    }
+
+    /**
+     * @return The save game's document, or null if it does not exist or belongs to another adventure
+     */
+    public SaveGameDocument loadSaveGameDocument(String userProfileId, String adventureId, String saveGameId) throws InterruptedException, ExecutionException {
+        DocumentSnapshot snapshot = getSaveGameRef(userProfileId, saveGameId).get().get();
+        if (!snapshot.exists()) {
+            return null;
+        }
+        SaveGameDocument document = snapshot.toObject(SaveGameDocument.class);
+        return adventureId.equals(document.getAdventureId()) ? document : null;
+    }
+
+    /**
+     * @return The save game with all of its stories in the order they were saved, or null if it does not exist
+     */
+    public SaveGame load(String userProfileId, String adventureId, String saveGameId) throws InterruptedException, ExecutionException {
+        SaveGameDocument document = loadSaveGameDocument(userProfileId, adventureId, saveGameId);
+        if (document == null) {
+            return null;
+        }
+        SaveGame saveGame = document.toSaveGame();
+        saveGame.setGlobalStories(queryStories(getStories(userProfileId, saveGameId).orderBy("position")));
+        return saveGame;
+    }
+
+    /**
+     * Creates a save game, or renames it if it already exists.
+     */
+    public void upsert(String userProfileId, String adventureId, SaveGame saveGame, boolean exists) throws InterruptedException, ExecutionException {
+        DocumentReference saveGameRef = getSaveGameRef(userProfileId, saveGame.getId());
+        if (exists) {
+            saveGameRef.update("name", saveGame.getName()).get();
+        } else {
+            saveGameRef.set(new SaveGameDocument(adventureId, saveGame)).get();
+        }
+    }
+
+    /**
+     * Deletes a save game and its stories.
+     */
+    public void delete(String userProfileId, String saveGameId) throws InterruptedException, ExecutionException {
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        // Only the document names are needed to delete the stories
+        for (QueryDocumentSnapshot story : getStories(userProfileId, saveGameId).select(FieldPath.documentId()).get().get()) {
+            batch.delete(story.getReference());
+            if (++writes == 500) {
+                batch.commit().get();
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+        batch.delete(getSaveGameRef(userProfileId, saveGameId));
+        batch.commit().get();
+    }
+
+    /**
+     * Archives the stories the save game does not have yet. Only the documents of the given stories are read.
+     * @return The stories that were added
+     * @throws ResourceException If the save game does not exist
+     */
+    public List<Story> addStories(String userProfileId, String adventureId, String saveGameId, List<Story> stories) throws InterruptedException, ExecutionException {
+        DocumentReference saveGameRef = getSaveGameRef(userProfileId, saveGameId);
+        CollectionReference storiesRef = getStories(userProfileId, saveGameId);
+
+        ApiFuture<List<Story>> result = db.runTransaction(transaction -> {
+            DocumentSnapshot saveGameSnapshot = transaction.get(saveGameRef).get();
+            SaveGameDocument saveGame = saveGameSnapshot.exists() ? saveGameSnapshot.toObject(SaveGameDocument.class) : null;
+            if (saveGame == null || !adventureId.equals(saveGame.getAdventureId())) {
+                throw new ResourceException("Save game " + saveGameId + " not found in adventure " + adventureId);
+            }
+
+            // Keyed by id, so a story listed twice is only archived once
+            Map<String, Story> candidates = new LinkedHashMap<>();
+            stories.forEach(story -> candidates.putIfAbsent(story.getStoryId(), story));
+            List<DocumentReference> candidateRefs = candidates.keySet().stream().map(storiesRef::document).toList();
+
+            List<Story> added = new ArrayList<>();
+            if (!candidateRefs.isEmpty()) {
+                for (DocumentSnapshot existing : transaction.getAll(candidateRefs.toArray(DocumentReference[]::new)).get()) {
+                    if (!existing.exists()) {
+                        added.add(candidates.get(existing.getId()));
+                    }
+                }
+            }
+
+            long position = saveGame.getStoryCount();
+            for (Story story : added) {
+                transaction.set(storiesRef.document(story.getStoryId()), new SaveGameStoryDocument(position++, story));
+            }
+            if (!added.isEmpty()) {
+                transaction.update(saveGameRef, "storyCount", position);
+            }
+            return added;
+        });
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResourceException resourceException) {
+                throw resourceException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return The archived stories whose prequel key is one of the given sequel keys
+     */
+    public List<Story> findSequels(String userProfileId, String saveGameId, Set<SequelKey> sequelKeys) throws InterruptedException, ExecutionException {
+        List<String> prequelKeys = sequelKeys.stream().map(SaveGameDocuments::prequelKey).toList();
+        // Keys beyond one in filter's limit are looked up in parallel rather than one query after another
+        List<ApiFuture<QuerySnapshot>> lookups = new ArrayList<>();
+        for (int start = 0; start < prequelKeys.size(); start += MAX_IN_VALUES) {
+            List<String> chunk = prequelKeys.subList(start, Math.min(start + MAX_IN_VALUES, prequelKeys.size()));
+            lookups.add(getStories(userProfileId, saveGameId).whereIn("prequelKey", chunk).get());
+        }
+
+        List<SaveGameStoryDocument> documents = new ArrayList<>();
+        for (ApiFuture<QuerySnapshot> lookup : lookups) {
+            for (QueryDocumentSnapshot snapshot : lookup.get()) {
+                documents.add(snapshot.toObject(SaveGameStoryDocument.class));
+            }
+        }
+        // Ordered as they were saved, whatever chunk they came back in
+        documents.sort(Comparator.comparingLong(SaveGameStoryDocument::getPosition));
+        return SaveGameDocuments.stories(documents);
+    }
+
+    /**
+     * @return The archived stories at the location that are not sequels of another story
+     */
+    public List<Story> findStandalone(String userProfileId, String saveGameId, String locationId) throws InterruptedException, ExecutionException {
+        return queryStories(getStories(userProfileId, saveGameId)
+                .whereEqualTo("locationId", locationId)
+                .whereEqualTo("standalone", true));
+    }
+
+    public void ensureMigrated(String userProfileId) {
+        if (userProfileId == null || migratedProfileIds.contains(userProfileId)) {
+            return;
+        }
+
+        try {
+            boolean migrated = db.runTransaction(transaction -> migrate(userProfileId, transaction)).get();
+            if (migrated) {
+                markMigrated(userProfileId);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new ResourceException("There was an issue migrating the save games of user profile " + userProfileId, e);
+        }
+    }
+
+    public void markMigrated(String userProfileId) {
+        migratedProfileIds.add(userProfileId);
+    }
+
+    /**
+     * @return true once the profile is in the current layout, false if the profile does not exist
+     */
+    private boolean migrate(String userProfileId, Transaction transaction) throws InterruptedException, ExecutionException {
+        DocumentReference profileRef = getProfileRef(userProfileId);
+        DocumentSnapshot snapshot = transaction.get(profileRef).get();
+        if (!snapshot.exists()) {
+            return false;
+        }
+
+        Long storageVersion = snapshot.getLong(STORAGE_VERSION);
+        if (storageVersion != null && storageVersion >= CURRENT_STORAGE_VERSION) {
+            return true;
+        }
+
+        LegacyUserProfile legacy = snapshot.toObject(LegacyUserProfile.class);
+        Map<FieldPath, Object> profileUpdates = new HashMap<>();
+        if (legacy.getMaps() != null) {
+            for (Map.Entry<String, LegacyProfileAdventureMap> entry : legacy.getMaps().entrySet()) {
+                Map<String, SaveGame> saveGames = entry.getValue().getSaveGames();
+                if (saveGames == null) {
+                    continue;
+                }
+                for (SaveGame saveGame : saveGames.values()) {
+                    SaveGameDocument saveGameDocument = new SaveGameDocument(entry.getKey(), saveGame);
+                    CollectionReference storiesRef = getStories(userProfileId, saveGame.getId());
+                    long position = 0;
+                    if (saveGame.getGlobalStories() != null) {
+                        for (Story story : saveGame.getGlobalStories()) {
+                            transaction.set(storiesRef.document(story.getStoryId()), new SaveGameStoryDocument(position++, story));
+                        }
+                    }
+                    saveGameDocument.setStoryCount(position);
+                    transaction.set(getSaveGameRef(userProfileId, saveGame.getId()), saveGameDocument);
+                }
+                profileUpdates.put(FieldPath.of(MAPS, entry.getKey(), SAVE_GAMES), FieldValue.delete());
+            }
+        }
+
+        profileUpdates.put(FieldPath.of(STORAGE_VERSION), CURRENT_STORAGE_VERSION);
+        transaction.update(profileRef, profileUpdates);
+        logger.info("Migrating save games of user profile {} to storage version {}", userProfileId, CURRENT_STORAGE_VERSION);
+        return true;
+    }
+
+    private void writeSaveGames(WriteBatch batch, String userProfileId, String adventureId, ProfileAdventureMap profileAdventureMap) {
+        if (profileAdventureMap.getSaveGames() == null) {
+            return;
+        }
+        for (SaveGame saveGame : profileAdventureMap.getSaveGames().values()) {
+            SaveGameDocument saveGameDocument = new SaveGameDocument(adventureId, saveGame);
+            long position = 0;
+            if (saveGame.getGlobalStories() != null) {
+                for (Story story : saveGame.getGlobalStories()) {
+                    batch.set(getStories(userProfileId, saveGame.getId()).document(story.getStoryId()), new SaveGameStoryDocument(position++, story));
+                }
+            }
+            saveGameDocument.setStoryCount(position);
+            batch.set(getSaveGameRef(userProfileId, saveGame.getId()), saveGameDocument);
+        }
+    }
+
+    private static List<Story> queryStories(Query query) throws InterruptedException, ExecutionException {
+        List<SaveGameStoryDocument> documents = new ArrayList<>();
+        for (QueryDocumentSnapshot snapshot : query.get().get()) {
+            documents.add(snapshot.toObject(SaveGameStoryDocument.class));
+        }
+        return SaveGameDocuments.stories(documents);
+    }
+
+    /**
+     * The parts of a legacy profile document that move into their own documents.
+     */
+    @IgnoreExtraProperties
+    public static class LegacyUserProfile {
+        private Map<String, LegacyProfileAdventureMap> maps;
+
+        public Map<String, LegacyProfileAdventureMap> getMaps() { return maps; }
+        public void setMaps(Map<String, LegacyProfileAdventureMap> maps) { this.maps = maps; }
+    }
+
+    @IgnoreExtraProperties
+    public static class LegacyProfileAdventureMap {
+        private Map<String, SaveGame> saveGames;
+
+        public Map<String, SaveGame> getSaveGames() { return saveGames; }
+        public void setSaveGames(Map<String, SaveGame> saveGames) { this.saveGames = saveGames; }
+    }
+}
@@ -1,157 +1,273 @@
 package client.nowhere.dao;
 
+import client.nowhere.dao.GameSessionDocuments.StoryDocument;
 import client.nowhere.exception.ResourceException;
+import client.nowhere.model.GameBoard;
 import client.nowhere.model.Option;
 import client.nowhere.model.Story;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
 public class StoryDAO {
 
+    private static final Logger logger = LoggerFactory.getLogger(StoryDAO.class);
+    private static final String STORY_FIELD = "story.";
+
     private final Firestore db;
+    private final GameSessionCache gameSessionCache;
+    private final GameSessionStore gameSessionStore;
 
     @Autowired
     private ObjectMapper objectMapper;
 
     @Autowired
-    public StoryDAO(Firestore db, ObjectMapper objectMapper) {
+    public StoryDAO(Firestore db, ObjectMapper objectMapper, GameSessionCache gameSessionCache, GameSessionStore gameSessionStore) {
         this.db = db;
         this.objectMapper = objectMapper;
+        this.gameSessionCache = gameSessionCache;
+        this.gameSessionStore = gameSessionStore;
     }
 
     public Story createStory(Story story) {
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(story.getGameCode());
-            ApiFuture<WriteResult> result = gameSessionRef.update("stories", FieldValue.arrayUnion(story));
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
+            gameSessionStore.ensureMigrated(story.getGameCode());
+            DocumentReference storyRef = gameSessionStore.getStoryRef(story.getGameCode(), GameSessionStore.storyId(story));
+
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            if (unitOfWork != null) {
+                unitOfWork.set(storyRef, new StoryDocument(GameSessionStore.nextPosition(), story));
+                unitOfWork.afterCommit(() -> gameSessionCache.invalidate(story.getGameCode()));
+                return story;
+            }
+
+            WriteResult asyncResponse = storyRef.set(new StoryDocument(GameSessionStore.nextPosition(), story)).get();
+            gameSessionCache.invalidate(story.getGameCode());
+            logger.debug("Created story {} for game {} at {}", story.getStoryId(), story.getGameCode(), asyncResponse.getUpdateTime());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue creating the game session", e);
             throw new ResourceException("There was an issue creating the game session", e);
         }
         return story;
     }
 
+    /**
+     * Creates new stories together with the board their encounters were placed on, in one atomic commit,
+     * so setting up a board takes one round trip however many players the game has.
+     * @param gameCode The game code
+     * @param stories The new stories of the game
+     * @param gameBoard The board holding an encounter for each story, or null to leave the board as it is
+     * @return The created stories
+     */
+    public List<Story> createStories(String gameCode, List<Story> stories, GameBoard gameBoard) {
+        if (stories.isEmpty() && gameBoard == null) {
+            return stories;
+        }
+
+        try {
+            gameSessionStore.ensureMigrated(gameCode);
+            DocumentReference gameSessionRef = gameSessionStore.getGameRef(gameCode);
+
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            if (unitOfWork != null) {
+                for (Story story : stories) {
+                    unitOfWork.set(gameSessionStore.getStoryRef(gameCode, GameSessionStore.storyId(story)), new StoryDocument(GameSessionStore.nextPosition(), story));
+                }
+                if (gameBoard != null) {
+                    unitOfWork.update(gameSessionRef, Map.of("gameBoard", gameBoard));
+                }
+                unitOfWork.afterCommit(() -> gameSessionCache.invalidate(gameCode));
+                return stories;
+            }
+
+            WriteBatch batch = db.batch();
+            for (Story story : stories) {
+                batch.set(gameSessionStore.getStoryRef(gameCode, GameSessionStore.storyId(story)), new StoryDocument(GameSessionStore.nextPosition(), story));
+            }
+            if (gameBoard != null) {
+                batch.update(gameSessionRef, "gameBoard", gameBoard);
+            }
+            batch.commit().get();
+            gameSessionCache.invalidate(gameCode);
+            logger.debug("Created {} stories for game {}", stories.size(), gameCode);
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("There was an issue creating the stories", e);
+            throw new ResourceException("There was an issue creating the stories", e);
+        }
+        return stories;
+    }
+
+    /**
+     * Applies the non-empty fields of the given story to the stored story in a transaction.
+     * Only the changed fields are written, so concurrent edits to other fields of the same story are kept,
+     * and no other story of the session is read or written.
+     * Inside a {@link GameSessionUnitOfWork} the edits are only merged into the stored story when the unit of work
+     * commits, so the stored story is not known yet and the edits are returned as given.
+     * @param story The story edits, keyed by gameCode and storyId
+     * @return The updated story, or the input if no such story exists or the update is staged in a unit of work
+     */
     public Story updateStory(Story story) {
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(story.getGameCode());
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            List<Story> stories = mapStories(gameSession);
-
-            for (int i = 0; i < stories.size(); i++) {
-                Story storyToUpdate = stories.get(i);
-                if (storyToUpdate.getStoryId().equals(story.getStoryId())) {
-                    if (!story.getPrompt().isEmpty()) {
-                        storyToUpdate.setPrompt(story.getPrompt());
-                    }
+            String gameCode = story.getGameCode();
+            gameSessionStore.ensureMigrated(gameCode);
+            DocumentReference storyRef = gameSessionStore.getStoryRef(gameCode, story.getStoryId());
+
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            if (unitOfWork != null) {
+                // The whole story is written at commit, since earlier staged edits of it are not field patches
+                unitOfWork.mergeField(storyRef, "story", Story.class, storyToUpdate -> {
+                    applyStoryUpdates(story, storyToUpdate);
+                    return storyToUpdate;
+                });
+                unitOfWork.afterCommit(() -> gameSessionCache.invalidate(gameCode));
+                return story;
+            }
 
-                    if (!story.getPlayerId().isEmpty()) {
-                        storyToUpdate.setPlayerId(story.getPlayerId());
-                    }
+            Story updatedStory = db.runTransaction(transaction -> {
+                DocumentSnapshot snapshot = transaction.get(storyRef).get();
+                if (!snapshot.exists()) {
+                    return story;
+                }
 
-                    if (story.getPlayerIds() != null && !story.getPlayerIds().isEmpty()) {
-                        storyToUpdate.setPlayerIds(story.getPlayerIds());
-                    }
+                Story storyToUpdate = snapshot.toObject(StoryDocument.class).getStory();
+                Map<String, Object> updates = applyStoryUpdates(story, storyToUpdate);
+                if (!updates.isEmpty()) {
+                    transaction.update(storyRef, updates);
+                }
+                logger.debug("Updating story {} fields {}", story.getStoryId(), updates.keySet());
+                return storyToUpdate;
+            }).get();
 
-                    if (story.getPartnerIds() != null && !story.getPartnerIds().isEmpty()) {
-                        storyToUpdate.setPartnerIds(story.getPartnerIds());
-                    }
+            gameSessionCache.invalidate(gameCode);
+            return updatedStory;
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("There was an issue updating the story", e);
+            throw new ResourceException("There was an issue updating the story", e);
+        }
+    }
 
-                    if (!story.getAuthorId().isEmpty()) {
-                        storyToUpdate.setAuthorId(story.getAuthorId());
-                    }
+    /**
+     * Copies the non-empty fields of the edit onto the stored story.
+     * @param story The story edits
+     * @param storyToUpdate The stored story, modified in place
+     * @return The changed fields keyed by their path in the story document
+     */
+    static Map<String, Object> applyStoryUpdates(Story story, Story storyToUpdate) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+
+        if (!story.getPrompt().isEmpty()) {
+            updateField(updates, "prompt", storyToUpdate.getPrompt(), story.getPrompt(), storyToUpdate::setPrompt);
+        }
 
-                    if (story.getRepercussions() != null && !story.getRepercussions().isEmpty()) {
-                        storyToUpdate.setRepercussions(story.getRepercussions());
-                    }
+        if (!story.getPlayerId().isEmpty()) {
+            updateField(updates, "playerId", storyToUpdate.getPlayerId(), story.getPlayerId(), storyToUpdate::setPlayerId);
+        }
 
-                    if (story.getLocation() != null
-                            && !story.getLocation().getLabel().isEmpty()) {
-                        storyToUpdate.setLocation(story.getLocation());
-                    }
+        if (story.getPlayerIds() != null && !story.getPlayerIds().isEmpty()) {
+            updateField(updates, "playerIds", storyToUpdate.getPlayerIds(), story.getPlayerIds(), storyToUpdate::setPlayerIds);
+        }
 
-                    if (!story.getSelectedOptionId().isEmpty()) {
-                        storyToUpdate.setSelectedOptionId(story.getSelectedOptionId());
-                    }
+        if (story.getPartnerIds() != null && !story.getPartnerIds().isEmpty()) {
+            updateField(updates, "partnerIds", storyToUpdate.getPartnerIds(), story.getPartnerIds(), storyToUpdate::setPartnerIds);
+        }
 
-                    if(story.isVisited()) {
-                        storyToUpdate.setVisited(story.isVisited());
-                    }
+        if (!story.getAuthorId().isEmpty()) {
+            updateField(updates, "authorId", storyToUpdate.getAuthorId(), story.getAuthorId(), storyToUpdate::setAuthorId);
+        }
 
-                    if(story.isPlayerSucceeded()) {
-                        storyToUpdate.setPlayerSucceeded(story.isPlayerSucceeded());
-                    }
+        // Repercussions, location and options compare on a subset of their fields, so they are always written
+        if (story.getRepercussions() != null && !story.getRepercussions().isEmpty()) {
+            storyToUpdate.setRepercussions(story.getRepercussions());
+            updates.put(STORY_FIELD + "repercussions", story.getRepercussions());
+        }
 
-                    if(story.isSequelStory()) {
-                        storyToUpdate.setSequelStory(story.isSequelStory());
-                    }
+        if (story.getLocation() != null
+                && !story.getLocation().getLabel().isEmpty()) {
+            storyToUpdate.setLocation(story.getLocation());
+            updates.put(STORY_FIELD + "location", story.getLocation());
+        }
 
-                    if(story.isSaveGameStory()) {
-                        storyToUpdate.setSaveGameStory(story.isSaveGameStory());
-                    }
+        if (!story.getSelectedOptionId().isEmpty()) {
+            updateField(updates, "selectedOptionId", storyToUpdate.getSelectedOptionId(), story.getSelectedOptionId(), storyToUpdate::setSelectedOptionId);
+        }
 
-                    if(!story.getPrequelStoryId().isEmpty()) {
-                        storyToUpdate.setPrequelStoryId(story.getPrequelStoryId());
-                    }
+        if(story.isVisited()) {
+            updateField(updates, "visited", storyToUpdate.isVisited(), true, storyToUpdate::setVisited);
+        }
 
-                    if(!story.getPrequelStorySelectedOptionId().isEmpty()) {
-                        storyToUpdate.setPrequelStorySelectedOptionId(story.getPrequelStorySelectedOptionId());
-                    }
+        if(story.isPlayerSucceeded()) {
+            updateField(updates, "playerSucceeded", storyToUpdate.isPlayerSucceeded(), true, storyToUpdate::setPlayerSucceeded);
+        }
 
-                    if(story.isPrequelStorySucceeded()) {
-                        storyToUpdate.setPrequelStorySucceeded(story.isPrequelStorySucceeded());
-                    }
+        if(story.isSequelStory()) {
+            updateField(updates, "sequelStory", storyToUpdate.isSequelStory(), true, storyToUpdate::setSequelStory);
+        }
 
-                    if(!story.getPrequelStoryPlayerId().isEmpty()) {
-                        storyToUpdate.setPrequelStoryPlayerId(story.getPrequelStoryPlayerId());
-                    }
+        if(story.isSaveGameStory()) {
+            updateField(updates, "saveGameStory", storyToUpdate.isSaveGameStory(), true, storyToUpdate::setSaveGameStory);
+        }
 
-                    if(story.isMainPlotStory()) {
-                        storyToUpdate.setMainPlotStory(story.isMainPlotStory());
-                    }
+        if(!story.getPrequelStoryId().isEmpty()) {
+            updateField(updates, "prequelStoryId", storyToUpdate.getPrequelStoryId(), story.getPrequelStoryId(), storyToUpdate::setPrequelStoryId);
+        }
 
-                    if (story.getOptions() != null && !story.getOptions().isEmpty()) {
-                        List<Option> optionsToUpdate = storyToUpdate.getOptions() != null
-                                ? updateOptions(story, storyToUpdate) : new ArrayList<>();
+        if(!story.getPrequelStorySelectedOptionId().isEmpty()) {
+            updateField(updates, "prequelStorySelectedOptionId", storyToUpdate.getPrequelStorySelectedOptionId(), story.getPrequelStorySelectedOptionId(), storyToUpdate::setPrequelStorySelectedOptionId);
+        }
 
-                        List<String> existingOptionIds = optionsToUpdate.stream()
-                                .map(Option::getOptionId)
-                                .toList();
+        if(story.isPrequelStorySucceeded()) {
+            updateField(updates, "prequelStorySucceeded", storyToUpdate.isPrequelStorySucceeded(), true, storyToUpdate::setPrequelStorySucceeded);
+        }
 
-                        for (Option inputOption : story.getOptions()) {
-                            if (!existingOptionIds.contains(inputOption.getOptionId())) {
-                                optionsToUpdate.add(inputOption);
-                            }
-                        }
+        if(!story.getPrequelStoryPlayerId().isEmpty()) {
+            updateField(updates, "prequelStoryPlayerId", storyToUpdate.getPrequelStoryPlayerId(), story.getPrequelStoryPlayerId(), storyToUpdate::setPrequelStoryPlayerId);
+        }
 
-                        storyToUpdate.setOptions(optionsToUpdate);
-                    }
+        if(story.isMainPlotStory()) {
+            updateField(updates, "mainPlotStory", storyToUpdate.isMainPlotStory(), true, storyToUpdate::setMainPlotStory);
+        }
 
+        if (story.getOptions() != null && !story.getOptions().isEmpty()) {
+            List<Option> optionsToUpdate = storyToUpdate.getOptions() != null
+                    ? updateOptions(story, storyToUpdate) : new ArrayList<>();
 
-                    story = storyToUpdate;
-                    stories.set(i, storyToUpdate);
-                    break;
+            List<String> existingOptionIds = optionsToUpdate.stream()
+                    .map(Option::getOptionId)
+                    .toList();
+
+            for (Option inputOption : story.getOptions()) {
+                if (!existingOptionIds.contains(inputOption.getOptionId())) {
+                    optionsToUpdate.add(inputOption);
                 }
             }
 
-            ApiFuture<WriteResult> result = gameSessionRef.update("stories", stories);
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + asyncResponse.toString());
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            throw new ResourceException("There was an issue updating the story", e);
+            // Firestore can't patch a single array element, so the story's options are written together
+            storyToUpdate.setOptions(optionsToUpdate);
+            updates.put(STORY_FIELD + "options", optionsToUpdate);
         }
-        return story;
+
+        return updates;
+    }
+
+    private static <T> void updateField(Map<String, Object> updates, String field, T currentValue, T newValue, Consumer<T> setter) {
+        if (Objects.equals(currentValue, newValue)) {
+            return;
+        }
+        setter.accept(newValue);
+        updates.put(STORY_FIELD + field, newValue);
     }
 
     private static List<Option> updateOptions(Story story, Story storyToUpdate) {
@@ -198,32 +314,16 @@ public class StoryDAO {
         return optionsToUpdate;
     }
 
-    private List<Story> mapStories(DocumentSnapshot document) {
-        List<Map<String, Object>> rawStories = (List<Map<String, Object>>) document.get("stories");
-
-        if (rawStories == null) {
-            throw new ResourceException("No stories found in the game session");
-        }
-
-        List<Story> stories = rawStories.stream()
-                .map(rawStory -> objectMapper.convertValue(rawStory, Story.class))
-                .collect(Collectors.toList());
-
-        return stories;
-    }
-
     public List<Story> getAuthorStories(String gameCode, String authorId) {
         List<Story> authorStories;
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            List<Story> stories = mapStories(gameSession);
+            List<Story> stories = gameSessionStore.loadStories(gameCode);
             authorStories = stories.stream()
                     .filter(story -> story.getAuthorId().equals(authorId)
                             && story.getPrompt().isEmpty())
                     .collect(Collectors.toList());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the story", e);
             throw new ResourceException("There was an issue updating the story", e);
         }
         return authorStories;
@@ -232,9 +332,7 @@ public class StoryDAO {
     public List<Story> getAuthorStoriesByOutcomeAuthorId(String gameCode, String outcomeAuthorId) {
         List<Story> outcomeAuthorStories;
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            List<Story> stories = mapStories(gameSession);
+            List<Story> stories = gameSessionStore.loadStories(gameCode);
             outcomeAuthorStories = stories.stream()
                     .filter(story -> story.getSelectedOptionId().isEmpty() && story.getOptions().stream()
                             .anyMatch(option -> option.getOutcomeAuthorId().equals(outcomeAuthorId)
@@ -242,7 +340,7 @@ public class StoryDAO {
                                     && option.getSuccessText().isEmpty()))
                     .collect(Collectors.toList());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the story", e);
             throw new ResourceException("There was an issue updating the story", e);
         }
         return outcomeAuthorStories;
@@ -251,14 +349,12 @@ public class StoryDAO {
     public List<Story> getPlayerStories(String gameCode, String playerId, String locationId) {
         List<Story> playerStories;
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            List<Story> stories = mapStories(gameSession);
+            List<Story> stories = gameSessionStore.loadStories(gameCode);
             playerStories = stories.stream()
                     .filter(story -> wasNotWrittenByPlayer(playerId, locationId, story))
                     .collect(Collectors.toList());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the story", e);
             throw new ResourceException("There was an issue updating the story", e);
         }
         return playerStories;
@@ -276,11 +372,10 @@ public class StoryDAO {
     public Story createGlobalStory(Story story) {
         try {
             DocumentReference globalStoryRef = db.collection("stories").document(story.getStoryId());
-            ApiFuture<WriteResult> result = globalStoryRef.set(story);
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
+            WriteResult asyncResponse = globalStoryRef.set(story).get();
+            logger.debug("Created global story {} at {}", story.getStoryId(), asyncResponse.getUpdateTime());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue creating the game session", e);
             throw new ResourceException("There was an issue creating the game session", e);
         }
         return story;
@@ -299,7 +394,7 @@ public class StoryDAO {
 
             return authorStories;
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue retrieving stories by locationId", e);
             throw new ResourceException("There was an issue retrieving stories by locationId", e);
         }
     }
@@ -317,7 +412,7 @@ public class StoryDAO {
 
             return authorStories;
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue retrieving stories by locationId", e);
             throw new ResourceException("There was an issue retrieving stories by locationId", e);
         }
     }
@@ -325,14 +420,12 @@ public class StoryDAO {
     public List<Story> getPlayedStories(String gameCode, boolean isTestMode) {
         List<Story> authorStories;
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            List<Story> stories = mapStories(gameSession);
+            List<Story> stories = gameSessionStore.loadStories(gameCode);
             authorStories = stories.stream()
                     .filter(story -> isTestMode || (!story.getPlayerId().isEmpty() && !story.getSelectedOptionId().isEmpty()))
                     .collect(Collectors.toList());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the story", e);
             throw new ResourceException("There was an issue updating the story", e);
         }
         return authorStories;
@@ -347,16 +440,14 @@ public class StoryDAO {
     public List<Story> getPlayedStoriesForAdventure(String gameCode, String playerId) {
         List<Story> authorStories;
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            List<Story> stories = mapStories(gameSession);
+            List<Story> stories = gameSessionStore.loadStories(gameCode);
             authorStories = stories.stream()
                     .filter(story ->
                             story.getPlayerId().equals(playerId) &&
                             story.getSelectedOptionId().isEmpty())
                     .collect(Collectors.toList());
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the story", e);
             throw new ResourceException("There was an issue updating the story", e);
         }
         return authorStories;
@@ -364,11 +455,9 @@ public class StoryDAO {
 
     public List<Story> getStories(String gameCode) {
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            return mapStories(gameSession);
+            return gameSessionStore.loadStories(gameCode);
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an issue updating the story", e);
             throw new ResourceException("There was an issue updating the story", e);
         }
     }
@@ -376,14 +465,10 @@ public class StoryDAO {
     public List<Story> getAuthorStoriesByStoryId(String gameCode, String storyId) {
         List<Story> playerStories;
         try {
-            DocumentReference gameSessionRef = db.collection("gameSessions").document(gameCode);
-            DocumentSnapshot gameSession = FirestoreDAOUtil.getDocumentSnapshot(gameSessionRef);
-            List<Story> stories = mapStories(gameSession);
-            playerStories = stories.stream()
-                    .filter(story -> story.getStoryId().equals(storyId))
-                    .collect(Collectors.toList());
+            Story story = gameSessionStore.loadStory(gameCode, storyId);
+            playerStories = story == null ? new ArrayList<>() : new ArrayList<>(List.of(story));
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            logger.error("There was an retrieving session stories", e);
             throw new ResourceException("There was an retrieving session stories", e);
         } catch (ResourceException e) {
             return new ArrayList<>();
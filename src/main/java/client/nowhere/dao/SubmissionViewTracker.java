@@ -0,0 +1,184 @@
+package client.nowhere.dao;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps the submission views of each phase in memory so browsing submissions does not need a read-write transaction.
+ * Views are seeded from the stored phase the first time it is browsed on this instance, changed in memory as players
+ * browse, and written back to the phase's submissionViews field by a periodic batched flush.
+ * The in-memory views are the source of truth for availability and fairness while the phase is being browsed.
+ */
+@Component
+public class SubmissionViewTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionViewTracker.class);
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int MAX_FAILED_FLUSHES = 3;
+
+    private final Firestore db;
+    private final long idleMillis;
+    private final Map<String, PhaseViews> phases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    @Autowired
+    public SubmissionViewTracker(
+            Firestore db,
+            @Value("${nowhere.submission-views.flush-millis:1000}") long flushMillis,
+            @Value("${nowhere.submission-views.idle-millis:600000}") long idleMillis
+    ) {
+        this.db = db;
+        this.idleMillis = idleMillis;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("submission-view-flush").daemon().factory());
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a browse of the phase against its current views. Browses of the same phase run one at a time,
+     * so two players polling together see each other's views, as they did inside a transaction.
+     * @param gameCode The game code
+     * @param phaseId The phase ID
+     * @param storedViews The views stored on the phase, used if this instance has not seen the phase yet
+     * @param browse Reads and changes the views; a change is flushed later
+     */
+    public <T> T browse(String gameCode, String phaseId, Map<String, List<String>> storedViews, Function<Map<String, List<String>>, T> browse) {
+        PhaseViews phaseViews = phases.computeIfAbsent(key(gameCode, phaseId), key -> new PhaseViews(gameCode, phaseId, storedViews));
+        synchronized (phaseViews) {
+            phaseViews.lastUsed = System.currentTimeMillis();
+            T result = browse.apply(phaseViews.views);
+            phaseViews.dirty = true;
+            return result;
+        }
+    }
+
+    /**
+     * Drops a phase's views, e.g. when the phase is cleared. If the phase was browsed on this instance the next flush
+     * writes the empty views, which also overwrites a flush that was already in flight.
+     */
+    public void clear(String gameCode, String phaseId) {
+        PhaseViews phaseViews = phases.get(key(gameCode, phaseId));
+        if (phaseViews == null) {
+            return;
+        }
+        synchronized (phaseViews) {
+            phaseViews.views.clear();
+            phaseViews.lastUsed = System.currentTimeMillis();
+            phaseViews.dirty = true;
+        }
+    }
+
+    /**
+     * Writes the views of every phase browsed since the last flush, in as few batches as possible.
+     */
+    public void flush() {
+        List<PhaseViews> flushed = new ArrayList<>();
+        WriteBatch batch = null;
+        long now = System.currentTimeMillis();
+
+        for (PhaseViews phaseViews : phases.values()) {
+            synchronized (phaseViews) {
+                if (!phaseViews.dirty) {
+                    if (now - phaseViews.lastUsed > idleMillis) {
+                        phases.remove(key(phaseViews.gameCode, phaseViews.phaseId), phaseViews);
+                    }
+                    continue;
+                }
+                if (batch == null) {
+                    batch = db.batch();
+                }
+                batch.update(
+                        db.collection("gameSessions").document(phaseViews.gameCode),
+                        "collaborativeTextPhases." + phaseViews.phaseId + ".submissionViews",
+                        copy(phaseViews.views)
+                );
+                phaseViews.dirty = false;
+            }
+            flushed.add(phaseViews);
+
+            if (flushed.size() == MAX_BATCH_WRITES) {
+                commit(batch, flushed);
+                flushed = new ArrayList<>();
+                batch = null;
+            }
+        }
+
+        if (!flushed.isEmpty()) {
+            commit(batch, flushed);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    private void commit(WriteBatch batch, List<PhaseViews> flushed) {
+        try {
+            batch.commit().get();
+            flushed.forEach(phaseViews -> phaseViews.failedFlushes = 0);
+        } catch (InterruptedException | ExecutionException e) {
+            logger.warn("Failed to flush submission views for {} phases: {}", flushed.size(), e.getMessage());
+            for (PhaseViews phaseViews : flushed) {
+                synchronized (phaseViews) {
+                    // A game that was deleted fails every flush, so it is given up on after a few tries
+                    if (++phaseViews.failedFlushes >= MAX_FAILED_FLUSHES) {
+                        phases.remove(key(phaseViews.gameCode, phaseViews.phaseId), phaseViews);
+                    } else {
+                        phaseViews.dirty = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush submission views: {}", e.getMessage());
+        }
+    }
+
+    private static Map<String, List<String>> copy(Map<String, List<String>> views) {
+        Map<String, List<String>> copy = new HashMap<>();
+        views.forEach((submissionId, viewers) -> copy.put(submissionId, new ArrayList<>(viewers)));
+        return copy;
+    }
+
+    private static String key(String gameCode, String phaseId) {
+        return gameCode + "/" + phaseId;
+    }
+
+    private static class PhaseViews {
+        final String gameCode;
+        final String phaseId;
+        final Map<String, List<String>> views;
+        long lastUsed = System.currentTimeMillis();
+        boolean dirty;
+        int failedFlushes;
+
+        PhaseViews(String gameCode, String phaseId, Map<String, List<String>> storedViews) {
+            this.gameCode = gameCode;
+            this.phaseId = phaseId;
+            this.views = storedViews == null ? new HashMap<>() : copy(storedViews);
+        }
+    }
+}
@@ -4,44 +4,46 @@ import client.nowhere.exception.ResourceException;
 import client.nowhere.exception.ValidationException;
 import client.nowhere.model.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import at.favre.lib.crypto.bcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+/**
+ * User profiles and their save games. Save games and their stories live in their own documents under the profile,
+ * laid out by {@link SaveGameStore}; profiles read here carry each save game's name and id but not its stories.
+ */
 @Component
 public class UserProfileDAO {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileDAO.class);
     private final Firestore db;
+    private final SaveGameStore saveGameStore;
 
     @Autowired
     private ObjectMapper objectMapper;
 
     @Autowired
-    public UserProfileDAO(Firestore db, ObjectMapper objectMapper) {
+    public UserProfileDAO(Firestore db, ObjectMapper objectMapper, SaveGameStore saveGameStore) {
         this.db = db;
         this.objectMapper = objectMapper;
+        this.saveGameStore = saveGameStore;
     }
 
     public UserProfile create(UserProfile userProfile) {
-        DocumentReference docRef = db.collection("userProfiles").document(userProfile.getId());
-
         String hashedPassword = BCrypt.withDefaults().hashToString(12, userProfile.getPassword().toCharArray());
         userProfile.setPassword(hashedPassword);
 
         try {
-            ApiFuture<WriteResult> result = docRef.set(userProfile);
-            WriteResult asyncResponse = result.get();
-            System.out.println("Update time : " + result.get().toString());
-            System.out.println("Object " + result.get().toString());
+            saveGameStore.create(userProfile);
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
             throw new ResourceException("There was an issue creating the game session", e);
@@ -52,9 +54,8 @@ public class UserProfileDAO {
     public UserProfile get(String userProfileId) {
         UserProfile userProfile = new UserProfile();
         try {
-            DocumentReference userProfileRef = db.collection("userProfiles").document(userProfileId);
-            DocumentSnapshot gameSessionSnapshot = FirestoreDAOUtil.getDocumentSnapshot(userProfileRef);
-            userProfile = FirestoreDAOUtil.mapUserProfile(gameSessionSnapshot);
+            userProfile = readProfile(userProfileId);
+            saveGameStore.attachSaveGames(userProfile);
         } catch (InterruptedException | ExecutionException e) {
             System.out.println("There was an issue retrieving the game session " + e.getMessage());
         }
@@ -62,70 +63,55 @@ public class UserProfileDAO {
     }
 
     public UserProfile get(String email, String inputPassword) {
-        UserProfile userProfile = null;
+        UserProfile userProfile = getByEmail(email);
+        if (!verifyPassword(inputPassword, userProfile.getPassword())) {
+            throw new ValidationException("Incorrect Password");
+        }
         try {
-            CollectionReference userProfilesRef = db.collection("userProfiles");
+            saveGameStore.ensureMigrated(userProfile.getId());
+            saveGameStore.attachSaveGames(userProfile);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new ResourceException("There was an issue retrieving the user profile", e);
+        }
+        return userProfile;
+    }
 
-            // First, query by email
-            ApiFuture<QuerySnapshot> query = userProfilesRef
+    /**
+     * Looks a profile up by email without checking its password; the profile carries the stored password hash.
+     * @throws ValidationException If no profile has that email
+     */
+    public UserProfile getByEmail(String email) {
+        try {
+            QuerySnapshot querySnapshot = db.collection("userProfiles")
                     .whereEqualTo("email", email)
+                    .get()
                     .get();
 
-            QuerySnapshot querySnapshot = query.get();
-
             if (querySnapshot.isEmpty()) {
                 throw new ValidationException("No profile with that email exists");
             }
-
-            String hashedPassword = BCrypt.withDefaults().hashToString(12, inputPassword.toCharArray());
-
-            DocumentSnapshot document = querySnapshot.getDocuments().get(0);
-            String storedHashedPassword = document.getString("password");
-
-            BCrypt.Result result = BCrypt.verifyer().verify(inputPassword.toCharArray(), storedHashedPassword);
-
-            if (!result.verified) {
-                throw new ValidationException("Incorrect Password");
-            }
-
-            userProfile = FirestoreDAOUtil.mapUserProfile(document);
+            return FirestoreDAOUtil.mapUserProfile(querySnapshot.getDocuments().get(0));
         } catch (InterruptedException | ExecutionException e) {
-            System.out.println("There was an issue retrieving the user profile: " + e.getMessage());
+            throw new ResourceException("There was an issue retrieving the user profile", e);
         }
-        return userProfile;
+    }
+
+    /**
+     * Checks a password against a stored cost-12 bcrypt hash, which takes a few hundred milliseconds of CPU.
+     */
+    public static boolean verifyPassword(String inputPassword, String storedHashedPassword) {
+        if (storedHashedPassword == null || storedHashedPassword.isEmpty()) {
+            return false;
+        }
+        return BCrypt.verifyer().verify(inputPassword.toCharArray(), storedHashedPassword).verified;
     }
 
     public List<Story> saveGameToUserProfile(List<Story> gameSessionStories, String userProfileId, String adventureId, String saveGameId) {
         try {
-            // Fetch user profile from Firestore
-            DocumentReference userProfileRef = db.collection("userProfiles").document(userProfileId);
-            DocumentSnapshot userProfileSnapshot = FirestoreDAOUtil.getDocumentSnapshot(userProfileRef);
-            UserProfile userProfile = FirestoreDAOUtil.mapUserProfile(userProfileSnapshot);
-
-            // Get ProfileAdventureMap and SaveGame
-            ProfileAdventureMap profileAdventureMap = userProfile.getMaps().get(adventureId);
-            if (profileAdventureMap == null) {
-                throw new ResourceException("Adventure map " + adventureId + " not found for user " + userProfileId);
-            }
-
-            SaveGame saveGame = profileAdventureMap.getSaveGames().get(saveGameId);
-            if (saveGame == null) {
-                throw new ResourceException("Save game " + saveGameId + " not found in adventure " + adventureId);
-            }
-
-            // Deduplicate and add new stories
-            List<Story> uniqueGameSessionStories = getDedupedGameSessionStories(gameSessionStories, saveGame);
-            saveGame.getGlobalStories().addAll(uniqueGameSessionStories);
-
-            // Save updated objects
-            profileAdventureMap.upsertSaveGame(saveGame);
-            userProfile.upsertProfileAdventureMap(profileAdventureMap);
-
-            // Update Firestore
-            ApiFuture<WriteResult> result = userProfileRef.update("maps", userProfile.getMaps());
-            result.get(); // Ensure update completes before returning
-            System.out.println("Update time: " + result.get().toString());
-
+            saveGameStore.ensureMigrated(userProfileId);
+            // Reads only the documents of the given stories; the save game's history stays where it is
+            List<Story> uniqueGameSessionStories = saveGameStore.addStories(userProfileId, adventureId, saveGameId, gameSessionStories);
+            logger.debug("Saved {} new stories to save game {}", uniqueGameSessionStories.size(), saveGameId);
             return uniqueGameSessionStories;
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
@@ -133,19 +119,6 @@ public class UserProfileDAO {
         }
     }
 
-    private List<Story> getDedupedGameSessionStories(List<Story> gameSessionStories,
-                                                     SaveGame saveGame) {
-        Set<String> existingGlobalStoryIdSet = saveGame.getGlobalStories()
-                .stream().map(Story::getStoryId).collect(Collectors.toSet());
-
-        List<Story> dedupedGameSessionStories = gameSessionStories
-                .stream()
-                .filter(story -> !existingGlobalStoryIdSet.contains(story.getStoryId()))
-                .collect(Collectors.toList());
-
-        return dedupedGameSessionStories;
-    }
-
     public List<Story> getSaveGameSequelStories(
             String userProfileId,
             String adventureId,
@@ -161,72 +134,54 @@ public class UserProfileDAO {
             return new ArrayList<>();
         }
 
-        UserProfile userProfile = this.get(userProfileId);
-
-        ProfileAdventureMap adventureMap = userProfile.getMaps().get(adventureId);
-
-        if (adventureMap == null) {
-            return new  ArrayList<>();
+        try {
+            saveGameStore.ensureMigrated(userProfileId);
+            return saveGameStore.findSequels(userProfileId, saveGameId, allSelectedOptionOutcomes);
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            throw new ResourceException("Error reading sequel stories for user " + userProfileId + ", adventure " + adventureId + ", save game " + saveGameId, e);
         }
-
-        List<Story> saveGameStories = adventureMap.getSaveGameById(saveGameId)
-                .getGlobalStories();
-
-        return saveGameStories.stream()
-                .filter(story -> allSelectedOptionOutcomes.contains(story.getPrequelKey()))
-                .collect(Collectors.toList());
     }
 
     public List<Story> getRegularSaveGameStories(GameSession gameSession, String locationId) {
         String userProfileId = gameSession.getUserProfileId();
-        String adventureId = gameSession.getAdventureMap().getAdventureId();
         String saveGameId = gameSession.getSaveGameId();
 
-        UserProfile userProfile = this.get(userProfileId);
-
-        List<Story> saveGameStories = userProfile.getMaps()
-                .get(adventureId)
-                .getSaveGameById(saveGameId)
-                .getGlobalStories();
-
-        List<String> allGameSessionStoryIds = gameSession.getStories().stream()
+        Set<String> allGameSessionStoryIds = gameSession.getStories().stream()
                 .map(Story::getStoryId)
-                .collect(Collectors.toList());
+                .collect(Collectors.toSet());
 
-        return saveGameStories.stream().filter(story -> locationId.equals(story.getLocation().getId())
-                && story.getPrequelStoryId().isBlank()
-                && !allGameSessionStoryIds.contains(story.getStoryId()))
-                .collect(Collectors.toList());
+        try {
+            saveGameStore.ensureMigrated(userProfileId);
+            return saveGameStore.findStandalone(userProfileId, saveGameId, locationId).stream()
+                    .filter(story -> !allGameSessionStoryIds.contains(story.getStoryId()))
+                    .collect(Collectors.toList());
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            throw new ResourceException("Error reading save game stories for user " + userProfileId + ", save game " + saveGameId, e);
+        }
     }
 
     public SaveGame upsertSaveGame(String userProfileId, String adventureId, SaveGame saveGame) {
 
         try {
-            // Fetch user profile from Firestore
-            DocumentReference userProfileRef = db.collection("userProfiles").document(userProfileId);
-            DocumentSnapshot userProfileSnapshot = FirestoreDAOUtil.getDocumentSnapshot(userProfileRef);
-            UserProfile userProfile = FirestoreDAOUtil.mapUserProfile(userProfileSnapshot);
-
-            // Get ProfileAdventureMap and SaveGame
-            ProfileAdventureMap profileAdventureMap = userProfile.getMaps().get(adventureId);
-            if (profileAdventureMap == null) {
+            UserProfile userProfile = readProfile(userProfileId);
+            if (!userProfile.getMaps().containsKey(adventureId)) {
                 throw new ResourceException("Adventure map " + adventureId + " not found for user " + userProfileId);
             }
 
             SaveGame saveGameToUpsert = new SaveGame(saveGame.getName());
-            if (!saveGame.getId().isEmpty() && profileAdventureMap.getSaveGames().containsKey(saveGame.getId())) {
-                SaveGame existingSaveGame = profileAdventureMap.getSaveGames().get(saveGame.getId());
-                existingSaveGame.setName(saveGame.getName());
-                saveGameToUpsert = existingSaveGame;
+            boolean exists = false;
+            if (!saveGame.getId().isEmpty()) {
+                SaveGameDocuments.SaveGameDocument existingSaveGame = saveGameStore.loadSaveGameDocument(userProfileId, adventureId, saveGame.getId());
+                if (existingSaveGame != null) {
+                    existingSaveGame.setName(saveGame.getName());
+                    saveGameToUpsert = existingSaveGame.toSaveGame();
+                    exists = true;
+                }
             }
 
-            profileAdventureMap.upsertSaveGame(saveGameToUpsert);
-
-            userProfile.upsertProfileAdventureMap(profileAdventureMap);
-
-            ApiFuture<WriteResult> result = userProfileRef.update("maps", userProfile.getMaps());
-            result.get();
-
+            saveGameStore.upsert(userProfileId, adventureId, saveGameToUpsert, exists);
             return saveGameToUpsert;
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
@@ -236,31 +191,37 @@ public class UserProfileDAO {
 
     public SaveGame getSaveGame(String email, String password, String adventureId, String saveGameId) {
         UserProfile userProfile = this.get(email, password);
-        return userProfile.getMaps().get(adventureId).getSaveGameById(saveGameId);
+        return getSaveGame(userProfile.getId(), adventureId, saveGameId);
     }
 
-    public void deleteSaveGame(String userProfileId, String adventureId, String saveGameId) {
+    /**
+     * @return The save game with all of its stories, or null if the adventure map has no such save game
+     */
+    public SaveGame getSaveGame(String userProfileId, String adventureId, String saveGameId) {
         try {
-            DocumentReference userProfileRef = db.collection("userProfiles").document(userProfileId);
-            DocumentSnapshot userProfileSnapshot = FirestoreDAOUtil.getDocumentSnapshot(userProfileRef);
-            UserProfile userProfile = FirestoreDAOUtil.mapUserProfile(userProfileSnapshot);
-
-            ProfileAdventureMap profileAdventureMap = userProfile.getMaps().get(adventureId);
-            if (profileAdventureMap == null) {
+            saveGameStore.ensureMigrated(userProfileId);
+            SaveGame saveGame = saveGameStore.load(userProfileId, adventureId, saveGameId);
+            if (saveGame == null && !readProfile(userProfileId).getMaps().containsKey(adventureId)) {
                 throw new ResourceException("Adventure map " + adventureId + " not found for user " + userProfileId);
             }
+            return saveGame;
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            throw new ResourceException("Error reading save game. User Profile ID: " + userProfileId + ", adventure " + adventureId + ", save game " + saveGameId, e);
+        }
+    }
 
-            if (!profileAdventureMap.getSaveGames().containsKey(saveGameId)) {
+    public void deleteSaveGame(String userProfileId, String adventureId, String saveGameId) {
+        try {
+            saveGameStore.ensureMigrated(userProfileId);
+            if (saveGameStore.loadSaveGameDocument(userProfileId, adventureId, saveGameId) == null) {
+                if (!readProfile(userProfileId).getMaps().containsKey(adventureId)) {
+                    throw new ResourceException("Adventure map " + adventureId + " not found for user " + userProfileId);
+                }
                 throw new ResourceException("Save game " + saveGameId + " not found for adventure " + adventureId + " in user " + userProfileId);
             }
 
-            profileAdventureMap.getSaveGames().remove(saveGameId);
-
-            userProfile.upsertProfileAdventureMap(profileAdventureMap);
-
-            ApiFuture<WriteResult> result = userProfileRef.update("maps", userProfile.getMaps());
-            result.get();
-
+            saveGameStore.delete(userProfileId, saveGameId);
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
             throw new ResourceException("Error deleting save game from profile. User Profile ID: " + userProfileId + ", adventure " + adventureId + ", save game " + saveGameId);
@@ -275,20 +236,21 @@ public class UserProfileDAO {
      */
     public ProfileAdventureMap addAdventureMap(String userProfileId, AdventureMap adventureMap) {
         try {
-            DocumentReference userProfileRef = db.collection("userProfiles").document(userProfileId);
-            DocumentSnapshot userProfileSnapshot = FirestoreDAOUtil.getDocumentSnapshot(userProfileRef);
-            UserProfile userProfile = FirestoreDAOUtil.mapUserProfile(userProfileSnapshot);
-
             ProfileAdventureMap profileAdventureMap = new ProfileAdventureMap(adventureMap);
-            userProfile.upsertProfileAdventureMap(profileAdventureMap);
-
-            ApiFuture<WriteResult> result = userProfileRef.update("maps", userProfile.getMaps());
-            result.get();
-
+            saveGameStore.addAdventureMap(userProfileId, profileAdventureMap);
             return profileAdventureMap;
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
             throw new ResourceException("Error adding adventure map to user profile. User Profile ID: " + userProfileId + ", adventure " + adventureMap.getAdventureId());
         }
     }
+
+    /**
+     * Reads a profile's document, migrating its save games out of it first if it is still in the original layout.
+     */
+    private UserProfile readProfile(String userProfileId) throws InterruptedException, ExecutionException {
+        saveGameStore.ensureMigrated(userProfileId);
+        DocumentSnapshot userProfileSnapshot = FirestoreDAOUtil.getDocumentSnapshot(saveGameStore.getProfileRef(userProfileId));
+        return FirestoreDAOUtil.mapUserProfile(userProfileSnapshot);
+    }
 }
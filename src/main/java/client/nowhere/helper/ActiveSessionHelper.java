@@ -4,6 +4,8 @@ import client.nowhere.dao.ActiveSessionDAO;
 import client.nowhere.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -12,13 +14,16 @@ import java.util.List;
 @Component
 public class ActiveSessionHelper {
 
+    private static final Logger logger = LoggerFactory.getLogger(ActiveSessionHelper.class);
     private final ActiveSessionDAO activeSessionDAO;
     private final GameSessionHelper gameSessionHelper;
+    private final PhaseTransitionPipeline phaseTransitionPipeline;
 
     @Autowired
-    public ActiveSessionHelper(ActiveSessionDAO activeSessionDAO, GameSessionHelper gameSessionHelper) {
+    public ActiveSessionHelper(ActiveSessionDAO activeSessionDAO, GameSessionHelper gameSessionHelper, PhaseTransitionPipeline phaseTransitionPipeline) {
         this.activeSessionDAO = activeSessionDAO;
         this.gameSessionHelper = gameSessionHelper;
+        this.phaseTransitionPipeline = phaseTransitionPipeline;
     }
 
     public ActivePlayerSession update(ActivePlayerSession activeSession) {
@@ -32,8 +37,8 @@ public class ActiveSessionHelper {
         boolean gameProgressionNeeded = this.activeSessionDAO.update(gameCode, gamePhase, authorId, isDone);
         
         if (gameProgressionNeeded && !gamePhase.equals(GameState.INIT)) {
-            System.out.println("All players are done, progressing game state via GameSessionHelper");
-            this.gameSessionHelper.updateToNextGameState(gameCode);
+            logger.info("All players of game {} are done, queueing the move to the next game state", gameCode);
+            this.phaseTransitionPipeline.request(gameCode, gamePhase);
         }
     }
 
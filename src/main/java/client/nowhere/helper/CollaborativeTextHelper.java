@@ -167,13 +167,12 @@ public class CollaborativeTextHelper {
 
         String phaseId = phaseIdState.name();
 
-        List<String> excludeOutcomeTypeIds = gameSession.getStories().stream()
-                .filter(story -> playerId.equals(story.getPlayerId()))
+        List<String> excludeOutcomeTypeIds = gameSession.getIndex().getStoriesByPlayer(playerId).stream()
                 .map(Story::getStoryId)
                 .collect(Collectors.toList());
         excludeOutcomeTypeIds.add(playerId);
 
-        return collaborativeTextDAO.getAvailableSubmissionsForPlayerAtomically(gameCode, phaseId, playerId, requestedCount, excludeOutcomeTypeIds, showNewSubmissions);
+        return collaborativeTextDAO.getAvailableSubmissionsForPlayer(gameCode, phaseId, playerId, requestedCount, excludeOutcomeTypeIds, showNewSubmissions);
     }
 
 
@@ -488,87 +487,30 @@ public class CollaborativeTextHelper {
         }
     }
 
-    private List<TextSubmission> calculateWinnersFromVotes(CollaborativeTextPhase phase, GameState gameState, GameSession gameSession) {
+    static List<TextSubmission> calculateWinnersFromVotes(CollaborativeTextPhase phase, GameState gameState, GameSession gameSession) {
         List<TextSubmission> submissions = phase.getSubmissions();
         if (gameState.getPhaseId() == GameState.MAKE_OUTCOME_CHOICE_VOTING) {
             Story story = gameSession.getStoryAtCurrentPlayerCoordinates();
             submissions = story.getSelectedOption().getOutcomeForks().stream().map(OutcomeFork::getTextSubmission).toList();
         }
-        for (TextSubmission submission : submissions) {
-            List<PlayerVote> votesForSubmission = phase.getPlayerVotes().values().stream()
-                .flatMap(List::stream)
-                .filter(vote -> vote.getSubmissionId().equals(submission.getSubmissionId()))
-                .toList();
-
-            int numberOfVotes = votesForSubmission.size();
-            submission.setTotalVotes(numberOfVotes);
-
-            // Calculate total points: Rank 1 = 5 points, Rank 2 = 4, Rank 3 = 3, Rank 4 = 2, Rank 5+ = 1
-            int totalPoints = votesForSubmission.stream()
-                    .mapToInt(vote -> {
-                        int rank = vote.getRanking();
-                        if (rank <= 1) return 5;
-                        if (rank == 2) return 4;
-                        if (rank == 3) return 3;
-                        if (rank == 4) return 2;
-                        return 1; // Rank 5 or higher
-                    })
-                    .sum();
-
-            submission.setAverageRanking(totalPoints);
-        }
 
-        List<TextSubmission> submissionsWithVotes = submissions.stream()
-            .filter(submission -> submission.getTotalVotes() > 0)
-            .toList();
-
-        // Sort in descending order (higher points = better)
-        Comparator<TextSubmission> rankingComparator = Comparator
-                .comparingDouble(TextSubmission::getAverageRanking)
-                .reversed();
+        // Points per submission come from the phase's tally, so this is one pass over the submissions
+        List<TextSubmission> submissionsWithVotes = phase.getVoteTally().applyTo(submissions);
 
         if (gameState == GameState.SET_ENCOUNTERS_WINNERS) {
-            return submissionsWithVotes.stream()
-                .sorted(rankingComparator)
-                .toList();
+            return VoteTally.top(submissionsWithVotes, submissionsWithVotes.size());
         } else if (gameState == GameState.WHAT_CAN_WE_TRY_WINNERS) {
-            return submissionsWithVotes.stream()
-                .sorted(rankingComparator)
-                .limit(2)
-                .toList();
+            return VoteTally.top(submissionsWithVotes, 2);
         } else if (gameState == GameState.WHAT_ARE_WE_CAPABLE_OF_VOTE_WINNERS) {
-            return submissionsWithVotes.stream()
-                .sorted(rankingComparator)
-                .limit(6)
-                .toList();
+            return VoteTally.top(submissionsWithVotes, 6);
         } else if (gameState == GameState.WHAT_WILL_BECOME_OF_US_VOTE_WINNER
                 || gameState == GameState.HOW_DOES_THIS_RESOLVE_WINNERS
                 || gameState == GameState.HOW_DOES_THIS_RESOLVE_WINNERS_AGAIN
         ) {
-            List<String> uniqueOutcomeTypes = submissionsWithVotes.stream()
-                    .map(TextSubmission::getOutcomeType)
-                    .filter(outcomeType -> outcomeType != null && !outcomeType.isEmpty())
-                    .distinct()
-                    .toList();
-
-            List<TextSubmission> winners = new ArrayList<>();
-            for (String outcomeType : uniqueOutcomeTypes) {
-                TextSubmission winner = submissionsWithVotes.stream()
-                        .filter(submission -> outcomeType.equals(submission.getOutcomeType()))
-                        .min(rankingComparator)
-                        .orElse(null);
-                if (winner != null) {
-                    winners.add(winner);
-                }
-            }
-            return winners;
+            return VoteTally.bestPerOutcomeType(submissionsWithVotes);
         } else {
             // For other phases return the single best submission
-            TextSubmission winner = submissionsWithVotes.stream()
-                .min(rankingComparator)
-                .orElse(null);
-
-            return winner != null ? List.of(winner) : List.of();
+            return VoteTally.top(submissionsWithVotes, 1);
         }
     }
 
@@ -705,10 +647,13 @@ public class CollaborativeTextHelper {
             OutcomeFork outcomeFork = story.getSelectedOption().getSelectedOutcomeFork();
             if (outcomeFork != null) {
                 story.getSelectedOption().getSelectedOutcomeFork().setRepercussions(repercussions);
-                if (!repercussions.isEmpty()) {
-                    handleRepercussions(gameSession, story, repercussions);
-                }
-                storyDAO.updateStory(story);
+                // Player, adventure map, active session and story writes are committed together
+                GameSessionUnitOfWork.run(() -> {
+                    if (!repercussions.isEmpty()) {
+                        handleRepercussions(gameSession, story, repercussions);
+                    }
+                    storyDAO.updateStory(story);
+                });
             }
         }
     }
@@ -1004,9 +949,7 @@ public class CollaborativeTextHelper {
                 String locationId = votes.getFirst().getSubmissionId();
                 if (locationId == null || locationId.isEmpty()) continue;
 
-                gameSession.getPlayers().stream()
-                        .filter(p -> p.getAuthorId().equals(playerId))
-                        .findFirst()
+                Optional.ofNullable(gameSession.getIndex().getPlayer(playerId))
                         .ifPresent(player -> {
                             player.setSelectedLocationId(locationId);
                             player.setGameCode(gameCode);
@@ -1126,6 +1069,7 @@ public class CollaborativeTextHelper {
             }
 
             Map<String, PlayerSortResult> playersAssignedForDistribution = new HashMap<>();
+            List<Story> newStories = new ArrayList<>();
             int offsetValue = MAKE_CHOICE_VOTING.getPhaseId().getOutcomeTypeOffset(gameSession.getPlayers().size());
             for (Player player: gameSession.getPlayers()) {
                 PlayerSortResult playerSortResult = OutcomeTypeHelper.getPlayerAssignment(gameSession, player.getAuthorId(), offsetValue);
@@ -1170,7 +1114,7 @@ public class CollaborativeTextHelper {
                 String clarifier = submission.getOutcomeTypeWithLabel().getClarifier();
                 if (clarifier != null && !clarifier.isEmpty()) {
                     story.setPrequelStoryId(clarifier);
-                    Story prequelStory = gameSession.getStories().stream().filter(existingStory -> existingStory.getStoryId().equals(clarifier)).findFirst().orElse(null);
+                    Story prequelStory = gameSession.getIndex().getStory(clarifier);
                     if (prequelStory != null) {
                         OutcomeFork outcomeFork = prequelStory.getSelectedOption().getSelectedOutcomeFork();
 
@@ -1198,7 +1142,7 @@ public class CollaborativeTextHelper {
                     story.getPlayerIds().add(playerId);
                 }
 
-                storyDAO.createStory(story);
+                newStories.add(story);
 
                 // Create encounter with the story
                 Encounter encounter = new Encounter(
@@ -1221,7 +1165,7 @@ public class CollaborativeTextHelper {
                 preCannedStory.setPlayerId(playerId);
                 preCannedStory.getPlayerIds().add(playerId);
 
-                storyDAO.createStory(preCannedStory);
+                newStories.add(preCannedStory);
 
                 Encounter encounter = new Encounter(
                     preCannedStory.getEncounterLabel(),
@@ -1234,8 +1178,8 @@ public class CollaborativeTextHelper {
                 gameBoard.setEncounter(x, y, encounter);
             }
 
-            // Update the game board in Firestore
-            gameSessionDAO.updateDungeonGrid(gameCode, gameBoard);
+            // Write the stories and the board holding their encounters together
+            storyDAO.createStories(gameCode, newStories, gameBoard);
         } catch (Exception e) {
             System.err.println("Failed to handle WHAT_HAPPENS_HERE (streamlined): " + e.getMessage());
             e.printStackTrace();
@@ -1345,10 +1289,7 @@ public class CollaborativeTextHelper {
                     
                     // Find the story where storyId matches the outcomeTypeWithLabel.id
                     String storyId = storyOutcomeType.getId();
-                    Story matchingStory = stories.stream()
-                            .filter(story -> story.getStoryId().equals(storyId))
-                            .findFirst()
-                            .orElse(null);
+                    Story matchingStory = gameSession.getIndex().getStory(storyId);
                     
                     if (matchingStory != null) {
                         // Process each subType
@@ -1486,9 +1427,7 @@ public class CollaborativeTextHelper {
                         .collect(Collectors.toList());
 
                 String storyPlayerId = story.getPlayerId();
-                List<Player> storyPlayer = gameSession.getPlayers().stream()
-                        .filter(p -> p.getAuthorId().equals(storyPlayerId))
-                        .toList();
+                List<Player> storyPlayer = Optional.ofNullable(gameSession.getIndex().getPlayer(storyPlayerId)).stream().toList();
                 Set<String> updatedPlayerIds = new HashSet<>();
 
                 for (Trait trait : newTraits) {
@@ -1588,9 +1527,7 @@ public class CollaborativeTextHelper {
             if(encounter == null) {
                 return null;
             } else {
-                return gameSession.getStories().stream()
-                        .filter(story -> story.getStoryId().equals(encounter.getStoryId()))
-                        .toList().stream().findFirst().orElse(null);
+                return gameSession.getIndex().getStory(encounter);
             }
         } catch (Exception e) {
             System.err.println("Failed to handle NAVIGATE_VOTING (streamlined): " + e.getMessage());
@@ -1846,10 +1783,8 @@ public class CollaborativeTextHelper {
     }
 
     private void addRelationshipTraitsToPlayers(GameSession gameSession, String winnerPlayerId, String storyPlayerId) {
-        Optional<Player> partneredPlayerOpt = gameSession.getPlayers().stream()
-                .filter(p -> p.getAuthorId().equals(winnerPlayerId)).findFirst();
-        Optional<Player> storyPlayerOpt = gameSession.getPlayers().stream()
-                .filter(p -> p.getAuthorId().equals(storyPlayerId)).findFirst();
+        Optional<Player> partneredPlayerOpt = Optional.ofNullable(gameSession.getIndex().getPlayer(winnerPlayerId));
+        Optional<Player> storyPlayerOpt = Optional.ofNullable(gameSession.getIndex().getPlayer(storyPlayerId));
 
         if (partneredPlayerOpt.isPresent() && storyPlayerOpt.isPresent()) {
             Player partneredPlayer = partneredPlayerOpt.get();
@@ -1938,10 +1873,7 @@ public class CollaborativeTextHelper {
 
     public List<RepercussionTypeOption> getPlayerRepercussionTypes(String gameCode, String authorId) {
         GameSession gameSession = getGameSession(gameCode);
-        Player player = gameSession.getPlayers().stream()
-                .filter(p -> p.getAuthorId().equals(authorId))
-                .findFirst()
-                .orElse(null);
+        Player player = gameSession.getIndex().getPlayer(authorId);
         if (player == null || player.getPlayerClass() == null) {
             return new ArrayList<>();
         }
@@ -2292,9 +2224,7 @@ public class CollaborativeTextHelper {
                 assignedStoryOutcomeType.setSubTypes(allSubTypes);
                 return List.of(assignedStoryOutcomeType);
             } else if (phaseId == GameState.DEFINING_TRAITS_VOTING) {
-                Player player = gameSession.getPlayers().stream()
-                        .filter(p -> p.getAuthorId().equals(playerId))
-                        .findFirst().orElse(null);
+                Player player = gameSession.getIndex().getPlayer(playerId);
                 if (player == null || player.getTraits() == null) return new ArrayList<>();
                 List<Story> allStories = gameSession.getStories() == null ? List.of() : gameSession.getStories();
 
@@ -2707,114 +2637,118 @@ public class CollaborativeTextHelper {
 
     public void handleRoundZeroBoard(GameSession gameSession) {
         try {
-            String gameCode = gameSession.getGameCode();
-            AdventureMap adventureMap = gameSession.getAdventureMap();
-            if (adventureMap == null) return;
+            // The starting stories, the board they are placed on and the first voting submissions are committed together
+            GameSessionUnitOfWork.run(() -> buildRoundZeroBoard(gameSession));
+        } catch (Exception e) {
+            System.err.println("Failed to handle round zero board: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 
-            GameBoard gameBoard = gameSession.getGameBoard();
-            if (gameBoard == null) {
-                gameBoard = new GameBoard();
-                gameSession.setGameBoard(gameBoard);
-            }
-            PlayerCoordinates playerCoords = gameBoard.getPlayerCoordinates();
-            if (playerCoords == null) {
-                playerCoords = new PlayerCoordinates(0, 0);
-                gameBoard.setPlayerCoordinates(playerCoords);
-            }
-            int currentX = playerCoords.getxCoordinate();
-            int y = playerCoords.getyCoordinate();
+    private void buildRoundZeroBoard(GameSession gameSession) {
+        String gameCode = gameSession.getGameCode();
+        AdventureMap adventureMap = gameSession.getAdventureMap();
+        if (adventureMap == null) return;
 
-            List<Player> players = gameSession.getPlayers() == null ? new ArrayList<>() : gameSession.getPlayers()
-                    .stream()
-                    .filter(p -> p.getJoinedAt() != null)
-                    .sorted(Comparator.comparing(Player::getSelectedLocationId, Comparator.nullsLast(Comparator.naturalOrder())))
-                    .toList();
+        GameBoard gameBoard = gameSession.getGameBoard();
+        if (gameBoard == null) {
+            gameBoard = new GameBoard();
+            gameSession.setGameBoard(gameBoard);
+        }
+        PlayerCoordinates playerCoords = gameBoard.getPlayerCoordinates();
+        if (playerCoords == null) {
+            playerCoords = new PlayerCoordinates(0, 0);
+            gameBoard.setPlayerCoordinates(playerCoords);
+        }
+        int currentX = playerCoords.getxCoordinate();
+        int y = playerCoords.getyCoordinate();
 
-            Map<String, Integer> locationPlayerCount = new HashMap<>();
-            List<TextSubmission> storyOptionSubmissions = new ArrayList<>();
+        List<Player> players = gameSession.getPlayers() == null ? new ArrayList<>() : gameSession.getPlayers()
+                .stream()
+                .filter(p -> p.getJoinedAt() != null)
+                .sorted(Comparator.comparing(Player::getSelectedLocationId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
 
-            for (int i = 0; i < players.size(); i++) {
-                Player player = players.get(i);
-                String locationId = player.getSelectedLocationId();
-                if (locationId == null) continue;
+        Map<String, Integer> locationPlayerCount = new HashMap<>();
+        List<TextSubmission> storyOptionSubmissions = new ArrayList<>();
+        List<Story> startingStories = new ArrayList<>();
 
-                Location location = adventureMap.getLocations().stream()
-                        .filter(l -> l.getId().equals(locationId))
-                        .findFirst().orElse(null);
-                if (location == null || location.getStartingStories() == null || location.getStartingStories().isEmpty()) continue;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            String locationId = player.getSelectedLocationId();
+            if (locationId == null) continue;
 
-                int countForLocation = locationPlayerCount.getOrDefault(locationId, 0);
-                int storyIndex = Math.min(countForLocation, location.getStartingStories().size() - 1);
-                locationPlayerCount.put(locationId, countForLocation + 1);
+            Location location = gameSession.getIndex().getLocation(locationId);
+            if (location == null || location.getStartingStories() == null || location.getStartingStories().isEmpty()) continue;
 
-                Story template = location.getStartingStories().get(storyIndex);
-                List<Option> options = template.getOptions() == null ? new ArrayList<>() : template.getOptions();
+            int countForLocation = locationPlayerCount.getOrDefault(locationId, 0);
+            int storyIndex = Math.min(countForLocation, location.getStartingStories().size() - 1);
+            locationPlayerCount.put(locationId, countForLocation + 1);
 
-                Story story = new Story();
-                story.setNewStoryId();
-                story.setPrompt(template.getPrompt());
-                story.setOptions(options);
-                story.setGameCode(gameCode);
-                Location storyLocation = new Location(location.getId(), location.getLabel(), location.getDescription(), location.getOptions(), location.getIconDirectory());
-                storyLocation.setLocationId(location.getLocationId());
-                storyLocation.setLocationIndex(location.getLocationIndex());
-                storyLocation.setAuthorId(location.getAuthorId());
-                storyLocation.setSelectedOptionId(location.getSelectedOptionId());
-                storyLocation.setTraits(location.getTraits());
-                storyLocation.setStartingLocation(location.isStartingLocation());
-                story.setLocation(storyLocation);
-                story.setAuthorId(player.getAuthorId());
-                story.setPlayerId(player.getAuthorId());
-                story.setPlayerIds(new ArrayList<>(List.of(player.getAuthorId())));
-                story.setCreatedAt(Timestamp.now());
+            Story template = location.getStartingStories().get(storyIndex);
+            List<Option> options = template.getOptions() == null ? new ArrayList<>() : template.getOptions();
 
-                EncounterLabel encounterLabel = template.getEncounterLabel() != null
-                        ? template.getEncounterLabel()
-                        : new EncounterLabel(location.getId(), location.getLabel());
-                story.setEncounterLabel(encounterLabel);
+            Story story = new Story();
+            story.setNewStoryId();
+            story.setPrompt(template.getPrompt());
+            story.setOptions(options);
+            story.setGameCode(gameCode);
+            Location storyLocation = new Location(location.getId(), location.getLabel(), location.getDescription(), location.getOptions(), location.getIconDirectory());
+            storyLocation.setLocationId(location.getLocationId());
+            storyLocation.setLocationIndex(location.getLocationIndex());
+            storyLocation.setAuthorId(location.getAuthorId());
+            storyLocation.setSelectedOptionId(location.getSelectedOptionId());
+            storyLocation.setTraits(location.getTraits());
+            storyLocation.setStartingLocation(location.isStartingLocation());
+            story.setLocation(storyLocation);
+            story.setAuthorId(player.getAuthorId());
+            story.setPlayerId(player.getAuthorId());
+            story.setPlayerIds(new ArrayList<>(List.of(player.getAuthorId())));
+            story.setCreatedAt(Timestamp.now());
 
-                for (Option option : options) {
-                    TextSubmission sub = new TextSubmission();
-                    sub.setSubmissionId(option.getOptionId());
-                    sub.setOutcomeType(option.getOptionId());
-                    sub.setCurrentText(option.getOptionText());
-                    sub.setOriginalText(option.getOptionText());
-                    sub.setAuthorId(player.getAuthorId());
-                    sub.setCreatedAt(Timestamp.now());
-                    sub.setLastModified(Timestamp.now());
-                    storyOptionSubmissions.add(sub);
-                    if (option.getOutcomeForks() == null) continue;
-                    for (OutcomeFork fork : option.getOutcomeForks()) {
-                        if (fork.getRepercussions() == null || fork.getRepercussions().isEmpty()) continue;
-                        List<TextAddition> additions = fork.getRepercussions().stream().map(repercussion -> {
-                            TextAddition addition = new TextAddition();
-                            addition.setAuthorId(player.getAuthorId());
-                            addition.setAddedText(repercussion.getRepercussionSubmission());
-                            addition.setSubmissionId(option.getOptionId());
-                            addition.setRepercussion(repercussion);
-                            return addition;
-                        }).collect(Collectors.toList());
-                        fork.getTextSubmission().setAdditions(additions);
-                    }
+            EncounterLabel encounterLabel = template.getEncounterLabel() != null
+                    ? template.getEncounterLabel()
+                    : new EncounterLabel(location.getId(), location.getLabel());
+            story.setEncounterLabel(encounterLabel);
+
+            for (Option option : options) {
+                TextSubmission sub = new TextSubmission();
+                sub.setSubmissionId(option.getOptionId());
+                sub.setOutcomeType(option.getOptionId());
+                sub.setCurrentText(option.getOptionText());
+                sub.setOriginalText(option.getOptionText());
+                sub.setAuthorId(player.getAuthorId());
+                sub.setCreatedAt(Timestamp.now());
+                sub.setLastModified(Timestamp.now());
+                storyOptionSubmissions.add(sub);
+                if (option.getOutcomeForks() == null) continue;
+                for (OutcomeFork fork : option.getOutcomeForks()) {
+                    if (fork.getRepercussions() == null || fork.getRepercussions().isEmpty()) continue;
+                    List<TextAddition> additions = fork.getRepercussions().stream().map(repercussion -> {
+                        TextAddition addition = new TextAddition();
+                        addition.setAuthorId(player.getAuthorId());
+                        addition.setAddedText(repercussion.getRepercussionSubmission());
+                        addition.setSubmissionId(option.getOptionId());
+                        addition.setRepercussion(repercussion);
+                        return addition;
+                    }).collect(Collectors.toList());
+                    fork.getTextSubmission().setAdditions(additions);
                 }
-
-                storyDAO.createStory(story);
-
-                Encounter encounter = new Encounter(
-                        encounterLabel,
-                        EncounterType.NORMAL,
-                        story.getStoryId(),
-                        story.getPrompt()
-                );
-                gameBoard.setEncounter(currentX + i, y, encounter);
             }
 
-            gameSessionDAO.updateDungeonGrid(gameCode, gameBoard);
-            initializeMakeChoiceVotingPhase(gameSession, storyOptionSubmissions);
-        } catch (Exception e) {
-            System.err.println("Failed to handle round zero board: " + e.getMessage());
-            e.printStackTrace();
+            startingStories.add(story);
+
+            Encounter encounter = new Encounter(
+                    encounterLabel,
+                    EncounterType.NORMAL,
+                    story.getStoryId(),
+                    story.getPrompt()
+            );
+            gameBoard.setEncounter(currentX + i, y, encounter);
         }
+
+        storyDAO.createStories(gameCode, startingStories, gameBoard);
+        initializeMakeChoiceVotingPhase(gameSession, storyOptionSubmissions);
     }
 
     public void initializeDefiningTraits(String gameCode) {
@@ -2824,9 +2758,7 @@ public class CollaborativeTextHelper {
 
     private void handleDefiningTraitsInternal(GameSession gameSession, List<TextSubmission> winningSubmissions) {
         for (TextSubmission sub : winningSubmissions) {
-            Player player = gameSession.getPlayers().stream()
-                    .filter(p -> p.getAuthorId().equals(sub.getAuthorId()))
-                    .findFirst().orElse(null);
+            Player player = gameSession.getIndex().getPlayer(sub.getAuthorId());
             if (player == null) continue;
 
             OutcomeType definingOutcomeType = sub.getOutcomeTypeWithLabel();
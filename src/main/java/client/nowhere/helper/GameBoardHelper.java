@@ -16,7 +16,7 @@ public class GameBoardHelper {
     }
     
     public GameBoard getGameBoard(String gameCode) {
-        return gameSessionDAO.getGame(gameCode).getGameBoard();
+        return gameSessionDAO.getGameBoard(gameCode);
     }
 }
 
@@ -0,0 +1,160 @@
+package client.nowhere.helper;
+
+import client.nowhere.dao.GameSessionWatcher;
+import client.nowhere.model.GameSessionEvent;
+import com.google.cloud.firestore.ListenerRegistration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Pushes game session changes to connected players over server-sent events.
+ * Each game with at least one connected player has a single set of Firestore listeners,
+ * and its changes are fanned out to every player's stream.
+ */
+@Component
+public class GameSessionEventHelper {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameSessionEventHelper.class);
+    private static final String EVENT_NAME = "game";
+
+    private final GameSessionWatcher gameSessionWatcher;
+    private final long timeoutMillis;
+    private final Map<String, GameSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GameSessionEventHelper(
+            GameSessionWatcher gameSessionWatcher,
+            @Value("${nowhere.events.timeout-millis:1800000}") long timeoutMillis
+    ) {
+        this.gameSessionWatcher = gameSessionWatcher;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Opens an event stream for a game. The first event carries the current state, later events only changes.
+     * @param gameCode The game code
+     * @return The emitter to hand back to Spring MVC
+     */
+    public SseEmitter subscribe(String gameCode) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> unsubscribe(gameCode, emitter));
+        emitter.onTimeout(() -> unsubscribe(gameCode, emitter));
+        emitter.onError(error -> unsubscribe(gameCode, emitter));
+
+        GameSubscription subscription = subscriptions.compute(gameCode, (code, existing) -> {
+            GameSubscription current = existing != null ? existing : new GameSubscription(code);
+            current.emitters.add(emitter);
+            return current;
+        });
+        try {
+            subscription.start(emitter);
+        } catch (RuntimeException e) {
+            unsubscribe(gameCode, emitter);
+            throw e;
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount(String gameCode) {
+        GameSubscription subscription = subscriptions.get(gameCode);
+        return subscription == null ? 0 : subscription.emitters.size();
+    }
+
+    private void unsubscribe(String gameCode, SseEmitter emitter) {
+        GameSubscription[] removed = new GameSubscription[1];
+        subscriptions.computeIfPresent(gameCode, (code, subscription) -> {
+            subscription.emitters.remove(emitter);
+            if (subscription.emitters.isEmpty()) {
+                removed[0] = subscription;
+                return null;
+            }
+            return subscription;
+        });
+
+        if (removed[0] != null) {
+            removed[0].stop();
+        }
+    }
+
+    private class GameSubscription {
+        private final String gameCode;
+        private final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+        private ListenerRegistration registration;
+        private GameSessionEvent state;
+        private boolean stopped;
+
+        GameSubscription(String gameCode) {
+            this.gameCode = gameCode;
+        }
+
+        synchronized void start(SseEmitter emitter) {
+            if (stopped) {
+                return;
+            }
+            if (registration == null) {
+                logger.debug("Listening for changes to game {}", gameCode);
+                registration = gameSessionWatcher.watch(gameCode, this::onChange, this::onError);
+            }
+            if (state != null) {
+                send(emitter, state);
+            }
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+                logger.debug("Stopped listening for changes to game {}", gameCode);
+            }
+        }
+
+        private void onChange(GameSessionEvent event) {
+            List<SseEmitter> failed = new ArrayList<>();
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                state = state == null ? event : state.merge(event);
+                for (SseEmitter emitter : emitters) {
+                    if (!send(emitter, event)) {
+                        failed.add(emitter);
+                    }
+                }
+            }
+            failed.forEach(emitter -> unsubscribe(gameCode, emitter));
+        }
+
+        private void onError(Exception error) {
+            logger.warn("Listener for game {} failed: {}", gameCode, error.getMessage());
+            synchronized (this) {
+                stopped = true;
+                registration = null;
+            }
+            subscriptions.remove(gameCode, this);
+            // Clients reconnect on their own and get a fresh listener
+            emitters.forEach(emitter -> emitter.completeWithError(error));
+        }
+
+        private boolean send(SseEmitter emitter, GameSessionEvent event) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(event));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                return false;
+            }
+        }
+    }
+}
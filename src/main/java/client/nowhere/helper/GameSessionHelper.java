@@ -12,14 +12,19 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import client.nowhere.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import client.nowhere.dao.AdventureMapDAO;
 import client.nowhere.dao.EndingDAO;
+import client.nowhere.dao.FirestoreDAOUtil;
+import client.nowhere.dao.GameCodePool;
 import client.nowhere.dao.GameSessionDAO;
 import client.nowhere.dao.StoryDAO;
 import client.nowhere.exception.GameStateException;
@@ -31,6 +36,7 @@ import static client.nowhere.model.GameState.*;
 @Component
 public class GameSessionHelper {
 
+    private static final Logger logger = LoggerFactory.getLogger(GameSessionHelper.class);
     private final GameSessionDAO gameSessionDAO;
     private final AdventureMapDAO adventureMapDAO;
     private final StoryDAO storyDAO;
@@ -38,6 +44,7 @@ public class GameSessionHelper {
     private final UserProfileHelper userProfileHelper;
     private final FeatureFlagHelper featureFlagHelper;
     private final CollaborativeTextHelper collaborativeTextHelper;
+    private final GameCodePool gameCodePool;
 
     @Autowired
     public GameSessionHelper(
@@ -47,7 +54,8 @@ public class GameSessionHelper {
             EndingDAO endingDAO,
             UserProfileHelper userProfileHelper,
             FeatureFlagHelper featureFlagHelper,
-            CollaborativeTextHelper collaborativeTextHelper
+            CollaborativeTextHelper collaborativeTextHelper,
+            GameCodePool gameCodePool
     ) {
         this.gameSessionDAO = gameSessionDAO;
         this.adventureMapDAO = adventureMapDAO;
@@ -56,15 +64,27 @@ public class GameSessionHelper {
         this.userProfileHelper = userProfileHelper;
         this.featureFlagHelper = featureFlagHelper;
         this.collaborativeTextHelper = collaborativeTextHelper;
+        this.gameCodePool = gameCodePool;
     }
 
     public GameSession createGameSession(String userProfileId, String adventureId, String saveGameId, Integer storiesToWritePerRound, Integer storiesToPlayPerRound, GameMode gameMode) {
         AdventureMap adventureMap = StringUtil.isNullOrEmpty(adventureId) ? null : adventureMapDAO.get(userProfileId, adventureId);
-        return gameSessionDAO.createGameSession(generateSessionCode(), userProfileId, adventureMap, saveGameId, storiesToWritePerRound, storiesToPlayPerRound, gameMode);
+        for (int attempt = 1; ; attempt++) {
+            String gameCode = gameCodePool.take();
+            try {
+                return gameSessionDAO.createGameSession(gameCode, userProfileId, adventureMap, saveGameId, storiesToWritePerRound, storiesToPlayPerRound, gameMode);
+            } catch (ResourceException e) {
+                // Pooled codes are reserved, so this only happens if a game was written under the code some other way
+                if (attempt >= 3 || !GameCodePool.isCodeTaken(e)) {
+                    throw e;
+                }
+                logger.warn("Game code {} was already taken, trying another", gameCode);
+            }
+        }
     }
 
     public GameSession createDebugGameSession(GameSession gameSession) {
-        String newGameCode = generateSessionCode();
+        String newGameCode = gameCodePool.take();
         gameSession.setGameCode(newGameCode);
 
         if (gameSession.getPlayers() != null) {
@@ -90,21 +110,24 @@ public class GameSessionHelper {
     }
 
     public GameSession updateToNextGameState(String gameCode) {
-        GameSession gameSession = gameSessionDAO.getGame(gameCode);
+        // The session and the flag are independent reads, so both are in flight at once
+        CompletableFuture<GameSession> gameSessionFuture = FirestoreDAOUtil.supplyAsync(() -> gameSessionDAO.getGame(gameCode));
+        boolean locationVoting = featureFlagHelper.getFlagValue("locationVoting");
+        GameSession gameSession = FirestoreDAOUtil.join(gameSessionFuture);
         if (gameSession.getGameState().equals(INIT)) {
             if (!gameSession.areAllPlayersDone()) {
                 throw new GameStateException("Some players are still working on their character!");
             }
         }
 
-        boolean locationVoting = featureFlagHelper.getFlagValue("locationVoting");
         gameSession.setGameStateToNext(locationVoting);
         return updateGameSession(gameSession, false);
     }
 
     public GameSession updateGameSession(GameSession gameSession, boolean isTestMode) {
-        GameSession existingSession = gameSessionDAO.getGame(gameSession.getGameCode());
+        CompletableFuture<GameSession> existingSessionFuture = FirestoreDAOUtil.supplyAsync(() -> gameSessionDAO.getGame(gameSession.getGameCode()));
         boolean locationVoting = featureFlagHelper.getFlagValue("locationVoting");
+        GameSession existingSession = FirestoreDAOUtil.join(existingSessionFuture);
 
         if(existingSession.getGameState().equals(gameSession.getGameState())) {
             return existingSession;
@@ -328,7 +351,11 @@ public class GameSessionHelper {
             throw new ResourceException("Game State update failure", e);
         }
 
-        return gameSessionDAO.updateGameSession(gameSession);
+        GameSession updatedSession = gameSessionDAO.updateGameSession(gameSession);
+        if (gameSession.getGameState() == FINALE) {
+            gameCodePool.release(gameSession.getGameCode());
+        }
+        return updatedSession;
     }
 
     private void generateLocationAuthors(GameSession gameSession, List<Player> players) {
@@ -604,17 +631,6 @@ public class GameSessionHelper {
         return successResults;
     }
 
-    private String generateSessionCode() {
-        String CHARS = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
-        StringBuilder stringBuilder = new StringBuilder();
-        Random rnd = new Random();
-        while (stringBuilder.length() < 6) {
-            int index = (int) (rnd.nextFloat() * CHARS.length());
-            stringBuilder.append(CHARS.charAt(index));
-        }
-        return stringBuilder.toString();
-    }
-
     public Player joinPlayer(Player player) {
         player.setGameCode(player.getGameCode().toUpperCase(Locale.ROOT));
 
@@ -653,6 +669,10 @@ public class GameSessionHelper {
         return this.gameSessionDAO.getGame(gameCode);
     }
 
+    public CompletableFuture<GameSession> getGameAsync(String gameCode) {
+        return this.gameSessionDAO.getGameAsync(gameCode);
+    }
+
     public Player updatePlayer(Player player) {
         return this.gameSessionDAO.updatePlayer(player);
     }
@@ -687,9 +707,7 @@ public class GameSessionHelper {
         if (!nextEncounterStory.getPartnerIds().isEmpty()) return true;
 
         String storyPlayerId = nextEncounterStory.getPlayerId();
-        Player storyPlayer = gameSession.getPlayers().stream()
-                .filter(p -> p.getAuthorId().equals(storyPlayerId))
-                .findFirst().orElse(null);
+        Player storyPlayer = gameSession.getIndex().getPlayer(storyPlayerId);
         if (storyPlayer == null || storyPlayer.getSelectedLocationId() == null) return true;
 
         return getAvailablePartnersAtLocation(
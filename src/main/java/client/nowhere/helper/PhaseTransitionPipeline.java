@@ -0,0 +1,221 @@
+package client.nowhere.helper;
+
+import client.nowhere.dao.GameMutationExecutor;
+import client.nowhere.dao.GameSessionSnapshot;
+import client.nowhere.exception.GameStateException;
+import client.nowhere.exception.ResourceException;
+import client.nowhere.exception.ValidationException;
+import client.nowhere.model.GameSession;
+import client.nowhere.model.GameState;
+import client.nowhere.model.PhaseTransitionState;
+import client.nowhere.model.PhaseTransitionStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static client.nowhere.model.PhaseTransitionState.*;
+
+/**
+ * Moves games to their next phase in the background, so the request of the last player to finish a phase
+ * returns as soon as their done mark is written rather than after the whole transition.
+ * Transitions run through the game's {@link GameMutationExecutor} mailbox, behind the mutations already queued
+ * for it. A game has at most one transition per phase in flight: asking again while one is queued or running
+ * returns that one. Each attempt first checks the game is still in the phase it is moving on from, so a repeated
+ * transition never moves the game twice.
+ * Moving a game on is not idempotent: it creates stories and submissions and rewrites players and the board in
+ * several commits. A failed attempt is therefore only retried if it wrote nothing to the game; one that failed
+ * part way is marked failed rather than run again on top of its own writes.
+ * Transitions are tracked in memory only. The per-phase dedupe covers requests reaching this instance while it
+ * is up: a restart forgets queued and retrying transitions, and it relies on requests for a game being routed to
+ * the instance that owns it. Across those, the phase check above is what keeps a game from moving twice.
+ * Transition latency is published per phase as {@code nowhere.phase-transitions}, measured from the request
+ * to the game having moved, and {@code nowhere.phase-transitions.attempts} for the work of each attempt.
+ */
+@Component
+public class PhaseTransitionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhaseTransitionPipeline.class);
+    private final GameSessionHelper gameSessionHelper;
+    private final GameMutationExecutor gameMutationExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long retentionMillis;
+    private final Map<String, Transition> transitions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PhaseTransitionPipeline(
+            GameSessionHelper gameSessionHelper,
+            GameMutationExecutor gameMutationExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${nowhere.phase-transitions.max-attempts:3}") int maxAttempts,
+            @Value("${nowhere.phase-transitions.retry-backoff-millis:500}") long retryBackoffMillis,
+            @Value("${nowhere.phase-transitions.retention-millis:3600000}") long retentionMillis
+    ) {
+        this.gameSessionHelper = gameSessionHelper;
+        this.gameMutationExecutor = gameMutationExecutor;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Queues the game's move on from a phase, unless a move on from that phase is already queued or running.
+     * @param gameCode The game code
+     * @param fromState The phase every player has finished
+     * @return The status of the transition that will move the game on
+     */
+    public PhaseTransitionStatus request(String gameCode, GameState fromState) {
+        evictFinished();
+        Transition transition = transitions.compute(gameCode, (code, existing) ->
+                existing != null && existing.fromState == fromState && !existing.isFinished()
+                        ? existing
+                        : new Transition(code, fromState));
+        if (transition.started.compareAndSet(false, true)) {
+            logger.info("Queueing transition of game {} from {}", gameCode, fromState);
+            submit(transition);
+        }
+        return transition.status();
+    }
+
+    /**
+     * @return The game's latest transition, or null if it has had none recently
+     */
+    public PhaseTransitionStatus getStatus(String gameCode) {
+        Transition transition = transitions.get(gameCode);
+        return transition == null ? null : transition.status();
+    }
+
+    private void submit(Transition transition) {
+        try {
+            gameMutationExecutor.submit(transition.gameCode, () -> {
+                run(transition);
+                return null;
+            });
+        } catch (ResourceException e) {
+            // The game's mailbox is full; that counts as an attempt, so a game stuck behind a backlog still gives up
+            transition.attempts++;
+            retryOrFail(transition, e);
+        }
+    }
+
+    private void run(Transition transition) {
+        transition.attempts++;
+        transition.state = RUNNING;
+        long startedAt = System.nanoTime();
+        // A fresh snapshot, so the transition reads the game as it is now rather than as the requesting call saw it
+        GameSessionSnapshot snapshot = GameSessionSnapshot.open(() -> "TRANSITION " + transition.fromState);
+        try {
+            GameSession gameSession = gameSessionHelper.getGame(transition.gameCode);
+            if (gameSession == null || gameSession.getGameCode() == null || gameSession.getGameState() == null) {
+                // A failed read yields an empty session, which says nothing about whether the game already moved on
+                throw new ResourceException("Could not read game " + transition.gameCode + " before moving it on");
+            }
+            if (gameSession.getGameState() != transition.fromState) {
+                recordAttempt(transition, startedAt, "skipped");
+                finish(transition, SKIPPED, gameSession.getGameState(), null);
+                return;
+            }
+            GameSession moved = gameSessionHelper.updateToNextGameState(transition.gameCode);
+            recordAttempt(transition, startedAt, "success");
+            finish(transition, COMPLETED, moved.getGameState(), null);
+        } catch (GameStateException | ValidationException e) {
+            // The game cannot move on yet; retrying would not change that
+            recordAttempt(transition, startedAt, "error");
+            finish(transition, FAILED, null, e.getMessage());
+        } catch (RuntimeException e) {
+            recordAttempt(transition, startedAt, "error");
+            if (snapshot.isRefreshed(transition.gameCode)) {
+                // Some of the move was written; running it again would add a second set of stories and submissions
+                logger.error("Transition of game {} from {} failed after writing to the game, not retrying",
+                        transition.gameCode, transition.fromState, e);
+                finish(transition, FAILED, null, e.getMessage());
+                return;
+            }
+            retryOrFail(transition, e);
+        } finally {
+            snapshot.close();
+        }
+    }
+
+    private void retryOrFail(Transition transition, RuntimeException e) {
+        logger.warn("Transition of game {} from {} failed on attempt {}: {}",
+                transition.gameCode, transition.fromState, transition.attempts, e.getMessage());
+        if (transition.attempts >= maxAttempts) {
+            finish(transition, FAILED, null, e.getMessage());
+            return;
+        }
+        transition.state = RETRYING;
+        transition.error = e.getMessage();
+        long backoffMillis = retryBackoffMillis * Math.max(1, transition.attempts);
+        CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS).execute(() -> submit(transition));
+    }
+
+    private void finish(Transition transition, PhaseTransitionState state, GameState toState, String error) {
+        transition.toState = toState;
+        transition.error = error;
+        transition.finishedAt = System.currentTimeMillis();
+        Timer.builder("nowhere.phase-transitions")
+                .description("Time from a phase's last done mark to the game moving on")
+                .tag("fromState", transition.fromState.name())
+                .tag("outcome", state.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - transition.requestedNanos, TimeUnit.NANOSECONDS);
+        // Last, so whoever sees the transition finished also sees its outcome
+        transition.state = state;
+    }
+
+    private void recordAttempt(Transition transition, long startedAt, String outcome) {
+        Timer.builder("nowhere.phase-transitions.attempts")
+                .description("Time spent in each attempt at moving a game on")
+                .tag("fromState", transition.fromState.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private void evictFinished() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        transitions.values().removeIf(transition -> transition.isFinished() && transition.finishedAt < cutoff);
+    }
+
+    private static class Transition {
+        final String gameCode;
+        final GameState fromState;
+        final long requestedAt = System.currentTimeMillis();
+        final long requestedNanos = System.nanoTime();
+        final AtomicBoolean started = new AtomicBoolean();
+        // Written by the game's mailbox thread, read by status requests
+        volatile PhaseTransitionState state = QUEUED;
+        volatile GameState toState;
+        volatile String error;
+        volatile int attempts;
+        volatile long finishedAt;
+
+        Transition(String gameCode, GameState fromState) {
+            this.gameCode = gameCode;
+            this.fromState = fromState;
+        }
+
+        boolean isFinished() {
+            return state == COMPLETED || state == SKIPPED || state == FAILED;
+        }
+
+        PhaseTransitionStatus status() {
+            return new PhaseTransitionStatus(gameCode, fromState, toState, state, attempts, error, requestedAt, finishedAt);
+        }
+    }
+}
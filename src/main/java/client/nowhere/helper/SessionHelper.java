@@ -0,0 +1,157 @@
+package client.nowhere.helper;
+
+import client.nowhere.dao.FirestoreDAOUtil;
+import client.nowhere.dao.UserProfileDAO;
+import client.nowhere.exception.ResourceException;
+import client.nowhere.exception.ValidationException;
+import client.nowhere.model.SessionToken;
+import client.nowhere.model.UserProfile;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs players in once and hands them a signed session token for their later profile and save game reads,
+ * so a bcrypt verification is paid per login rather than per request.
+ * Verifications run on a pool sized to the CPU with a bounded queue; logins beyond that are turned away
+ * instead of piling up behind each other.
+ * A token is {@code <payload>.<signature>}, where the payload names the profile and the expiry and the signature
+ * is an HMAC-SHA256 of it. Every instance behind the router must share {@code nowhere.session.secret}; without one
+ * each instance signs with its own random key and tokens only work on the instance that issued them.
+ */
+@Component
+public class SessionHelper {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionHelper.class);
+    private static final String HMAC = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final UserProfileDAO userProfileDAO;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final ExecutorService passwordVerifier;
+
+    @Autowired
+    public SessionHelper(
+            UserProfileDAO userProfileDAO,
+            @Value("${nowhere.session.secret:}") String secret,
+            @Value("${nowhere.session.ttl-minutes:720}") long ttlMinutes,
+            @Value("${nowhere.session.password-threads:0}") int passwordThreads,
+            @Value("${nowhere.session.password-queue:64}") int passwordQueue
+    ) {
+        this.userProfileDAO = userProfileDAO;
+        this.key = new SecretKeySpec(secret.isBlank() ? randomSecret() : secret.getBytes(StandardCharsets.UTF_8), HMAC);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        int threads = passwordThreads > 0 ? passwordThreads : Runtime.getRuntime().availableProcessors();
+        this.passwordVerifier = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordQueue), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Checks the password once and issues a token for the profile.
+     * @throws ValidationException If there is no such profile or the password is wrong
+     * @throws ResourceException If too many logins are already waiting to be verified
+     */
+    public SessionToken login(String email, String password) {
+        UserProfile userProfile = userProfileDAO.getByEmail(email);
+        CompletableFuture<Boolean> verified;
+        try {
+            verified = CompletableFuture.supplyAsync(() -> UserProfileDAO.verifyPassword(password, userProfile.getPassword()), passwordVerifier);
+        } catch (RejectedExecutionException e) {
+            throw new ResourceException("Too many logins in progress, try again shortly", e);
+        }
+        if (!FirestoreDAOUtil.join(verified)) {
+            throw new ValidationException("Incorrect Password");
+        }
+        return issue(userProfile.getId());
+    }
+
+    SessionToken issue(String userProfileId) {
+        long expiresAt = Instant.now().plus(ttl).getEpochSecond();
+        String payload = ENCODER.encodeToString((userProfileId + ":" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        return new SessionToken(payload + "." + ENCODER.encodeToString(sign(payload)), userProfileId, expiresAt);
+    }
+
+    /**
+     * @param authorization The Authorization header, {@code Bearer <token>}, or the bare token
+     * @return The profile the token was issued for
+     * @throws ValidationException If the token is malformed, was not signed by us or has expired
+     */
+    public String authenticate(String authorization) {
+        String token = authorization == null ? "" : authorization.trim();
+        if (token.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            token = token.substring(7).trim();
+        }
+
+        int separator = token.indexOf('.');
+        if (separator <= 0) {
+            throw new ValidationException("Invalid session token");
+        }
+        String payload = token.substring(0, separator);
+        byte[] signature;
+        String[] claims;
+        try {
+            signature = DECODER.decode(token.substring(separator + 1));
+            claims = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid session token", e);
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature) || claims.length != 2) {
+            throw new ValidationException("Invalid session token");
+        }
+
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(claims[1]);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid session token", e);
+        }
+        if (Instant.now().getEpochSecond() >= expiresAt) {
+            throw new ValidationException("Session expired, please log in again");
+        }
+        return claims[0];
+    }
+
+    @PreDestroy
+    public void close() {
+        passwordVerifier.shutdown();
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static byte[] randomSecret() {
+        logger.warn("nowhere.session.secret is not set; session tokens will only be accepted by this instance until it restarts");
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+}
@@ -49,10 +49,9 @@ public class StoryHelper {
     }
 
     public Story storePlayerStory(String gameCode, String playerId, String locationId) {
-        return gameSessionDAO.runInTransaction(txn -> {
+        return gameSessionDAO.runInTransaction(gameCode, txn -> {
             Story playerStory = null;
             GameSession gameSession = gameSessionDAO.getGameInTransaction(gameCode, txn);
-            List<Story> stories = gameSession.getStories() != null ? new ArrayList<>(gameSession.getStories()) : new ArrayList<>();
 
             List<Story> existingUnwrittenPlayerStories = gameSession.getStories() == null || gameSession.getStories().isEmpty()
                     ? new ArrayList<>()
@@ -73,8 +72,7 @@ public class StoryHelper {
 
             playerStory.setPlayerId(playerId);
             playerStory.setVisited(true);
-            stories.add(playerStory);
-            gameSessionDAO.updateStoriesInTransaction(gameCode, stories, txn);
+            gameSessionDAO.createStoryInTransaction(gameCode, playerStory, txn);
             return playerStory;
         });
     }
@@ -144,9 +142,9 @@ public class StoryHelper {
     }
 
     private List<Story> getPlayedStories(GameSession gameSession, List<Story> stories) {
-        List<String> existingSequelIds = stories.stream()
+        Set<String> existingSequelIds = stories.stream()
                 .map(Story::getPrequelStoryId)
-                .collect(Collectors.toList());
+                .collect(Collectors.toSet());
 
         List<Story> playedStories = stories.stream()
                 .filter(story ->
@@ -217,9 +215,9 @@ public class StoryHelper {
             return null;
         }
 
-        List<String> allGameSessionStoryIds = gameSession.getStories().stream()
+        Set<String> allGameSessionStoryIds = gameSession.getStories().stream()
                 .map(Story::getStoryId)
-                .collect(Collectors.toList());
+                .collect(Collectors.toSet());
 
         Story selectedSequelStory = getSaveGamePlayerSequelStory(gameSession, playerId, saveGameSequelStories, allGameSessionStoryIds, locationId);
 
@@ -234,7 +232,7 @@ public class StoryHelper {
         return selectedSequelStory;
     }
 
-    private Story getSaveGameLocationSequelStory(String locationId, List<Story> saveGameSequelStories, List<String> allGameSessionStoryIds) {
+    private Story getSaveGameLocationSequelStory(String locationId, List<Story> saveGameSequelStories, Set<String> allGameSessionStoryIds) {
         Story selectedSequelStory = null;
         List<Story> locationSequels = saveGameSequelStories.stream()
                 .filter(saveGameSequelStory -> isLocationSequelRelevantToThisPlayer(locationId, saveGameSequelStory, allGameSessionStoryIds))
@@ -249,11 +247,11 @@ public class StoryHelper {
         return selectedSequelStory;
     }
 
-    private Story getSaveGamePlayerSequelStory(GameSession gameSession, String playerId, List<Story> saveGameSequelStories, List<String> allGameSessionStoryIds, String locationId) {
-        List<String> playerVisitedStoryIds = gameSession.getStories().stream()
+    private Story getSaveGamePlayerSequelStory(GameSession gameSession, String playerId, List<Story> saveGameSequelStories, Set<String> allGameSessionStoryIds, String locationId) {
+        Set<String> playerVisitedStoryIds = gameSession.getStories().stream()
                 .filter(gameSessionStory -> isVisitedByPlayer(playerId, gameSessionStory))
                 .map(Story::getStoryId)
-                .collect(Collectors.toList());
+                .collect(Collectors.toSet());
 
         List<Story> sequels = saveGameSequelStories.stream()
                 .filter(saveGameSequelStory -> isPlayerSequelRelevantToThisPlayer(saveGameSequelStory, playerVisitedStoryIds, allGameSessionStoryIds))
@@ -296,7 +294,7 @@ public class StoryHelper {
                 && !gameSessionStory.getSelectedOptionId().isEmpty();
     }
 
-    private boolean isPlayerSequelRelevantToThisPlayer(Story saveGameSequelStory, List<String> storyIdsPlayedByPlayer, List<String> existingGameSessionStoryIds) {
+    private boolean isPlayerSequelRelevantToThisPlayer(Story saveGameSequelStory, Set<String> storyIdsPlayedByPlayer, Set<String> existingGameSessionStoryIds) {
         if (existingGameSessionStoryIds.contains(saveGameSequelStory.getStoryId())) {
             return false;
         }
@@ -307,7 +305,7 @@ public class StoryHelper {
         return isASequelForThisPlayer;
     }
 
-    private boolean isLocationSequelRelevantToThisPlayer(String locationId, Story saveGameSequelStory, List<String> existingGameSessionStoryIds) {
+    private boolean isLocationSequelRelevantToThisPlayer(String locationId, Story saveGameSequelStory, Set<String> existingGameSessionStoryIds) {
         if (existingGameSessionStoryIds.contains(saveGameSequelStory.getStoryId())) {
             return false;
         }
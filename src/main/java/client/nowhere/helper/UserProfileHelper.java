@@ -79,10 +79,23 @@ public class UserProfileHelper {
         return this.userProfileDAO.upsertSaveGame(userProfileId, adventureId, saveGame);
     }
 
+    /**
+     * Reads a profile for a caller already authenticated by session token, without its password hash.
+     */
+    public UserProfile get(String userProfileId) {
+        UserProfile userProfile = this.userProfileDAO.get(userProfileId);
+        userProfile.setPassword("");
+        return userProfile;
+    }
+
     public SaveGame getSaveGame(String email, String password, String adventureId, String saveGameId) {
         return this.userProfileDAO.getSaveGame(email, password, adventureId, saveGameId);
     }
 
+    public SaveGame getSaveGame(String userProfileId, String adventureId, String saveGameId) {
+        return this.userProfileDAO.getSaveGame(userProfileId, adventureId, saveGameId);
+    }
+
     public void deleteSaveGame(String userProfileId, String adventureId, String saveGameId) {
         this.userProfileDAO.deleteSaveGame(userProfileId, adventureId, saveGameId);
     }
@@ -10,11 +10,23 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 @Component
 public class VotingHelper {
 
+    /**
+     * Most additions first, then newest first.
+     */
+    static final Comparator<TextSubmission> VOTING_ORDER = (s1, s2) -> {
+        int additionsComparison = Integer.compare(s2.getAdditions().size(), s1.getAdditions().size());
+        if (additionsComparison != 0) {
+            return additionsComparison;
+        }
+        return s2.getCreatedAt().compareTo(s1.getCreatedAt());
+    };
+
     private final GameSessionDAO gameSessionDAO;
     private final CollaborativeTextDAO collaborativeTextDAO;
     private final ActiveSessionHelper activeSessionHelper;
@@ -42,7 +54,7 @@ public class VotingHelper {
      * @return List of submissions ordered by phase
      */
     public List<TextSubmission> getVotingSubmissionsForPlayer(String gameCode, String playerId) {
-        GameSession gameSession = gameSessionDAO.getGame(gameCode);
+        GameSession gameSession = gameSessionDAO.getCachedGame(gameCode);
         GameState phaseIdState = gameSession.getGameState().getPhaseId();
         if (phaseIdState == null) {
             throw new ValidationException("Current game state does not support voting: " + gameSession.getGameState());
@@ -75,9 +87,7 @@ public class VotingHelper {
                     activeSessionHelper.update(gameCode, gameSession.getGameState(), playerId, true);
                     return new ArrayList<>();
                 }
-                Player storyPlayer = gameSession.getPlayers().stream()
-                        .filter(p -> p.getAuthorId().equals(playerId))
-                        .findFirst().orElse(null);
+                Player storyPlayer = gameSession.getIndex().getPlayer(playerId);
                 if (storyPlayer == null || storyPlayer.getSelectedLocationId() == null) {
                     activeSessionHelper.update(gameCode, gameSession.getGameState(), playerId, true);
                     return new ArrayList<>();
@@ -142,8 +152,12 @@ public class VotingHelper {
                 }
 
                 boolean isPartner = currentStory.getPartnerIds().contains(playerId);
-                boolean allPlayersInStory = gameSession.getPlayers().stream()
-                        .allMatch(p -> currentStory.getPlayerIds().contains(p.getAuthorId()));
+                GameSessionIndex index = gameSession.getIndex();
+                long playersInStory = currentStory.getPlayerIds().stream()
+                        .distinct()
+                        .filter(storyPlayerId -> index.getPlayer(storyPlayerId) != null)
+                        .count();
+                boolean allPlayersInStory = playersInStory == index.getPlayerCount();
                 boolean excludePlayerFromVote = !isPartner && (allPlayersInStory
                         ? !currentStory.getPlayerId().equals(playerId)
                         : currentStory.getPlayerIds().contains(playerId));
@@ -178,16 +192,9 @@ public class VotingHelper {
 
                 List<TextSubmission> submissionsPlayerCanVoteOn = phase.getSubmissions().stream()
                         .filter(textSubmission -> isSubmissionAvailableForVoting(textSubmission, playerId, outcomeType))
-                        .peek(textSubmission -> setOutcomeTypeWithLabelIfMatch(textSubmission, outcomeType))
-                        .sorted((s1, s2) -> {
-                            // First sort by number of additions (descending - most additions first)
-                            int additionsComparison = Integer.compare(s2.getAdditions().size(), s1.getAdditions().size());
-                            if (additionsComparison != 0) {
-                                return additionsComparison;
-                            }
-                            // If additions are equal, sort by creation time (descending - newest first)
-                            return s2.getCreatedAt().compareTo(s1.getCreatedAt());
-                        })
+                        // The session is shared through the cache, so each player gets labelled copies
+                        .map(textSubmission -> withOutcomeTypeLabel(textSubmission, outcomeType))
+                        .sorted(VOTING_ORDER)
                         .limit(limit)
                         .toList();
 
@@ -236,28 +243,33 @@ public class VotingHelper {
     }
 
     /**
-     * Sets the outcomeTypeWithLabel on a submission if the outcomeType matches and is not null or empty.
-     * @param submission The submission to update
+     * Labels a copy of the submission with the outcomeType if it matches and is not null or empty.
+     * The submission itself is left alone, as it may belong to a cached session other requests are reading.
+     * @param submission The submission to label
      * @param outcomeType The outcome type to set if it matches
+     * @return The labelled copy, or the submission itself if there is no outcomeType to label it with
      */
-    private void setOutcomeTypeWithLabelIfMatch(TextSubmission submission, OutcomeType outcomeType) {
-        if (outcomeType != null
-                && outcomeType.getId() != null
-                && !outcomeType.getId().isEmpty()) {
+    private TextSubmission withOutcomeTypeLabel(TextSubmission submission, OutcomeType outcomeType) {
+        if (outcomeType == null
+                || outcomeType.getId() == null
+                || outcomeType.getId().isEmpty()) {
+            return submission;
+        }
 
-            if (outcomeType.getId().equals(submission.getOutcomeTypeWithLabel().getId())
-                    || outcomeType.getId().equals(submission.getOutcomeType())) {
-                submission.setOutcomeTypeWithLabel(outcomeType);
-            }
+        TextSubmission labelled = new TextSubmission(submission);
+        if (outcomeType.getId().equals(labelled.getOutcomeTypeWithLabel().getId())
+                || outcomeType.getId().equals(labelled.getOutcomeType())) {
+            labelled.setOutcomeTypeWithLabel(new OutcomeType(outcomeType));
+        }
 
-            if (outcomeType.getSubTypes() != null && !outcomeType.getSubTypes().isEmpty()) {
-                for (OutcomeType subType : outcomeType.getSubTypes()) {
-                    if (subType.getId().equals(submission.getOutcomeTypeWithLabel().getId()) || subType.getId().equals(submission.getOutcomeType())) {
-                        submission.getOutcomeTypeWithLabel().getSubTypes().add(subType);
-                    }
+        if (outcomeType.getSubTypes() != null && !outcomeType.getSubTypes().isEmpty()) {
+            for (OutcomeType subType : outcomeType.getSubTypes()) {
+                if (subType.getId().equals(labelled.getOutcomeTypeWithLabel().getId()) || subType.getId().equals(labelled.getOutcomeType())) {
+                    labelled.getOutcomeTypeWithLabel().getSubTypes().add(subType);
                 }
             }
         }
+        return labelled;
     }
 
     /**
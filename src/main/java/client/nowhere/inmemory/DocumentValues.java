@@ -0,0 +1,232 @@
+package client.nowhere.inmemory;
+
+import com.google.firestore.v1.ArrayValue;
+import com.google.firestore.v1.MapValue;
+import com.google.firestore.v1.Value;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Field path and value helpers for documents held as Firestore protobuf field maps.
+ * Values are ordered the way Firestore orders them across types:
+ * null, booleans, numbers, timestamps, strings, bytes, references, geo points, arrays, maps.
+ */
+final class DocumentValues {
+
+    static final Comparator<Value> ORDER = DocumentValues::compare;
+
+    private DocumentValues() {
+    }
+
+    /**
+     * Splits a canonical field path such as {@code collaborativeTextPhases.`odd-key`.submissions} into its segments.
+     */
+    static List<String> parsePath(String fieldPath) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < fieldPath.length(); i++) {
+            char c = fieldPath.charAt(i);
+            if (c == '\\' && quoted && i + 1 < fieldPath.length()) {
+                segment.append(fieldPath.charAt(++i));
+            } else if (c == '`') {
+                quoted = !quoted;
+            } else if (c == '.' && !quoted) {
+                segments.add(segment.toString());
+                segment.setLength(0);
+            } else {
+                segment.append(c);
+            }
+        }
+        segments.add(segment.toString());
+        return segments;
+    }
+
+    static Value getField(Map<String, Value> fields, List<String> path) {
+        Value value = fields.get(path.get(0));
+        if (path.size() == 1 || value == null) {
+            return value;
+        }
+        if (!value.hasMapValue()) {
+            return null;
+        }
+        return getField(value.getMapValue().getFieldsMap(), path.subList(1, path.size()));
+    }
+
+    static void setField(Map<String, Value> fields, List<String> path, Value value) {
+        String key = path.get(0);
+        if (path.size() == 1) {
+            fields.put(key, value);
+            return;
+        }
+
+        Value child = fields.get(key);
+        Map<String, Value> childFields = child != null && child.hasMapValue()
+                ? new LinkedHashMap<>(child.getMapValue().getFieldsMap())
+                : new LinkedHashMap<>();
+        setField(childFields, path.subList(1, path.size()), value);
+        fields.put(key, mapValue(childFields));
+    }
+
+    static void deleteField(Map<String, Value> fields, List<String> path) {
+        String key = path.get(0);
+        if (path.size() == 1) {
+            fields.remove(key);
+            return;
+        }
+
+        Value child = fields.get(key);
+        if (child == null || !child.hasMapValue()) {
+            return;
+        }
+        Map<String, Value> childFields = new LinkedHashMap<>(child.getMapValue().getFieldsMap());
+        deleteField(childFields, path.subList(1, path.size()));
+        fields.put(key, mapValue(childFields));
+    }
+
+    /**
+     * Copies only the given field paths, the way a read with a field mask would return them.
+     */
+    static Map<String, Value> project(Map<String, Value> fields, List<String> fieldPaths) {
+        Map<String, Value> projected = new LinkedHashMap<>();
+        for (String fieldPath : fieldPaths) {
+            List<String> path = parsePath(fieldPath);
+            Value value = getField(fields, path);
+            if (value != null) {
+                setField(projected, path, value);
+            }
+        }
+        return projected;
+    }
+
+    static Value mapValue(Map<String, Value> fields) {
+        return Value.newBuilder().setMapValue(MapValue.newBuilder().putAllFields(fields)).build();
+    }
+
+    static Value arrayValue(List<Value> values) {
+        return Value.newBuilder().setArrayValue(ArrayValue.newBuilder().addAllValues(values)).build();
+    }
+
+    static Value timestampValue(Timestamp timestamp) {
+        return Value.newBuilder().setTimestampValue(timestamp).build();
+    }
+
+    static boolean isNumber(Value value) {
+        return value != null && (value.hasIntegerValue() || value.hasDoubleValue());
+    }
+
+    static double toDouble(Value value) {
+        return value.hasIntegerValue() ? value.getIntegerValue() : value.getDoubleValue();
+    }
+
+    static boolean equal(Value left, Value right) {
+        return compare(left, right) == 0;
+    }
+
+    static boolean contains(List<Value> values, Value value) {
+        return values.stream().anyMatch(element -> equal(element, value));
+    }
+
+    static int compare(Value left, Value right) {
+        int typeOrder = Integer.compare(typeOrder(left), typeOrder(right));
+        if (typeOrder != 0) {
+            return typeOrder;
+        }
+
+        return switch (left.getValueTypeCase()) {
+            case NULL_VALUE, VALUETYPE_NOT_SET -> 0;
+            case BOOLEAN_VALUE -> Boolean.compare(left.getBooleanValue(), right.getBooleanValue());
+            case INTEGER_VALUE, DOUBLE_VALUE -> compareNumbers(left, right);
+            case TIMESTAMP_VALUE -> compareTimestamps(left.getTimestampValue(), right.getTimestampValue());
+            case STRING_VALUE -> left.getStringValue().compareTo(right.getStringValue());
+            case BYTES_VALUE -> ByteString.unsignedLexicographicalComparator().compare(left.getBytesValue(), right.getBytesValue());
+            case REFERENCE_VALUE -> compareReferences(left.getReferenceValue(), right.getReferenceValue());
+            case GEO_POINT_VALUE -> {
+                int latitude = Double.compare(left.getGeoPointValue().getLatitude(), right.getGeoPointValue().getLatitude());
+                yield latitude != 0 ? latitude : Double.compare(left.getGeoPointValue().getLongitude(), right.getGeoPointValue().getLongitude());
+            }
+            case ARRAY_VALUE -> compareArrays(left.getArrayValue().getValuesList(), right.getArrayValue().getValuesList());
+            case MAP_VALUE -> compareMaps(left.getMapValue().getFieldsMap(), right.getMapValue().getFieldsMap());
+            default -> 0;
+        };
+    }
+
+    private static int typeOrder(Value value) {
+        return switch (value.getValueTypeCase()) {
+            case NULL_VALUE, VALUETYPE_NOT_SET -> 0;
+            case BOOLEAN_VALUE -> 1;
+            case INTEGER_VALUE, DOUBLE_VALUE -> 2;
+            case TIMESTAMP_VALUE -> 3;
+            case STRING_VALUE -> 4;
+            case BYTES_VALUE -> 5;
+            case REFERENCE_VALUE -> 6;
+            case GEO_POINT_VALUE -> 7;
+            case ARRAY_VALUE -> 8;
+            case MAP_VALUE -> 9;
+            default -> 10;
+        };
+    }
+
+    private static int compareNumbers(Value left, Value right) {
+        if (left.hasIntegerValue() && right.hasIntegerValue()) {
+            return Long.compare(left.getIntegerValue(), right.getIntegerValue());
+        }
+        return Double.compare(toDouble(left), toDouble(right));
+    }
+
+    static int compareTimestamps(Timestamp left, Timestamp right) {
+        int seconds = Long.compare(left.getSeconds(), right.getSeconds());
+        return seconds != 0 ? seconds : Integer.compare(left.getNanos(), right.getNanos());
+    }
+
+    /**
+     * Document names compare segment by segment, so a collection's documents sort by their IDs.
+     */
+    static int compareReferences(String left, String right) {
+        String[] leftSegments = left.split("/");
+        String[] rightSegments = right.split("/");
+        for (int i = 0; i < Math.min(leftSegments.length, rightSegments.length); i++) {
+            int segment = leftSegments[i].compareTo(rightSegments[i]);
+            if (segment != 0) {
+                return segment;
+            }
+        }
+        return Integer.compare(leftSegments.length, rightSegments.length);
+    }
+
+    private static int compareArrays(List<Value> left, List<Value> right) {
+        for (int i = 0; i < Math.min(left.size(), right.size()); i++) {
+            int element = compare(left.get(i), right.get(i));
+            if (element != 0) {
+                return element;
+            }
+        }
+        return Integer.compare(left.size(), right.size());
+    }
+
+    private static int compareMaps(Map<String, Value> left, Map<String, Value> right) {
+        Iterator<Map.Entry<String, Value>> leftEntries = new TreeMap<>(left).entrySet().iterator();
+        Iterator<Map.Entry<String, Value>> rightEntries = new TreeMap<>(right).entrySet().iterator();
+        while (leftEntries.hasNext() && rightEntries.hasNext()) {
+            Map.Entry<String, Value> leftEntry = leftEntries.next();
+            Map.Entry<String, Value> rightEntry = rightEntries.next();
+            int key = leftEntry.getKey().compareTo(rightEntry.getKey());
+            if (key != 0) {
+                return key;
+            }
+            int value = compare(leftEntry.getValue(), rightEntry.getValue());
+            if (value != 0) {
+                return value;
+            }
+        }
+        return Boolean.compare(leftEntries.hasNext(), rightEntries.hasNext());
+    }
+}
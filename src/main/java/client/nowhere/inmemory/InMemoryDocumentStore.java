@@ -0,0 +1,517 @@
+package client.nowhere.inmemory;
+
+import com.google.api.gax.rpc.AbortedException;
+import com.google.api.gax.rpc.AlreadyExistsException;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.FailedPreconditionException;
+import com.google.api.gax.rpc.InvalidArgumentException;
+import com.google.api.gax.rpc.NotFoundException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.firestore.v1.BatchGetDocumentsRequest;
+import com.google.firestore.v1.BatchGetDocumentsResponse;
+import com.google.firestore.v1.BeginTransactionRequest;
+import com.google.firestore.v1.BeginTransactionResponse;
+import com.google.firestore.v1.CommitRequest;
+import com.google.firestore.v1.CommitResponse;
+import com.google.firestore.v1.Document;
+import com.google.firestore.v1.DocumentTransform.FieldTransform;
+import com.google.firestore.v1.Precondition;
+import com.google.firestore.v1.RollbackRequest;
+import com.google.firestore.v1.RunQueryRequest;
+import com.google.firestore.v1.RunQueryResponse;
+import com.google.firestore.v1.StructuredQuery;
+import com.google.firestore.v1.Value;
+import com.google.firestore.v1.Write;
+import com.google.firestore.v1.WriteResult;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A single-process stand-in for the Firestore backend, working on the same protobuf requests the client library sends.
+ * Supports the subset the DAOs use: document reads with field masks, writes with update masks, preconditions and
+ * field transforms (server timestamps, arrayUnion/arrayRemove, increments), structured queries with field,
+ * composite and unary filters, ordering, offsets and limits, and snapshot listeners.
+ * Transactions are optimistic: a commit is aborted if a document it read changed since the read, and the client
+ * library retries it exactly like it retries a contended transaction against Firestore.
+ */
+public class InMemoryDocumentStore {
+
+    private static final String NAME_FIELD = "__name__";
+
+    private final Map<String, Document> documents = new TreeMap<>(DocumentValues::compareReferences);
+    private final Map<ByteString, TransactionReads> transactions = new HashMap<>();
+    private final List<ListenTarget> listenTargets = new ArrayList<>();
+    private long lastTimeNanos;
+
+    public synchronized void clear() {
+        documents.clear();
+        transactions.clear();
+    }
+
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    synchronized BeginTransactionResponse beginTransaction(BeginTransactionRequest request) {
+        return BeginTransactionResponse.newBuilder().setTransaction(newTransaction()).build();
+    }
+
+    synchronized void rollback(RollbackRequest request) {
+        transactions.remove(request.getTransaction());
+    }
+
+    synchronized CommitResponse commit(CommitRequest request) {
+        if (!request.getTransaction().isEmpty()) {
+            TransactionReads reads = transactions.remove(request.getTransaction());
+            if (reads == null) {
+                throw error(StatusCode.Code.INVALID_ARGUMENT, "The transaction has expired or was already committed");
+            }
+            if (!reads.isUnchanged(documents)) {
+                throw error(StatusCode.Code.ABORTED, "A document read by the transaction was changed by another write");
+            }
+        }
+
+        Timestamp commitTime = nextTimestamp();
+        Map<String, Document> staged = new LinkedHashMap<>();
+        Set<String> deleted = new LinkedHashSet<>();
+        CommitResponse.Builder response = CommitResponse.newBuilder().setCommitTime(commitTime);
+
+        for (Write write : request.getWritesList()) {
+            String name = documentName(write);
+            Document current = deleted.contains(name) ? null : staged.getOrDefault(name, documents.get(name));
+            checkPrecondition(write, name, current);
+
+            if (write.getOperationCase() == Write.OperationCase.DELETE) {
+                staged.remove(name);
+                deleted.add(name);
+                response.addWriteResults(WriteResult.newBuilder().setUpdateTime(commitTime));
+                continue;
+            }
+
+            Map<String, Value> fields = applyUpdate(write, current);
+            List<FieldTransform> transforms = write.hasTransform()
+                    ? write.getTransform().getFieldTransformsList()
+                    : write.getUpdateTransformsList();
+            WriteResult.Builder writeResult = WriteResult.newBuilder().setUpdateTime(commitTime);
+            for (FieldTransform transform : transforms) {
+                writeResult.addTransformResults(applyTransform(fields, transform, commitTime));
+            }
+
+            staged.put(name, Document.newBuilder()
+                    .setName(name)
+                    .putAllFields(fields)
+                    .setCreateTime(current != null ? current.getCreateTime() : commitTime)
+                    .setUpdateTime(commitTime)
+                    .build());
+            deleted.remove(name);
+            response.addWriteResults(writeResult);
+        }
+
+        deleted.forEach(documents::remove);
+        documents.putAll(staged);
+
+        Set<String> changed = new LinkedHashSet<>(deleted);
+        changed.addAll(staged.keySet());
+        notifyListeners(changed, commitTime);
+        return response.build();
+    }
+
+    synchronized List<BatchGetDocumentsResponse> batchGet(BatchGetDocumentsRequest request) {
+        ByteString newTransaction = request.hasNewTransaction() ? newTransaction() : ByteString.EMPTY;
+        TransactionReads reads = transactionReads(request.hasNewTransaction() ? newTransaction : request.getTransaction());
+        Timestamp readTime = currentTimestamp();
+
+        List<BatchGetDocumentsResponse> responses = new ArrayList<>();
+        for (String name : request.getDocumentsList()) {
+            Document document = documents.get(name);
+            if (reads != null) {
+                reads.record(name, document);
+            }
+
+            BatchGetDocumentsResponse.Builder response = BatchGetDocumentsResponse.newBuilder().setReadTime(readTime);
+            if (document == null) {
+                response.setMissing(name);
+            } else {
+                response.setFound(request.hasMask() ? project(document, request.getMask().getFieldPathsList()) : document);
+            }
+            if (responses.isEmpty() && !newTransaction.isEmpty()) {
+                response.setTransaction(newTransaction);
+            }
+            responses.add(response.build());
+        }
+        return responses;
+    }
+
+    synchronized List<RunQueryResponse> runQuery(RunQueryRequest request) {
+        ByteString newTransaction = request.hasNewTransaction() ? newTransaction() : ByteString.EMPTY;
+        TransactionReads reads = transactionReads(request.hasNewTransaction() ? newTransaction : request.getTransaction());
+        Timestamp readTime = currentTimestamp();
+        StructuredQuery query = request.getStructuredQuery();
+        if (query.hasStartAt() || query.hasEndAt()) {
+            throw error(StatusCode.Code.INVALID_ARGUMENT, "Query cursors are not supported by the in-memory Firestore");
+        }
+
+        List<Document> results = documents.values().stream()
+                .filter(matcher(request.getParent(), query))
+                .sorted(ordering(query))
+                .skip(query.getOffset())
+                .limit(query.hasLimit() ? query.getLimit().getValue() : Long.MAX_VALUE)
+                .toList();
+
+        List<RunQueryResponse> responses = new ArrayList<>();
+        for (Document document : results) {
+            if (reads != null) {
+                reads.record(document.getName(), document);
+            }
+            Document result = query.hasSelect()
+                    ? project(document, query.getSelect().getFieldsList().stream().map(StructuredQuery.FieldReference::getFieldPath).toList())
+                    : document;
+            responses.add(RunQueryResponse.newBuilder().setDocument(result).setReadTime(readTime).build());
+        }
+        if (responses.isEmpty()) {
+            responses.add(RunQueryResponse.newBuilder().setReadTime(readTime).build());
+        }
+        if (!newTransaction.isEmpty()) {
+            responses.set(0, responses.get(0).toBuilder().setTransaction(newTransaction).build());
+        }
+        return responses;
+    }
+
+    /**
+     * Registers a listener and returns the documents it currently matches, which are sent as its initial snapshot.
+     */
+    synchronized List<Document> addListenTarget(ListenTarget target) {
+        List<Document> matching = documents.values().stream().filter(target.matcher()).toList();
+        matching.forEach(document -> target.knownDocuments().add(document.getName()));
+        listenTargets.add(target);
+        return matching;
+    }
+
+    synchronized void removeListenTarget(ListenTarget target) {
+        listenTargets.remove(target);
+    }
+
+    synchronized Timestamp currentTimestamp() {
+        return toTimestamp(Math.max(lastTimeNanos, System.currentTimeMillis() * 1_000_000L));
+    }
+
+    Predicate<Document> matcher(String parent, StructuredQuery query) {
+        Predicate<Document> inCollection = document -> query.getFromList().stream()
+                .anyMatch(selector -> isInCollection(document.getName(), parent, selector));
+        if (!query.hasWhere()) {
+            return inCollection;
+        }
+        return inCollection.and(document -> matches(document, query.getWhere()));
+    }
+
+    private void notifyListeners(Set<String> changed, Timestamp commitTime) {
+        for (ListenTarget target : List.copyOf(listenTargets)) {
+            boolean notified = false;
+            for (String name : changed) {
+                Document document = documents.get(name);
+                if (document != null && target.matcher().test(document)) {
+                    target.knownDocuments().add(name);
+                    target.onChanged().accept(document);
+                    notified = true;
+                } else if (target.knownDocuments().remove(name)) {
+                    target.onRemoved().accept(name);
+                    notified = true;
+                }
+            }
+            if (notified) {
+                target.onSnapshot().accept(commitTime);
+            }
+        }
+    }
+
+    private static boolean isInCollection(String name, String parent, StructuredQuery.CollectionSelector selector) {
+        if (!name.startsWith(parent + "/")) {
+            return false;
+        }
+        String[] segments = name.substring(parent.length() + 1).split("/");
+        if (segments.length % 2 != 0 || !segments[segments.length - 2].equals(selector.getCollectionId())) {
+            return false;
+        }
+        return selector.getAllDescendants() || segments.length == 2;
+    }
+
+    private static boolean matches(Document document, StructuredQuery.Filter filter) {
+        return switch (filter.getFilterTypeCase()) {
+            case COMPOSITE_FILTER -> {
+                StructuredQuery.CompositeFilter composite = filter.getCompositeFilter();
+                yield composite.getOp() == StructuredQuery.CompositeFilter.Operator.OR
+                        ? composite.getFiltersList().stream().anyMatch(child -> matches(document, child))
+                        : composite.getFiltersList().stream().allMatch(child -> matches(document, child));
+            }
+            case FIELD_FILTER -> matches(document, filter.getFieldFilter());
+            case UNARY_FILTER -> matches(document, filter.getUnaryFilter());
+            default -> true;
+        };
+    }
+
+    private static boolean matches(Document document, StructuredQuery.FieldFilter filter) {
+        Value value = fieldValue(document, filter.getField().getFieldPath());
+        if (value == null) {
+            return false;
+        }
+
+        Value operand = filter.getValue();
+        return switch (filter.getOp()) {
+            case EQUAL -> DocumentValues.equal(value, operand);
+            case NOT_EQUAL -> !DocumentValues.equal(value, operand) && !value.hasNullValue();
+            case LESS_THAN -> sameType(value, operand) && DocumentValues.compare(value, operand) < 0;
+            case LESS_THAN_OR_EQUAL -> sameType(value, operand) && DocumentValues.compare(value, operand) <= 0;
+            case GREATER_THAN -> sameType(value, operand) && DocumentValues.compare(value, operand) > 0;
+            case GREATER_THAN_OR_EQUAL -> sameType(value, operand) && DocumentValues.compare(value, operand) >= 0;
+            case IN -> DocumentValues.contains(operand.getArrayValue().getValuesList(), value);
+            case NOT_IN -> !DocumentValues.contains(operand.getArrayValue().getValuesList(), value) && !value.hasNullValue();
+            case ARRAY_CONTAINS -> value.hasArrayValue() && DocumentValues.contains(value.getArrayValue().getValuesList(), operand);
+            case ARRAY_CONTAINS_ANY -> value.hasArrayValue() && operand.getArrayValue().getValuesList().stream()
+                    .anyMatch(candidate -> DocumentValues.contains(value.getArrayValue().getValuesList(), candidate));
+            default -> throw error(StatusCode.Code.INVALID_ARGUMENT, "Unsupported filter " + filter.getOp());
+        };
+    }
+
+    private static boolean matches(Document document, StructuredQuery.UnaryFilter filter) {
+        Value value = fieldValue(document, filter.getField().getFieldPath());
+        boolean isNan = value != null && value.hasDoubleValue() && Double.isNaN(value.getDoubleValue());
+        return switch (filter.getOp()) {
+            case IS_NULL -> value != null && value.hasNullValue();
+            case IS_NOT_NULL -> value != null && !value.hasNullValue();
+            case IS_NAN -> isNan;
+            case IS_NOT_NAN -> value != null && !isNan;
+            default -> true;
+        };
+    }
+
+    private static boolean sameType(Value value, Value operand) {
+        return value.getValueTypeCase() == operand.getValueTypeCase()
+                || (DocumentValues.isNumber(value) && DocumentValues.isNumber(operand));
+    }
+
+    private static Comparator<Document> ordering(StructuredQuery query) {
+        Comparator<Document> ordering = (left, right) -> 0;
+        for (StructuredQuery.Order order : query.getOrderByList()) {
+            String fieldPath = order.getField().getFieldPath();
+            Comparator<Document> byField = (left, right) -> {
+                Value leftValue = fieldValue(left, fieldPath);
+                Value rightValue = fieldValue(right, fieldPath);
+                if (leftValue == null || rightValue == null) {
+                    return Boolean.compare(leftValue != null, rightValue != null);
+                }
+                return DocumentValues.compare(leftValue, rightValue);
+            };
+            ordering = ordering.thenComparing(order.getDirection() == StructuredQuery.Direction.DESCENDING ? byField.reversed() : byField);
+        }
+        return ordering.thenComparing(Document::getName, DocumentValues::compareReferences);
+    }
+
+    private static Value fieldValue(Document document, String fieldPath) {
+        if (NAME_FIELD.equals(fieldPath)) {
+            return Value.newBuilder().setReferenceValue(document.getName()).build();
+        }
+        return DocumentValues.getField(document.getFieldsMap(), DocumentValues.parsePath(fieldPath));
+    }
+
+    private static Document project(Document document, List<String> fieldPaths) {
+        return document.toBuilder()
+                .clearFields()
+                .putAllFields(DocumentValues.project(document.getFieldsMap(), fieldPaths))
+                .build();
+    }
+
+    private static String documentName(Write write) {
+        return switch (write.getOperationCase()) {
+            case UPDATE -> write.getUpdate().getName();
+            case DELETE -> write.getDelete();
+            case TRANSFORM -> write.getTransform().getDocument();
+            default -> throw error(StatusCode.Code.INVALID_ARGUMENT, "Write has no operation");
+        };
+    }
+
+    private static void checkPrecondition(Write write, String name, Document current) {
+        if (!write.hasCurrentDocument()) {
+            return;
+        }
+
+        Precondition precondition = write.getCurrentDocument();
+        if (precondition.getConditionTypeCase() == Precondition.ConditionTypeCase.EXISTS) {
+            if (precondition.getExists() && current == null) {
+                throw error(StatusCode.Code.NOT_FOUND, "No document to update: " + name);
+            }
+            if (!precondition.getExists() && current != null) {
+                throw error(StatusCode.Code.ALREADY_EXISTS, "Document already exists: " + name);
+            }
+        } else if (precondition.getConditionTypeCase() == Precondition.ConditionTypeCase.UPDATE_TIME
+                && (current == null || !current.getUpdateTime().equals(precondition.getUpdateTime()))) {
+            throw error(StatusCode.Code.FAILED_PRECONDITION, "Document was updated after " + precondition.getUpdateTime() + ": " + name);
+        }
+    }
+
+    private static Map<String, Value> applyUpdate(Write write, Document current) {
+        if (write.getOperationCase() != Write.OperationCase.UPDATE) {
+            return current != null ? new LinkedHashMap<>(current.getFieldsMap()) : new LinkedHashMap<>();
+        }
+
+        Map<String, Value> requested = write.getUpdate().getFieldsMap();
+        if (!write.hasUpdateMask()) {
+            return new LinkedHashMap<>(requested);
+        }
+
+        // With an update mask, listed paths missing from the request are deletes and everything else is kept
+        Map<String, Value> fields = current != null ? new LinkedHashMap<>(current.getFieldsMap()) : new LinkedHashMap<>();
+        for (String fieldPath : write.getUpdateMask().getFieldPathsList()) {
+            List<String> path = DocumentValues.parsePath(fieldPath);
+            Value value = DocumentValues.getField(requested, path);
+            if (value != null) {
+                DocumentValues.setField(fields, path, value);
+            } else {
+                DocumentValues.deleteField(fields, path);
+            }
+        }
+        return fields;
+    }
+
+    private static Value applyTransform(Map<String, Value> fields, FieldTransform transform, Timestamp commitTime) {
+        List<String> path = DocumentValues.parsePath(transform.getFieldPath());
+        Value current = DocumentValues.getField(fields, path);
+
+        Value result = switch (transform.getTransformTypeCase()) {
+            case SET_TO_SERVER_VALUE -> DocumentValues.timestampValue(commitTime);
+            case APPEND_MISSING_ELEMENTS -> {
+                List<Value> values = current != null && current.hasArrayValue()
+                        ? new ArrayList<>(current.getArrayValue().getValuesList())
+                        : new ArrayList<>();
+                for (Value element : transform.getAppendMissingElements().getValuesList()) {
+                    if (!DocumentValues.contains(values, element)) {
+                        values.add(element);
+                    }
+                }
+                yield DocumentValues.arrayValue(values);
+            }
+            case REMOVE_ALL_FROM_ARRAY -> {
+                List<Value> removals = transform.getRemoveAllFromArray().getValuesList();
+                List<Value> values = current != null && current.hasArrayValue()
+                        ? current.getArrayValue().getValuesList().stream()
+                                .filter(element -> !DocumentValues.contains(removals, element))
+                                .toList()
+                        : List.of();
+                yield DocumentValues.arrayValue(values);
+            }
+            case INCREMENT -> numeric(current, transform.getIncrement(), Long::sum, Double::sum);
+            case MAXIMUM -> numeric(current, transform.getMaximum(), Math::max, Math::max);
+            case MINIMUM -> numeric(current, transform.getMinimum(), Math::min, Math::min);
+            default -> throw error(StatusCode.Code.INVALID_ARGUMENT, "Unsupported transform " + transform.getTransformTypeCase());
+        };
+
+        DocumentValues.setField(fields, path, result);
+        return result;
+    }
+
+    private interface LongOperator { long apply(long left, long right); }
+    private interface DoubleOperator { double apply(double left, double right); }
+
+    private static Value numeric(Value current, Value operand, LongOperator longs, DoubleOperator doubles) {
+        if (!DocumentValues.isNumber(current)) {
+            return operand;
+        }
+        if (current.hasIntegerValue() && operand.hasIntegerValue()) {
+            return Value.newBuilder().setIntegerValue(longs.apply(current.getIntegerValue(), operand.getIntegerValue())).build();
+        }
+        return Value.newBuilder().setDoubleValue(doubles.apply(DocumentValues.toDouble(current), DocumentValues.toDouble(operand))).build();
+    }
+
+    private ByteString newTransaction() {
+        ByteString id = ByteString.copyFromUtf8(UUID.randomUUID().toString());
+        transactions.put(id, new TransactionReads());
+        return id;
+    }
+
+    private TransactionReads transactionReads(ByteString transaction) {
+        if (transaction.isEmpty()) {
+            return null;
+        }
+        TransactionReads reads = transactions.get(transaction);
+        if (reads == null) {
+            throw error(StatusCode.Code.INVALID_ARGUMENT, "The transaction has expired or was already committed");
+        }
+        return reads;
+    }
+
+    private Timestamp nextTimestamp() {
+        lastTimeNanos = Math.max(lastTimeNanos + 1, System.currentTimeMillis() * 1_000_000L);
+        return toTimestamp(lastTimeNanos);
+    }
+
+    private static Timestamp toTimestamp(long nanos) {
+        return Timestamp.newBuilder()
+                .setSeconds(nanos / 1_000_000_000L)
+                .setNanos((int) (nanos % 1_000_000_000L))
+                .build();
+    }
+
+    private static ApiException error(StatusCode.Code code, String message) {
+        StatusCode statusCode = new StatusCode() {
+            @Override
+            public Code getCode() {
+                return code;
+            }
+
+            @Override
+            public Object getTransportCode() {
+                return code;
+            }
+        };
+        return switch (code) {
+            case ABORTED -> new AbortedException(message, null, statusCode, true);
+            case NOT_FOUND -> new NotFoundException(message, null, statusCode, false);
+            case ALREADY_EXISTS -> new AlreadyExistsException(message, null, statusCode, false);
+            case FAILED_PRECONDITION -> new FailedPreconditionException(message, null, statusCode, false);
+            default -> new InvalidArgumentException(message, null, statusCode, false);
+        };
+    }
+
+    /**
+     * The version of every document a transaction has read, or null for documents that did not exist.
+     */
+    private static class TransactionReads {
+        private final Map<String, Timestamp> readVersions = new HashMap<>();
+
+        void record(String name, Document document) {
+            readVersions.putIfAbsent(name, document != null ? document.getUpdateTime() : null);
+        }
+
+        boolean isUnchanged(Map<String, Document> documents) {
+            return readVersions.entrySet().stream().allMatch(read -> {
+                Document current = documents.get(read.getKey());
+                return current == null
+                        ? read.getValue() == null
+                        : current.getUpdateTime().equals(read.getValue());
+            });
+        }
+    }
+
+    /**
+     * A snapshot listener's target. Callbacks run while the store is locked, in commit order.
+     */
+    record ListenTarget(
+            Predicate<Document> matcher,
+            Set<String> knownDocuments,
+            Consumer<Document> onChanged,
+            Consumer<String> onRemoved,
+            Consumer<Timestamp> onSnapshot
+    ) { }
+}
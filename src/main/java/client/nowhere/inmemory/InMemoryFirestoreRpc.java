@@ -0,0 +1,288 @@
+package client.nowhere.inmemory;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.BidiStreamingCallable;
+import com.google.api.gax.rpc.ClientStream;
+import com.google.api.gax.rpc.ClientStreamReadyObserver;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.api.gax.rpc.ServerStreamingCallable;
+import com.google.api.gax.rpc.StreamController;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.cloud.firestore.spi.v1.FirestoreRpc;
+import com.google.firestore.v1.Document;
+import com.google.firestore.v1.DocumentChange;
+import com.google.firestore.v1.DocumentDelete;
+import com.google.firestore.v1.ListenRequest;
+import com.google.firestore.v1.ListenResponse;
+import com.google.firestore.v1.RollbackRequest;
+import com.google.firestore.v1.Target;
+import com.google.firestore.v1.TargetChange;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Empty;
+import com.google.protobuf.Timestamp;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Serves the Firestore client library's RPCs from an {@link InMemoryDocumentStore}, adding a fixed latency to every call.
+ * The RPC interface grows with every client release, so it is implemented as a dynamic proxy: the calls the DAOs
+ * make are answered by the store and anything else fails with an UnsupportedOperationException.
+ */
+public class InMemoryFirestoreRpc implements InvocationHandler {
+
+    private final InMemoryDocumentStore store;
+    private final long latencyMillis;
+    private final ScheduledExecutorService executor;
+
+    private InMemoryFirestoreRpc(InMemoryDocumentStore store, long latencyMillis) {
+        this.store = store;
+        this.latencyMillis = latencyMillis;
+        this.executor = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param store The backing store, shared by every client created for it
+     * @param latencyMillis Delay added to every request, to approximate the round trip to Firestore
+     */
+    public static FirestoreRpc create(InMemoryDocumentStore store, long latencyMillis) {
+        return (FirestoreRpc) Proxy.newProxyInstance(
+                FirestoreRpc.class.getClassLoader(),
+                new Class<?>[] { FirestoreRpc.class },
+                new InMemoryFirestoreRpc(store, latencyMillis)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "commitCallable" -> unary(store::commit);
+            case "beginTransactionCallable" -> unary(store::beginTransaction);
+            case "rollbackCallable" -> unary((RollbackRequest request) -> {
+                store.rollback(request);
+                return Empty.getDefaultInstance();
+            });
+            case "batchGetDocumentsCallable" -> serverStreaming(store::batchGet);
+            case "runQueryCallable" -> serverStreaming(store::runQuery);
+            case "listenCallable" -> new ListenCallable();
+            case "getExecutor" -> executor;
+            case "close", "shutdown", "shutdownNow" -> {
+                executor.shutdown();
+                yield null;
+            }
+            case "isShutdown", "isTerminated" -> executor.isShutdown();
+            case "awaitTermination" -> true;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "InMemoryFirestoreRpc";
+            default -> throw new UnsupportedOperationException(method.getName() + " is not supported by the in-memory Firestore");
+        };
+    }
+
+    private <RequestT, ResponseT> UnaryCallable<RequestT, ResponseT> unary(Function<RequestT, ResponseT> handler) {
+        return new UnaryCallable<>() {
+            @Override
+            public ApiFuture<ResponseT> futureCall(RequestT request, ApiCallContext context) {
+                SettableApiFuture<ResponseT> future = SettableApiFuture.create();
+                afterLatency(() -> {
+                    try {
+                        future.set(handler.apply(request));
+                    } catch (RuntimeException e) {
+                        future.setException(e);
+                    }
+                });
+                return future;
+            }
+        };
+    }
+
+    private <RequestT, ResponseT> ServerStreamingCallable<RequestT, ResponseT> serverStreaming(Function<RequestT, List<ResponseT>> handler) {
+        return new ServerStreamingCallable<>() {
+            @Override
+            public void call(RequestT request, ResponseObserver<ResponseT> responseObserver, ApiCallContext context) {
+                afterLatency(() -> {
+                    responseObserver.onStart(new NoOpStreamController());
+                    List<ResponseT> responses;
+                    try {
+                        responses = handler.apply(request);
+                    } catch (RuntimeException e) {
+                        responseObserver.onError(e);
+                        return;
+                    }
+                    responses.forEach(responseObserver::onResponse);
+                    responseObserver.onComplete();
+                });
+            }
+        };
+    }
+
+    private void afterLatency(Runnable call) {
+        if (latencyMillis <= 0) {
+            executor.execute(call);
+        } else {
+            executor.schedule(call, latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Answers the snapshot listener stream. Each added target gets its current documents, a CURRENT marker and a
+     * snapshot marker, then a change and a snapshot marker after every commit that touches a matching document.
+     */
+    private class ListenCallable extends BidiStreamingCallable<ListenRequest, ListenResponse> {
+
+        @Override
+        public ClientStream<ListenRequest> internalCall(
+                ResponseObserver<ListenResponse> responseObserver,
+                ClientStreamReadyObserver<ListenRequest> onReady,
+                ApiCallContext context
+        ) {
+            ListenStream stream = new ListenStream(responseObserver);
+            responseObserver.onStart(stream);
+            if (onReady != null) {
+                onReady.onReady(stream);
+            }
+            return stream;
+        }
+    }
+
+    private class ListenStream implements ClientStream<ListenRequest>, StreamController {
+        private final ResponseObserver<ListenResponse> responseObserver;
+        private final Set<InMemoryDocumentStore.ListenTarget> targets = new HashSet<>();
+        private boolean closed;
+
+        ListenStream(ResponseObserver<ListenResponse> responseObserver) {
+            this.responseObserver = responseObserver;
+        }
+
+        @Override
+        public synchronized void send(ListenRequest request) {
+            if (closed || !request.hasAddTarget()) {
+                return;
+            }
+
+            Target target = request.getAddTarget();
+            int targetId = target.getTargetId();
+            InMemoryDocumentStore.ListenTarget listenTarget = new InMemoryDocumentStore.ListenTarget(
+                    matcher(target),
+                    new HashSet<>(),
+                    document -> respond(ListenResponse.newBuilder()
+                            .setDocumentChange(DocumentChange.newBuilder().setDocument(document).addTargetIds(targetId))
+                            .build()),
+                    name -> respond(ListenResponse.newBuilder()
+                            .setDocumentDelete(DocumentDelete.newBuilder().setDocument(name).addRemovedTargetIds(targetId))
+                            .build()),
+                    this::respondSnapshot
+            );
+
+            afterLatency(() -> {
+                synchronized (ListenStream.this) {
+                    if (closed) {
+                        return;
+                    }
+                    respond(targetChange(TargetChange.TargetChangeType.ADD, targetId));
+                    // The store lock keeps commits from interleaving with the initial snapshot
+                    synchronized (store) {
+                        List<Document> initial = store.addListenTarget(listenTarget);
+                        targets.add(listenTarget);
+                        initial.forEach(listenTarget.onChanged());
+                        respond(targetChange(TargetChange.TargetChangeType.CURRENT, targetId));
+                        respondSnapshot(store.currentTimestamp());
+                    }
+                }
+            });
+        }
+
+        private Predicate<Document> matcher(Target target) {
+            if (target.hasDocuments()) {
+                Set<String> names = new HashSet<>(target.getDocuments().getDocumentsList());
+                return document -> names.contains(document.getName());
+            }
+            return store.matcher(target.getQuery().getParent(), target.getQuery().getStructuredQuery());
+        }
+
+        private void respondSnapshot(Timestamp readTime) {
+            respond(ListenResponse.newBuilder()
+                    .setTargetChange(TargetChange.newBuilder()
+                            .setTargetChangeType(TargetChange.TargetChangeType.NO_CHANGE)
+                            .setResumeToken(ByteString.copyFromUtf8(readTime.getSeconds() + "." + readTime.getNanos()))
+                            .setReadTime(readTime))
+                    .build());
+        }
+
+        private ListenResponse targetChange(TargetChange.TargetChangeType type, int targetId) {
+            return ListenResponse.newBuilder()
+                    .setTargetChange(TargetChange.newBuilder().setTargetChangeType(type).addTargetIds(targetId))
+                    .build();
+        }
+
+        private void respond(ListenResponse response) {
+            if (!closed) {
+                responseObserver.onResponse(response);
+            }
+        }
+
+        @Override
+        public void closeSendWithError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void closeSend() {
+            close();
+        }
+
+        @Override
+        public boolean isSendReady() {
+            return !closed;
+        }
+
+        @Override
+        public void cancel() {
+            close();
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            targets.forEach(store::removeListenTarget);
+            responseObserver.onComplete();
+        }
+    }
+
+    private static class NoOpStreamController implements StreamController {
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package client.nowhere.metrics;
+
+import client.nowhere.dao.GameSessionSnapshot;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The endpoint and DAO method on whose behalf this thread is calling Firestore, set by {@link DaoMetricsAspect}
+ * and read by {@link MeteredFirestoreRpc} to tag what the calls cost.
+ * @param endpoint The method and route of the request, e.g. {@code PUT /game}, or {@link #NONE} outside a request
+ * @param dao The DAO method, e.g. {@code StoryDAO.createStories}, or {@link #NONE} for calls made outside a DAO
+ */
+public record DaoCall(String endpoint, String dao) {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<DaoCall> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return The DAO call running on this thread, or one naming only the request's endpoint if there is none
+     */
+    public static DaoCall current() {
+        DaoCall call = CURRENT.get();
+        return call != null ? call : new DaoCall(currentEndpoint(), NONE);
+    }
+
+    /**
+     * Marks the start of a DAO call on this thread.
+     * @return The call it is nested in, to hand back to {@link #exit(DaoCall)}
+     */
+    static DaoCall enter(String dao) {
+        DaoCall outer = CURRENT.get();
+        CURRENT.set(new DaoCall(currentEndpoint(), dao));
+        return outer;
+    }
+
+    static void exit(DaoCall outer) {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+
+    /**
+     * Wraps work handed to another thread so its Firestore calls are tagged with the DAO call running on this one.
+     */
+    static Runnable propagate(Runnable work) {
+        DaoCall call = CURRENT.get();
+        if (call == null) {
+            return work;
+        }
+        return () -> {
+            DaoCall outer = CURRENT.get();
+            CURRENT.set(call);
+            try {
+                work.run();
+            } finally {
+                exit(outer);
+            }
+        };
+    }
+
+    static <T> Callable<T> propagate(Callable<T> work) {
+        DaoCall call = CURRENT.get();
+        if (call == null) {
+            return work;
+        }
+        return () -> {
+            DaoCall outer = CURRENT.get();
+            CURRENT.set(call);
+            try {
+                return work.call();
+            } finally {
+                exit(outer);
+            }
+        };
+    }
+
+    private static String currentEndpoint() {
+        GameSessionSnapshot snapshot = GameSessionSnapshot.current();
+        String endpoint = snapshot == null ? null : snapshot.getEndpoint();
+        return endpoint == null ? NONE : endpoint;
+    }
+}
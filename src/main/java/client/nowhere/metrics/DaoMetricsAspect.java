@@ -0,0 +1,52 @@
+package client.nowhere.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public DAO method, tagged with the endpoint that called it, and names the method to
+ * {@link MeteredFirestoreRpc} so the reads and writes it causes are tagged with it too.
+ * Published as {@code nowhere.dao.calls} on the actuator metrics endpoint.
+ */
+@Aspect
+@Component
+public class DaoMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public DaoMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * client.nowhere.dao.*DAO.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String dao = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        DaoCall outer = DaoCall.enter(dao);
+        String endpoint = DaoCall.current().endpoint();
+        String outcome = "success";
+        long startedAt = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            DaoCall.exit(outer);
+            Timer.builder("nowhere.dao.calls")
+                    .description("Time spent in DAO methods")
+                    .tag("dao", dao)
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
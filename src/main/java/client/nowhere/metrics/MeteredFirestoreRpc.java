@@ -0,0 +1,380 @@
+package client.nowhere.metrics;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.ResponseObserver;
+import com.google.api.gax.rpc.ServerStreamingCallable;
+import com.google.api.gax.rpc.StreamController;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.cloud.firestore.spi.v1.FirestoreRpc;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.firestore.v1.BatchGetDocumentsRequest;
+import com.google.firestore.v1.BatchGetDocumentsResponse;
+import com.google.firestore.v1.BeginTransactionRequest;
+import com.google.firestore.v1.BeginTransactionResponse;
+import com.google.firestore.v1.CommitRequest;
+import com.google.firestore.v1.CommitResponse;
+import com.google.firestore.v1.RollbackRequest;
+import com.google.firestore.v1.RunQueryRequest;
+import com.google.firestore.v1.RunQueryResponse;
+import com.google.firestore.v1.TransactionOptions;
+import com.google.firestore.v1.Write;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Empty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Wraps the Firestore client library's RPCs to record what each endpoint and DAO method costs:
+ * <ul>
+ *     <li>{@code nowhere.firestore.documents}: documents read, written and deleted, by collection</li>
+ *     <li>{@code nowhere.firestore.document.size}: the size of each document read or written</li>
+ *     <li>{@code nowhere.firestore.transactions}: transactions begun, first attempts and retries apart</li>
+ *     <li>{@code nowhere.firestore.rpc}: the latency of every commit, read, query, begin and rollback</li>
+ * </ul>
+ * Reads are counted the way Firestore bills them: one per document returned or found missing, and one for a query
+ * that returns nothing. Writes are counted once their commit succeeds.
+ * The calls of a transaction may run on the client library's threads, so the DAO call that began a transaction is
+ * remembered by the transaction's id and used for every later call that carries it.
+ * Like {@link client.nowhere.inmemory.InMemoryFirestoreRpc} this is a dynamic proxy; RPCs it does not meter are
+ * passed to the wrapped one unchanged.
+ */
+public class MeteredFirestoreRpc implements InvocationHandler {
+
+    private final FirestoreRpc delegate;
+    private final MeterRegistry meterRegistry;
+    private final Map<ByteString, DaoCall> transactions = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService executor;
+
+    private MeteredFirestoreRpc(FirestoreRpc delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param delegate The RPCs that reach Firestore, or the in-memory store
+     * @param meterRegistry Where the meters are published, typically the actuator's registry
+     */
+    public static FirestoreRpc wrap(FirestoreRpc delegate, MeterRegistry meterRegistry) {
+        return (FirestoreRpc) Proxy.newProxyInstance(
+                FirestoreRpc.class.getClassLoader(),
+                new Class<?>[] { FirestoreRpc.class },
+                new MeteredFirestoreRpc(delegate, meterRegistry)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        return switch (method.getName()) {
+            case "commitCallable" -> commit(delegate.commitCallable());
+            case "beginTransactionCallable" -> beginTransaction(delegate.beginTransactionCallable());
+            case "rollbackCallable" -> rollback(delegate.rollbackCallable());
+            case "batchGetDocumentsCallable" -> batchGet(delegate.batchGetDocumentsCallable());
+            case "runQueryCallable" -> runQuery(delegate.runQueryCallable());
+            case "getExecutor" -> getExecutor();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "MeteredFirestoreRpc(" + delegate + ")";
+            default -> forward(delegate, method, args);
+        };
+    }
+
+    private UnaryCallable<CommitRequest, CommitResponse> commit(UnaryCallable<CommitRequest, CommitResponse> callable) {
+        return unary("commit", callable, request -> transactionCall(request.getTransaction()), (request, response, call) -> {
+            transactions.remove(request.getTransaction());
+            for (Write write : request.getWritesList()) {
+                switch (write.getOperationCase()) {
+                    case UPDATE -> {
+                        String collection = collection(write.getUpdate().getName());
+                        documents("write", collection, call);
+                        size("write", collection, write.getUpdate().getSerializedSize());
+                    }
+                    case DELETE -> documents("delete", collection(write.getDelete()), call);
+                    case TRANSFORM -> documents("write", collection(write.getTransform().getDocument()), call);
+                    default -> { }
+                }
+            }
+        });
+    }
+
+    private UnaryCallable<BeginTransactionRequest, BeginTransactionResponse> beginTransaction(UnaryCallable<BeginTransactionRequest, BeginTransactionResponse> callable) {
+        return unary("beginTransaction", callable, request -> began(request.getOptions()), (request, response, call) ->
+                transactions.put(response.getTransaction(), call));
+    }
+
+    private UnaryCallable<RollbackRequest, Empty> rollback(UnaryCallable<RollbackRequest, Empty> callable) {
+        return unary("rollback", callable, request -> transactionCall(request.getTransaction()), (request, response, call) ->
+                transactions.remove(request.getTransaction()));
+    }
+
+    private ServerStreamingCallable<BatchGetDocumentsRequest, BatchGetDocumentsResponse> batchGet(ServerStreamingCallable<BatchGetDocumentsRequest, BatchGetDocumentsResponse> callable) {
+        return serverStreaming("batchGetDocuments", callable,
+                request -> request.hasNewTransaction() ? began(request.getNewTransaction()) : transactionCall(request.getTransaction()),
+                (response, call) -> {
+                    began(response.getTransaction(), call);
+                    if (response.hasFound()) {
+                        String collection = collection(response.getFound().getName());
+                        documents("read", collection, call);
+                        size("read", collection, response.getFound().getSerializedSize());
+                        return 1;
+                    }
+                    if (!response.getMissing().isEmpty()) {
+                        documents("read", collection(response.getMissing()), call);
+                        return 1;
+                    }
+                    return 0;
+                },
+                (request, call) -> { });
+    }
+
+    private ServerStreamingCallable<RunQueryRequest, RunQueryResponse> runQuery(ServerStreamingCallable<RunQueryRequest, RunQueryResponse> callable) {
+        return serverStreaming("runQuery", callable,
+                request -> request.hasNewTransaction() ? began(request.getNewTransaction()) : transactionCall(request.getTransaction()),
+                (response, call) -> {
+                    began(response.getTransaction(), call);
+                    if (!response.hasDocument()) {
+                        return 0;
+                    }
+                    String collection = collection(response.getDocument().getName());
+                    documents("read", collection, call);
+                    size("read", collection, response.getDocument().getSerializedSize());
+                    return 1;
+                },
+                (request, call) -> {
+                    // Firestore bills one read for a query that matches nothing
+                    String collection = request.getStructuredQuery().getFromCount() > 0
+                            ? request.getStructuredQuery().getFrom(0).getCollectionId()
+                            : DaoCall.NONE;
+                    documents("read", collection, call);
+                });
+    }
+
+    /**
+     * The client library runs transaction callbacks on this executor, so work submitted to it keeps the DAO call
+     * of the thread that submitted it.
+     */
+    private ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            ScheduledExecutorService wrapped = delegate.getExecutor();
+            executor = (ScheduledExecutorService) Proxy.newProxyInstance(
+                    ScheduledExecutorService.class.getClassLoader(),
+                    new Class<?>[] { ScheduledExecutorService.class },
+                    (proxy, method, args) -> {
+                        if (args != null && args.length > 0) {
+                            if (args[0] instanceof Runnable work) {
+                                args[0] = DaoCall.propagate(work);
+                            } else if (args[0] instanceof Callable<?> work) {
+                                args[0] = DaoCall.propagate(work);
+                            }
+                        }
+                        return forward(wrapped, method, args);
+                    }
+            );
+        }
+        return executor;
+    }
+
+    private <RequestT, ResponseT> UnaryCallable<RequestT, ResponseT> unary(
+            String operation,
+            UnaryCallable<RequestT, ResponseT> callable,
+            Function<RequestT, DaoCall> attribution,
+            UnaryMeter<RequestT, ResponseT> meter
+    ) {
+        return new UnaryCallable<>() {
+            @Override
+            public ApiFuture<ResponseT> futureCall(RequestT request, ApiCallContext context) {
+                DaoCall call = attribution.apply(request);
+                long startedAt = System.nanoTime();
+                // Completed only once the call is recorded, so a caller that has its result sees it in the meters
+                SettableApiFuture<ResponseT> metered = SettableApiFuture.create();
+                ApiFutures.addCallback(callable.futureCall(request, context), new ApiFutureCallback<>() {
+                    @Override
+                    public void onSuccess(ResponseT response) {
+                        try {
+                            meter.record(request, response, call);
+                            time(operation, call, startedAt, "success");
+                        } finally {
+                            metered.set(response);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable failure) {
+                        try {
+                            time(operation, call, startedAt, "error");
+                        } finally {
+                            metered.setException(failure);
+                        }
+                    }
+                }, MoreExecutors.directExecutor());
+                return metered;
+            }
+        };
+    }
+
+    private <RequestT, ResponseT> ServerStreamingCallable<RequestT, ResponseT> serverStreaming(
+            String operation,
+            ServerStreamingCallable<RequestT, ResponseT> callable,
+            Function<RequestT, DaoCall> attribution,
+            StreamMeter<ResponseT> meter,
+            EmptyStreamMeter<RequestT> emptyMeter
+    ) {
+        return new ServerStreamingCallable<>() {
+            @Override
+            public void call(RequestT request, ResponseObserver<ResponseT> responseObserver, ApiCallContext context) {
+                DaoCall call = attribution.apply(request);
+                long startedAt = System.nanoTime();
+                callable.call(request, new ResponseObserver<>() {
+                    // A stream's callbacks never overlap
+                    private int documents;
+
+                    @Override
+                    public void onStart(StreamController controller) {
+                        responseObserver.onStart(controller);
+                    }
+
+                    @Override
+                    public void onResponse(ResponseT response) {
+                        documents += meter.record(response, call);
+                        responseObserver.onResponse(response);
+                    }
+
+                    @Override
+                    public void onError(Throwable failure) {
+                        try {
+                            time(operation, call, startedAt, "error");
+                        } finally {
+                            responseObserver.onError(failure);
+                        }
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        try {
+                            if (documents == 0) {
+                                emptyMeter.record(request, call);
+                            }
+                            time(operation, call, startedAt, "success");
+                        } finally {
+                            responseObserver.onComplete();
+                        }
+                    }
+                }, context);
+            }
+        };
+    }
+
+    /**
+     * Counts a transaction beginning and finds the DAO call it belongs to; a retry belongs to the call that began
+     * the transaction it replaces.
+     */
+    private DaoCall began(TransactionOptions options) {
+        ByteString retried = options.getReadWrite().getRetryTransaction();
+        DaoCall call = retried.isEmpty() ? null : transactions.remove(retried);
+        if (call == null) {
+            call = DaoCall.current();
+        }
+        Counter.builder("nowhere.firestore.transactions")
+                .description("Firestore transactions begun")
+                .tag("attempt", retried.isEmpty() ? "first" : "retry")
+                .tag("endpoint", call.endpoint())
+                .tag("dao", call.dao())
+                .register(meterRegistry)
+                .increment();
+        return call;
+    }
+
+    /**
+     * Remembers a transaction begun by a read, which returns the new transaction's id with its first response.
+     */
+    private void began(ByteString transaction, DaoCall call) {
+        if (!transaction.isEmpty()) {
+            transactions.put(transaction, call);
+        }
+    }
+
+    private DaoCall transactionCall(ByteString transaction) {
+        DaoCall call = transaction.isEmpty() ? null : transactions.get(transaction);
+        return call != null ? call : DaoCall.current();
+    }
+
+    private void documents(String operation, String collection, DaoCall call) {
+        Counter.builder("nowhere.firestore.documents")
+                .description("Documents read, written or deleted")
+                .tag("operation", operation)
+                .tag("collection", collection)
+                .tag("endpoint", call.endpoint())
+                .tag("dao", call.dao())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void size(String operation, String collection, int bytes) {
+        DistributionSummary.builder("nowhere.firestore.document.size")
+                .description("Size of the documents read or written")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("collection", collection)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private void time(String operation, DaoCall call, long startedAt, String outcome) {
+        Timer.builder("nowhere.firestore.rpc")
+                .description("Latency of Firestore calls")
+                .tag("operation", operation)
+                .tag("endpoint", call.endpoint())
+                .tag("dao", call.dao())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param documentName A full document name, e.g. {@code projects/p/databases/(default)/documents/gameSessions/ABC123/stories/s1}
+     * @return The id of the collection holding the document, e.g. {@code stories}
+     */
+    static String collection(String documentName) {
+        String[] segments = documentName.split("/");
+        return segments.length >= 2 ? segments[segments.length - 2] : DaoCall.NONE;
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface UnaryMeter<RequestT, ResponseT> {
+        void record(RequestT request, ResponseT response, DaoCall call);
+    }
+
+    private interface StreamMeter<ResponseT> {
+        /**
+         * @return The number of documents the response read
+         */
+        int record(ResponseT response, DaoCall call);
+    }
+
+    private interface EmptyStreamMeter<RequestT> {
+        void record(RequestT request, DaoCall call);
+    }
+}
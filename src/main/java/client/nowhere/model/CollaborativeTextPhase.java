@@ -1,5 +1,8 @@
 package client.nowhere.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.cloud.firestore.annotation.Exclude;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -18,6 +21,8 @@ public class CollaborativeTextPhase {
     private String finalResult; // The winning text that goes to GameSessionDisplay
     private Map<String, List<String>> submissionViews; // submissionId -> List of playerIds who viewed it // Key: playerId_submissionId
     private boolean isComplete;
+    private VoteTally voteTally; // Built on first use from playerVotes, then kept current by addPlayerVote
+    private SubmissionIndex submissionIndex; // Built on first use from submissions, then kept current by addSubmission
 
     public CollaborativeTextPhase() {
         this.submissions = new ArrayList<>();
@@ -45,11 +50,39 @@ public class CollaborativeTextPhase {
     public PhaseType getPhaseType() { return phaseType; }
     public void setPhaseType(PhaseType phaseType) { this.phaseType = phaseType; }
 
+    // Submissions and votes are stored in the game session's sub-collections, see GameSessionStore
+    @Exclude
     public List<TextSubmission> getSubmissions() { return submissions; }
-    public void setSubmissions(List<TextSubmission> submissions) { this.submissions = submissions; }
+    @Exclude
+    public void setSubmissions(List<TextSubmission> submissions) {
+        this.submissions = submissions;
+        this.submissionIndex = null;
+    }
+
+    private SubmissionIndex getSubmissionIndex() {
+        // Submissions appended straight to the list, e.g. while loading, are picked up by a rebuild
+        if (submissionIndex == null || !submissionIndex.isCurrentFor(submissions)) {
+            submissionIndex = SubmissionIndex.of(submissions);
+        }
+        return submissionIndex;
+    }
 
+    @Exclude
     public Map<String, List<PlayerVote>> getPlayerVotes() { return playerVotes; }
-    public void setPlayerVotes(Map<String, List<PlayerVote>> playerVotes) { this.playerVotes = playerVotes; }
+    @Exclude
+    public void setPlayerVotes(Map<String, List<PlayerVote>> playerVotes) {
+        this.playerVotes = playerVotes;
+        this.voteTally = null;
+    }
+
+    @Exclude
+    @JsonIgnore
+    public VoteTally getVoteTally() {
+        if (voteTally == null) {
+            voteTally = VoteTally.of(playerVotes);
+        }
+        return voteTally;
+    }
 
     public List<String> getPlayersWhoSubmitted() { return playersWhoSubmitted; }
     public void setPlayersWhoSubmitted(List<String> playersWhoSubmitted) { this.playersWhoSubmitted = playersWhoSubmitted; }
@@ -68,7 +101,11 @@ public class CollaborativeTextPhase {
 
     // Helper methods
     public void addSubmission(TextSubmission submission) {
+        boolean indexed = submissionIndex != null && submissionIndex.isCurrentFor(submissions);
         this.submissions.add(submission);
+        if (indexed) {
+            submissionIndex.add(submission);
+        }
         if (!this.playersWhoSubmitted.contains(submission.getAuthorId())) {
             this.playersWhoSubmitted.add(submission.getAuthorId());
         }
@@ -84,12 +121,16 @@ public class CollaborativeTextPhase {
         // Also remove from submissionViews if present
         if (removed) {
             this.submissionViews.remove(submissionId);
+            this.submissionIndex = null;
         }
         return removed;
     }
 
     public void addPlayerVote(PlayerVote vote) {
         this.playerVotes.computeIfAbsent(vote.getPlayerId(), k -> new ArrayList<>()).add(vote);
+        if (this.voteTally != null) {
+            this.voteTally.add(vote);
+        }
         if (!this.playersWhoVoted.contains(vote.getPlayerId())) {
             this.playersWhoVoted.add(vote.getPlayerId());
         }
@@ -101,10 +142,7 @@ public class CollaborativeTextPhase {
     }
 
     public TextSubmission getSubmissionById(String submissionId) {
-        return submissions.stream()
-                .filter(s -> s.getSubmissionId().equals(submissionId))
-                .findFirst()
-                .orElse(null);
+        return getSubmissionIndex().get(submissionId);
     }
 
 
@@ -115,50 +153,80 @@ public class CollaborativeTextPhase {
      * @return List of submissions available to the player
      */
     public List<TextSubmission> getAvailableSubmissionsForPlayer(String playerId, List<String> excludeOutcomeTypeIds) {
-        // Build set of submission IDs the player was last to contribute to.
         // A submission X is in this set if another submission exists whose last addition
         // was by this player and references X as its parent.
-        Set<String> lastContributedTo = submissions.stream()
-                .filter(s -> {
-                    List<TextAddition> additions = s.getAdditions();
-                    if (additions == null || additions.isEmpty()) return false;
-                    TextAddition last = additions.getLast();
-                    return playerId.equals(last.getAuthorId())
-                            && last.getSubmissionId() != null
-                            && !last.getSubmissionId().isEmpty();
-                })
-                .map(s -> s.getAdditions().getLast().getSubmissionId())
-                .collect(java.util.stream.Collectors.toSet());
+        Set<String> lastContributedTo = getSubmissionIndex().lastContributedTo(playerId);
 
         return submissions.stream()
-                .filter(submission -> {
-                    // Don't show player's own submissions
-                    if (submission.getAuthorId().equals(playerId)) {
-                        return false;
-                    }
-
-                    // Don't show submissions the player was the last to contribute to
-                    if (lastContributedTo.contains(submission.getSubmissionId())) {
-                        return false;
-                    }
-
-                    // Exclude submissions whose outcomeTypeWithLabel.id matches any excluded ID
-                    if (excludeOutcomeTypeIds != null && !excludeOutcomeTypeIds.isEmpty()) {
-                        OutcomeType outcomeTypeWithLabel = submission.getOutcomeTypeWithLabel();
-                        if (outcomeTypeWithLabel != null && excludeOutcomeTypeIds.contains(outcomeTypeWithLabel.getId())) {
-                            return false;
-                        }
-                    }
-
-                    String submissionId = submission.getSubmissionId();
-                    List<String> viewers = submissionViews.getOrDefault(submissionId, new ArrayList<>());
-
-                    // If a player is currently viewing this submission, it's unavailable
-                    return viewers.size() < 2;
-                })
+                .filter(submission -> isAvailableForPlayer(submission, playerId, lastContributedTo, excludeOutcomeTypeIds))
                 .toList();
     }
 
+    /**
+     * Gets the submissions a player should be shown next: the least viewed available submissions, newest first.
+     * Submissions are visited newest first and the walk stops once enough unviewed ones are found.
+     * @param playerId The player requesting submissions
+     * @param excludeOutcomeTypeIds Optional outcome type ID list to filter out
+     * @param limit How many submissions to return
+     * @return Up to limit available submissions, ordered by view count and then newest first
+     */
+    public List<TextSubmission> getAvailableSubmissionsForPlayer(String playerId, List<String> excludeOutcomeTypeIds, int limit) {
+        SubmissionIndex index = getSubmissionIndex();
+        Set<String> lastContributedTo = index.lastContributedTo(playerId);
+
+        List<TextSubmission> unviewed = new ArrayList<>();
+        List<TextSubmission> viewedOnce = new ArrayList<>();
+        for (TextSubmission submission : index.newestFirst()) {
+            if (unviewed.size() >= limit) {
+                break;
+            }
+            if (!isAvailableForPlayer(submission, playerId, lastContributedTo, excludeOutcomeTypeIds)) {
+                continue;
+            }
+            if (viewCount(submission.getSubmissionId()) == 0) {
+                unviewed.add(submission);
+            } else if (viewedOnce.size() < limit) {
+                viewedOnce.add(submission);
+            }
+        }
+
+        for (TextSubmission submission : viewedOnce) {
+            if (unviewed.size() >= limit) {
+                break;
+            }
+            unviewed.add(submission);
+        }
+        return unviewed;
+    }
+
+    private boolean isAvailableForPlayer(TextSubmission submission, String playerId, Set<String> lastContributedTo, List<String> excludeOutcomeTypeIds) {
+        // Don't show player's own submissions
+        if (submission.getAuthorId().equals(playerId)) {
+            return false;
+        }
+
+        // Don't show submissions the player was the last to contribute to
+        if (lastContributedTo.contains(submission.getSubmissionId())) {
+            return false;
+        }
+
+        // Exclude submissions whose outcomeTypeWithLabel.id matches any excluded ID
+        if (excludeOutcomeTypeIds != null && !excludeOutcomeTypeIds.isEmpty()) {
+            OutcomeType outcomeTypeWithLabel = submission.getOutcomeTypeWithLabel();
+            if (outcomeTypeWithLabel != null && excludeOutcomeTypeIds.contains(outcomeTypeWithLabel.getId())) {
+                return false;
+            }
+        }
+
+        // If a player is currently viewing this submission, it's unavailable
+        return viewCount(submission.getSubmissionId()) < 2;
+    }
+
+    private int viewCount(String submissionId) {
+        List<String> viewers = submissionViews.get(submissionId);
+        return viewers == null ? 0 : viewers.size();
+    }
+
     /**
      * Records a view for a submission by a player.
      * @param submissionId The submission being viewed
@@ -194,18 +262,11 @@ public class CollaborativeTextPhase {
      * This method modifies the submissions list in place.
      */
     public List<TextSubmission> getSubmissionsWithoutParentSubmissions() {
-        // Collect all submissionIds that are referenced in other submissions' additions
-        Set<String> iteratedSubmissionIds = submissions.stream()
-                .flatMap(submission -> submission.getAdditions() != null 
-                        ? submission.getAdditions().stream() 
-                        : java.util.stream.Stream.empty())
-                .map(TextAddition::getSubmissionId)
-                .filter(submissionId -> submissionId != null && !submissionId.trim().isEmpty())
-                .collect(Collectors.toSet());
-        
+        SubmissionIndex index = getSubmissionIndex();
+
         // Filter out submissions that have been iterated on
         return submissions.stream()
-                .filter(submission -> !iteratedSubmissionIds.contains(submission.getSubmissionId()))
+                .filter(submission -> !index.hasChildren(submission.getSubmissionId()))
                 .collect(Collectors.toList());
     }
 
@@ -215,7 +276,9 @@ public class CollaborativeTextPhase {
      */
     public void resetAll() {
         this.submissions = new ArrayList<>();
+        this.submissionIndex = null;
         this.playerVotes = new HashMap<>();
+        this.voteTally = null;
         this.playersWhoSubmitted = new ArrayList<>();
         this.playersWhoVoted = new ArrayList<>();
         this.submissionViews = new HashMap<>();
@@ -227,6 +290,7 @@ public class CollaborativeTextPhase {
      */
     public void resetVotes() {
         this.playerVotes = new HashMap<>();
+        this.voteTally = null;
         this.playersWhoSubmitted = new ArrayList<>();
         this.playersWhoVoted = new ArrayList<>();
         this.submissionViews = new HashMap<>();
@@ -1,6 +1,8 @@
 package client.nowhere.model;
 
 import client.nowhere.helper.CollaborativeTextHelper;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.cloud.firestore.annotation.Exclude;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -25,10 +27,13 @@ public class GameSession {
     Integer roundNumber = 0;
     GameMode gameMode = GameMode.TOWN_MODE;
     GameBoard gameBoard = new GameBoard();
+    int storageVersion = 0;
 
     // Collaborative text phases for world-building
     Map<String, CollaborativeTextPhase> collaborativeTextPhases;
 
+    private volatile GameSessionIndex index;
+
     public GameSession() {
         if(this.activeGameStateSession == null) {
             this.activeGameStateSession = new ActiveGameStateSession(this.gameCode);
@@ -64,10 +69,13 @@ public class GameSession {
         this.gameCode = gameCode;
     }
 
+    // Players and stories are stored in sub-collections, see GameSessionStore
+    @Exclude
     public List<Player> getPlayers() {
         return players;
     }
 
+    @Exclude
     public void setPlayers(List<Player> players) {
         this.players = players;
     }
@@ -96,10 +104,12 @@ public class GameSession {
         this.activePlayerSession = activePlayerSession;
     }
 
+    @Exclude
     public List<Story> getStories() {
         return stories;
     }
 
+    @Exclude
     public void setStories(List<Story> stories) {
         this.stories = stories;
     }
@@ -224,6 +234,14 @@ public class GameSession {
         this.gameBoard = gameBoard != null ? gameBoard : new GameBoard();
     }
 
+    public int getStorageVersion() {
+        return storageVersion;
+    }
+
+    public void setStorageVersion(int storageVersion) {
+        this.storageVersion = storageVersion;
+    }
+
     public Integer getRoundNumber() {
         return roundNumber;
     }
@@ -262,15 +280,30 @@ public class GameSession {
         return new PlayerSortResult(sortedPlayers, playerIndex, new Player(), sortedPlayers.get(playerIndex));
     }
 
+    @Exclude
     public Story getStoryAtCurrentPlayerCoordinates() {
         Encounter encounter = gameBoard.getEncounterAtPlayerCoordinates();
         if (encounter == null || encounter.storyId == null) {
             return null;
         }
 
-        return stories.stream()
-                .filter(story -> story.getStoryId().equals(encounter.storyId))
-                .toList().stream().findFirst().orElse(null);
+        return getIndex().getStory(encounter.storyId);
+    }
+
+    /**
+     * Lookups by story, player and location id. Built on first use and rebuilt when the stories, players or
+     * locations list is replaced or changes size, so it is safe to use on cached sessions shared between requests.
+     * Swapping an element of one of those lists in place is not noticed; replace the list instead.
+     */
+    @Exclude
+    @JsonIgnore
+    public GameSessionIndex getIndex() {
+        GameSessionIndex current = index;
+        if (current == null || !current.isCurrentFor(this)) {
+            current = GameSessionIndex.of(this);
+            index = current;
+        }
+        return current;
     }
 
     public boolean areAllPlayersDone() {
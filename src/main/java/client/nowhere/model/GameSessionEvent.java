@@ -0,0 +1,53 @@
+package client.nowhere.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A change to a game session pushed to connected players.
+ * Only the fields that changed are set; isPlayerDone and submissionCounts only carry the changed entries.
+ * submissionCounts is keyed by collaborative text phase ID.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GameSessionEvent(
+        String gameCode,
+        GameState gameState,
+        Integer roundNumber,
+        Map<String, Boolean> isPlayerDone,
+        Map<String, Integer> submissionCounts
+) {
+    @JsonIgnore
+    public boolean isEmpty() {
+        return gameState == null
+                && roundNumber == null
+                && (isPlayerDone == null || isPlayerDone.isEmpty())
+                && (submissionCounts == null || submissionCounts.isEmpty());
+    }
+
+    /**
+     * Applies a change on top of this event, so a running merge of all changes is the full current state.
+     * @param change The change to apply
+     * @return A new event with the change's fields taking precedence
+     */
+    public GameSessionEvent merge(GameSessionEvent change) {
+        return new GameSessionEvent(
+                gameCode,
+                change.gameState() != null ? change.gameState() : gameState,
+                change.roundNumber() != null ? change.roundNumber() : roundNumber,
+                mergeMaps(isPlayerDone, change.isPlayerDone()),
+                mergeMaps(submissionCounts, change.submissionCounts())
+        );
+    }
+
+    private static <V> Map<String, V> mergeMaps(Map<String, V> current, Map<String, V> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return current;
+        }
+        Map<String, V> merged = current != null ? new HashMap<>(current) : new HashMap<>();
+        merged.putAll(changes);
+        return merged;
+    }
+}
@@ -0,0 +1,118 @@
+package client.nowhere.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup maps over a game session's stories, players and adventure map locations, built in one pass.
+ * Built lazily by {@link GameSession#getIndex()} and rebuilt when one of the indexed lists is replaced
+ * or changes size. When several entries share an id the first one wins, as with the findFirst scans it replaces.
+ * Only the list reference and size are checked, so an element swapped in place ({@code set}, {@code replaceAll},
+ * a remove followed by an add) is not noticed; code that does that must replace the list instead.
+ */
+public final class GameSessionIndex {
+
+    private final List<Story> stories;
+    private final List<Player> players;
+    private final List<Location> locations;
+    private final int storyCount;
+    private final int playerCount;
+    private final int locationCount;
+
+    private final Map<String, Story> storiesById = new HashMap<>();
+    private final Map<String, List<Story>> storiesByPlayerId = new HashMap<>();
+    private final Map<String, Player> playersById = new HashMap<>();
+    private final Map<String, Location> locationsById = new HashMap<>();
+
+    private GameSessionIndex(List<Story> stories, List<Player> players, List<Location> locations) {
+        this.stories = stories;
+        this.players = players;
+        this.locations = locations;
+        this.storyCount = stories == null ? 0 : stories.size();
+        this.playerCount = players == null ? 0 : players.size();
+        this.locationCount = locations == null ? 0 : locations.size();
+
+        if (stories != null) {
+            for (Story story : stories) {
+                if (story.getStoryId() != null) {
+                    storiesById.putIfAbsent(story.getStoryId(), story);
+                }
+                if (story.getPlayerId() != null) {
+                    storiesByPlayerId.computeIfAbsent(story.getPlayerId(), playerId -> new ArrayList<>()).add(story);
+                }
+            }
+        }
+        if (players != null) {
+            for (Player player : players) {
+                if (player.getAuthorId() != null) {
+                    playersById.putIfAbsent(player.getAuthorId(), player);
+                }
+            }
+        }
+        if (locations != null) {
+            for (Location location : locations) {
+                if (location.getId() != null) {
+                    locationsById.putIfAbsent(location.getId(), location);
+                }
+            }
+        }
+    }
+
+    static GameSessionIndex of(GameSession gameSession) {
+        return new GameSessionIndex(gameSession.getStories(), gameSession.getPlayers(), locationsOf(gameSession));
+    }
+
+    /**
+     * @return Whether the index still covers the session's current lists
+     */
+    boolean isCurrentFor(GameSession gameSession) {
+        return isCurrent(stories, storyCount, gameSession.getStories())
+                && isCurrent(players, playerCount, gameSession.getPlayers())
+                && isCurrent(locations, locationCount, locationsOf(gameSession));
+    }
+
+    public Story getStory(String storyId) {
+        return storyId == null ? null : storiesById.get(storyId);
+    }
+
+    public Player getPlayer(String authorId) {
+        return authorId == null ? null : playersById.get(authorId);
+    }
+
+    /**
+     * @return The number of players with distinct ids
+     */
+    public int getPlayerCount() {
+        return playersById.size();
+    }
+
+    public Location getLocation(String locationId) {
+        return locationId == null ? null : locationsById.get(locationId);
+    }
+
+    /**
+     * @return The story the encounter points at, or null if the encounter has no story
+     */
+    public Story getStory(Encounter encounter) {
+        return encounter == null ? null : getStory(encounter.getStoryId());
+    }
+
+    /**
+     * @return The stories assigned to the player, in session order
+     */
+    public List<Story> getStoriesByPlayer(String playerId) {
+        List<Story> playerStories = storiesByPlayerId.get(playerId);
+        return playerStories == null ? List.of() : Collections.unmodifiableList(playerStories);
+    }
+
+    private static List<Location> locationsOf(GameSession gameSession) {
+        return gameSession.getAdventureMap() == null ? null : gameSession.getAdventureMap().getLocations();
+    }
+
+    private static boolean isCurrent(List<?> indexed, int indexedCount, List<?> current) {
+        return indexed == current && (current == null || current.size() == indexedCount);
+    }
+}
@@ -56,4 +56,15 @@ public class OutcomeType {
         this.subTypes = new ArrayList<>();
         this.headers = headers;
     }
+
+    /**
+     * A copy with its own sub type and header lists.
+     */
+    public OutcomeType(OutcomeType other) {
+        this.id = other.id;
+        this.label = other.label;
+        this.clarifier = other.clarifier;
+        this.subTypes = other.subTypes == null ? new ArrayList<>() : new ArrayList<>(other.subTypes);
+        this.headers = other.headers == null ? new ArrayList<>() : new ArrayList<>(other.headers);
+    }
 }
@@ -0,0 +1,10 @@
+package client.nowhere.model;
+
+public enum PhaseTransitionState {
+    QUEUED,
+    RUNNING,
+    RETRYING,
+    COMPLETED,
+    SKIPPED,
+    FAILED
+}
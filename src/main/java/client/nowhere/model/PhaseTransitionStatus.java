@@ -0,0 +1,19 @@
+package client.nowhere.model;
+
+/**
+ * Where a game's move to its next phase stands, for clients waiting on it.
+ * A transition is SKIPPED when the game had already left {@code fromState} by the time it ran.
+ * @param toState The state the game moved to, once the transition has completed
+ * @param error Why the last attempt failed, if it did
+ */
+public record PhaseTransitionStatus(
+        String gameCode,
+        GameState fromState,
+        GameState toState,
+        PhaseTransitionState state,
+        int attempts,
+        String error,
+        long requestedAt,
+        long finishedAt
+) {
+}
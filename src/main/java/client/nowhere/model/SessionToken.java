@@ -0,0 +1,8 @@
+package client.nowhere.model;
+
+/**
+ * Proof of a login, sent back as {@code Authorization: Bearer <token>} instead of the email and password.
+ * @param expiresAt When the token stops being accepted, in epoch seconds
+ */
+public record SessionToken(String token, String userProfileId, long expiresAt) {
+}
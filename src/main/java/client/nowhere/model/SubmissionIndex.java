@@ -0,0 +1,109 @@
+package client.nowhere.model;
+
+import com.google.cloud.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lookups over a phase's submissions, kept up to date as submissions are added so a player's poll does not rescan
+ * every submission and addition. Additions are indexed as they are when the submission is added; submissions are
+ * not edited in place once they are part of a phase.
+ */
+final class SubmissionIndex {
+
+    // Newest first, with undated submissions last, the order players are offered submissions in
+    static final Comparator<TextSubmission> NEWEST_FIRST =
+            Comparator.comparing(TextSubmission::getCreatedAt, Comparator.nullsLast(Comparator.<Timestamp>reverseOrder()));
+
+    private final List<TextSubmission> submissions;
+    private int indexedCount;
+
+    private final Map<String, TextSubmission> byId = new HashMap<>();
+    private final Map<String, List<TextSubmission>> childrenByParentId = new HashMap<>();
+    private final Map<String, Set<String>> lastContributedToByAuthor = new HashMap<>();
+    private final List<TextSubmission> newestFirst = new ArrayList<>();
+
+    private SubmissionIndex(List<TextSubmission> submissions) {
+        this.submissions = submissions;
+        submissions.forEach(this::add);
+    }
+
+    static SubmissionIndex of(List<TextSubmission> submissions) {
+        return new SubmissionIndex(submissions);
+    }
+
+    /**
+     * @return Whether the index still covers the given list, i.e. it is the same list and nothing was added around the index
+     */
+    boolean isCurrentFor(List<TextSubmission> currentSubmissions) {
+        return submissions == currentSubmissions && currentSubmissions.size() == indexedCount;
+    }
+
+    /**
+     * Indexes a submission that was just appended to the phase's list.
+     */
+    void add(TextSubmission submission) {
+        indexedCount++;
+        if (submission.getSubmissionId() != null) {
+            byId.putIfAbsent(submission.getSubmissionId(), submission);
+        }
+
+        List<TextAddition> additions = submission.getAdditions();
+        if (additions != null && !additions.isEmpty()) {
+            for (TextAddition addition : additions) {
+                if (hasParent(addition)) {
+                    childrenByParentId.computeIfAbsent(addition.getSubmissionId(), parentId -> new ArrayList<>()).add(submission);
+                }
+            }
+
+            TextAddition last = additions.getLast();
+            if (last.getAuthorId() != null && last.getSubmissionId() != null && !last.getSubmissionId().isEmpty()) {
+                lastContributedToByAuthor.computeIfAbsent(last.getAuthorId(), authorId -> new HashSet<>()).add(last.getSubmissionId());
+            }
+        }
+
+        // Equal timestamps keep submission order, like a stable sort would
+        int position = Collections.binarySearch(newestFirst, submission, NEWEST_FIRST);
+        if (position < 0) {
+            position = -position - 1;
+        } else {
+            while (position < newestFirst.size() && NEWEST_FIRST.compare(newestFirst.get(position), submission) == 0) {
+                position++;
+            }
+        }
+        newestFirst.add(position, submission);
+    }
+
+    TextSubmission get(String submissionId) {
+        return byId.get(submissionId);
+    }
+
+    /**
+     * @return Whether another submission's additions branch from this one
+     */
+    boolean hasChildren(String submissionId) {
+        return childrenByParentId.containsKey(submissionId);
+    }
+
+    /**
+     * @return The submissions whose last addition, by this player, branched from them
+     */
+    Set<String> lastContributedTo(String playerId) {
+        return lastContributedToByAuthor.getOrDefault(playerId, Set.of());
+    }
+
+    List<TextSubmission> newestFirst() {
+        return newestFirst;
+    }
+
+    private static boolean hasParent(TextAddition addition) {
+        return addition.getSubmissionId() != null && !addition.getSubmissionId().trim().isEmpty();
+    }
+}
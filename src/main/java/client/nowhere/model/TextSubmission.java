@@ -38,6 +38,24 @@ public class TextSubmission {
         this.currentText = originalText;
     }
 
+    /**
+     * A shallow copy, with its own outcome type label so labelling the copy leaves the original alone.
+     */
+    public TextSubmission(TextSubmission other) {
+        this.submissionId = other.submissionId;
+        this.authorId = other.authorId;
+        this.originalText = other.originalText;
+        this.currentText = other.currentText;
+        this.additions = other.additions;
+        this.createdAt = other.createdAt;
+        this.lastModified = other.lastModified;
+        this.isFinalized = other.isFinalized;
+        this.totalVotes = other.totalVotes;
+        this.averageRanking = other.averageRanking;
+        this.outcomeType = other.outcomeType;
+        this.outcomeTypeWithLabel = other.outcomeTypeWithLabel == null ? null : new OutcomeType(other.outcomeTypeWithLabel);
+    }
+
     // Getters and Setters
     public String getSubmissionId() { return submissionId; }
     public void setSubmissionId(String submissionId) { this.submissionId = submissionId; }
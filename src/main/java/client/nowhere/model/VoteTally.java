@@ -0,0 +1,129 @@
+package client.nowhere.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Points and vote counts per submission, built in one pass over a phase's votes and kept up to date as votes land.
+ * Winners are picked from the submissions in their stored order, so ties go to the earlier submission.
+ */
+public class VoteTally {
+
+    private final Map<String, Score> scores = new HashMap<>();
+
+    public static VoteTally of(Map<String, List<PlayerVote>> playerVotes) {
+        VoteTally tally = new VoteTally();
+        if (playerVotes != null) {
+            playerVotes.values().forEach(votes -> votes.forEach(tally::add));
+        }
+        return tally;
+    }
+
+    /**
+     * Rank 1 = 5 points, Rank 2 = 4, Rank 3 = 3, Rank 4 = 2, Rank 5+ = 1
+     */
+    public static int points(int ranking) {
+        if (ranking <= 1) return 5;
+        if (ranking == 2) return 4;
+        if (ranking == 3) return 3;
+        if (ranking == 4) return 2;
+        return 1;
+    }
+
+    public void add(PlayerVote vote) {
+        if (vote.getSubmissionId() == null) {
+            return;
+        }
+        Score score = scores.computeIfAbsent(vote.getSubmissionId(), submissionId -> new Score());
+        score.votes++;
+        score.points += points(vote.getRanking());
+    }
+
+    public int getVotes(String submissionId) {
+        Score score = scores.get(submissionId);
+        return score == null ? 0 : score.votes;
+    }
+
+    public int getPoints(String submissionId) {
+        Score score = scores.get(submissionId);
+        return score == null ? 0 : score.points;
+    }
+
+    /**
+     * Copies the tally onto the submissions' totalVotes and averageRanking (total points), and returns the ones with votes.
+     */
+    public List<TextSubmission> applyTo(Collection<TextSubmission> submissions) {
+        List<TextSubmission> submissionsWithVotes = new ArrayList<>();
+        for (TextSubmission submission : submissions) {
+            int votes = getVotes(submission.getSubmissionId());
+            submission.setTotalVotes(votes);
+            submission.setAverageRanking(getPoints(submission.getSubmissionId()));
+            if (votes > 0) {
+                submissionsWithVotes.add(submission);
+            }
+        }
+        return submissionsWithVotes;
+    }
+
+    /**
+     * The highest scoring submissions, best first, keeping submission order between equal scores.
+     * @param submissionsWithVotes Submissions returned by {@link #applyTo}
+     * @param limit How many winners to keep
+     */
+    public static List<TextSubmission> top(List<TextSubmission> submissionsWithVotes, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        // The heap root is the weakest winner kept so far: lowest points, then latest position
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.min(limit, Math.max(1, submissionsWithVotes.size())), Ranked.BEST_FIRST.reversed());
+        for (int i = 0; i < submissionsWithVotes.size(); i++) {
+            Ranked ranked = new Ranked(submissionsWithVotes.get(i), i);
+            if (heap.size() < limit) {
+                heap.add(ranked);
+            } else if (Ranked.BEST_FIRST.compare(ranked, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+
+        List<Ranked> winners = new ArrayList<>(heap);
+        winners.sort(Ranked.BEST_FIRST);
+        return winners.stream().map(Ranked::submission).toList();
+    }
+
+    /**
+     * The best submission of each outcome type, in the order the outcome types first appear.
+     * @param submissionsWithVotes Submissions returned by {@link #applyTo}
+     */
+    public static List<TextSubmission> bestPerOutcomeType(List<TextSubmission> submissionsWithVotes) {
+        Map<String, TextSubmission> winners = new LinkedHashMap<>();
+        for (TextSubmission submission : submissionsWithVotes) {
+            String outcomeType = submission.getOutcomeType();
+            if (outcomeType == null || outcomeType.isEmpty()) {
+                continue;
+            }
+            winners.merge(outcomeType, submission, (current, candidate) ->
+                    candidate.getAverageRanking() > current.getAverageRanking() ? candidate : current);
+        }
+        return new ArrayList<>(winners.values());
+    }
+
+    private static class Score {
+        int votes;
+        int points;
+    }
+
+    private record Ranked(TextSubmission submission, int position) {
+        static final Comparator<Ranked> BEST_FIRST = Comparator
+                .comparingDouble((Ranked ranked) -> ranked.submission().getAverageRanking())
+                .reversed()
+                .thenComparingInt(Ranked::position);
+    }
+}
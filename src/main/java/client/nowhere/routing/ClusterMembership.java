@@ -0,0 +1,20 @@
+package client.nowhere.routing;
+
+import java.util.List;
+
+/**
+ * The instances that share the game codes between them, each identified by the base URL other instances reach it at.
+ * Implementations may change their members at any time; {@link GameOwnership} picks up a new member list on its next lookup.
+ */
+public interface ClusterMembership {
+
+    /**
+     * @return The base URL of this instance, e.g. {@code http://10.0.0.4:8080}
+     */
+    String self();
+
+    /**
+     * @return The base URLs of every live instance, including this one while it is taking games
+     */
+    List<String> members();
+}
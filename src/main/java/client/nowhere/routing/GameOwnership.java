@@ -0,0 +1,101 @@
+package client.nowhere.routing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Decides which instance owns a game, so the game's cache, write coalescing and mutation mailbox live on one instance.
+ * Game codes are placed on a consistent hash ring of the current members, each member holding many points on the ring,
+ * so a member joining or leaving only moves the games that member gains or loses.
+ */
+@Component
+public class GameOwnership {
+
+    private static final int POINTS_PER_MEMBER = 128;
+
+    private final ClusterMembership membership;
+    private volatile Ring ring;
+
+    @Autowired
+    public GameOwnership(ClusterMembership membership) {
+        this.membership = membership;
+    }
+
+    /**
+     * @return The base URL of the instance that owns the game; this instance if there are no members
+     */
+    public String ownerOf(String gameCode) {
+        return ring().ownerOf(gameCode, membership.self());
+    }
+
+    public boolean isLocal(String gameCode) {
+        return isSelf(ownerOf(gameCode));
+    }
+
+    public boolean isSelf(String member) {
+        return membership.self().equals(member);
+    }
+
+    /**
+     * @return Whether the instance at this base URL is currently one of the members
+     */
+    public boolean isMember(String member) {
+        return member != null && membership.members().contains(member);
+    }
+
+    public String self() {
+        return membership.self();
+    }
+
+    private Ring ring() {
+        List<String> members = membership.members();
+        Ring current = ring;
+        if (current == null || !current.members.equals(members)) {
+            current = new Ring(members);
+            ring = current;
+        }
+        return current;
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    private static class Ring {
+        final List<String> members;
+        final TreeMap<Long, String> points = new TreeMap<>();
+
+        Ring(List<String> members) {
+            this.members = members;
+            for (String member : members) {
+                for (int i = 0; i < POINTS_PER_MEMBER; i++) {
+                    points.put(hash(member + "#" + i), member);
+                }
+            }
+        }
+
+        String ownerOf(String gameCode, String fallback) {
+            if (points.isEmpty()) {
+                return fallback;
+            }
+            Map.Entry<Long, String> point = points.ceilingEntry(hash(gameCode));
+            return point != null ? point.getValue() : points.firstEntry().getValue();
+        }
+    }
+}
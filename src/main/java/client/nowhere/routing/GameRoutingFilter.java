@@ -0,0 +1,245 @@
+package client.nowhere.routing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends every request for a game to the instance that owns it, and serves it here if this instance is the owner.
+ * The game is taken from the {@code gameCode} query parameter, the {@code X-Game-Code} header, or the top-level
+ * {@code gameCode} field of a JSON body, and routed upper case whatever case it was sent in. Requests without a game and event streams are served here, as are requests
+ * forwarded by another member; a forwarded-by header naming anything but a current member is ignored. This only keeps
+ * a stray or stale header from pinning a game to the wrong instance, it does not authenticate the caller.
+ * If the owner cannot be reached at all the request is served here. The owner may still be alive and serving the
+ * game itself, so for that request the game has two owners: the Firestore transactions keep its documents
+ * consistent, but the owner's cache and write coalescing do not see the change until they next read it. This is
+ * logged as a split-ownership event. If forwarding fails after the owner may have seen the request, the caller gets
+ * a 502 instead of the request being applied twice.
+ */
+@Component
+public class GameRoutingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameRoutingFilter.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    static final String GAME_CODE_HEADER = "X-Game-Code";
+    static final String FORWARDED_BY_HEADER = "X-Nowhere-Forwarded-By";
+
+    // Managed by the HTTP client or only meaningful for a single hop
+    private static final Set<String> UNFORWARDED_HEADERS = Set.of(
+            "host", "connection", "content-length", "transfer-encoding", "upgrade", "keep-alive",
+            "expect", "te", "trailer", "proxy-connection", "http2-settings", FORWARDED_BY_HEADER.toLowerCase()
+    );
+
+    private final GameOwnership ownership;
+    private final HttpClient httpClient;
+    private final Duration forwardTimeout;
+
+    @Autowired
+    public GameRoutingFilter(
+            GameOwnership ownership,
+            @Value("${nowhere.routing.forward-timeout-millis:10000}") long forwardTimeoutMillis
+    ) {
+        this.ownership = ownership;
+        this.forwardTimeout = Duration.ofMillis(forwardTimeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(forwardTimeout)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        if (isForwardedByMember(request) || isEventStream(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String gameCode = gameCode(request);
+        byte[] body = null;
+        if (gameCode == null && hasJsonBody(request)) {
+            body = request.getInputStream().readAllBytes();
+            request = new CachedBodyRequest(request, body);
+            gameCode = gameCodeIn(body);
+        }
+        if (gameCode == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Game codes are stored upper case and joinPlayer upper cases what it is sent, so route the way it will be served
+        gameCode = gameCode.toUpperCase(Locale.ROOT);
+        String owner = ownership.ownerOf(gameCode);
+        if (ownership.isSelf(owner)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (body == null) {
+            body = request.getInputStream().readAllBytes();
+            request = new CachedBodyRequest(request, body);
+        }
+        try {
+            forward(owner, request, body, response);
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            // The owner never saw the request, so serving it here cannot apply it twice, but it may still be serving the game
+            logger.warn("Split ownership of game {}: could not reach its owner {}, serving {} {} here: {}",
+                    gameCode, owner, request.getMethod(), request.getRequestURI(), e.getMessage());
+            chain.doFilter(request, response);
+        } catch (IOException e) {
+            logger.error("Forwarding game {} to {} failed: {}", gameCode, owner, e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY, "The instance owning game " + gameCode + " did not answer");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while forwarding game " + gameCode + " to " + owner, e);
+        }
+    }
+
+    private void forward(String owner, HttpServletRequest request, byte[] body, HttpServletResponse response) throws IOException, InterruptedException {
+        String query = request.getQueryString();
+        URI uri = URI.create(owner + request.getRequestURI() + (query == null ? "" : "?" + query));
+
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(uri)
+                .timeout(forwardTimeout)
+                .method(request.getMethod(), body.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!UNFORWARDED_HEADERS.contains(name.toLowerCase())) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    forwarded.header(name, value);
+                }
+            }
+        }
+        forwarded.header(FORWARDED_BY_HEADER, ownership.self());
+
+        HttpResponse<byte[]> ownerResponse = httpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        response.setStatus(ownerResponse.statusCode());
+        for (Map.Entry<String, List<String>> header : ownerResponse.headers().map().entrySet()) {
+            if (!UNFORWARDED_HEADERS.contains(header.getKey().toLowerCase())) {
+                header.getValue().forEach(value -> response.addHeader(header.getKey(), value));
+            }
+        }
+        response.getOutputStream().write(ownerResponse.body());
+    }
+
+    private boolean isForwardedByMember(HttpServletRequest request) {
+        String forwardedBy = request.getHeader(FORWARDED_BY_HEADER);
+        return forwardedBy != null && !ownership.isSelf(forwardedBy) && ownership.isMember(forwardedBy);
+    }
+
+    private static boolean hasJsonBody(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().contains("json") && request.getContentLength() != 0;
+    }
+
+    /**
+     * @return The top-level gameCode field of a JSON body, or null if it has none
+     */
+    private static String gameCodeIn(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode root = OBJECT_MAPPER.readTree(body);
+            JsonNode gameCode = root == null ? null : root.path("gameCode");
+            return gameCode != null && gameCode.isTextual() && !gameCode.asText().isBlank() ? gameCode.asText() : null;
+        } catch (IOException e) {
+            // Not ours to reject; the controller reports the malformed body
+            return null;
+        }
+    }
+
+    private static String gameCode(HttpServletRequest request) {
+        String gameCode = request.getParameter("gameCode");
+        if (gameCode == null || gameCode.isBlank()) {
+            gameCode = request.getHeader(GAME_CODE_HEADER);
+        }
+        return gameCode == null || gameCode.isBlank() ? null : gameCode;
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return request.getRequestURI().endsWith("/events") || (accept != null && accept.contains("text/event-stream"));
+    }
+
+    /**
+     * The original request with its body, which was already read for forwarding, available to read again.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Asynchronous reads are not supported");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
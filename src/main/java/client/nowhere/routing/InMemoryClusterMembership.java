@@ -0,0 +1,42 @@
+package client.nowhere.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Membership held in memory and changed by hand, for tests and for running several instances in one JVM.
+ */
+public class InMemoryClusterMembership implements ClusterMembership {
+
+    private final String self;
+    private volatile List<String> members;
+
+    public InMemoryClusterMembership(String self, String... members) {
+        this.self = self;
+        this.members = List.of(members);
+    }
+
+    @Override
+    public String self() {
+        return self;
+    }
+
+    @Override
+    public List<String> members() {
+        return members;
+    }
+
+    public synchronized void join(String member) {
+        if (!members.contains(member)) {
+            List<String> joined = new ArrayList<>(members);
+            joined.add(member);
+            members = List.copyOf(joined);
+        }
+    }
+
+    public synchronized void leave(String member) {
+        List<String> remaining = new ArrayList<>(members);
+        remaining.remove(member);
+        members = List.copyOf(remaining);
+    }
+}
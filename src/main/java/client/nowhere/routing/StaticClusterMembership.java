@@ -0,0 +1,43 @@
+package client.nowhere.routing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Membership read from configuration: {@code nowhere.routing.self-url} and a comma separated
+ * {@code nowhere.routing.members}. With no members configured this instance is the only member and owns every game,
+ * which is how a single instance deployment runs. A discovery backed membership replaces this with a @Primary bean.
+ */
+@Component
+public class StaticClusterMembership implements ClusterMembership {
+
+    private final String self;
+    private final List<String> members;
+
+    @Autowired
+    public StaticClusterMembership(
+            @Value("${nowhere.routing.self-url:http://localhost:${server.port:8080}}") String self,
+            @Value("${nowhere.routing.members:}") String members
+    ) {
+        this.self = self;
+        List<String> configured = Arrays.stream(members.split(","))
+                .map(String::trim)
+                .filter(member -> !member.isEmpty())
+                .toList();
+        this.members = configured.isEmpty() ? List.of(self) : configured;
+    }
+
+    @Override
+    public String self() {
+        return self;
+    }
+
+    @Override
+    public List<String> members() {
+        return members;
+    }
+}
@@ -0,0 +1,102 @@
+package client.nowhere.dao;
+
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import client.nowhere.model.CollaborativeTextPhase;
+import client.nowhere.model.GameState;
+import client.nowhere.model.TextSubmission;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class CollaborativeTextDAOTest {
+
+    private static final String PHASE_ID = GameState.MAKE_CHOICE_VOTING.name();
+
+    private Firestore db;
+    private GameSessionStore gameSessionStore;
+    private SubmissionViewTracker submissionViewTracker;
+    private CollaborativeTextDAO collaborativeTextDAO;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(new InMemoryDocumentStore(), 0))
+                .build()
+                .getService();
+        gameSessionStore = new GameSessionStore(db, mock(GameSessionMigrator.class));
+        submissionViewTracker = new SubmissionViewTracker(db, 1000, 600000);
+        collaborativeTextDAO = new CollaborativeTextDAO(db, new GameSessionCache(), gameSessionStore, submissionViewTracker);
+
+        gameSessionStore.getGameRef("ABC123").set(Map.of(
+                "gameCode", "ABC123",
+                "storageVersion", GameSessionStore.CURRENT_STORAGE_VERSION,
+                "gameState", GameState.HOW_DOES_THIS_RESOLVE.name(),
+                "collaborativeTextPhases", Map.of()
+        )).get();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        submissionViewTracker.close();
+        db.close();
+    }
+
+    @Test
+    void testSubmissionsAddedInAUnitOfWorkAreCommittedWithIt() throws Exception {
+        GameSessionUnitOfWork.run(() -> {
+            assertNull(collaborativeTextDAO.addSubmissionAtomically("ABC123", PHASE_ID, submission("option-1", "alice")));
+            assertNull(collaborativeTextDAO.addSubmissionAtomically("ABC123", PHASE_ID, submission("option-2", "bob")));
+
+            // Nothing reaches the store until the unit of work commits
+            assertEquals(List.of(), storedSubmissionIds());
+        });
+
+        CollaborativeTextPhase phase = gameSessionStore.loadPhase("ABC123", PHASE_ID);
+        assertEquals(PHASE_ID, phase.getPhaseId());
+        assertEquals(List.of("option-1", "option-2"), phase.getSubmissions().stream().map(TextSubmission::getSubmissionId).toList());
+        assertEquals(List.of("alice", "bob"), phase.getPlayersWhoSubmitted());
+    }
+
+    @Test
+    void testSubmissionsAddedInAUnitOfWorkAreDroppedWhenTheWorkThrows() throws Exception {
+        assertThrows(IllegalStateException.class, () -> GameSessionUnitOfWork.run((Runnable) () -> {
+            collaborativeTextDAO.addSubmissionAtomically("ABC123", PHASE_ID, submission("option-1", "alice"));
+            throw new IllegalStateException("Failed while building the board");
+        }));
+
+        assertNull(gameSessionStore.loadPhase("ABC123", PHASE_ID));
+        assertEquals(List.of(), storedSubmissionIds());
+    }
+
+    private List<String> storedSubmissionIds() {
+        try {
+            return gameSessionStore.getSubmissions("ABC123").get().get().getDocuments().stream()
+                    .map(DocumentSnapshot::getId)
+                    .toList();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new AssertionError("Could not read the stored submissions", e);
+        }
+    }
+
+    private static TextSubmission submission(String submissionId, String authorId) {
+        TextSubmission submission = new TextSubmission();
+        submission.setSubmissionId(submissionId);
+        submission.setAuthorId(authorId);
+        submission.setCurrentText("Text of " + submissionId);
+        return submission;
+    }
+}
@@ -0,0 +1,165 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DoneMarkBatcherTest {
+
+    @Test
+    void testConcurrentMarksAreFlushedTogether() throws Exception {
+        List<List<DoneMarkBatcher.DoneMark>> flushes = new CopyOnWriteArrayList<>();
+        DoneMarkBatcher batcher = new DoneMarkBatcher(200, (gameCode, batch) -> {
+            flushes.add(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                // Only the last mark of the batch completes the phase
+                batch.get(i).result().complete(i == batch.size() - 1);
+            }
+        });
+
+        int players = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(players);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < players; i++) {
+                String authorId = "player" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return batcher.submit("ABC123", GameState.WRITE_PROMPTS, authorId, true).get(5, TimeUnit.SECONDS);
+                }));
+            }
+            start.countDown();
+
+            int progressions = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(5, TimeUnit.SECONDS)) {
+                    progressions++;
+                }
+            }
+
+            assertEquals(1, flushes.size());
+            assertEquals(players, flushes.get(0).size());
+            assertEquals(1, progressions);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGamesAreBatchedSeparately() throws Exception {
+        List<String> flushedGames = new CopyOnWriteArrayList<>();
+        DoneMarkBatcher batcher = new DoneMarkBatcher(0, (gameCode, batch) -> {
+            flushedGames.add(gameCode);
+            batch.forEach(mark -> mark.result().complete(false));
+        });
+
+        batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player1", true).get(5, TimeUnit.SECONDS);
+        batcher.submit("XYZ789", GameState.WRITE_PROMPTS, "player1", true).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("ABC123", "XYZ789"), flushedGames);
+    }
+
+    @Test
+    void testLeaderHandsOverMarksQueuedDuringItsFlush() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> flushThreads = new CopyOnWriteArrayList<>();
+        DoneMarkBatcher batcher = new DoneMarkBatcher(0, (gameCode, batch) -> {
+            flushThreads.add(Thread.currentThread().getName());
+            flushing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batch.forEach(mark -> mark.result().complete(false));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "player" + runnable.hashCode()));
+        try {
+            Future<String> first = executor.submit(() -> {
+                batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player1", true).get(5, TimeUnit.SECONDS);
+                return Thread.currentThread().getName();
+            });
+            assertTrue(flushing.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> {
+                batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player2", true).get(5, TimeUnit.SECONDS);
+                return Thread.currentThread().getName();
+            });
+            release.countDown();
+
+            String firstThread = first.get(5, TimeUnit.SECONDS);
+            String secondThread = second.get(5, TimeUnit.SECONDS);
+
+            // Each request flushed the batch holding its own mark
+            assertEquals(List.of(firstThread, secondThread), flushThreads);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testInterruptDuringTheWindowDoesNotFailTheFlush() throws Exception {
+        DoneMarkBatcher batcher = new DoneMarkBatcher(5000, (gameCode, batch) -> {
+            assertFalse(Thread.currentThread().isInterrupted());
+            batch.forEach(mark -> mark.result().complete(true));
+        });
+
+        Thread.currentThread().interrupt();
+        CompletableFuture<Boolean> result = batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player1", true);
+
+        assertTrue(Thread.interrupted());
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFlushFailureFailsEveryMarkInTheBatch() {
+        DoneMarkBatcher batcher = new DoneMarkBatcher(0, (gameCode, batch) -> {
+            throw new IllegalStateException("Firestore unavailable");
+        });
+
+        CompletableFuture<Boolean> result = batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player1", true);
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    void testErrorEscapingTheFlushDoesNotStallTheGame() throws Exception {
+        List<Integer> flushes = new CopyOnWriteArrayList<>();
+        DoneMarkBatcher batcher = new DoneMarkBatcher(0, (gameCode, batch) -> {
+            flushes.add(batch.size());
+            if (flushes.size() == 1) {
+                throw new AssertionError("Flush died");
+            }
+            batch.forEach(mark -> mark.result().complete(true));
+        });
+
+        assertThrows(AssertionError.class, () -> batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player1", true));
+        CompletableFuture<Boolean> result = CompletableFuture.supplyAsync(
+                () -> batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player2", true).join());
+
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 1), flushes);
+    }
+
+    @Test
+    void testMarksTheFlushLeavesIncompleteAreFailed() {
+        DoneMarkBatcher batcher = new DoneMarkBatcher(0, (gameCode, batch) -> { });
+
+        CompletableFuture<Boolean> result = batcher.submit("ABC123", GameState.WRITE_PROMPTS, "player1", true);
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,68 @@
+package client.nowhere.dao;
+
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeatureFlagDAOTest {
+
+    private Firestore db;
+    private FeatureFlagDAO featureFlagDAO;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(store, 0))
+                .build()
+                .getService();
+        featureFlagDAO = new FeatureFlagDAO(db, meterRegistry, 60000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        featureFlagDAO.close();
+        db.close();
+    }
+
+    @Test
+    void testMissingFlagsDocumentReadsAsFalse() {
+        assertFalse(featureFlagDAO.getFlagValue("locationVoting"));
+    }
+
+    @Test
+    void testFlagsAreReadOnceAndKeptCurrentByTheListener() throws Exception {
+        DocumentReference flags = db.collection("featureFlags").document("flags");
+        flags.set(Map.of("locationVoting", true, "notABoolean", "yes")).get();
+
+        assertTrue(featureFlagDAO.getFlagValue("locationVoting"));
+        assertFalse(featureFlagDAO.getFlagValue("notABoolean"));
+        assertFalse(featureFlagDAO.getFlagValue("unknown"));
+
+        flags.update("locationVoting", false).get();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (featureFlagDAO.getFlagValue("locationVoting") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertFalse(featureFlagDAO.getFlagValue("locationVoting"));
+        assertEquals(1, meterRegistry.get("nowhere.feature-flags.refreshes").counter().count());
+        assertEquals(1, meterRegistry.get("nowhere.feature-flags.listening").gauge().value());
+        assertTrue(meterRegistry.get("nowhere.feature-flags.listener.updates").counter().count() >= 1);
+        assertEquals(0, meterRegistry.get("nowhere.feature-flags.staleness").gauge().value());
+    }
+}
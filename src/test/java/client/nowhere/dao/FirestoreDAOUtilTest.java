@@ -0,0 +1,66 @@
+package client.nowhere.dao;
+
+import client.nowhere.exception.ResourceException;
+import client.nowhere.model.GameBoard;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class FirestoreDAOUtilTest {
+
+    @Test
+    void testMapFieldReadsOnlyTheRequestedField() {
+        DocumentReference documentReference = mock(DocumentReference.class);
+        DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+        GameBoard gameBoard = new GameBoard();
+        when(documentReference.get(any(FieldMask.class))).thenReturn(ApiFutures.immediateFuture(snapshot));
+        when(snapshot.exists()).thenReturn(true);
+        when(snapshot.get("gameBoard", GameBoard.class)).thenReturn(gameBoard);
+
+        GameBoard result = FirestoreDAOUtil.mapField(documentReference, "gameBoard", GameBoard.class);
+
+        assertSame(gameBoard, result);
+        verify(documentReference).get(any(FieldMask.class));
+        verify(documentReference, never()).get();
+    }
+
+    @Test
+    void testMapFieldThrowsWhenTheDocumentIsMissing() {
+        DocumentReference documentReference = mock(DocumentReference.class);
+        DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+        when(documentReference.get(any(FieldMask.class))).thenReturn(ApiFutures.immediateFuture(snapshot));
+        when(snapshot.exists()).thenReturn(false);
+
+        assertThrows(ResourceException.class, () -> FirestoreDAOUtil.mapField(documentReference, "gameBoard", GameBoard.class));
+    }
+
+    @Test
+    void testToCompletableFutureCompletesWithTheRpcResult() {
+        SettableApiFuture<String> apiFuture = SettableApiFuture.create();
+
+        CompletableFuture<String> future = FirestoreDAOUtil.toCompletableFuture(apiFuture);
+        assertFalse(future.isDone());
+
+        apiFuture.set("done");
+        assertEquals("done", future.join());
+    }
+
+    @Test
+    void testJoinRethrowsResourceExceptionUnwrapped() {
+        CompletableFuture<String> future = FirestoreDAOUtil.supplyAsync(() -> {
+            throw new ResourceException("Game session does not exist");
+        });
+
+        ResourceException exception = assertThrows(ResourceException.class, () -> FirestoreDAOUtil.join(future));
+        assertEquals("Game session does not exist", exception.getMessage());
+    }
+}
@@ -0,0 +1,148 @@
+package client.nowhere.dao;
+
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCodePoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Firestore db;
+    private GameSessionStore gameSessionStore;
+    private GameCodePool gameCodePool;
+
+    @BeforeEach
+    void setUp() {
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(new InMemoryDocumentStore(), 0))
+                .build()
+                .getService();
+        gameSessionStore = new GameSessionStore(db, new GameSessionMigrator(db));
+        gameCodePool = new GameCodePool(db, gameSessionStore, new GameSessionCache(), meterRegistry, 5, 1, 60_000, 3_600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameCodePool.close();
+    }
+
+    @Test
+    void testEveryCodeHandedOutIsUniqueAndReserved() throws Exception {
+        Set<String> gameCodes = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            gameCodes.add(gameCodePool.take());
+        }
+
+        assertEquals(20, gameCodes.size());
+        for (String gameCode : gameCodes) {
+            assertEquals("RESERVED", db.collection(GameCodePool.GAME_CODES).document(gameCode).get().get().getString("state"));
+        }
+        assertEquals(20, meterRegistry.get("nowhere.game-codes.taken").counters().stream().mapToDouble(Counter::count).sum());
+    }
+
+    @Test
+    void testCreatingOverAnExistingDocumentIsRecognisedAsTaken() throws Exception {
+        DocumentReference game = gameSessionStore.getGameRef("ABC234");
+        game.create(Map.of("gameState", "INIT")).get();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> game.create(Map.of("gameState", "INIT")).get());
+
+        assertTrue(GameCodePool.isCodeTaken(thrown));
+        assertFalse(GameCodePool.isCodeTaken(new ExecutionException(new IllegalStateException("unavailable"))));
+    }
+
+    @Test
+    void testFinishedGamesAreDeletedAndTheirCodesReused() throws Exception {
+        gameSessionStore.getGameRef("ABC234").set(Map.of("gameState", "FINALE")).get();
+        gameSessionStore.getPlayerRef("ABC234", "player-1").set(Map.of("userName", "Ash")).get();
+        gameCodePool.release("ABC234");
+        Thread.sleep(5);
+
+        gameCodePool.recycle();
+
+        assertFalse(gameSessionStore.getGameRef("ABC234").get().get().exists());
+        assertFalse(gameSessionStore.getPlayerRef("ABC234", "player-1").get().get().exists());
+        DocumentSnapshot code = db.collection(GameCodePool.GAME_CODES).document("ABC234").get().get();
+        assertEquals("RESERVED", code.getString("state"));
+        assertNull(code.get("finishedAt"));
+        assertEquals("ABC234", gameCodePool.take());
+        assertEquals(1, meterRegistry.get("nowhere.game-codes.recycled").counter().count());
+    }
+
+    @Test
+    void testRecyclingThatStoppedHalfwayIsFinishedByALaterSweep() throws Exception {
+        // A previous attempt claimed the code and deleted the players, then failed before deleting the game
+        gameSessionStore.getGameRef("ABC234").set(Map.of("gameState", "FINALE")).get();
+        codeRef("ABC234").set(Map.of("state", "RECYCLING", "recyclingAt", 0L)).get();
+
+        gameCodePool.sweep();
+
+        assertFalse(gameSessionStore.getGameRef("ABC234").get().get().exists());
+        assertEquals("RESERVED", codeRef("ABC234").get().get().getString("state"));
+        assertEquals("ABC234", gameCodePool.take());
+    }
+
+    @Test
+    void testRecentRecyclingClaimsAreLeftToTheirInstance() throws Exception {
+        gameSessionStore.getGameRef("ABC234").set(Map.of("gameState", "FINALE")).get();
+        codeRef("ABC234").set(Map.of("state", "RECYCLING", "recyclingAt", System.currentTimeMillis())).get();
+
+        gameCodePool.sweep();
+
+        assertTrue(gameSessionStore.getGameRef("ABC234").get().get().exists());
+        assertEquals("RECYCLING", codeRef("ABC234").get().get().getString("state"));
+    }
+
+    @Test
+    void testStaleReservationsAreGivenBackUnlessTheirGameExists() throws Exception {
+        codeRef("ABC234").set(Map.of("state", "RESERVED", "reservedAt", 0L)).get();
+        codeRef("ABC235").set(Map.of("state", "RESERVED", "reservedAt", 0L)).get();
+        gameSessionStore.getGameRef("ABC235").set(Map.of("gameState", "INIT")).get();
+        codeRef("ABC236").set(Map.of("state", "RESERVED", "reservedAt", System.currentTimeMillis())).get();
+
+        gameCodePool.sweep();
+
+        assertFalse(codeRef("ABC234").get().get().exists());
+        assertEquals("IN_USE", codeRef("ABC235").get().get().getString("state"));
+        assertEquals("RESERVED", codeRef("ABC236").get().get().getString("state"));
+        assertEquals(1, meterRegistry.get("nowhere.game-codes.reclaimed").counter().count());
+    }
+
+    @Test
+    void testPooledCodesAreNotHandedOutOnceTheSweepCouldReclaimThem() throws Exception {
+        GameCodePool shortLived = new GameCodePool(db, gameSessionStore, new GameSessionCache(), new SimpleMeterRegistry(), 5, 0, 20, 3_600_000);
+        shortLived.refill();
+        Set<String> pooled = new HashSet<>();
+        db.collection(GameCodePool.GAME_CODES).get().get().forEach(code -> pooled.add(code.getId()));
+        assertEquals(5, pooled.size());
+        Thread.sleep(20);
+
+        try {
+            assertFalse(pooled.contains(shortLived.take()));
+        } finally {
+            shortLived.close();
+        }
+    }
+
+    private DocumentReference codeRef(String gameCode) {
+        return db.collection(GameCodePool.GAME_CODES).document(gameCode);
+    }
+}
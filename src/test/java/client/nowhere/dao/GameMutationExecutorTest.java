@@ -0,0 +1,101 @@
+package client.nowhere.dao;
+
+import client.nowhere.exception.ResourceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMutationExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GameMutationExecutor executor = new GameMutationExecutor(meterRegistry, 64, 2000);
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testMutationsOfAGameRunOneAtATimeInOrder() throws Exception {
+        List<Integer> applied = new ArrayList<>();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int mutation = i;
+            // An unsynchronized list only ends up complete and ordered if nothing overlapped
+            futures.add(executor.submit("ABC123", () -> {
+                applied.add(mutation);
+                return mutation;
+            }));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, applied);
+        assertEquals(49, futures.getLast().get());
+    }
+
+    @Test
+    void testNestedMutationOfTheSameGameRunsInline() {
+        String result = executor.execute("ABC123", () -> executor.execute("ABC123", () -> "nested"));
+
+        assertEquals("nested", result);
+    }
+
+    @Test
+    void testFailuresReachTheCaller() {
+        ResourceException thrown = assertThrows(ResourceException.class,
+                () -> executor.execute("ABC123", (Runnable) () -> { throw new ResourceException("No such game"); }));
+
+        assertEquals("No such game", thrown.getMessage());
+        assertEquals(1, meterRegistry.get("nowhere.game-mutations.runs").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void testFullMailboxTurnsCallersAway() throws Exception {
+        executor.close();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        executor = new GameMutationExecutor(meterRegistry, 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = executor.submit("ABC123", () -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = executor.submit("ABC123", () -> "queued");
+
+        assertThrows(ResourceException.class, () -> executor.submit("ABC123", () -> "rejected"));
+        // Other games have their own mailbox
+        assertEquals("other", executor.execute("XYZ789", () -> "other"));
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, meterRegistry.get("nowhere.game-mutations.rejected").counter().count());
+        assertEquals(3, meterRegistry.get("nowhere.game-mutations.runs").tag("outcome", "success").timer().count());
+        assertEquals(0, meterRegistry.get("nowhere.game-mutations.pending").gauge().value());
+        assertEquals(1, meterRegistry.get("nowhere.game-mutations.queue.depth").summary().max());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
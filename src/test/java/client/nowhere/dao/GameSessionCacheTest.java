@@ -0,0 +1,104 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.GameSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSessionCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testRepeatedReadsAreServedFromMemory() {
+        GameSessionCache cache = new GameSessionCache(60_000, 10, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        GameSession first = cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession(code);
+        });
+        GameSession second = cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession(code);
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+
+        assertEquals(1, meterRegistry.get("nowhere.game-session.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("nowhere.game-session.cache.gets").tag("result", "miss").counter().count());
+        assertEquals(1, meterRegistry.get("nowhere.game-session.cache.size").gauge().value());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        GameSessionCache cache = new GameSessionCache(60_000, 10, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        GameSession failed = cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession();
+        });
+        GameSession loaded = cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession(code);
+        });
+
+        assertNull(failed.getGameCode());
+        assertEquals("ABC123", loaded.getGameCode());
+        assertEquals(2, loads.get());
+        assertSame(loaded, cache.getIfPresent("ABC123"));
+    }
+
+    @Test
+    void testInvalidateForcesReload() {
+        GameSessionCache cache = new GameSessionCache(60_000, 10, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession(code);
+        });
+        cache.invalidate("ABC123");
+        cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession(code);
+        });
+
+        assertEquals(2, loads.get());
+        assertEquals(1, meterRegistry.get("nowhere.game-session.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void testExpiredEntriesAreReloaded() {
+        GameSessionCache cache = new GameSessionCache(0, 10, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession(code);
+        });
+        cache.get("ABC123", code -> {
+            loads.incrementAndGet();
+            return new GameSession(code);
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testCacheIsBoundedBySize() {
+        GameSessionCache cache = new GameSessionCache(60_000, 2, meterRegistry);
+
+        cache.get("AAAAAA", GameSession::new);
+        cache.get("BBBBBB", GameSession::new);
+        cache.get("CCCCCC", GameSession::new);
+
+        assertEquals(2, meterRegistry.get("nowhere.game-session.cache.size").gauge().value());
+        assertEquals(1, meterRegistry.get("nowhere.game-session.cache.evictions").counter().count());
+    }
+}
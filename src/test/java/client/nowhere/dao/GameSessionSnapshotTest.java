@@ -0,0 +1,132 @@
+package client.nowhere.dao;
+
+import client.nowhere.dao.GameSessionDocuments.PlayerDocument;
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import client.nowhere.metrics.MeteredFirestoreRpc;
+import client.nowhere.model.GameSession;
+import client.nowhere.model.GameState;
+import client.nowhere.model.Player;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class GameSessionSnapshotTest {
+
+    private Firestore db;
+    private GameSessionStore gameSessionStore;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> MeteredFirestoreRpc.wrap(InMemoryFirestoreRpc.create(new InMemoryDocumentStore(), 0), meterRegistry))
+                .build()
+                .getService();
+        gameSessionStore = new GameSessionStore(db, mock(GameSessionMigrator.class));
+
+        gameSessionStore.getGameRef("ABC123").set(Map.of(
+                "gameCode", "ABC123",
+                "gameState", GameState.WHERE_ARE_WE.name(),
+                "collaborativeTextPhases", Map.of("WHERE_ARE_WE", Map.of("phaseId", "WHERE_ARE_WE"))
+        )).get();
+        gameSessionStore.getPlayerRef("ABC123", "alice").set(new PlayerDocument(1, new Player("ABC123", "alice"))).get();
+    }
+
+    @Test
+    void testARequestReadsEachGameOnce() throws Exception {
+        double readsBefore = documentReads();
+        try (GameSessionSnapshot snapshot = GameSessionSnapshot.open()) {
+            GameSession first = gameSessionStore.load("ABC123");
+            // The game and its player, plus one billed read for each of the empty stories, submissions and votes
+            assertEquals(5, documentReads() - readsBefore);
+
+            GameSession second = gameSessionStore.load("ABC123");
+            assertNotNull(gameSessionStore.loadPhase("ABC123", "WHERE_ARE_WE"));
+            assertEquals(GameState.WHERE_ARE_WE, FirestoreDAOUtil.mapField(gameSessionStore.getGameRef("ABC123"), "gameState", GameState.class));
+            GameSession onAnotherThread = FirestoreDAOUtil.join(FirestoreDAOUtil.supplyAsync(() -> load("ABC123")));
+
+            assertEquals(5, documentReads() - readsBefore);
+            assertEquals(4, snapshot.getReusedLoads());
+
+            // Each load gets its own session to change
+            assertNotSame(first, second);
+            first.getPlayers().clear();
+            assertEquals(1, second.getPlayers().size());
+            assertEquals(1, onAnotherThread.getPlayers().size());
+        }
+        assertNull(GameSessionSnapshot.current());
+    }
+
+    @Test
+    void testWritesDropTheGameFromTheSnapshot() throws Exception {
+        GameSessionCache gameSessionCache = new GameSessionCache();
+
+        double readsBefore = documentReads();
+        try (GameSessionSnapshot snapshot = GameSessionSnapshot.open()) {
+            gameSessionStore.load("ABC123");
+            gameSessionStore.getGameRef("ABC123").update("gameState", GameState.WHERE_ARE_WE_VOTE.name()).get();
+            gameSessionCache.invalidate("ABC123");
+
+            assertEquals(GameState.WHERE_ARE_WE_VOTE, gameSessionStore.load("ABC123").getGameState());
+            assertEquals(10, documentReads() - readsBefore);
+            assertEquals(0, snapshot.getReusedLoads());
+        }
+    }
+
+    @Test
+    void testWritesAreRememberedByTheSnapshotsTheyHappenedIn() {
+        GameSessionCache gameSessionCache = new GameSessionCache();
+        try (GameSessionSnapshot outer = GameSessionSnapshot.open()) {
+            try (GameSessionSnapshot inner = GameSessionSnapshot.open()) {
+                gameSessionCache.invalidate("ABC123");
+                assertTrue(inner.isRefreshed("ABC123"));
+            }
+            assertTrue(outer.isRefreshed("ABC123"));
+            assertFalse(outer.isRefreshed("XYZ789"));
+
+            try (GameSessionSnapshot later = GameSessionSnapshot.open()) {
+                assertFalse(later.isRefreshed("ABC123"));
+            }
+        }
+    }
+
+    @Test
+    void testReadsOutsideASnapshotAreNotKept() throws Exception {
+        gameSessionStore.load("ABC123");
+
+        double readsBefore = documentReads();
+        try (GameSessionSnapshot snapshot = GameSessionSnapshot.open()) {
+            assertNotNull(gameSessionStore.loadPhase("ABC123", "WHERE_ARE_WE"));
+            // The phase fields of the game, plus one billed read for each of the empty submissions and votes
+            assertEquals(3, documentReads() - readsBefore);
+            assertEquals(0, snapshot.getReusedLoads());
+        }
+    }
+
+    private double documentReads() {
+        return meterRegistry.find("nowhere.firestore.documents").tag("operation", "read").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private GameSession load(String gameCode) {
+        try {
+            return gameSessionStore.load(gameCode);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package client.nowhere.dao;
+
+import client.nowhere.exception.ResourceException;
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import client.nowhere.model.Location;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSessionUnitOfWorkTest {
+
+    private Firestore db;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(store, 0))
+                .build()
+                .getService();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void testStagedWritesAreCommittedTogetherWhenTheWorkEnds() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        DocumentReference story = game.collection("stories").document("story-1");
+        game.set(Map.of("roundNumber", 1L, "gameState", "INIT")).get();
+        List<String> committed = new ArrayList<>();
+
+        GameSessionUnitOfWork.run(() -> {
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            unitOfWork.mergeField(game, "roundNumber", Long.class, roundNumber -> roundNumber + 1);
+            unitOfWork.mergeField(game, "roundNumber", Long.class, roundNumber -> roundNumber * 10);
+            unitOfWork.update(game, Map.of("gameState", "ROUND_ONE"));
+            unitOfWork.set(story, Map.of("prompt", "A door"));
+            unitOfWork.afterCommit(() -> committed.add("ABC123"));
+
+            assertEquals(1L, FirestoreDAOUtil.mapField(game, "roundNumber", Long.class));
+        });
+
+        DocumentSnapshot snapshot = game.get().get();
+        assertEquals(20L, snapshot.getLong("roundNumber"));
+        assertEquals("ROUND_ONE", snapshot.getString("gameState"));
+        assertEquals("A door", story.get().get().getString("prompt"));
+        assertEquals(List.of("ABC123"), committed);
+        assertNull(GameSessionUnitOfWork.current());
+    }
+
+    @Test
+    void testNothingIsWrittenWhenTheWorkThrows() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        game.set(Map.of("roundNumber", 1L)).get();
+
+        assertThrows(IllegalStateException.class, () -> GameSessionUnitOfWork.run((Runnable) () -> {
+            GameSessionUnitOfWork.current().update(game, Map.of("roundNumber", 2L));
+            throw new IllegalStateException("Failed mid transition");
+        }));
+
+        assertEquals(1L, game.get().get().getLong("roundNumber"));
+        assertNull(GameSessionUnitOfWork.current());
+    }
+
+    @Test
+    void testNestedUnitOfWorkJoinsTheOuterOne() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        game.set(Map.of("roundNumber", 1L)).get();
+
+        GameSessionUnitOfWork.run(() -> {
+            GameSessionUnitOfWork outer = GameSessionUnitOfWork.current();
+            GameSessionUnitOfWork.run(() -> {
+                assertSame(outer, GameSessionUnitOfWork.current());
+                outer.update(game, Map.of("roundNumber", 2L));
+            });
+            assertEquals(1L, FirestoreDAOUtil.mapField(game, "roundNumber", Long.class));
+            return null;
+        });
+
+        assertEquals(2L, game.get().get().getLong("roundNumber"));
+    }
+
+    @Test
+    void testMergeStartsFromADocumentSetEarlierInTheSameUnitOfWork() throws Exception {
+        DocumentReference story = db.collection("gameSessions").document("ABC123").collection("stories").document("story-1");
+
+        GameSessionUnitOfWork.run(() -> {
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            unitOfWork.set(story, Map.of("prompt", "A door"));
+            unitOfWork.mergeField(story, "prompt", String.class, prompt -> prompt + " creaks open");
+        });
+
+        assertEquals("A door creaks open", story.get().get().getString("prompt"));
+    }
+
+    @Test
+    void testMergeOfAFieldTheStagedDocumentLacksFailsTheCommit() throws Exception {
+        DocumentReference story = db.collection("gameSessions").document("ABC123").collection("stories").document("story-1");
+
+        assertThrows(ResourceException.class, () -> GameSessionUnitOfWork.run(() -> {
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            unitOfWork.set(story, new Location("tavern", "tavern"));
+            unitOfWork.mergeField(story, "prompt", String.class, prompt -> "A door");
+        }));
+
+        assertFalse(story.get().get().exists());
+    }
+
+    @Test
+    void testAfterCommitCallbacksDoNotRunWhenTheCommitFails() {
+        DocumentReference missing = db.collection("gameSessions").document("MISSING");
+        List<String> committed = new ArrayList<>();
+
+        assertThrows(ResourceException.class, () -> GameSessionUnitOfWork.run(() -> {
+            GameSessionUnitOfWork unitOfWork = GameSessionUnitOfWork.current();
+            unitOfWork.update(missing, Map.of("roundNumber", 2L));
+            unitOfWork.afterCommit(() -> committed.add("MISSING"));
+        }));
+
+        assertTrue(committed.isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package client.nowhere.dao;
+
+import client.nowhere.model.GameSessionEvent;
+import client.nowhere.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSessionWatcherTest {
+
+    @Test
+    void testFirstSnapshotCarriesFullState() {
+        GameSessionWatcher.GameSessionDiff diff = new GameSessionWatcher.GameSessionDiff("ABC123");
+
+        GameSessionEvent event = diff.onGameSession(GameState.WRITE_PROMPTS, 1, Map.of("player1", false, "player2", false));
+
+        assertEquals("ABC123", event.gameCode());
+        assertEquals(GameState.WRITE_PROMPTS, event.gameState());
+        assertEquals(1, event.roundNumber());
+        assertEquals(Map.of("player1", false, "player2", false), event.isPlayerDone());
+    }
+
+    @Test
+    void testLaterSnapshotsOnlyCarryChanges() {
+        GameSessionWatcher.GameSessionDiff diff = new GameSessionWatcher.GameSessionDiff("ABC123");
+        diff.onGameSession(GameState.WRITE_PROMPTS, 1, Map.of("player1", false, "player2", false));
+
+        GameSessionEvent playerDone = diff.onGameSession(GameState.WRITE_PROMPTS, 1, Map.of("player1", true, "player2", false));
+        assertNull(playerDone.gameState());
+        assertNull(playerDone.roundNumber());
+        assertEquals(Map.of("player1", true), playerDone.isPlayerDone());
+
+        GameSessionEvent unchanged = diff.onGameSession(GameState.WRITE_PROMPTS, 1, Map.of("player1", true, "player2", false));
+        assertTrue(unchanged.isEmpty());
+
+        GameSessionEvent nextPhase = diff.onGameSession(GameState.WRITE_PROMPTS_AGAIN, 1, new HashMap<>());
+        assertEquals(GameState.WRITE_PROMPTS_AGAIN, nextPhase.gameState());
+        assertEquals(Map.of("player1", false, "player2", false), nextPhase.isPlayerDone());
+    }
+
+    @Test
+    void testSubmissionCountsReportChangedPhasesOnly() {
+        GameSessionWatcher.GameSessionDiff diff = new GameSessionWatcher.GameSessionDiff("ABC123");
+
+        GameSessionEvent first = diff.onSubmissionCounts(Map.of("WHERE_ARE_WE", 2));
+        assertEquals(Map.of("WHERE_ARE_WE", 2), first.submissionCounts());
+
+        GameSessionEvent second = diff.onSubmissionCounts(Map.of("WHERE_ARE_WE", 2, "WHAT_DO_WE_FEAR", 1));
+        assertEquals(Map.of("WHAT_DO_WE_FEAR", 1), second.submissionCounts());
+
+        GameSessionEvent cleared = diff.onSubmissionCounts(Map.of("WHAT_DO_WE_FEAR", 1));
+        assertEquals(Map.of("WHERE_ARE_WE", 0), cleared.submissionCounts());
+    }
+
+    @Test
+    void testMergedEventsRebuildCurrentState() {
+        GameSessionWatcher.GameSessionDiff diff = new GameSessionWatcher.GameSessionDiff("ABC123");
+        GameSessionEvent state = diff.onGameSession(GameState.WRITE_PROMPTS, 1, Map.of("player1", false, "player2", false));
+        state = state.merge(diff.onGameSession(GameState.WRITE_PROMPTS, 1, Map.of("player1", true, "player2", false)));
+        state = state.merge(diff.onSubmissionCounts(Map.of("WHERE_ARE_WE", 3)));
+
+        assertEquals(GameState.WRITE_PROMPTS, state.gameState());
+        assertEquals(Map.of("player1", true, "player2", false), state.isPlayerDone());
+        assertEquals(Map.of("WHERE_ARE_WE", 3), state.submissionCounts());
+    }
+}
@@ -4,13 +4,17 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import client.nowhere.exception.ResourceException;
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
 import client.nowhere.model.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.core.ApiFuture;
 import com.google.api.core.ApiFutures;
+import com.google.cloud.NoCredentials;
 import com.google.cloud.firestore.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -18,11 +22,15 @@ import org.mockito.MockitoAnnotations;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.Set;
 
 public class StoryDAOTest {
 
+        private final Map<Firestore, Transaction> transactions = new HashMap<>();
+
         @Mock
         private Firestore db;
 
@@ -55,12 +63,14 @@ public class StoryDAOTest {
 
             ObjectMapper objectMapper = new ObjectMapper();
             Firestore mockDb = mock(Firestore.class);
-            StoryDAO storyDAO = new StoryDAO(mockDb, objectMapper);
+            StoryDAO storyDAO = new StoryDAO(mockDb, objectMapper, new GameSessionCache(),
+                    new GameSessionStore(mockDb, mock(GameSessionMigrator.class)));
 
-            DocumentReference mockGameSessionRef = setupFirestoreStoryMocks(
+            DocumentReference mockStoryRef = setupFirestoreStoryMocks(
                     mockDb,
                     objectMapper,
                     gameCode,
+                    storyIdToUpdate,
                     "src/test/resources/ROUND1_stories.json");
 
             // Create a story object to update
@@ -80,12 +90,11 @@ public class StoryDAOTest {
                 assertEquals(true, updatedStory.isPlayerSucceeded());
                 assertEquals(selectedOptionId, updatedStory.getSelectedOptionId());
 
-                File rawUpdatedStories = new File("src/test/resources/ROUND1_stories_updated.json");
-                List<Story> expectedStories = objectMapper.readValue(
-                        rawUpdatedStories,
-                        objectMapper.getTypeFactory().constructCollectionType(List.class, Story.class)
-                );
-                verify(mockGameSessionRef, times(1)).update(eq("stories"), eq(expectedStories));
+                Story expectedStory = readStory(objectMapper, "src/test/resources/ROUND1_stories_updated.json", storyIdToUpdate);
+                Map<String, Object> updates = captureStoryUpdates(mockDb, mockStoryRef);
+                assertEquals(Set.of("story.selectedOptionId", "story.playerSucceeded"), updates.keySet());
+                assertEquals(expectedStory.getSelectedOptionId(), updates.get("story.selectedOptionId"));
+                assertEquals(expectedStory.isPlayerSucceeded(), updates.get("story.playerSucceeded"));
             } catch (IOException e) {
                 System.out.println("File failed to process" + e.getMessage());
             }
@@ -100,12 +109,14 @@ public class StoryDAOTest {
 
         ObjectMapper objectMapper = new ObjectMapper();
         Firestore mockDb = mock(Firestore.class);
-        StoryDAO storyDAO = new StoryDAO(mockDb, objectMapper);
+        StoryDAO storyDAO = new StoryDAO(mockDb, objectMapper, new GameSessionCache(),
+                new GameSessionStore(mockDb, mock(GameSessionMigrator.class)));
 
-        DocumentReference mockGameSessionRef = setupFirestoreStoryMocks(
+        DocumentReference mockStoryRef = setupFirestoreStoryMocks(
                 mockDb,
                 objectMapper,
                 gameCode,
+                storyIdToUpdate,
                 "src/test/resources/WRITE_OPTIONS_AGAIN_stories.json"
         );
 
@@ -146,54 +157,135 @@ public class StoryDAOTest {
 
             assertEquals("a80ef30c-e3fb-4a6c-99fc-bc9a39684b05", updatedStory.getSelectedOption().getSelectedOutcomeFork().getTextSubmission().getSubmissionId());
 
-            File rawUpdatedStories = new File("src/test/resources/WRITE_OPTIONS_AGAIN_stories_updated.json");
-            List<Story> expectedStories = objectMapper.readValue(
-                    rawUpdatedStories,
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, Story.class)
-            );
-            verify(mockGameSessionRef, times(1)).update(eq("stories"), eq(expectedStories));
+            Story expectedStory = readStory(objectMapper, "src/test/resources/WRITE_OPTIONS_AGAIN_stories_updated.json", storyIdToUpdate);
+            Map<String, Object> updates = captureStoryUpdates(mockDb, mockStoryRef);
+            assertEquals(Set.of("story.playerId", "story.repercussions", "story.location", "story.selectedOptionId", "story.visited", "story.options"), updates.keySet());
+            assertEquals(expectedStory.getPlayerId(), updates.get("story.playerId"));
+            assertEquals(townLocale, updates.get("story.location"));
+            assertEquals("d274a490-52ff-48df-bf2a-4086c2b86e83", updates.get("story.selectedOptionId"));
+            assertEquals(updatedStory.getOptions(), updates.get("story.options"));
         } catch (IOException e) {
             System.out.println("File failed to process" + e.getMessage());
         }
     }
 
+    @Test
+    void testUpdateStory_UnchangedFieldsAreNotWritten() {
+        Story storedStory = new Story();
+        storedStory.setStoryId("story1");
+        storedStory.setPrompt("A door creaks open");
+        storedStory.setPlayerId("player1");
+
+        Story edit = new Story();
+        edit.setStoryId("story1");
+        edit.setPrompt("A door creaks open");
+        edit.setPlayerId("player2");
+
+        Map<String, Object> updates = StoryDAO.applyStoryUpdates(edit, storedStory);
+
+        assertEquals(Map.of("story.playerId", "player2"), updates);
+        assertEquals("player2", storedStory.getPlayerId());
+    }
+
+    @Test
+    void testCreateStories_WritesStoriesAndBoardInOneCommit() throws Exception {
+        Firestore inMemoryDb = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(new InMemoryDocumentStore(), 0))
+                .build()
+                .getService();
+        StoryDAO storyDAO = new StoryDAO(inMemoryDb, new ObjectMapper(), new GameSessionCache(),
+                new GameSessionStore(inMemoryDb, mock(GameSessionMigrator.class)));
+        inMemoryDb.collection("gameSessions").document("GAME123").set(Map.of("gameCode", "GAME123")).get();
+
+        GameBoard gameBoard = new GameBoard();
+        List<Story> stories = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Story story = new Story();
+            story.setNewStoryId();
+            story.setGameCode("GAME123");
+            story.setPrompt("Encounter " + i);
+            stories.add(story);
+            gameBoard.setEncounter(i, 0, new Encounter(new EncounterLabel("label" + i, "Label " + i), EncounterType.NORMAL, story.getStoryId(), story.getPrompt()));
+        }
+
+        storyDAO.createStories("GAME123", stories, gameBoard);
+
+        DocumentReference game = inMemoryDb.collection("gameSessions").document("GAME123");
+        assertEquals(3, game.collection("stories").get().get().size());
+        assertNotNull(game.get().get().get("gameBoard"));
+
+        // Nothing is written when the board cannot be, e.g. because the game does not exist
+        assertThrows(ResourceException.class, () -> storyDAO.createStories("MISSING", stories, gameBoard));
+        assertEquals(0, inMemoryDb.collection("gameSessions").document("MISSING").collection("stories").get().get().size());
+    }
+
     private DocumentReference setupFirestoreStoryMocks(
             Firestore mockDb,
             ObjectMapper objectMapper,
             String gameCode,
+            String storyId,
             String filePath
     ) {
             // Mock Firestore and related components
-            DocumentSnapshot mockGameSessionSnapshot = mock(DocumentSnapshot.class);
+            DocumentSnapshot mockStorySnapshot = mock(DocumentSnapshot.class);
             DocumentReference mockGameSessionRef = mock(DocumentReference.class);
+            DocumentReference mockStoryRef = mock(DocumentReference.class);
             CollectionReference mockCollectionRef = mock(CollectionReference.class);
+            CollectionReference mockStoriesRef = mock(CollectionReference.class);
 
 
             // Mock Firestore reference and behavior
             when(mockDb.collection("gameSessions")).thenReturn(mockCollectionRef);
             when(mockCollectionRef.document(gameCode)).thenReturn(mockGameSessionRef);
-            when(mockGameSessionRef.get()).thenReturn(ApiFutures.immediateFuture(mockGameSessionSnapshot));
-            when(mockGameSessionSnapshot.exists()).thenReturn(true);
-
-            // Load game session JSON and set it as the return for the mock snapshot
-            File jsonFile = new File(filePath);
+            when(mockGameSessionRef.collection("stories")).thenReturn(mockStoriesRef);
+            when(mockStoriesRef.document(storyId)).thenReturn(mockStoryRef);
+            when(mockStoryRef.get()).thenReturn(ApiFutures.immediateFuture(mockStorySnapshot));
+            when(mockStorySnapshot.exists()).thenReturn(true);
+
+            // Run transactions inline against a mock transaction that reads the story document
+            Transaction mockTransaction = mock(Transaction.class);
+            when(mockTransaction.get(mockStoryRef)).thenReturn(ApiFutures.immediateFuture(mockStorySnapshot));
+            when(mockDb.runTransaction(any())).thenAnswer(invocation -> {
+                Transaction.Function<?> function = invocation.getArgument(0);
+                return ApiFutures.immediateFuture(function.updateCallback(mockTransaction));
+            });
+            transactions.put(mockDb, mockTransaction);
 
             try {
-                Object rawStories = objectMapper.readValue(
-                        jsonFile,
-                        Object.class
-                );
-
-                when(mockGameSessionSnapshot.get("stories")).thenReturn(rawStories);
-                ApiFuture<WriteResult> mockApiFuture = mock(ApiFuture.class);
-                WriteResult writeResult = mock(WriteResult.class);
-                when(mockGameSessionRef.update(eq("stories"), any())).thenReturn(mockApiFuture);
-                when(mockApiFuture.get()).thenReturn(writeResult);
-                when(writeResult.toString()).thenReturn("Now");
-            } catch (IOException | ExecutionException | InterruptedException exception) {
+                // Load the stored story from the game session JSON and return it from the story document
+                Story storedStory = readStory(objectMapper, filePath, storyId);
+                when(mockStorySnapshot.toObject(GameSessionDocuments.StoryDocument.class))
+                        .thenReturn(new GameSessionDocuments.StoryDocument(0, storedStory));
+            } catch (IOException exception) {
                 throw new ResourceException("There was an issue setting up the DAO mocks", exception);
             }
 
-            return mockGameSessionRef;
+            return mockStoryRef;
         }
-}
\ No newline at end of file
+
+    /**
+     * Returns the single field-level update written to the story document, and checks that
+     * nothing else in the session was read or written to produce it.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> captureStoryUpdates(Firestore mockDb, DocumentReference mockStoryRef) {
+        Transaction mockTransaction = transactions.get(mockDb);
+        ArgumentCaptor<Map<String, Object>> updatesCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(mockTransaction, times(1)).update(eq(mockStoryRef), updatesCaptor.capture());
+        verify(mockTransaction, never()).get(any(Query.class));
+        return updatesCaptor.getValue();
+    }
+
+    private Story readStory(ObjectMapper objectMapper, String filePath, String storyId) throws IOException {
+        List<Story> stories = objectMapper.readValue(
+                new File(filePath),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, Story.class)
+        );
+        return stories.stream()
+                .filter(story -> story.getStoryId().equals(storyId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
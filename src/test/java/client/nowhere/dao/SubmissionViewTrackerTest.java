@@ -0,0 +1,80 @@
+package client.nowhere.dao;
+
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubmissionViewTrackerTest {
+
+    private Firestore db;
+    private SubmissionViewTracker tracker;
+    private DocumentReference game;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(store, 0))
+                .build()
+                .getService();
+        // Flushed by hand, so the scheduled flush never runs during a test
+        tracker = new SubmissionViewTracker(db, 3_600_000, 3_600_000);
+        game = db.collection("gameSessions").document("ABC123");
+        game.set(Map.of("collaborativeTextPhases", Map.of("WHERE_ARE_WE", Map.of(
+                "phaseId", "WHERE_ARE_WE",
+                "submissionViews", Map.of("s1", List.of("alice"))
+        )))).get();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        tracker.close();
+        db.close();
+    }
+
+    @Test
+    void testViewsAreSeededFromTheStoredPhaseAndFlushedInTheBackground() throws Exception {
+        Map<String, List<String>> stored = Map.of("s1", List.of("alice"));
+
+        tracker.browse("ABC123", "WHERE_ARE_WE", stored, views -> views.computeIfAbsent("s1", id -> new ArrayList<>()).add("bob"));
+        // Later browses use the in-memory views, not whatever the caller read
+        List<String> viewers = tracker.browse("ABC123", "WHERE_ARE_WE", Map.of(), views -> List.copyOf(views.get("s1")));
+        assertEquals(List.of("alice", "bob"), viewers);
+        assertEquals(Map.of("s1", List.of("alice")), storedViews());
+
+        tracker.flush();
+
+        assertEquals(Map.of("s1", List.of("alice", "bob")), storedViews());
+    }
+
+    @Test
+    void testClearWritesEmptyViewsForABrowsedPhase() throws Exception {
+        tracker.browse("ABC123", "WHERE_ARE_WE", Map.of("s1", List.of("alice")), views -> views.put("s2", new ArrayList<>(List.of("carol"))));
+        tracker.clear("ABC123", "WHERE_ARE_WE");
+        tracker.clear("ABC123", "NEVER_BROWSED");
+
+        tracker.flush();
+
+        assertEquals(Map.of(), storedViews());
+        assertEquals(0, tracker.browse("ABC123", "WHERE_ARE_WE", Map.of("s1", List.of("alice")), Map::size));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> storedViews() throws Exception {
+        return (Map<String, Object>) game.get().get().get("collaborativeTextPhases.WHERE_ARE_WE.submissionViews");
+    }
+}
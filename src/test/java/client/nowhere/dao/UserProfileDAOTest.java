@@ -0,0 +1,154 @@
+package client.nowhere.dao;
+
+import client.nowhere.exception.ResourceException;
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import client.nowhere.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserProfileDAOTest {
+
+    private Firestore db;
+    private UserProfileDAO userProfileDAO;
+    private UserProfile userProfile;
+    private String adventureId;
+    private String saveGameId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(new InMemoryDocumentStore(), 0))
+                .build()
+                .getService();
+        userProfileDAO = new UserProfileDAO(db, new ObjectMapper(), new SaveGameStore(db));
+
+        // A profile in the original layout, with its save game and stories embedded in the document
+        userProfile = new UserProfile("player@example.com", "hash");
+        ProfileAdventureMap profileAdventureMap = new ProfileAdventureMap(new AdventureMap());
+        adventureId = profileAdventureMap.getAdventureMap().getAdventureId();
+        SaveGame saveGame = profileAdventureMap.getSaveGames().values().iterator().next();
+        saveGameId = saveGame.getId();
+        saveGame.getGlobalStories().addAll(List.of(
+                story("tavern-1", "tavern"),
+                story("castle-1", "castle"),
+                sequel("tavern-1-won", "tavern-1-option", true),
+                sequel("tavern-1-lost", "tavern-1-option", false)
+        ));
+        userProfile.upsertProfileAdventureMap(profileAdventureMap);
+        db.collection("userProfiles").document(userProfile.getId()).set(userProfile).get();
+    }
+
+    @Test
+    void testLegacyProfileIsMigratedOnFirstRead() throws Exception {
+        UserProfile read = userProfileDAO.get(userProfile.getId());
+
+        SaveGame saveGame = read.getMaps().get(adventureId).getSaveGameById(saveGameId);
+        assertNotNull(saveGame);
+        assertTrue(saveGame.getGlobalStories().isEmpty());
+
+        DocumentSnapshot profile = db.collection("userProfiles").document(userProfile.getId()).get().get();
+        assertEquals(SaveGameStore.CURRENT_STORAGE_VERSION, profile.getLong("storageVersion"));
+        Map<?, ?> maps = (Map<?, ?>) profile.get("maps");
+        assertFalse(((Map<?, ?>) maps.get(adventureId)).containsKey("saveGames"));
+
+        List<String> storyIds = userProfileDAO.getSaveGame(userProfile.getId(), adventureId, saveGameId)
+                .getGlobalStories().stream().map(Story::getStoryId).toList();
+        assertEquals(List.of("tavern-1", "castle-1", "tavern-1-won", "tavern-1-lost"), storyIds);
+    }
+
+    @Test
+    void testSequelAndStandaloneStoriesAreFoundByQuery() {
+        Story played = story("tavern-1", "tavern");
+        played.setSelectedOptionId("tavern-1-option");
+        played.setPlayerSucceeded(true);
+
+        List<Story> sequels = userProfileDAO.getSaveGameSequelStories(userProfile.getId(), adventureId, saveGameId, List.of(played));
+        assertEquals(List.of("tavern-1-won"), sequels.stream().map(Story::getStoryId).toList());
+
+        GameSession gameSession = new GameSession("ABC123");
+        gameSession.setUserProfileId(userProfile.getId());
+        gameSession.setAdventureMap(userProfile.getMaps().get(adventureId).getAdventureMap());
+        gameSession.setSaveGameId(saveGameId);
+        gameSession.setStories(List.of(story("castle-1", "castle")));
+
+        assertEquals(List.of("tavern-1"), userProfileDAO.getRegularSaveGameStories(gameSession, "tavern")
+                .stream().map(Story::getStoryId).toList());
+        assertTrue(userProfileDAO.getRegularSaveGameStories(gameSession, "castle").isEmpty());
+    }
+
+    @Test
+    void testSequelLookupCoversMoreKeysThanOneQueryAllows() {
+        List<Story> sequelsToSave = new ArrayList<>();
+        List<Story> played = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            sequelsToSave.add(sequel("sequel-" + i, "option-" + i, true));
+            Story playedStory = story("played-" + i, "forest");
+            playedStory.setSelectedOptionId("option-" + i);
+            playedStory.setPlayerSucceeded(true);
+            played.add(playedStory);
+        }
+        userProfileDAO.saveGameToUserProfile(sequelsToSave, userProfile.getId(), adventureId, saveGameId);
+
+        List<String> sequelIds = userProfileDAO.getSaveGameSequelStories(userProfile.getId(), adventureId, saveGameId, played)
+                .stream().map(Story::getStoryId).toList();
+
+        assertEquals(sequelsToSave.stream().map(Story::getStoryId).toList(), sequelIds);
+    }
+
+    @Test
+    void testSavingStoriesAddsOnlyTheNewOnes() {
+        List<Story> added = userProfileDAO.saveGameToUserProfile(
+                List.of(story("castle-1", "castle"), story("forest-1", "forest"), story("forest-1", "forest")),
+                userProfile.getId(), adventureId, saveGameId);
+
+        assertEquals(List.of("forest-1"), added.stream().map(Story::getStoryId).toList());
+        List<Story> stories = userProfileDAO.getSaveGame(userProfile.getId(), adventureId, saveGameId).getGlobalStories();
+        assertEquals(5, stories.size());
+        assertEquals("forest-1", stories.get(4).getStoryId());
+
+        ResourceException thrown = assertThrows(ResourceException.class, () -> userProfileDAO.saveGameToUserProfile(
+                List.of(story("forest-2", "forest")), userProfile.getId(), adventureId, "missing"));
+        assertEquals("Save game missing not found in adventure " + adventureId, thrown.getMessage());
+    }
+
+    @Test
+    void testSaveGameWithoutStoriesCanBeWritten() {
+        ProfileAdventureMap profileAdventureMap = new ProfileAdventureMap(new AdventureMap());
+        SaveGame saveGame = profileAdventureMap.getSaveGames().values().iterator().next();
+        saveGame.setGlobalStories(null);
+        UserProfile created = new UserProfile("new@example.com", "password");
+        created.upsertProfileAdventureMap(profileAdventureMap);
+
+        userProfileDAO.create(created);
+
+        String newAdventureId = profileAdventureMap.getAdventureMap().getAdventureId();
+        assertTrue(userProfileDAO.getSaveGame(created.getId(), newAdventureId, saveGame.getId()).getGlobalStories().isEmpty());
+    }
+
+    private static Story story(String storyId, String locationId) {
+        Story story = new Story();
+        story.setStoryId(storyId);
+        story.setLocation(new Location(locationId, locationId));
+        return story;
+    }
+
+    private static Story sequel(String storyId, String prequelOptionId, boolean prequelSucceeded) {
+        Story story = story(storyId, "tavern");
+        story.makeSequel("tavern-1", prequelSucceeded, prequelOptionId);
+        return story;
+    }
+}
@@ -232,11 +232,14 @@ public class CollaborativeTextHelperTest {
                     "additions size mismatch for submission " + submission.getSubmissionId());
         }
 
-        // Verify storyDAO.createStory was called for each winning submission
-        ArgumentCaptor<Story> storyCaptor = ArgumentCaptor.forClass(Story.class);
-        verify(storyDAO, times(gameSession.getPlayers().size())).createStory(storyCaptor.capture());
-
-        List<Story> createdStories = storyCaptor.getAllValues();
+        // Verify one story per player was created in a single bulk write with the board
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Story>> storiesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(storyDAO).createStories(eq(gameCode), storiesCaptor.capture(), eq(gameSession.getGameBoard()));
+        verify(storyDAO, never()).createStory(any());
+        verify(gameSessionDAO, never()).updateDungeonGrid(anyString(), any());
+
+        List<Story> createdStories = storiesCaptor.getValue();
         assertEquals(gameSession.getPlayers().size(), createdStories.size(),
                 "Should have " + gameSession.getPlayers().size() + " stories created via StoryDAO");
 
@@ -454,13 +457,15 @@ public class CollaborativeTextHelperTest {
         // Assert - every created Story's assigned player should actually have selected that
         // story's location. This is the exact invariant that broke in the real play test: Andy's
         // Beard's selectedLocationId didn't match the location of the story he was assigned.
-        ArgumentCaptor<Story> storyCaptor = ArgumentCaptor.forClass(Story.class);
-        verify(storyDAO, times(numPlayers)).createStory(storyCaptor.capture());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Story>> storiesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(storyDAO).createStories(eq("TESTCODE"), storiesCaptor.capture(), any());
+        assertEquals(numPlayers, storiesCaptor.getValue().size());
 
         Map<String, Player> playersById = players.stream()
                 .collect(Collectors.toMap(Player::getAuthorId, p -> p));
 
-        for (Story story : storyCaptor.getAllValues()) {
+        for (Story story : storiesCaptor.getValue()) {
             Player assignedPlayer = playersById.get(story.getPlayerId());
             assertNotNull(assignedPlayer, "Story assigned to unknown player id: " + story.getPlayerId());
 
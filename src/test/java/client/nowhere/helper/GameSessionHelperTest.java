@@ -73,6 +73,9 @@ public class GameSessionHelperTest {
     @Mock
     private ActiveSessionDAO activeSessionDAO;
 
+    @Mock
+    private GameCodePool gameCodePool;
+
     // Use real OutcomeTypeHelper for distribution logic
     private final OutcomeTypeHelper outcomeTypeHelper = new OutcomeTypeHelper();
 
@@ -93,7 +96,7 @@ public class GameSessionHelperTest {
         // Construct GameSessionHelper with real CollaborativeTextHelper
         gameSessionHelper = new GameSessionHelper(
                 gameSessionDAO, adventureMapDAO, storyDAO, endingDAO,
-                userProfileHelper, featureFlagHelper, collaborativeTextHelper
+                userProfileHelper, featureFlagHelper, collaborativeTextHelper, gameCodePool
         );
     }
 
@@ -0,0 +1,150 @@
+package client.nowhere.helper;
+
+import client.nowhere.dao.GameMutationExecutor;
+import client.nowhere.dao.GameSessionSnapshot;
+import client.nowhere.exception.GameStateException;
+import client.nowhere.exception.ResourceException;
+import client.nowhere.model.GameSession;
+import client.nowhere.model.GameState;
+import client.nowhere.model.PhaseTransitionState;
+import client.nowhere.model.PhaseTransitionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PhaseTransitionPipelineTest {
+
+    private static final String GAME_CODE = "ABC123";
+
+    private final GameSessionHelper gameSessionHelper = mock(GameSessionHelper.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GameMutationExecutor gameMutationExecutor = new GameMutationExecutor(meterRegistry, 64, 2000);
+    private PhaseTransitionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new PhaseTransitionPipeline(gameSessionHelper, gameMutationExecutor, meterRegistry, 3, 0, 3600000);
+        when(gameSessionHelper.getGame(GAME_CODE)).thenReturn(game(GameState.WHERE_ARE_WE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameMutationExecutor.close();
+    }
+
+    @Test
+    void testRepeatedRequestsMoveTheGameOnce() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(gameSessionHelper.updateToNextGameState(GAME_CODE)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return game(GameState.WHERE_ARE_WE_VOTE);
+        });
+
+        PhaseTransitionStatus first = pipeline.request(GAME_CODE, GameState.WHERE_ARE_WE);
+        assertEquals(PhaseTransitionState.QUEUED, first.state());
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertEquals(PhaseTransitionState.RUNNING, pipeline.request(GAME_CODE, GameState.WHERE_ARE_WE).state());
+        release.countDown();
+
+        PhaseTransitionStatus finished = awaitFinished();
+        assertEquals(PhaseTransitionState.COMPLETED, finished.state());
+        assertEquals(GameState.WHERE_ARE_WE_VOTE, finished.toState());
+        verify(gameSessionHelper, times(1)).updateToNextGameState(GAME_CODE);
+        assertEquals(1, meterRegistry.get("nowhere.phase-transitions").tag("fromState", "WHERE_ARE_WE").timer().count());
+    }
+
+    @Test
+    void testGameThatAlreadyMovedOnIsSkipped() throws Exception {
+        when(gameSessionHelper.getGame(GAME_CODE)).thenReturn(game(GameState.WHERE_ARE_WE_VOTE));
+
+        pipeline.request(GAME_CODE, GameState.WHERE_ARE_WE);
+
+        assertEquals(PhaseTransitionState.SKIPPED, awaitFinished().state());
+        verify(gameSessionHelper, never()).updateToNextGameState(GAME_CODE);
+    }
+
+    @Test
+    void testFailedAttemptsAreRetried() throws Exception {
+        when(gameSessionHelper.updateToNextGameState(GAME_CODE))
+                .thenThrow(new ResourceException("Firestore unavailable"))
+                .thenReturn(game(GameState.WHERE_ARE_WE_VOTE));
+
+        pipeline.request(GAME_CODE, GameState.WHERE_ARE_WE);
+
+        PhaseTransitionStatus finished = awaitFinished();
+        assertEquals(PhaseTransitionState.COMPLETED, finished.state());
+        assertEquals(2, finished.attempts());
+    }
+
+    @Test
+    void testAttemptThatFailedAfterWritingIsNotRetried() throws Exception {
+        when(gameSessionHelper.updateToNextGameState(GAME_CODE)).thenAnswer(invocation -> {
+            // The stories of the next phase are written before the board write fails
+            GameSessionSnapshot.refresh(GAME_CODE);
+            throw new ResourceException("There was an issue updating the dungeon grid");
+        });
+
+        pipeline.request(GAME_CODE, GameState.WHERE_ARE_WE);
+
+        PhaseTransitionStatus finished = awaitFinished();
+        assertEquals(PhaseTransitionState.FAILED, finished.state());
+        assertEquals(1, finished.attempts());
+        assertEquals("There was an issue updating the dungeon grid", finished.error());
+        verify(gameSessionHelper, times(1)).updateToNextGameState(GAME_CODE);
+    }
+
+    @Test
+    void testFailedReadIsRetriedRatherThanSkipped() throws Exception {
+        when(gameSessionHelper.getGame(GAME_CODE))
+                .thenReturn(new GameSession())
+                .thenReturn(game(GameState.WHERE_ARE_WE));
+        when(gameSessionHelper.updateToNextGameState(GAME_CODE)).thenReturn(game(GameState.WHERE_ARE_WE_VOTE));
+
+        pipeline.request(GAME_CODE, GameState.WHERE_ARE_WE);
+
+        PhaseTransitionStatus finished = awaitFinished();
+        assertEquals(PhaseTransitionState.COMPLETED, finished.state());
+        assertEquals(2, finished.attempts());
+    }
+
+    @Test
+    void testGameStateErrorsAreNotRetried() throws Exception {
+        when(gameSessionHelper.updateToNextGameState(GAME_CODE)).thenThrow(new GameStateException("Some players are still working on their character!"));
+
+        pipeline.request(GAME_CODE, GameState.WHERE_ARE_WE);
+
+        PhaseTransitionStatus finished = awaitFinished();
+        assertEquals(PhaseTransitionState.FAILED, finished.state());
+        assertEquals(1, finished.attempts());
+        assertEquals("Some players are still working on their character!", finished.error());
+    }
+
+    private PhaseTransitionStatus awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            PhaseTransitionStatus status = pipeline.getStatus(GAME_CODE);
+            if (status != null && (status.state() == PhaseTransitionState.COMPLETED
+                    || status.state() == PhaseTransitionState.SKIPPED || status.state() == PhaseTransitionState.FAILED)) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        fail("The transition did not finish");
+        return null;
+    }
+
+    private static GameSession game(GameState gameState) {
+        GameSession gameSession = new GameSession(GAME_CODE);
+        gameSession.setGameState(gameState);
+        return gameSession;
+    }
+}
@@ -0,0 +1,73 @@
+package client.nowhere.helper;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import client.nowhere.dao.UserProfileDAO;
+import client.nowhere.exception.ValidationException;
+import client.nowhere.model.SessionToken;
+import client.nowhere.model.UserProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SessionHelperTest {
+
+    private final UserProfileDAO userProfileDAO = mock(UserProfileDAO.class);
+    private final SessionHelper sessionHelper = new SessionHelper(userProfileDAO, "test-secret", 60, 1, 4);
+
+    @AfterEach
+    void tearDown() {
+        sessionHelper.close();
+    }
+
+    @Test
+    void testLoginIssuesATokenForTheProfile() {
+        UserProfile userProfile = profile("correct horse");
+        when(userProfileDAO.getByEmail("player@example.com")).thenReturn(userProfile);
+
+        SessionToken token = sessionHelper.login("player@example.com", "correct horse");
+
+        assertEquals(userProfile.getId(), token.userProfileId());
+        assertEquals(userProfile.getId(), sessionHelper.authenticate("Bearer " + token.token()));
+        assertEquals(userProfile.getId(), sessionHelper.authenticate(token.token()));
+    }
+
+    @Test
+    void testWrongPasswordIsRejected() {
+        when(userProfileDAO.getByEmail("player@example.com")).thenReturn(profile("correct horse"));
+
+        ValidationException thrown = assertThrows(ValidationException.class,
+                () -> sessionHelper.login("player@example.com", "battery staple"));
+
+        assertEquals("Incorrect Password", thrown.getMessage());
+    }
+
+    @Test
+    void testTamperedTokensAreRejected() {
+        String token = sessionHelper.issue("alice").token();
+        String forged = new SessionHelper(userProfileDAO, "another-secret", 60, 1, 4).issue("mallory").token();
+        String swappedPayload = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertThrows(ValidationException.class, () -> sessionHelper.authenticate(forged));
+        assertThrows(ValidationException.class, () -> sessionHelper.authenticate(swappedPayload));
+        assertThrows(ValidationException.class, () -> sessionHelper.authenticate("not-a-token"));
+        assertThrows(ValidationException.class, () -> sessionHelper.authenticate("Bearer "));
+    }
+
+    @Test
+    void testExpiredTokensAreRejected() {
+        SessionHelper expiringHelper = new SessionHelper(userProfileDAO, "test-secret", 0, 1, 4);
+        String token = expiringHelper.issue("alice").token();
+
+        ValidationException thrown = assertThrows(ValidationException.class, () -> sessionHelper.authenticate(token));
+        assertEquals("Session expired, please log in again", thrown.getMessage());
+        expiringHelper.close();
+    }
+
+    private static UserProfile profile(String password) {
+        // A low cost keeps the test fast; verification reads the cost from the hash
+        return new UserProfile("player@example.com", BCrypt.withDefaults().hashToString(4, password.toCharArray()));
+    }
+}
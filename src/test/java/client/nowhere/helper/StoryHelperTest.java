@@ -67,9 +67,9 @@ class StoryHelperTest {
                         .map(DefaultLocation::getLocation).collect(Collectors.toList())
         );
 
-        when(gameSessionDAO.runInTransaction(any())).thenAnswer(invocation -> {
+        when(gameSessionDAO.runInTransaction(eq(gameCode), any())).thenAnswer(invocation -> {
             @SuppressWarnings("unchecked")
-            Transaction.Function<Story> function = invocation.getArgument(0);
+            Transaction.Function<Story> function = invocation.getArgument(1);
             return function.updateCallback(mock(Transaction.class));
         });
 
@@ -85,9 +85,7 @@ class StoryHelperTest {
         assertEquals(gameCode, result.getGameCode());
         assertEquals(locationId, result.getLocation().getId());
 
-        List<Story> expectedUpdatedStories = mockGameSession.getStories();
-        expectedUpdatedStories.add(result);
-        verify(gameSessionDAO).updateStoriesInTransaction(eq(gameCode), eq(expectedUpdatedStories), any());
+        verify(gameSessionDAO).createStoryInTransaction(eq(gameCode), eq(result), any());
     }
 
     @ParameterizedTest
@@ -120,8 +118,8 @@ class StoryHelperTest {
                 .map(DefaultLocation::getLocation).collect(Collectors.toList())
         );
 
-        when(gameSessionDAO.runInTransaction(any())).thenAnswer(invocation -> {
-            Transaction.Function<Story> function = invocation.getArgument(0);
+        when(gameSessionDAO.runInTransaction(eq(gameCode), any())).thenAnswer(invocation -> {
+            Transaction.Function<Story> function = invocation.getArgument(1);
             return function.updateCallback(mock(Transaction.class));
         });
 
@@ -189,9 +187,7 @@ class StoryHelperTest {
             verify(userProfileDAO).getRegularSaveGameStories(mockGameSession, locationId);
         }
         assertEquals("1", result.getLocation().getId());
-        List<Story> expectedUpdatedStories = new ArrayList<>(gameSessionStories);
-        expectedUpdatedStories.add(result);
-        verify(gameSessionDAO).updateStoriesInTransaction(eq(gameCode), eq(expectedUpdatedStories), any());
+        verify(gameSessionDAO).createStoryInTransaction(eq(gameCode), eq(result), any());
     }
 
     static Stream<Arguments> provideSequelStoryScenarios() {
@@ -20,7 +20,9 @@ import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -95,7 +97,7 @@ public class VotingHelperTest {
         Encounter encounterAtCoords = gameSession.getGameBoard().getEncounterAtPlayerCoordinates();
 
         // Mock the game session DAO
-        when(gameSessionDAO.getGame(gameCode)).thenReturn(gameSession);
+        when(gameSessionDAO.getCachedGame(gameCode)).thenReturn(gameSession);
 
         System.out.println("=== Testing coordinates (" + xCoordinate + ", " + yCoordinate + ") ===");
         System.out.println("Story at coordinates: " + (storyAtCoords != null ? storyAtCoords.getPrompt().substring(0, Math.min(50, storyAtCoords.getPrompt().length())) + "..." : "null"));
@@ -169,7 +171,7 @@ public class VotingHelperTest {
         GameSession gameSession = TestJsonLoader.loadGameSessionFromJson("MAKE_CHOICE_VOTING_START.json");
         String gameCode = gameSession.getGameCode();
 
-        when(gameSessionDAO.getGame(gameCode)).thenReturn(gameSession);
+        when(gameSessionDAO.getCachedGame(gameCode)).thenReturn(gameSession);
 
         System.out.println("=== All Players Iteration Test ===");
         System.out.println("Game Code: " + gameCode);
@@ -216,7 +218,7 @@ public class VotingHelperTest {
         String gameCode = gameSession.getGameCode();
         String phaseId = GameState.MAKE_CHOICE_VOTING.name();
 
-        when(gameSessionDAO.getGame(gameCode)).thenReturn(gameSession);
+        when(gameSessionDAO.getCachedGame(gameCode)).thenReturn(gameSession);
 
         // Get the story at current coordinates
         Story currentStory = gameSession.getStoryAtCurrentPlayerCoordinates();
@@ -245,6 +247,44 @@ public class VotingHelperTest {
         }
     }
 
+    @Test
+    void testLabellingSubmissionsLeavesTheCachedSessionAlone() throws IOException {
+        GameSession gameSession = TestJsonLoader.loadGameSessionFromJson("HOW_DOES_THIS_RESOLVE_AGAIN_ROUND2.json");
+        gameSession.setGameState(GameState.MAKE_CHOICE_VOTING);
+        PlayerCoordinates coords = new PlayerCoordinates();
+        coords.setxCoordinate(8);
+        coords.setyCoordinate(0);
+        gameSession.getGameBoard().setPlayerCoordinates(coords);
+        String gameCode = gameSession.getGameCode();
+        when(gameSessionDAO.getCachedGame(gameCode)).thenReturn(gameSession);
+
+        List<TextSubmission> cached = gameSession.getCollaborativeTextPhase(GameState.MAKE_CHOICE_VOTING.name()).getSubmissions();
+        Map<String, String> cachedLabels = labels(cached);
+        String firstPlayerId = "b1b5419b-2e73-445d-aa13-207ee65a11d8";
+        String secondPlayerId = "d4d652c8-c16f-4d3e-9f22-b7a0a2993117";
+
+        Map<String, String> firstPlayerLabels = labels(votingHelper.getVotingSubmissionsForPlayer(gameCode, firstPlayerId));
+        Map<String, String> secondPlayerLabels = labels(votingHelper.getVotingSubmissionsForPlayer(gameCode, secondPlayerId));
+
+        assertFalse(firstPlayerLabels.isEmpty());
+        assertFalse(secondPlayerLabels.isEmpty());
+        assertEquals(firstPlayerLabels, labels(votingHelper.getVotingSubmissionsForPlayer(gameCode, firstPlayerId)));
+        assertEquals(secondPlayerLabels, labels(votingHelper.getVotingSubmissionsForPlayer(gameCode, secondPlayerId)));
+        assertEquals(cachedLabels, labels(cached));
+    }
+
+    /**
+     * Each submission's label and sub types, by submission id.
+     */
+    private static Map<String, String> labels(List<TextSubmission> submissions) {
+        Map<String, String> labels = new HashMap<>();
+        for (TextSubmission submission : submissions) {
+            OutcomeType label = submission.getOutcomeTypeWithLabel();
+            labels.put(submission.getSubmissionId(), label.getId() + " " + label.getSubTypes().stream().map(OutcomeType::getId).toList());
+        }
+        return labels;
+    }
+
     @ParameterizedTest(name = "{0}")
     @MethodSource("provideMakeChoiceVotingScenarios")
     void testNonActivePlayersSetToDone() throws IOException {
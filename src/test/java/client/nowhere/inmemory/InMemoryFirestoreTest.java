@@ -0,0 +1,138 @@
+package client.nowhere.inmemory;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryFirestoreTest {
+
+    private InMemoryDocumentStore store;
+    private Firestore db;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryDocumentStore();
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> InMemoryFirestoreRpc.create(store, 0))
+                .build()
+                .getService();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        db.close();
+    }
+
+    @Test
+    void testSetThenGet() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        game.set(Map.of("gameCode", "ABC123", "roundNumber", 1)).get();
+
+        DocumentSnapshot snapshot = game.get().get();
+
+        assertTrue(snapshot.exists());
+        assertEquals("ABC123", snapshot.getString("gameCode"));
+        assertEquals(1L, snapshot.getLong("roundNumber"));
+        assertFalse(db.collection("gameSessions").document("XYZ789").get().get().exists());
+    }
+
+    @Test
+    void testUpdateWritesOnlyTheGivenFieldPaths() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        game.set(Map.of("gameCode", "ABC123", "gameBoard", Map.of("name", "Forest", "size", 3))).get();
+
+        game.update("gameBoard.name", "Desert", "players", FieldValue.arrayUnion("player1")).get();
+        game.update("players", FieldValue.arrayUnion("player1", "player2")).get();
+
+        DocumentSnapshot snapshot = game.get().get();
+        assertEquals("Desert", snapshot.getString("gameBoard.name"));
+        assertEquals(3L, snapshot.getLong("gameBoard.size"));
+        assertEquals(List.of("player1", "player2"), snapshot.get("players"));
+    }
+
+    @Test
+    void testFieldMaskReadReturnsOnlyTheRequestedFields() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        game.set(Map.of("gameCode", "ABC123", "gameState", "WRITE_PROMPTS")).get();
+
+        DocumentSnapshot snapshot = game.get(FieldMask.of("gameState")).get();
+
+        assertEquals("WRITE_PROMPTS", snapshot.getString("gameState"));
+        assertFalse(snapshot.contains("gameCode"));
+    }
+
+    @Test
+    void testUpdateOfMissingDocumentFails() {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+
+        assertThrows(Exception.class, () -> game.update("gameState", "WRITE_PROMPTS").get());
+    }
+
+    @Test
+    void testContendedTransactionsAreRetried() throws Exception {
+        DocumentReference counter = db.collection("counters").document("votes");
+        counter.set(Map.of("count", 0)).get();
+
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                results.add(executor.submit(() -> db.runTransaction(transaction -> {
+                    long count = transaction.get(counter).get().getLong("count");
+                    transaction.update(counter, "count", count + 1);
+                    return null;
+                }).get(10, TimeUnit.SECONDS)));
+            }
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(writers, counter.get().get().getLong("count"));
+    }
+
+    @Test
+    void testWhereEqualToAndWhereInQueries() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        game.collection("players").document("p1").set(Map.of("authorId", "p1", "position", 2)).get();
+        game.collection("players").document("p2").set(Map.of("authorId", "p2", "position", 1)).get();
+        game.collection("players").document("p3").set(Map.of("authorId", "p3", "position", 3)).get();
+        db.collection("gameSessions").document("XYZ789").collection("players").document("p1")
+                .set(Map.of("authorId", "p1", "position", 1)).get();
+
+        List<QueryDocumentSnapshot> equalTo = game.collection("players").whereEqualTo("authorId", "p1").get().get().getDocuments();
+        List<String> whereIn = game.collection("players")
+                .whereIn("authorId", List.of("p1", "p2"))
+                .orderBy("position")
+                .get().get().getDocuments().stream()
+                .map(QueryDocumentSnapshot::getId)
+                .toList();
+
+        assertEquals(1, equalTo.size());
+        assertEquals(game.collection("players").document("p1").getPath(), equalTo.get(0).getReference().getPath());
+        assertEquals(List.of("p2", "p1"), whereIn);
+    }
+}
@@ -0,0 +1,108 @@
+package client.nowhere.metrics;
+
+import client.nowhere.dao.GameSessionSnapshot;
+import client.nowhere.inmemory.InMemoryDocumentStore;
+import client.nowhere.inmemory.InMemoryFirestoreRpc;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MeteredFirestoreRpcTest {
+
+    private static final String ENDPOINT = "PUT /game";
+
+    private SimpleMeterRegistry meterRegistry;
+    private Firestore db;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        db = FirestoreOptions.newBuilder()
+                .setProjectId("nowhere-local")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(options -> MeteredFirestoreRpc.wrap(InMemoryFirestoreRpc.create(new InMemoryDocumentStore(), 0), meterRegistry))
+                .build()
+                .getService();
+    }
+
+    @Test
+    void testReadsAndWritesAreTaggedWithTheEndpointAndDao() throws Exception {
+        DocumentReference story = db.collection("gameSessions").document("ABC123").collection("stories").document("s1");
+
+        try (GameSessionSnapshot ignored = GameSessionSnapshot.open(() -> ENDPOINT)) {
+            DaoCall outer = DaoCall.enter("StoryDAO.createStory");
+            try {
+                story.set(Map.of("prompt", "What happens here?")).get();
+                assertTrue(story.get().get().exists());
+                assertTrue(db.collection("gameSessions").document("ABC123").collection("players").get().get().isEmpty());
+            } finally {
+                DaoCall.exit(outer);
+            }
+        }
+
+        assertEquals(1.0, documents("write", "stories"));
+        assertEquals(1.0, documents("read", "stories"));
+        // A query matching nothing is still billed one read
+        assertEquals(1.0, documents("read", "players"));
+        assertTrue(meterRegistry.get("nowhere.firestore.document.size").tag("collection", "stories").summary().totalAmount() > 0);
+        assertEquals(1, meterRegistry.get("nowhere.firestore.rpc").tag("operation", "commit").tag("endpoint", ENDPOINT).timer().count());
+    }
+
+    @Test
+    void testTransactionCallsKeepTheDaoCallThatStartedThem() throws Exception {
+        DocumentReference game = db.collection("gameSessions").document("ABC123");
+        game.set(Map.of("gameState", "INIT")).get();
+
+        try (GameSessionSnapshot ignored = GameSessionSnapshot.open(() -> ENDPOINT)) {
+            DaoCall outer = DaoCall.enter("GameSessionDAO.updateGameSession");
+            try {
+                db.runTransaction(transaction -> {
+                    transaction.get(game).get();
+                    transaction.update(game, "gameState", "START");
+                    return null;
+                }).get();
+            } finally {
+                DaoCall.exit(outer);
+            }
+        }
+
+        assertEquals(1.0, documents("read", "gameSessions"));
+        assertEquals(1.0, documents("write", "gameSessions"));
+        assertEquals(1.0, meterRegistry.get("nowhere.firestore.transactions")
+                .tag("attempt", "first").tag("dao", "GameSessionDAO.updateGameSession").counter().count());
+    }
+
+    @Test
+    void testCallsOutsideARequestAreTaggedNone() throws Exception {
+        db.collection("featureFlags").document("flag").set(Map.of("enabled", true)).get();
+
+        Counter writes = meterRegistry.get("nowhere.firestore.documents").tag("collection", "featureFlags").counter();
+        assertEquals(DaoCall.NONE, writes.getId().getTag("endpoint"));
+        assertEquals(DaoCall.NONE, writes.getId().getTag("dao"));
+        assertEquals(1.0, writes.count());
+    }
+
+    @Test
+    void testCollectionIsTheDocumentsParent() {
+        assertEquals("stories", MeteredFirestoreRpc.collection("projects/p/databases/(default)/documents/gameSessions/ABC123/stories/s1"));
+        assertEquals("gameSessions", MeteredFirestoreRpc.collection("projects/p/databases/(default)/documents/gameSessions/ABC123"));
+    }
+
+    private double documents(String operation, String collection) {
+        return meterRegistry.get("nowhere.firestore.documents")
+                .tag("operation", operation)
+                .tag("collection", collection)
+                .tag("endpoint", ENDPOINT)
+                .counter()
+                .count();
+    }
+}
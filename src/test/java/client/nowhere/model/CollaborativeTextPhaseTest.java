@@ -0,0 +1,80 @@
+package client.nowhere.model;
+
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CollaborativeTextPhaseTest {
+
+    @Test
+    void testAvailableSubmissionsSkipOwnLastContributedAndFullyViewed() {
+        CollaborativeTextPhase phase = new CollaborativeTextPhase("WHERE_ARE_WE", "Where are we?", PhaseType.SUBMISSION);
+        phase.addSubmission(submission("s1", "alice", 1));
+        phase.addSubmission(submission("s2", "bob", 2));
+        phase.addSubmission(submission("s3", "carol", 3));
+        TextSubmission branch = submission("s4", "dave", 4);
+        branch.addTextAddition(new TextAddition("a1", "dave", "and then", "s2", null));
+        phase.addSubmission(branch);
+        phase.recordSubmissionView("s3", "bob");
+        phase.recordSubmissionView("s3", "carol");
+
+        assertEquals(List.of("s1"), ids(phase.getAvailableSubmissionsForPlayer("dave", null)));
+        assertEquals(List.of("s4", "s2", "s1"), ids(phase.getAvailableSubmissionsForPlayer("erin", null, 5)));
+        assertEquals(List.of("s1", "s3", "s4"), ids(phase.getSubmissionsWithoutParentSubmissions()));
+        assertSame(branch, phase.getSubmissionById("s4"));
+        assertNull(phase.getSubmissionById("missing"));
+    }
+
+    @Test
+    void testLimitedAvailabilityMatchesSortingByViewsThenNewest() {
+        CollaborativeTextPhase phase = new CollaborativeTextPhase("WHERE_ARE_WE", "Where are we?", PhaseType.SUBMISSION);
+        for (int i = 0; i < 20; i++) {
+            // Pairs of submissions share a timestamp, so ties have to keep submission order
+            phase.addSubmission(submission("s" + i, "author" + (i % 3), (i * 7) % 10));
+        }
+        for (int i = 0; i < 20; i += 3) {
+            phase.recordSubmissionView("s" + i, "viewer");
+        }
+        phase.recordSubmissionView("s9", "other");
+
+        List<TextSubmission> expected = phase.getAvailableSubmissionsForPlayer("author0", List.of()).stream()
+                .sorted(Comparator
+                        .comparingInt((TextSubmission s) -> phase.getSubmissionViews().getOrDefault(s.getSubmissionId(), new ArrayList<>()).size())
+                        .thenComparing(TextSubmission::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(6)
+                .toList();
+
+        assertEquals(ids(expected), ids(phase.getAvailableSubmissionsForPlayer("author0", List.of(), 6)));
+    }
+
+    @Test
+    void testSubmissionsAddedOutsideAddSubmissionAreIndexed() {
+        CollaborativeTextPhase phase = new CollaborativeTextPhase("WHERE_ARE_WE", "Where are we?", PhaseType.SUBMISSION);
+        phase.addSubmission(submission("s1", "alice", 1));
+        assertNotNull(phase.getSubmissionById("s1"));
+
+        phase.getSubmissions().add(submission("s2", "bob", 2));
+        assertNotNull(phase.getSubmissionById("s2"));
+
+        phase.removeSubmissionById("s1");
+        assertNull(phase.getSubmissionById("s1"));
+
+        phase.resetAll();
+        assertNull(phase.getSubmissionById("s2"));
+    }
+
+    private TextSubmission submission(String submissionId, String authorId, int createdAtSeconds) {
+        TextSubmission submission = new TextSubmission(submissionId, authorId, "Text " + submissionId);
+        submission.setCreatedAt(Timestamp.ofTimeSecondsAndNanos(createdAtSeconds, 0));
+        return submission;
+    }
+
+    private List<String> ids(List<TextSubmission> submissions) {
+        return submissions.stream().map(TextSubmission::getSubmissionId).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package client.nowhere.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSessionIndexTest {
+
+    @Test
+    void testLookupsByStoryPlayerAndLocationId() {
+        GameSession gameSession = gameSession();
+        GameSessionIndex index = gameSession.getIndex();
+
+        assertEquals("Prompt 1", index.getStory("story-1").getPrompt());
+        assertEquals("player-2", index.getPlayer("player-2").getAuthorId());
+        assertEquals(2, index.getPlayerCount());
+        assertEquals("The Forest", index.getLocation("forest").getLabel());
+        assertEquals(List.of("story-1", "story-2"), index.getStoriesByPlayer("player-1").stream().map(Story::getStoryId).toList());
+        assertNull(index.getStory("missing"));
+        assertNull(index.getPlayer(null));
+        assertTrue(index.getStoriesByPlayer("player-2").isEmpty());
+    }
+
+    @Test
+    void testStoryAtCurrentPlayerCoordinatesUsesTheEncounterStory() {
+        GameSession gameSession = gameSession();
+        gameSession.getGameBoard().setPlayerCoordinates(new PlayerCoordinates(0, 0));
+        gameSession.getGameBoard().setEncounter(0, 0, new Encounter(new EncounterLabel("Cave"), EncounterType.NORMAL, "story-2", "Prompt 2"));
+
+        assertEquals("story-2", gameSession.getStoryAtCurrentPlayerCoordinates().getStoryId());
+    }
+
+    @Test
+    void testIndexIsRebuiltWhenAListIsReplacedOrGrows() {
+        GameSession gameSession = gameSession();
+        GameSessionIndex index = gameSession.getIndex();
+        assertSame(index, gameSession.getIndex());
+
+        gameSession.getStories().add(story("story-3", "player-3", ""));
+        assertEquals("story-3", gameSession.getIndex().getStory("story-3").getStoryId());
+
+        gameSession.setPlayers(new ArrayList<>(List.of(player("player-9"))));
+        assertNull(gameSession.getIndex().getPlayer("player-1"));
+        assertNotNull(gameSession.getIndex().getPlayer("player-9"));
+    }
+
+    @Test
+    void testIndexIsNotSerialized() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(gameSession());
+
+        assertFalse(json.contains("\\"index\\""));
+    }
+
+    private GameSession gameSession() {
+        GameSession gameSession = new GameSession("ABC123");
+        gameSession.setPlayers(new ArrayList<>(List.of(player("player-1"), player("player-2"))));
+        gameSession.setStories(new ArrayList<>(List.of(
+                story("story-1", "player-1", ""),
+                story("story-2", "player-1", "story-1")
+        )));
+        gameSession.getAdventureMap().setLocations(new ArrayList<>(List.of(new Location("forest", "The Forest"))));
+        return gameSession;
+    }
+
+    private Player player(String authorId) {
+        Player player = new Player("ABC123", authorId);
+        player.setAuthorId(authorId);
+        return player;
+    }
+
+    private Story story(String storyId, String authorId, String prequelStoryId) {
+        Story story = new Story();
+        story.setStoryId(storyId);
+        story.setAuthorId(authorId);
+        story.setPlayerId(authorId);
+        story.setPrequelStoryId(prequelStoryId);
+        story.setPrompt("Prompt " + storyId.substring("story-".length()));
+        return story;
+    }
+}
@@ -0,0 +1,85 @@
+package client.nowhere.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VoteTallyTest {
+
+    @Test
+    void shouldScoreVotesByRanking() {
+        CollaborativeTextPhase phase = new CollaborativeTextPhase("WHERE_ARE_WE", "Where are we?", PhaseType.VOTING);
+        phase.addPlayerVote(new PlayerVote("v1", "p1", "s1", 1));
+        phase.addPlayerVote(new PlayerVote("v2", "p2", "s1", 3));
+        phase.addPlayerVote(new PlayerVote("v3", "p2", "s2", 7));
+
+        VoteTally tally = phase.getVoteTally();
+
+        assertEquals(2, tally.getVotes("s1"));
+        assertEquals(8, tally.getPoints("s1"));
+        assertEquals(1, tally.getPoints("s2"));
+        assertEquals(0, tally.getVotes("s3"));
+    }
+
+    @Test
+    void shouldKeepTallyCurrentAsVotesAreAdded() {
+        CollaborativeTextPhase phase = new CollaborativeTextPhase("WHERE_ARE_WE", "Where are we?", PhaseType.VOTING);
+        phase.addPlayerVote(new PlayerVote("v1", "p1", "s1", 2));
+        VoteTally tally = phase.getVoteTally();
+
+        phase.addPlayerVote(new PlayerVote("v2", "p2", "s1", 1));
+
+        assertSame(tally, phase.getVoteTally());
+        assertEquals(9, tally.getPoints("s1"));
+
+        phase.resetVotes();
+        assertEquals(0, phase.getVoteTally().getVotes("s1"));
+    }
+
+    @Test
+    void shouldPickTopSubmissionsKeepingSubmissionOrderOnTies() {
+        TextSubmission first = new TextSubmission("s1", "p1", "first");
+        TextSubmission second = new TextSubmission("s2", "p2", "second");
+        TextSubmission third = new TextSubmission("s3", "p3", "third");
+        TextSubmission unvoted = new TextSubmission("s4", "p4", "unvoted");
+        VoteTally tally = VoteTally.of(Map.of(
+                "p1", List.of(new PlayerVote("v1", "p1", "s2", 2), new PlayerVote("v2", "p1", "s3", 1)),
+                "p2", List.of(new PlayerVote("v3", "p2", "s1", 2))
+        ));
+
+        List<TextSubmission> withVotes = tally.applyTo(List.of(first, second, third, unvoted));
+
+        assertEquals(List.of(first, second, third), withVotes);
+        assertEquals(0, unvoted.getTotalVotes());
+        assertEquals(List.of(third, first), VoteTally.top(withVotes, 2));
+        assertEquals(List.of(third, first, second), VoteTally.top(withVotes, 10));
+        assertEquals(List.of(third), VoteTally.top(withVotes, 1));
+    }
+
+    @Test
+    void shouldPickBestSubmissionPerOutcomeType() {
+        TextSubmission success = submission("s1", "success");
+        TextSubmission betterSuccess = submission("s2", "success");
+        TextSubmission failure = submission("s3", "failure");
+        TextSubmission untyped = submission("s4", "");
+        VoteTally tally = VoteTally.of(Map.of("p1", List.of(
+                new PlayerVote("v1", "p1", "s1", 3),
+                new PlayerVote("v2", "p1", "s2", 1),
+                new PlayerVote("v3", "p1", "s3", 4),
+                new PlayerVote("v4", "p1", "s4", 1)
+        )));
+
+        List<TextSubmission> winners = VoteTally.bestPerOutcomeType(tally.applyTo(List.of(success, betterSuccess, failure, untyped)));
+
+        assertEquals(List.of(betterSuccess, failure), winners);
+    }
+
+    private static TextSubmission submission(String submissionId, String outcomeType) {
+        TextSubmission submission = new TextSubmission(submissionId, "author", "text");
+        submission.setOutcomeType(outcomeType);
+        return submission;
+    }
+}
@@ -0,0 +1,52 @@
+package client.nowhere.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameOwnershipTest {
+
+    @Test
+    void testSingleInstanceOwnsEveryGame() {
+        GameOwnership ownership = new GameOwnership(new StaticClusterMembership("http://a:8080", ""));
+
+        assertTrue(ownership.isLocal("ABC123"));
+        assertEquals("http://a:8080", ownership.ownerOf("XYZ789"));
+    }
+
+    @Test
+    void testGamesAreSpreadAcrossMembers() {
+        GameOwnership ownership = new GameOwnership(new InMemoryClusterMembership("http://a", "http://a", "http://b", "http://c"));
+
+        Map<String, Integer> gamesPerMember = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            gamesPerMember.merge(ownership.ownerOf("GAME" + i), 1, Integer::sum);
+        }
+
+        assertEquals(3, gamesPerMember.size());
+        gamesPerMember.values().forEach(games -> assertTrue(games > 700, "Uneven spread: " + gamesPerMember));
+    }
+
+    @Test
+    void testOnlyTheLeavingMembersGamesMove() {
+        InMemoryClusterMembership membership = new InMemoryClusterMembership("http://a", "http://a", "http://b", "http://c");
+        GameOwnership ownership = new GameOwnership(membership);
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            before.put("GAME" + i, ownership.ownerOf("GAME" + i));
+        }
+
+        membership.leave("http://c");
+
+        before.forEach((gameCode, owner) -> {
+            if (!owner.equals("http://c")) {
+                assertEquals(owner, ownership.ownerOf(gameCode), gameCode + " moved although its owner stayed");
+            } else {
+                assertNotEquals("http://c", ownership.ownerOf(gameCode));
+            }
+        });
+    }
+}
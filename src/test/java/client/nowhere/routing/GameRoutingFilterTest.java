@@ -0,0 +1,148 @@
+package client.nowhere.routing;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRoutingFilterTest {
+
+    private HttpServer owner;
+    private String ownerUrl;
+    private final List<String> ownerRequests = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            ownerRequests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " + body
+                    + " from " + exchange.getRequestHeaders().getFirst(GameRoutingFilter.FORWARDED_BY_HEADER));
+            byte[] response = "{\"servedBy\":\"owner\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(201, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        owner.start();
+        ownerUrl = "http://localhost:" + owner.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        owner.stop(0);
+    }
+
+    @Test
+    void testRequestsForAnotherInstancesGameAreForwarded() throws Exception {
+        GameRoutingFilter filter = new GameRoutingFilter(new GameOwnership(new InMemoryClusterMembership("http://self", ownerUrl)), 5000);
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/story");
+        request.addHeader(GameRoutingFilter.GAME_CODE_HEADER, "ABC123");
+        request.setContent("{\"storyId\":\"s1\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest(), "The request should not have been served locally");
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"servedBy\":\"owner\"}", response.getContentAsString());
+        assertEquals(List.of("PUT /story {\"storyId\":\"s1\"} from http://self"), ownerRequests);
+    }
+
+    @Test
+    void testOwnGamesAndForwardedRequestsAreServedLocally() throws Exception {
+        GameRoutingFilter filter = new GameRoutingFilter(new GameOwnership(new InMemoryClusterMembership("http://self", "http://self")), 5000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/game");
+        request.setParameter("gameCode", "ABC123");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertSame(request, chain.getRequest());
+
+        GameRoutingFilter forwardingFilter = new GameRoutingFilter(new GameOwnership(new InMemoryClusterMembership("http://self", ownerUrl)), 5000);
+        MockHttpServletRequest forwarded = new MockHttpServletRequest("GET", "/game");
+        forwarded.setParameter("gameCode", "ABC123");
+        forwarded.addHeader(GameRoutingFilter.FORWARDED_BY_HEADER, ownerUrl);
+        MockFilterChain forwardedChain = new MockFilterChain();
+        forwardingFilter.doFilter(forwarded, new MockHttpServletResponse(), forwardedChain);
+        assertSame(forwarded, forwardedChain.getRequest());
+        assertTrue(ownerRequests.isEmpty());
+    }
+
+    @Test
+    void testForwardedByHeaderFromOutsideTheClusterIsIgnored() throws Exception {
+        GameRoutingFilter filter = new GameRoutingFilter(new GameOwnership(new InMemoryClusterMembership("http://self", ownerUrl)), 5000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/game");
+        request.setParameter("gameCode", "ABC123");
+        request.addHeader(GameRoutingFilter.FORWARDED_BY_HEADER, "http://elsewhere");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNull(chain.getRequest(), "The request should not have been served locally");
+        assertEquals(List.of("GET /game?gameCode=ABC123  from http://self"), ownerRequests);
+    }
+
+    @Test
+    void testGameCodeIsReadFromAJsonBody() throws Exception {
+        GameRoutingFilter filter = new GameRoutingFilter(new GameOwnership(new InMemoryClusterMembership("http://self", ownerUrl)), 5000);
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/activePlayerSession");
+        request.setContentType("application/json");
+        request.setContent("{\"gameCode\":\"ABC123\",\"playerId\":\"p1\"}".getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNull(chain.getRequest(), "The request should not have been served locally");
+        assertEquals(List.of("PUT /activePlayerSession {\"gameCode\":\"ABC123\",\"playerId\":\"p1\"} from http://self"), ownerRequests);
+    }
+
+    @Test
+    void testMixedCaseGameCodesAreRoutedLikeTheirUpperCaseForm() throws Exception {
+        GameOwnership ownership = new GameOwnership(new InMemoryClusterMembership("http://self", "http://self", ownerUrl));
+        // A code the other member owns whose lower case form would hash to this instance
+        String gameCode = null;
+        for (int i = 0; gameCode == null; i++) {
+            String candidate = "AB" + i;
+            if (ownership.ownerOf(candidate).equals(ownerUrl) && ownership.isSelf(ownership.ownerOf(candidate.toLowerCase()))) {
+                gameCode = candidate;
+            }
+        }
+        GameRoutingFilter filter = new GameRoutingFilter(ownership, 5000);
+        String body = "{\"gameCode\":\"" + gameCode.toLowerCase() + "\",\"userName\":\"Ash\"}";
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/player");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNull(chain.getRequest(), "The request should not have been served locally");
+        assertEquals(List.of("POST /player " + body + " from http://self"), ownerRequests);
+    }
+
+    @Test
+    void testUnreachableOwnerFallsBackToServingLocally() throws Exception {
+        owner.stop(0);
+        GameRoutingFilter filter = new GameRoutingFilter(new GameOwnership(new InMemoryClusterMembership("http://self", ownerUrl)), 5000);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/collaborativeText");
+        request.setParameter("gameCode", "ABC123");
+        request.setContent("{\"text\":\"hello\"}".getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals("{\"text\":\"hello\"}", new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+}